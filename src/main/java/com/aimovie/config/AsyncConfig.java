@@ -11,23 +11,20 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
 
-    @Bean(name = "videoProcessingExecutor")
-    public Executor videoProcessingExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(4);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("VideoProcessing-");
-        executor.initialize();
-        return executor;
-    }
+    public static final String FFMPEG_EXECUTOR = "ffmpegExecutor";
 
-    @Bean(name = "ffmpegExecutor")
+    /**
+     * Runs the ad-hoc {@code @Async} encodes (single-rendition tests and admin tools) so they
+     * never occupy the application's shared async pool. Movie transcodes go through the
+     * durable job queue and its own worker pool instead. The queue is kept short on purpose:
+     * a burst is rejected rather than piling up native frame buffers.
+     */
+    @Bean(name = FFMPEG_EXECUTOR)
     public Executor ffmpegExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(1);
-        executor.setMaxPoolSize(2);
-        executor.setQueueCapacity(50);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(4);
         executor.setThreadNamePrefix("FFmpeg-");
         executor.initialize();
         return executor;
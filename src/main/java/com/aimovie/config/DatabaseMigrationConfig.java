@@ -7,6 +7,7 @@ import com.aimovie.repository.MovieRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +20,7 @@ public class DatabaseMigrationConfig implements CommandLineRunner {
 
     private final DirectorRepository directorRepository;
     private final MovieRepository movieRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     @Transactional
@@ -77,6 +79,29 @@ public class DatabaseMigrationConfig implements CommandLineRunner {
             log.info("No movies needed videoDuration migration");
         }
         
+        migrateRatingSum();
+
         log.info("Database migration completed successfully");
     }
+
+    /**
+     * rating_sum was added by ddl-auto, which creates a new column as nullable with no default
+     * and never alters it afterwards. Fills it in from the ratings table, then makes it
+     * NOT NULL DEFAULT 0 so movies inserted outside JPA start from zero too.
+     */
+    private void migrateRatingSum() {
+        int backfilled = jdbcTemplate.update("UPDATE movies m SET m.rating_sum = "
+                + "(SELECT COALESCE(SUM(r.stars), 0) FROM ratings r WHERE r.movie_id = m.id) "
+                + "WHERE m.rating_sum IS NULL");
+        if (backfilled > 0) {
+            log.info("Backfilled rating_sum for {} movies", backfilled);
+        }
+
+        List<String> nullable = jdbcTemplate.queryForList("SELECT IS_NULLABLE FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'movies' AND COLUMN_NAME = 'rating_sum'", String.class);
+        if (nullable.contains("YES")) {
+            jdbcTemplate.execute("ALTER TABLE movies MODIFY rating_sum BIGINT NOT NULL DEFAULT 0");
+            log.info("Made movies.rating_sum NOT NULL DEFAULT 0");
+        }
+    }
 }
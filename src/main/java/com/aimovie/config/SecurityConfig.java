@@ -3,7 +3,10 @@ package com.aimovie.config;
 import com.aimovie.entity.Role;
 import com.aimovie.entity.User;
 import com.aimovie.repository.UserRepository;
+import com.aimovie.service.AuthPrincipalCache;
+import com.aimovie.service.AuthPrincipalCache.CachedPrincipal;
 import com.aimovie.service.AuthService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,6 +33,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -39,6 +43,7 @@ import java.util.stream.Collectors;
 public class SecurityConfig {
 
     private final AuthService authService;
+    private final AuthPrincipalCache authPrincipalCache;
     private final UserRepository userRepository;
 
     @Bean
@@ -90,10 +95,12 @@ public class SecurityConfig {
                 .requestMatchers("/api/streaming/**").permitAll() 
                 .requestMatchers("/api/ratings/**").permitAll() 
                 .requestMatchers("/api/user/**").hasAnyRole("USER", "ADMIN", "MODERATOR", "UPLOADER")
+                // Deletes stored media, so it is not open to every role that may use the admin API
+                .requestMatchers("/api/admin/storage/**").hasRole("ADMIN")
                 .requestMatchers("/api/admin/**").hasAnyRole("ADMIN", "MODERATOR", "UPLOADER")
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(new JwtAuthenticationFilter(authService, userRepository), UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(new JwtAuthenticationFilter(authService, authPrincipalCache, userRepository), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -121,6 +128,7 @@ public class SecurityConfig {
     public static class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         private final AuthService authService;
+        private final AuthPrincipalCache authPrincipalCache;
         private final UserRepository userRepository;
 
         @Override
@@ -132,30 +140,46 @@ public class SecurityConfig {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7);
                 
-                if (authService.validateToken(token)) {
-                    String username = authService.getUsernameFromToken(token);
-                    Long userId = authService.getUserIdFromToken(token);
+                CachedPrincipal principal = authPrincipalCache.get(token);
+                if (principal == null) {
+                    principal = resolvePrincipal(token);
+                }
+                
+                if (principal != null && principal.enabled()) {
+                    UsernamePasswordAuthenticationToken authentication = 
+                            new UsernamePasswordAuthenticationToken(principal.username(), null, principal.authorities());
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
                     
-                    // Load user and set authentication
-                    User user = userRepository.findByUsername(username).orElse(null);
-                    if (user != null && user.isEnabled()) {
-                        Set<Role> roles = user.getRoles();
-                        Collection<SimpleGrantedAuthority> authorities = roles.stream()
-                                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
-                                .collect(Collectors.toList());
-                        
-                        UsernamePasswordAuthenticationToken authentication = 
-                                new UsernamePasswordAuthenticationToken(username, null, authorities);
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                        
-                        // Add user info to request attributes for controllers to use
-                        request.setAttribute("username", username);
-                        request.setAttribute("userId", userId);
-                    }
+                    // Add user info to request attributes for controllers to use
+                    request.setAttribute("username", principal.username());
+                    request.setAttribute("userId", principal.userId());
                 }
             }
             
             filterChain.doFilter(request, response);
         }
+
+        // Cache miss: verify the token once, load the user's roles and remember the result
+        private CachedPrincipal resolvePrincipal(String token) {
+            Claims claims = authService.parseValidClaims(token).orElse(null);
+            if (claims == null) {
+                return null;
+            }
+            String username = claims.getSubject();
+            Long userId = claims.get("userId", Long.class);
+            long generation = authPrincipalCache.currentGeneration(userId);
+            
+            User user = userRepository.findByUsername(username).orElse(null);
+            if (user == null) {
+                return null;
+            }
+            List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
+                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
+                    .collect(Collectors.toList());
+            
+            CachedPrincipal principal = new CachedPrincipal(userId, username, authorities, user.isEnabled());
+            authPrincipalCache.put(token, principal, claims.getExpiration(), generation);
+            return principal;
+        }
     }
 }
\ No newline at end of file
@@ -2,10 +2,11 @@ package com.aimovie.controller;
 
 import com.aimovie.dto.*;
 import com.aimovie.entity.Report;
+import com.aimovie.exception.TranscodingQueueFullException;
 import com.aimovie.service.AdminService;
 import com.aimovie.service.CountryService;
 import com.aimovie.service.FileUploadService;
-import com.aimovie.service.FFmpegService;
+import com.aimovie.service.TranscodingJobService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,7 +21,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.nio.file.Path;
 import java.util.List;
 
 @RestController
@@ -33,7 +33,7 @@ public class AdminController {
     private final AdminService adminService;
     private final CountryService countryService;
     private final FileUploadService fileUploadService;
-    private final FFmpegService ffmpegService;
+    private final TranscodingJobService transcodingJobService;
 
 
     @GetMapping("/dashboard")
@@ -202,6 +202,18 @@ public class AdminController {
             @RequestParam(value = "downloadEnabled", required = false) Boolean downloadEnabled,
             @RequestParam(value = "maxDownloadQuality", required = false) String maxDownloadQuality) {
         try {
+            // Refused before any upload is stored or the movie exists
+            if (video != null && !video.isEmpty()) {
+                java.time.LocalDate parsedReleaseDate = null;
+                if (releaseDate != null && !releaseDate.isBlank()) {
+                    try {
+                        parsedReleaseDate = java.time.LocalDate.parse(releaseDate);
+                    } catch (Exception ignored) {
+                    }
+                }
+                transcodingJobService.checkCapacity(parsedReleaseDate, year);
+            }
+
             String posterUrl = null;
             String thumbnailUrl = null;
             String videoUrl = null;
@@ -261,31 +273,22 @@ public class AdminController {
             // Start async FFmpeg processing for multiple resolutions if video was uploaded
             if (video != null && !video.isEmpty() && videoFilename != null) {
                 try {
-                    Path inputVideoPath = fileUploadService.getVideoFilePath(videoFilename);
-                    
-                    if (fileUploadService.fileExists(videoFilename)) {
-                        ffmpegService.processVideoToMultipleResolutions(inputVideoPath, movie.getId(), videoFilename)
-                                .thenAccept(result -> {
-                                    if (result.isSuccess()) {
-                                        log.info("Video processing completed successfully for movie ID: {}", movie.getId());
-                                    } else {
-                                        log.error("Video processing failed for movie ID: {} - {}", movie.getId(), result.getErrorMessage());
-                                    }
-                                })
-                                .exceptionally(throwable -> {
-                                    log.error("Error during video processing for movie ID: {}", movie.getId(), throwable);
-                                    return null;
-                                });
-                        log.info("Started video processing for multiple resolutions for movie ID: {}", movie.getId());
-                    } else {
-                        log.warn("Video file not found for processing: {}", inputVideoPath);
-                    }
+                    // In cloud mode the upload is only in the bucket; the job downloads it
+                    transcodingJobService.enqueue(movie.getId(), TranscodingDTOs.SourceFile.builder()
+                            .localPath(fileUploadService.getVideoFilePath(videoFilename))
+                            .originalFilename(videoFilename)
+                            .storedFilename(videoFilename)
+                            .deferWhenFull(true)
+                            .build());
+                    log.info("Queued video processing for multiple resolutions for movie ID: {}", movie.getId());
                 } catch (Exception e) {
                     log.error("Failed to start video processing for movie ID: {}", movie.getId(), e);
                 }
             }
             
             return ResponseEntity.status(HttpStatus.CREATED).body(movie);
+        } catch (TranscodingQueueFullException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error creating movie", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
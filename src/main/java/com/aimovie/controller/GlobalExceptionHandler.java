@@ -1,6 +1,8 @@
 package com.aimovie.controller;
 
 import com.aimovie.exception.AiServiceException;
+import com.aimovie.exception.TranscodingQueueFullException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -43,6 +45,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
     }
 
+    @ExceptionHandler(TranscodingQueueFullException.class)
+    public ResponseEntity<Map<String, Object>> handleTranscodingQueueFull(TranscodingQueueFullException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "TRANSCODING_QUEUE_FULL");
+        body.put("message", ex.getMessage());
+        body.put("queuedJobs", ex.getQueuedJobs());
+        body.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "300")
+                .body(body);
+    }
+
     @ExceptionHandler(ResourceAccessException.class)
     public ResponseEntity<Map<String, Object>> handleResourceAccessException(ResourceAccessException ex) {
         Map<String, Object> body = new HashMap<>();
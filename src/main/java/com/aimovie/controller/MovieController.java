@@ -4,24 +4,29 @@ import com.aimovie.dto.ApiResponse;
 import com.aimovie.dto.MovieDTOs;
 import com.aimovie.dto.PageResponse;
 import com.aimovie.dto.PublicRatingDTO;
+import com.aimovie.dto.TranscodingDTOs;
 import com.aimovie.entity.Movie;
 import com.aimovie.entity.Rating;
 import com.aimovie.entity.VideoResolution;
+import com.aimovie.exception.TranscodingQueueFullException;
 import com.aimovie.repository.MovieRepository;
 import com.aimovie.repository.RatingRepository;
 import com.aimovie.repository.VideoResolutionRepository;
+import com.aimovie.service.EncodingProgressService;
 import com.aimovie.service.FileUploadService;
-import com.aimovie.service.FFmpegService;
 import com.aimovie.service.MovieService;
+import com.aimovie.service.TranscodingJobService;
 import com.aimovie.service.VideoMetadataService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -41,7 +46,8 @@ public class MovieController {
 
     private final MovieService movieService;
     private final FileUploadService fileUploadService;
-    private final FFmpegService ffmpegService;
+    private final TranscodingJobService transcodingJobService;
+    private final EncodingProgressService encodingProgressService;
     private final MovieRepository movieRepository;
     private final VideoResolutionRepository videoResolutionRepository;
     private final RatingRepository ratingRepository;
@@ -261,27 +267,42 @@ public class MovieController {
             @RequestParam("file") MultipartFile file,
             @RequestParam("movieId") Long movieId) {
         try {
-            // Delete old main video file and resolution directory, if any
-            try {
-                MovieDTOs.MovieResponseDTO current = movieService.getMovieById(movieId);
-                if (current.getVideoUrl() != null && !current.getVideoUrl().isEmpty()) {
-                    String oldFilename = current.getVideoUrl().substring(current.getVideoUrl().lastIndexOf("/") + 1);
-                    fileUploadService.deleteVideoFile(oldFilename);
-                }
-                java.nio.file.Path movieVideoDir = java.nio.file.Paths.get("uploads", "videos", String.valueOf(movieId));
-                if (java.nio.file.Files.exists(movieVideoDir)) {
-                    java.nio.file.Files.walk(movieVideoDir)
-                            .sorted(java.util.Comparator.reverseOrder())
-                            .forEach(path -> {
-                                try {
-                                    java.nio.file.Files.delete(path);
-                                } catch (java.io.IOException ignored) {}
-                            });
-                }
-            } catch (Exception ignored) {}
+            MovieDTOs.MovieResponseDTO current = movieService.getMovieById(movieId);
+            // Refused before anything is stored, so a full queue leaves the current video untouched
+            transcodingJobService.checkCapacity(movieId);
+            String oldFilename = current.getVideoUrl() != null && !current.getVideoUrl().isEmpty()
+                    ? current.getVideoUrl().substring(current.getVideoUrl().lastIndexOf("/") + 1)
+                    : null;
 
             FileUploadService.VideoUploadResult uploadResult = fileUploadService.uploadVideoWithMetadata(file);
             VideoMetadataService.VideoMetadata metadata = uploadResult.getMetadata();
+
+            // Released only after the new upload, so re-uploading the same file keeps it and its renditions.
+            // Whatever cannot be deleted here is left to the orphaned media collector.
+            if (oldFilename != null) {
+                try {
+                    fileUploadService.deleteVideoFile(oldFilename);
+                } catch (IOException e) {
+                    log.warn("Could not delete previous video {} of movie {}: {}", oldFilename, movieId, e.getMessage());
+                }
+            }
+            if (!uploadResult.getFilename().equals(oldFilename)) {
+                Path movieVideoDir = Paths.get("uploads", "videos", String.valueOf(movieId));
+                if (Files.exists(movieVideoDir)) {
+                    try (java.util.stream.Stream<Path> paths = Files.walk(movieVideoDir)) {
+                        paths.sorted(java.util.Comparator.reverseOrder())
+                                .forEach(path -> {
+                                    try {
+                                        Files.delete(path);
+                                    } catch (IOException e) {
+                                        log.warn("Could not delete previous rendition file {}: {}", path, e.getMessage());
+                                    }
+                                });
+                    } catch (IOException e) {
+                        log.warn("Could not clear previous renditions of movie {}: {}", movieId, e.getMessage());
+                    }
+                }
+            }
             
             // Update movie with video URL
             MovieDTOs.MovieUpdateDTO updateDTO = new MovieDTOs.MovieUpdateDTO();
@@ -296,25 +317,17 @@ public class MovieController {
             movieService.updateMovie(movieId, updateDTO);
             
             // Start async FFmpeg processing for multiple resolutions
+            boolean deferred = false;
             try {
-                Path inputVideoPath = Paths.get("uploads/videos", uploadResult.getFilename());
-                if (Files.exists(inputVideoPath)) {
-                    ffmpegService.processVideoToMultipleResolutions(inputVideoPath, movieId, uploadResult.getFilename())
-                            .thenAccept(result -> {
-                                if (result.isSuccess()) {
-                                    log.info("Video processing completed successfully for movie ID: {}", movieId);
-                                } else {
-                                    log.error("Video processing failed for movie ID: {} - {}", movieId, result.getErrorMessage());
-                                }
-                            })
-                            .exceptionally(throwable -> {
-                                log.error("Error during video processing for movie ID: {}", movieId, throwable);
-                                return null;
-                            });
-                    log.info("Started video processing for multiple resolutions for movie ID: {}", movieId);
-                } else {
-                    log.warn("Video file not found for processing: {}", inputVideoPath);
-                }
+                // In cloud mode the upload is only in the bucket; the job downloads it
+                deferred = transcodingJobService.enqueue(movieId, TranscodingDTOs.SourceFile.builder()
+                        .localPath(fileUploadService.getVideoFilePath(uploadResult.getFilename()))
+                        .originalFilename(uploadResult.getFilename())
+                        .storedFilename(uploadResult.getFilename())
+                        .contentHash(uploadResult.getSha256())
+                        .deferWhenFull(true)
+                        .build()).isDeferred();
+                log.info("Queued video processing for multiple resolutions for movie ID: {}", movieId);
             } catch (Exception e) {
                 log.error("Failed to start video processing for movie ID: {}", movieId, e);
             }
@@ -328,7 +341,8 @@ public class MovieController {
             );
             
             log.info("Video uploaded successfully for movie {}: {}", movieId, uploadResult.getFilename());
-            return ResponseEntity.ok(response);
+            // Stored, but the renditions wait until the queue has room again
+            return deferred ? ResponseEntity.status(HttpStatus.ACCEPTED).body(response) : ResponseEntity.ok(response);
             
         } catch (IOException e) {
             log.error("Error uploading video file for movie {}", movieId, e);
@@ -336,6 +350,8 @@ public class MovieController {
         } catch (IllegalArgumentException e) {
             log.error("Invalid file for movie {}: {}", movieId, e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (TranscodingQueueFullException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error updating movie {} with video", movieId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -352,6 +368,7 @@ public class MovieController {
             @RequestParam(value = "posterUrl", required = false) String posterUrl) {
         
         try {
+            transcodingJobService.checkCapacity(null, year);
             FileUploadService.VideoUploadResult uploadResult = fileUploadService.uploadVideoWithMetadata(file);
             VideoMetadataService.VideoMetadata metadata = uploadResult.getMetadata();
             
@@ -372,31 +389,23 @@ public class MovieController {
             MovieDTOs.MovieResponseDTO response = movieService.createMovie(createDTO);
             
             // Start async FFmpeg processing for multiple resolutions
+            boolean deferred = false;
             try {
-                Path inputVideoPath = Paths.get("uploads/videos", uploadResult.getFilename());
-                if (Files.exists(inputVideoPath)) {
-                    ffmpegService.processVideoToMultipleResolutions(inputVideoPath, response.getId(), uploadResult.getFilename())
-                            .thenAccept(result -> {
-                                if (result.isSuccess()) {
-                                    log.info("Video processing completed successfully for movie ID: {}", response.getId());
-                                } else {
-                                    log.error("Video processing failed for movie ID: {} - {}", response.getId(), result.getErrorMessage());
-                                }
-                            })
-                            .exceptionally(throwable -> {
-                                log.error("Error during video processing for movie ID: {}", response.getId(), throwable);
-                                return null;
-                            });
-                    log.info("Started video processing for multiple resolutions for movie ID: {}", response.getId());
-                } else {
-                    log.warn("Video file not found for processing: {}", inputVideoPath);
-                }
+                // In cloud mode the upload is only in the bucket; the job downloads it
+                deferred = transcodingJobService.enqueue(response.getId(), TranscodingDTOs.SourceFile.builder()
+                        .localPath(fileUploadService.getVideoFilePath(uploadResult.getFilename()))
+                        .originalFilename(uploadResult.getFilename())
+                        .storedFilename(uploadResult.getFilename())
+                        .contentHash(uploadResult.getSha256())
+                        .deferWhenFull(true)
+                        .build()).isDeferred();
+                log.info("Queued video processing for multiple resolutions for movie ID: {}", response.getId());
             } catch (Exception e) {
                 log.error("Failed to start video processing for movie ID: {}", response.getId(), e);
             }
             
             log.info("Movie created with video: {} (file: {}, metadata: {})", title, uploadResult.getFilename(), metadata);
-            return ResponseEntity.ok(response);
+            return deferred ? ResponseEntity.status(HttpStatus.ACCEPTED).body(response) : ResponseEntity.ok(response);
             
         } catch (IOException e) {
             log.error("Error creating movie with video", e);
@@ -430,6 +439,9 @@ public class MovieController {
             @RequestParam(value = "trailerUrl", required = false) String trailerUrl
     ) {
         try {
+            if (video != null && !video.isEmpty()) {
+                transcodingJobService.checkCapacity(releaseDate, year);
+            }
             MovieDTOs.MovieCreateDTO dto = new MovieDTOs.MovieCreateDTO();
             dto.setTitle(title);
             dto.setSynopsis(synopsis);
@@ -488,30 +500,23 @@ public class MovieController {
                 
                 // Start async FFmpeg processing for multiple resolutions
                 try {
-                    Path inputVideoPath = Paths.get("uploads/videos", uploadResult.getFilename());
-                    if (Files.exists(inputVideoPath)) {
-                        ffmpegService.processVideoToMultipleResolutions(inputVideoPath, response.getId(), uploadResult.getFilename())
-                                .thenAccept(result -> {
-                                    if (result.isSuccess()) {
-                                        log.info("Video processing completed successfully for movie ID: {}", response.getId());
-                                    } else {
-                                        log.error("Video processing failed for movie ID: {} - {}", response.getId(), result.getErrorMessage());
-                                    }
-                                })
-                                .exceptionally(throwable -> {
-                                    log.error("Error during video processing for movie ID: {}", response.getId(), throwable);
-                                    return null;
-                                });
-                        log.info("Started video processing for multiple resolutions for movie ID: {}", response.getId());
-                    } else {
-                        log.warn("Video file not found for processing: {}", inputVideoPath);
-                    }
+                    // In cloud mode the upload is only in the bucket; the job downloads it
+                    transcodingJobService.enqueue(response.getId(), TranscodingDTOs.SourceFile.builder()
+                            .localPath(fileUploadService.getVideoFilePath(uploadResult.getFilename()))
+                            .originalFilename(uploadResult.getFilename())
+                            .storedFilename(uploadResult.getFilename())
+                            .contentHash(uploadResult.getSha256())
+                            .deferWhenFull(true)
+                            .build());
+                    log.info("Queued video processing for multiple resolutions for movie ID: {}", response.getId());
                 } catch (Exception e) {
                     log.error("Failed to start video processing for movie ID: {}", response.getId(), e);
                 }
             }
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (TranscodingQueueFullException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error creating movie via form", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -549,6 +554,7 @@ public class MovieController {
                     .filter(r -> "FAILED".equals(r.getEncodingStatus()))
                     .map(VideoResolution::getQuality)
                     .collect(Collectors.toList()));
+            status.put("encodingProgress", encodingProgressService.getProgress(id));
             
             ApiResponse<Object> apiResponse = new ApiResponse<>("SUCCESS", "Video processing status retrieved", status);
             return ResponseEntity.ok(apiResponse);
@@ -564,6 +570,16 @@ public class MovieController {
         }
     }
 
+    // Live percent, fps, speed and ETA of the renditions encoding on this node
+    @GetMapping(value = "/{id}/video-processing-status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamVideoProcessingStatus(@PathVariable Long id) {
+        if (!movieRepository.existsById(id)) {
+            throw new RuntimeException("Movie not found");
+        }
+        return encodingProgressService.subscribe(id);
+    }
+
     public static class FileUploadResponse {
         private String filename;
         private String originalFilename;
@@ -1,8 +1,15 @@
 package com.aimovie.controller;
 
+import com.aimovie.dto.CategoryDTO;
 import com.aimovie.dto.MovieSearchDTO;
+import com.aimovie.service.HomeRailsSnapshotService;
 import com.aimovie.service.UserFeatureService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -15,6 +22,34 @@ import java.util.List;
 public class MovieStatusController {
 
     private final UserFeatureService userFeatureService;
+    private final HomeRailsSnapshotService homeRailsSnapshotService;
+
+    /**
+     * Home page rails served from the shared snapshot. Anonymous callers get the pre-serialized
+     * bytes with an ETag; signed-in callers get the same rails with their watchlist/favorite flags.
+     */
+    @GetMapping("/movies/home")
+    public ResponseEntity<?> getHomeRails(HttpServletRequest request) {
+        HomeRailsSnapshotService.HomeRailsSnapshot snapshot = homeRailsSnapshotService.getSnapshot();
+        Long userId = (Long) request.getAttribute("userId");
+        if (userId != null) {
+            List<CategoryDTO> rails = userFeatureService.withUserMovieFlags(userId, snapshot.rails());
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(rails);
+        }
+
+        if (snapshot.etag().equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
+    }
 
     @GetMapping("/movies/featured")
     public ResponseEntity<List<MovieSearchDTO>> getFeaturedMovies(@RequestParam(defaultValue = "10") int limit) {
@@ -0,0 +1,73 @@
+package com.aimovie.controller;
+
+import com.aimovie.dto.UploadSessionDTOs;
+import com.aimovie.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Resumable alternative to the single-request video uploads: create a session, PUT chunks at
+ * their offsets (in any order, in parallel), query what is missing after a disconnect, then
+ * complete to publish the file and start transcoding.
+ */
+@RestController
+@RequestMapping("/api/movies/{movieId}/video-uploads")
+@RequiredArgsConstructor
+@Slf4j
+@PreAuthorize("hasRole('ADMIN')")
+public class ResumableUploadController {
+
+    public static final String CHUNK_CHECKSUM_HEADER = "X-Chunk-Sha256";
+
+    private final ResumableUploadService resumableUploadService;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionDTOs.UploadSessionResponse> createSession(
+            @PathVariable Long movieId,
+            @Valid @RequestBody UploadSessionDTOs.CreateUploadSessionRequest request) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(resumableUploadService.createSession(movieId, request));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionDTOs.UploadSessionResponse> getSession(
+            @PathVariable Long movieId,
+            @PathVariable String uploadId) {
+        return ResponseEntity.ok(resumableUploadService.getSession(movieId, uploadId));
+    }
+
+    // The body is streamed straight to disk, so it is read from the request rather than bound
+    @PutMapping(value = "/{uploadId}/chunks", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadSessionDTOs.UploadSessionResponse> writeChunk(
+            @PathVariable Long movieId,
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            @RequestHeader(CHUNK_CHECKSUM_HEADER) String sha256,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(resumableUploadService.writeChunk(movieId, uploadId, offset, sha256, request.getInputStream()));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<UploadSessionDTOs.UploadSessionResponse> completeSession(
+            @PathVariable Long movieId,
+            @PathVariable String uploadId) throws IOException {
+        return ResponseEntity.ok(resumableUploadService.completeSession(movieId, uploadId));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abortSession(
+            @PathVariable Long movieId,
+            @PathVariable String uploadId) throws IOException {
+        resumableUploadService.abortSession(movieId, uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
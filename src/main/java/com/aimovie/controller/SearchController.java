@@ -1,6 +1,7 @@
 package com.aimovie.controller;
 
 import com.aimovie.dto.*;
+import com.aimovie.service.MovieSearchIndex;
 import com.aimovie.service.UserFeatureService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -21,6 +22,7 @@ import java.util.List;
 public class SearchController {
 
     private final UserFeatureService userFeatureService;
+    private final MovieSearchIndex movieSearchIndex;
 
     // ==================== MOVIE SEARCH ====================
 
@@ -43,6 +45,7 @@ public class SearchController {
             @RequestParam String query,
             @RequestParam(required = false) List<String> actors,
             @RequestParam(required = false) List<String> directors,
+            @RequestParam(required = false) List<String> categories,
             @RequestParam(required = false) Integer yearFrom,
             @RequestParam(required = false) Integer yearTo,
             @RequestParam(required = false) String country,
@@ -50,8 +53,8 @@ public class SearchController {
             @RequestParam(required = false) String ageRating,
             @RequestParam(required = false) Double minRating,
             @RequestParam(required = false) Double maxRating,
-            @RequestParam(defaultValue = "title") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "relevance") String sortBy,
+            @RequestParam(required = false) String sortDirection,
             @PageableDefault(size = 20) Pageable pageable,
             HttpServletRequest request) {
         try {
@@ -61,6 +64,7 @@ public class SearchController {
                     .query(query)
                     .actors(actors)
                     .directors(directors)
+                    .categories(categories)
                     .yearFrom(yearFrom)
                     .yearTo(yearTo)
                     .country(country)
@@ -96,6 +100,7 @@ public class SearchController {
             SearchRequest searchRequest = SearchRequest.builder()
                     .query(query)
                     .size(limit)
+                    .includeFacets(false)
                     .build();
             
             SearchResultDTO results = userFeatureService.searchMovies(userId, searchRequest);
@@ -111,9 +116,7 @@ public class SearchController {
             @RequestParam String query,
             @RequestParam(defaultValue = "10") int limit) {
         try {
-            // Implementation for search suggestions
-            // This could be based on popular searches, movie titles, etc.
-            List<String> suggestions = List.of();
+            List<String> suggestions = movieSearchIndex.suggest(query, limit);
             return ResponseEntity.ok(suggestions);
         } catch (Exception e) {
             log.error("Error getting search suggestions", e);
@@ -149,6 +152,7 @@ public class SearchController {
             SearchRequest searchRequest = SearchRequest.builder()
                     .actors(List.of(actor))
                     .size(limit)
+                    .includeFacets(false)
                     .build();
             
             SearchResultDTO results = userFeatureService.searchMovies(userId, searchRequest);
@@ -171,6 +175,7 @@ public class SearchController {
             SearchRequest searchRequest = SearchRequest.builder()
                     .actors(List.of(actor))
                     .size(limit)
+                    .includeFacets(false)
                     .build();
             
             SearchResultDTO results = userFeatureService.searchMovies(userId, searchRequest);
@@ -192,6 +197,7 @@ public class SearchController {
             SearchRequest searchRequest = SearchRequest.builder()
                     .directors(List.of(director))
                     .size(limit)
+                    .includeFacets(false)
                     .build();
             
             SearchResultDTO results = userFeatureService.searchMovies(userId, searchRequest);
@@ -214,6 +220,7 @@ public class SearchController {
             SearchRequest searchRequest = SearchRequest.builder()
                     .directors(List.of(director))
                     .size(limit)
+                    .includeFacets(false)
                     .build();
             
             SearchResultDTO results = userFeatureService.searchMovies(userId, searchRequest);
@@ -236,6 +243,7 @@ public class SearchController {
                     .yearFrom(year)
                     .yearTo(year)
                     .size(limit)
+                    .includeFacets(false)
                     .build();
             
             SearchResultDTO results = userFeatureService.searchMovies(userId, searchRequest);
@@ -259,6 +267,7 @@ public class SearchController {
                     .yearFrom(year)
                     .yearTo(year)
                     .size(limit)
+                    .includeFacets(false)
                     .build();
             
             SearchResultDTO results = userFeatureService.searchMovies(userId, searchRequest);
@@ -282,6 +291,7 @@ public class SearchController {
                     .minRating(minRating)
                     .maxRating(maxRating != null ? maxRating : 10.0)
                     .size(limit)
+                    .includeFacets(false)
                     .build();
             
             SearchResultDTO results = userFeatureService.searchMovies(userId, searchRequest);
@@ -313,8 +323,8 @@ public class SearchController {
     @GetMapping("/facets/genres")
     public ResponseEntity<List<String>> getAvailableGenres() {
         try {
-            // Genres removed, return empty list
-            return ResponseEntity.ok(List.of());
+            // Genres are modelled as categories
+            return ResponseEntity.ok(movieSearchIndex.topFacetValues(MovieSearchIndex.Facet.CATEGORY, Integer.MAX_VALUE));
         } catch (Exception e) {
             log.error("Error getting available genres", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -325,8 +335,7 @@ public class SearchController {
     public ResponseEntity<List<String>> getPopularActors(
             @RequestParam(defaultValue = "50") int limit) {
         try {
-            // Implementation for getting popular actors
-            List<String> actors = List.of();
+            List<String> actors = movieSearchIndex.topFacetValues(MovieSearchIndex.Facet.ACTOR, limit);
             return ResponseEntity.ok(actors);
         } catch (Exception e) {
             log.error("Error getting popular actors", e);
@@ -338,8 +347,7 @@ public class SearchController {
     public ResponseEntity<List<String>> getPopularDirectors(
             @RequestParam(defaultValue = "50") int limit) {
         try {
-            // Implementation for getting popular directors
-            List<String> directors = List.of();
+            List<String> directors = movieSearchIndex.topFacetValues(MovieSearchIndex.Facet.DIRECTOR, limit);
             return ResponseEntity.ok(directors);
         } catch (Exception e) {
             log.error("Error getting popular directors", e);
@@ -350,8 +358,7 @@ public class SearchController {
     @GetMapping("/facets/countries")
     public ResponseEntity<List<String>> getAvailableCountries() {
         try {
-            // Implementation for getting available countries
-            List<String> countries = List.of("USA", "UK", "France", "Germany", "Japan", "South Korea", "India");
+            List<String> countries = movieSearchIndex.topFacetValues(MovieSearchIndex.Facet.COUNTRY, Integer.MAX_VALUE);
             return ResponseEntity.ok(countries);
         } catch (Exception e) {
             log.error("Error getting available countries", e);
@@ -362,8 +369,7 @@ public class SearchController {
     @GetMapping("/facets/languages")
     public ResponseEntity<List<String>> getAvailableLanguages() {
         try {
-            // Implementation for getting available languages
-            List<String> languages = List.of("English", "Vietnamese", "Chinese", "Japanese", "Korean", "French", "German");
+            List<String> languages = movieSearchIndex.topFacetValues(MovieSearchIndex.Facet.LANGUAGE, Integer.MAX_VALUE);
             return ResponseEntity.ok(languages);
         } catch (Exception e) {
             log.error("Error getting available languages", e);
@@ -0,0 +1,32 @@
+package com.aimovie.controller;
+
+import com.aimovie.dto.MediaGarbageCollectionDTOs;
+import com.aimovie.service.MediaGarbageCollectionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class StorageController {
+
+    private final MediaGarbageCollectionService mediaGarbageCollectionService;
+
+    @GetMapping("/gc")
+    public ResponseEntity<MediaGarbageCollectionDTOs.CollectorStats> getGarbageCollectionStats() {
+        return ResponseEntity.ok(mediaGarbageCollectionService.getStats());
+    }
+
+    // Dry run unless explicitly asked to delete; the pass runs in the background and its report appears in GET /gc
+    @PostMapping("/gc")
+    public ResponseEntity<MediaGarbageCollectionDTOs.CollectorStats> collectGarbage(@RequestParam(defaultValue = "true") boolean dryRun) {
+        if (!mediaGarbageCollectionService.startCollection(dryRun)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(mediaGarbageCollectionService.getStats());
+        }
+        return ResponseEntity.accepted().body(mediaGarbageCollectionService.getStats());
+    }
+}
@@ -0,0 +1,34 @@
+package com.aimovie.controller;
+
+import com.aimovie.dto.TranscodingDTOs;
+import com.aimovie.service.TranscodingJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/transcoding")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class TranscodingController {
+
+    private final TranscodingJobService transcodingJobService;
+
+    @GetMapping("/stats")
+    public ResponseEntity<TranscodingDTOs.QueueStats> getQueueStats() {
+        return ResponseEntity.ok(transcodingJobService.getQueueStats());
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<TranscodingDTOs.JobSummary>> getJobsForMovie(@RequestParam Long movieId) {
+        return ResponseEntity.ok(transcodingJobService.getJobsForMovie(movieId));
+    }
+
+    @PutMapping("/jobs/{jobId}/priority")
+    public ResponseEntity<TranscodingDTOs.JobSummary> updatePriority(@PathVariable Long jobId, @RequestParam int priority) {
+        return ResponseEntity.ok(transcodingJobService.updatePriority(jobId, priority));
+    }
+}
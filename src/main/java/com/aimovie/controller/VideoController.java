@@ -5,7 +5,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +17,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/videos")
@@ -38,199 +41,150 @@ public class VideoController {
     }
 
     @GetMapping(value = "/stream/{movieId}/{filename}")
-    public ResponseEntity<Resource> streamVideoWithSubdir(@PathVariable String movieId,
-                                                          @PathVariable String filename,
-                                                          @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
+    public ResponseEntity<?> streamVideoWithSubdir(@PathVariable String movieId,
+                                                   @PathVariable String filename,
+                                                   @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
         log.info("Streaming video request: movieId={}, filename={}", movieId, filename);
-        try {
-            Path videoPath = Paths.get("uploads/videos", movieId, filename);
-            
-            if (!Files.exists(videoPath)) {
-                log.warn("Video file not found: {}/{}", movieId, filename);
-                return ResponseEntity.notFound().build();
-            }
-
-            Resource resource = new FileSystemResource(videoPath);
-            
-            String contentType = "video/mp4"; 
-            String fileExtension = filename.toLowerCase();
-            if (fileExtension.endsWith(".mkv")) {
-                contentType = "video/x-matroska";
-            } else if (fileExtension.endsWith(".avi")) {
-                contentType = "video/x-msvideo";
-            } else if (fileExtension.endsWith(".mov")) {
-                contentType = "video/quicktime";
-            } else if (fileExtension.endsWith(".wmv")) {
-                contentType = "video/x-ms-wmv";
-            } else if (fileExtension.endsWith(".flv")) {
-                contentType = "video/x-flv";
-            } else if (fileExtension.endsWith(".webm")) {
-                contentType = "video/webm";
-            }
-
-            long fileSize = Files.size(videoPath);
-            HttpHeaders headers = new HttpHeaders();
-            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
-            headers.set(HttpHeaders.CACHE_CONTROL, "public, max-age=3600");
-            headers.setContentType(MediaType.parseMediaType(contentType));
-
-            // Handle HTTP Range requests (e.g., for HTML5 video tag seeking)
-            if (rangeHeader != null && rangeHeader.startsWith("bytes=")) {
-                String rangeValue = rangeHeader.substring("bytes=".length());
-                String[] ranges = rangeValue.split("-");
-                long start = 0;
-                long end = fileSize - 1;
-                try {
-                    if (!ranges[0].isEmpty()) {
-                        start = Long.parseLong(ranges[0]);
-                    }
-                    if (ranges.length > 1 && !ranges[1].isEmpty()) {
-                        end = Long.parseLong(ranges[1]);
-                    }
-                } catch (NumberFormatException ignored) {
-                }
-
-                if (start > end || start >= fileSize) {
-                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
-                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
-                            .headers(headers)
-                            .build();
-                }
-
-                end = Math.min(end, fileSize - 1);
-                long contentLength = end - start + 1;
-
-                byte[] data;
-                try (java.io.RandomAccessFile raf = new java.io.RandomAccessFile(videoPath.toFile(), "r")) {
-                    raf.seek(start);
-                    data = new byte[(int) contentLength];
-                    int read = raf.read(data);
-                    if (read < contentLength) {
-                        data = java.util.Arrays.copyOf(data, read);
-                        contentLength = read;
-                    }
-                }
+        Path videoPath = Paths.get("uploads/videos", movieId, filename);
+        return buildStreamingResponse(videoPath, movieId + "/" + filename, rangeHeader);
+    }
 
-                headers.set(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", start, start + contentLength - 1, fileSize));
-                headers.setContentLength(contentLength);
+    @GetMapping(value = "/stream/{filename}")
+    public ResponseEntity<?> streamVideo(@PathVariable String filename,
+                                         @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
+        Path videoPath = fileUploadService.getVideoFilePath(filename);
+        return buildStreamingResponse(videoPath, filename, rangeHeader);
+    }
 
-                log.info("Streaming video range: {}/{} ({}-{} of {}, content-type: {})",
-                        movieId, filename, start, start + contentLength - 1, fileSize, contentType);
+    @GetMapping(value = "/hls/{movieId}/{filename}")
+    public ResponseEntity<Resource> streamHls(@PathVariable String movieId, @PathVariable String filename) {
+        if (filename.contains("..") || movieId.contains("..")) {
+            return ResponseEntity.badRequest().build();
+        }
+        Path hlsPath = Paths.get("uploads/videos", movieId, "hls", filename);
+        if (!Files.exists(hlsPath)) {
+            log.warn("HLS file not found: {}/{}", movieId, filename);
+            return ResponseEntity.notFound().build();
+        }
 
-                return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
-                        .headers(headers)
-                        .body(new org.springframework.core.io.ByteArrayResource(data));
-            }
+        HttpHeaders headers = new HttpHeaders();
+        if (filename.endsWith(".m3u8")) {
+            headers.setContentType(MediaType.parseMediaType("application/vnd.apple.mpegurl"));
+            headers.set(HttpHeaders.CACHE_CONTROL, "public, max-age=60");
+        } else {
+            // Segments and init files never change once packaged
+            headers.setContentType(MediaType.parseMediaType("video/mp4"));
+            headers.set(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        }
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(hlsPath));
+    }
 
-            // No Range header: return the whole file
-            headers.setContentLength(fileSize);
-            log.info("Streaming video: {}/{} ({} bytes, content-type: {})", movieId, filename, fileSize, contentType);
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(resource);
+    @GetMapping(value = "/trickplay/{movieId}/{filename}")
+    public ResponseEntity<Resource> streamTrickplay(@PathVariable String movieId, @PathVariable String filename) {
+        if (filename.contains("..") || movieId.contains("..")) {
+            return ResponseEntity.badRequest().build();
+        }
+        Path trickplayPath = Paths.get("uploads/videos", movieId, "trickplay", filename);
+        if (!Files.exists(trickplayPath)) {
+            log.warn("Trickplay file not found: {}/{}", movieId, filename);
+            return ResponseEntity.notFound().build();
+        }
 
-        } catch (IOException e) {
-            log.error("Error streaming video: {}/{}", movieId, filename, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        HttpHeaders headers = new HttpHeaders();
+        if (filename.endsWith(".vtt")) {
+            headers.setContentType(MediaType.parseMediaType("text/vtt"));
+            headers.set(HttpHeaders.CACHE_CONTROL, "public, max-age=60");
+        } else {
+            headers.setContentType(MediaType.IMAGE_JPEG);
+            headers.set(HttpHeaders.CACHE_CONTROL, "public, max-age=86400");
         }
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(trickplayPath));
     }
 
-    @GetMapping(value = "/stream/{filename}")
-    public ResponseEntity<Resource> streamVideo(@PathVariable String filename,
-                                                @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
+    /**
+     * Serves a video file, honouring HTTP Range requests (e.g., for HTML5 video tag seeking).
+     * Ranges are answered with {@link ResourceRegion}s so the converter copies the file region
+     * straight to the response stream instead of buffering it on the heap.
+     */
+    private ResponseEntity<?> buildStreamingResponse(Path videoPath, String label, String rangeHeader) {
         try {
-            Path videoPath = fileUploadService.getVideoFilePath(filename);
-            
             if (!Files.exists(videoPath)) {
-                log.warn("Video file not found: {}", filename);
+                log.warn("Video file not found: {}", label);
                 return ResponseEntity.notFound().build();
             }
 
             Resource resource = new FileSystemResource(videoPath);
-            
-            String contentType = "video/mp4"; 
-            String fileExtension = filename.toLowerCase();
-            if (fileExtension.endsWith(".mkv")) {
-                contentType = "video/x-matroska";
-            } else if (fileExtension.endsWith(".avi")) {
-                contentType = "video/x-msvideo";
-            } else if (fileExtension.endsWith(".mov")) {
-                contentType = "video/quicktime";
-            } else if (fileExtension.endsWith(".wmv")) {
-                contentType = "video/x-ms-wmv";
-            } else if (fileExtension.endsWith(".flv")) {
-                contentType = "video/x-flv";
-            } else if (fileExtension.endsWith(".webm")) {
-                contentType = "video/webm";
-            }
-
+            String contentType = resolveContentType(label);
             long fileSize = Files.size(videoPath);
+
             HttpHeaders headers = new HttpHeaders();
             headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
             headers.set(HttpHeaders.CACHE_CONTROL, "public, max-age=3600");
             headers.setContentType(MediaType.parseMediaType(contentType));
 
-            // Handle HTTP Range requests (e.g., for HTML5 video tag seeking)
             if (rangeHeader != null && rangeHeader.startsWith("bytes=")) {
-                String rangeValue = rangeHeader.substring("bytes=".length());
-                String[] ranges = rangeValue.split("-");
-                long start = 0;
-                long end = fileSize - 1;
+                List<ResourceRegion> regions;
                 try {
-                    if (!ranges[0].isEmpty()) {
-                        start = Long.parseLong(ranges[0]);
-                    }
-                    if (ranges.length > 1 && !ranges[1].isEmpty()) {
-                        end = Long.parseLong(ranges[1]);
-                    }
-                } catch (NumberFormatException ignored) {
-                }
-
-                if (start > end || start >= fileSize) {
+                    regions = HttpRange.toResourceRegions(HttpRange.parseRanges(rangeHeader), resource);
+                } catch (IllegalArgumentException e) {
                     headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
                     return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
                             .headers(headers)
                             .build();
                 }
 
-                end = Math.min(end, fileSize - 1);
-                long contentLength = end - start + 1;
-
-                byte[] data;
-                try (java.io.RandomAccessFile raf = new java.io.RandomAccessFile(videoPath.toFile(), "r")) {
-                    raf.seek(start);
-                    data = new byte[(int) contentLength];
-                    int read = raf.read(data);
-                    if (read < contentLength) {
-                        data = java.util.Arrays.copyOf(data, read);
-                        contentLength = read;
-                    }
+                // Content-Range and Content-Length are written by ResourceRegionHttpMessageConverter
+                if (regions.size() == 1) {
+                    ResourceRegion region = regions.get(0);
+                    log.info("Streaming video range: {} ({}-{} of {}, content-type: {})",
+                            label, region.getPosition(), region.getPosition() + region.getCount() - 1, fileSize, contentType);
+                    return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .headers(headers)
+                            .body(region);
                 }
 
-                headers.set(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", start, start + contentLength - 1, fileSize));
-                headers.setContentLength(contentLength);
-
-                log.info("Streaming video range: {} ({}-{} of {}, content-type: {})",
-                        filename, start, start + contentLength - 1, fileSize, contentType);
-
+                log.info("Streaming video multi-range: {} ({} ranges of {}, content-type: {})",
+                        label, regions.size(), fileSize, contentType);
                 return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
                         .headers(headers)
-                        .body(new org.springframework.core.io.ByteArrayResource(data));
+                        .body(regions);
             }
 
             // No Range header: return the whole file
             headers.setContentLength(fileSize);
-            log.info("Streaming video: {} ({} bytes, content-type: {})", filename, fileSize, contentType);
+            log.info("Streaming video: {} ({} bytes, content-type: {})", label, fileSize, contentType);
             return ResponseEntity.ok()
                     .headers(headers)
                     .body(resource);
 
         } catch (IOException e) {
-            log.error("Error streaming video: {}", filename, e);
+            log.error("Error streaming video: {}", label, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    private String resolveContentType(String filename) {
+        String fileExtension = filename.toLowerCase();
+        if (fileExtension.endsWith(".mkv")) {
+            return "video/x-matroska";
+        } else if (fileExtension.endsWith(".avi")) {
+            return "video/x-msvideo";
+        } else if (fileExtension.endsWith(".mov")) {
+            return "video/quicktime";
+        } else if (fileExtension.endsWith(".wmv")) {
+            return "video/x-ms-wmv";
+        } else if (fileExtension.endsWith(".flv")) {
+            return "video/x-flv";
+        } else if (fileExtension.endsWith(".webm")) {
+            return "video/webm";
+        }
+        return "video/mp4";
+    }
+
     @GetMapping("/info/{filename}")
     public ResponseEntity<VideoInfo> getVideoInfo(@PathVariable String filename) {
         try {
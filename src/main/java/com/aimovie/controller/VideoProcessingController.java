@@ -1,8 +1,11 @@
 package com.aimovie.controller;
 
 import com.aimovie.dto.ApiResponse;
+import com.aimovie.dto.TranscodingDTOs;
 import com.aimovie.dto.VideoProcessingResult;
+import com.aimovie.exception.TranscodingQueueFullException;
 import com.aimovie.service.FFmpegService;
+import com.aimovie.service.TranscodingJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,6 +27,7 @@ import java.util.concurrent.CompletableFuture;
 public class VideoProcessingController {
 
     private final FFmpegService ffmpegService;
+    private final TranscodingJobService transcodingJobService;
 
     @Value("${app.video.upload-dir:uploads/videos}")
     private String videoUploadDir;
@@ -48,6 +52,9 @@ public class VideoProcessingController {
                 return ResponseEntity.badRequest().body(apiResponse);
             }
 
+            // Refused before the upload is written anywhere
+            transcodingJobService.checkCapacity(movieId);
+
             // Create temp directory
             Path tempPath = Paths.get(tempDir);
             Files.createDirectories(tempPath);
@@ -63,8 +70,17 @@ public class VideoProcessingController {
             file.transferTo(tempFilePath.toFile());
             log.info("Video uploaded to temp location: {}", tempFilePath);
 
-            // Start async processing
-            ffmpegService.processVideoToMultipleResolutions(tempFilePath, movieId, originalFileName);
+            // Queue processing; the temp copy is removed once every rendition is done
+            try {
+                transcodingJobService.enqueue(movieId, TranscodingDTOs.SourceFile.builder()
+                        .localPath(tempFilePath)
+                        .originalFilename(originalFileName)
+                        .deleteLocalOnCompletion(true)
+                        .build());
+            } catch (TranscodingQueueFullException e) {
+                Files.deleteIfExists(tempFilePath);
+                throw e;
+            }
 
             // Return immediate response with processing status
             VideoProcessingResult initialResult = VideoProcessingResult.builder()
@@ -78,6 +94,10 @@ public class VideoProcessingController {
             ApiResponse<VideoProcessingResult> apiResponse = new ApiResponse<>("SUCCESS", "Video processing started", initialResult);
             return ResponseEntity.accepted().body(apiResponse);
 
+        } catch (TranscodingQueueFullException e) {
+            log.warn("Rejected transcode for movie {}: {}", movieId, e.getMessage());
+            ApiResponse<VideoProcessingResult> apiResponse = new ApiResponse<>("ERROR", e.getMessage(), null);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(apiResponse);
         } catch (Exception e) {
             log.error("Error uploading and processing video: {}", e.getMessage());
             ApiResponse<VideoProcessingResult> apiResponse = new ApiResponse<>("ERROR", "Failed to upload and process video: " + e.getMessage(), null);
@@ -96,7 +116,10 @@ public class VideoProcessingController {
                 return ResponseEntity.badRequest().body(apiResponse);
             }
 
-            ffmpegService.processVideoToMultipleResolutions(inputPath, movieId, inputPath.getFileName().toString());
+            transcodingJobService.enqueue(movieId, TranscodingDTOs.SourceFile.builder()
+                    .localPath(inputPath)
+                    .originalFilename(inputPath.getFileName().toString())
+                    .build());
 
             VideoProcessingResult initialResult = VideoProcessingResult.builder()
                     .success(true)
@@ -109,6 +132,10 @@ public class VideoProcessingController {
             ApiResponse<VideoProcessingResult> apiResponse = new ApiResponse<>("SUCCESS", "Video processing started", initialResult);
             return ResponseEntity.accepted().body(apiResponse);
 
+        } catch (TranscodingQueueFullException e) {
+            log.warn("Rejected transcode for movie {}: {}", movieId, e.getMessage());
+            ApiResponse<VideoProcessingResult> apiResponse = new ApiResponse<>("ERROR", e.getMessage(), null);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(apiResponse);
         } catch (Exception e) {
             log.error("Error processing existing video: {}", e.getMessage());
             ApiResponse<VideoProcessingResult> apiResponse = new ApiResponse<>("ERROR", "Failed to process video: " + e.getMessage(), null);
@@ -0,0 +1,66 @@
+package com.aimovie.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class MediaGarbageCollectionDTOs {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RunReport {
+        private LocalDateTime startedAt;
+        private long durationMs;
+        // Nothing is deleted in a dry run; the orphans are only counted and listed
+        private boolean dryRun;
+        private long scannedObjects;
+        private long scannedBytes;
+        private long orphanedObjects;
+        private long orphanedBytes;
+        // Unreferenced but younger than the grace period, e.g. an upload whose record is not saved yet
+        private long withinGracePeriod;
+        private long deletedObjects;
+        private long deletedBytes;
+        private long failedDeletes;
+        // Keyed by location, e.g. "local:videos" or "cloud:images"
+        private Map<String, AreaStats> areas;
+        // The first orphans found, for reviewing a dry run
+        private List<String> sampleOrphans;
+        private String error;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class AreaStats {
+        private long scannedObjects;
+        private long orphanedObjects;
+        private long orphanedBytes;
+        private long deletedObjects;
+        private long deletedBytes;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CollectorStats {
+        private boolean enabled;
+        private boolean dryRun;
+        private long gracePeriodHours;
+        private boolean running;
+        private long runs;
+        private long totalDeletedObjects;
+        private long totalDeletedBytes;
+        private long totalFailedDeletes;
+        private RunReport lastRun;
+    }
+}
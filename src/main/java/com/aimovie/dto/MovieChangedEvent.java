@@ -0,0 +1,8 @@
+package com.aimovie.dto;
+
+/**
+ * Published whenever a Movie row is inserted, updated or deleted through JPA, so in-memory
+ * read models (search index, suggestions) can refresh that movie once the transaction commits.
+ */
+public record MovieChangedEvent(Long movieId) {
+}
@@ -26,6 +26,7 @@ public class MovieStreamingDTO {
     private String trailerUrl;
     private List<String> availableQualities;
     private String currentQuality;
+    private String thumbnailTrackUrl;
     private List<SubtitleDTO> subtitles;
     private String currentSubtitleLanguage;
     private Boolean subtitleEnabled;
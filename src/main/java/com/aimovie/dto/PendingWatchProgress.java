@@ -0,0 +1,48 @@
+package com.aimovie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+@Builder
+public class PendingWatchProgress {
+    private Long userId;
+    private Long movieId;
+    private Integer watchDurationSeconds;
+    private Integer totalDurationSeconds; // null when the heartbeat did not report it (pause/seek)
+    private LocalDateTime lastWatchedAt;
+    // Flushes of this (user, movie) pair that failed and put it back in the buffer
+    private int failedFlushes;
+
+    // Newer heartbeat wins, but keeps the last known total duration and the failure count
+    public PendingWatchProgress mergeNewer(PendingWatchProgress newer) {
+        return new PendingWatchProgress(
+                userId,
+                movieId,
+                newer.watchDurationSeconds,
+                newer.totalDurationSeconds != null ? newer.totalDurationSeconds : totalDurationSeconds,
+                newer.lastWatchedAt,
+                Math.max(failedFlushes, newer.failedFlushes));
+    }
+
+    public PendingWatchProgress withFailedFlush() {
+        return new PendingWatchProgress(userId, movieId, watchDurationSeconds, totalDurationSeconds,
+                lastWatchedAt, failedFlushes + 1);
+    }
+
+    public Double getWatchPercentage() {
+        if (totalDurationSeconds == null || totalDurationSeconds <= 0 || watchDurationSeconds == null) {
+            return null;
+        }
+        return (double) watchDurationSeconds / totalDurationSeconds * 100;
+    }
+
+    public Boolean getIsCompleted() {
+        Double percentage = getWatchPercentage();
+        return percentage != null ? percentage >= 90.0 : null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.aimovie.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchFacetsDTO {
+    private List<FacetCount> categories;
+    private List<FacetCount> countries;
+    private List<FacetCount> languages;
+    private List<FacetCount> directors;
+    private List<FacetCount> decades;
+    private List<FacetCount> ratingBuckets;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FacetCount {
+        private String value;
+        private long count;
+    }
+}
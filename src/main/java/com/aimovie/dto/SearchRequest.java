@@ -13,6 +13,7 @@ public class SearchRequest {
     private String query;
     private List<String> actors;
     private List<String> directors;
+    private List<String> categories;
     private Integer yearFrom;
     private Integer yearTo;
     private String country;
@@ -25,4 +26,5 @@ public class SearchRequest {
     private String sortDirection; 
     private Integer page;
     private Integer size;
+    private Boolean includeFacets; // facet counts are computed unless explicitly false
 }
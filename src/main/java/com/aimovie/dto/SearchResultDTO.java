@@ -21,4 +21,5 @@ public class SearchResultDTO {
     private List<String> suggestedGenres;
     private List<String> suggestedActors;
     private List<String> suggestedDirectors;
+    private SearchFacetsDTO facets;
 }
@@ -0,0 +1,117 @@
+package com.aimovie.dto;
+
+import lombok.*;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class TranscodingDTOs {
+
+    /**
+     * What a transcoding job encodes. {@code localPath} is where the source is on this node;
+     * {@code storedFilename} names it in video storage, which lets any node download it. A source
+     * that is not in storage (or storage that is only a local directory) keeps the job on this host.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class SourceFile {
+        private Path localPath;
+        private String originalFilename;
+        private String storedFilename;
+        // sha256 of the content when the caller hashed it; otherwise looked up by storedFilename
+        private String contentHash;
+        // The local copy only exists for encoding and goes once the renditions are done
+        private boolean deleteLocalOnCompletion;
+        // The source is already stored: a full queue holds the job back instead of rejecting it
+        private boolean deferWhenFull;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class JobSummary {
+        private Long id;
+        private Long movieId;
+        private String status;
+        private Integer priority;
+        private Integer attempts;
+        private Integer maxAttempts;
+        private String leaseOwner;
+        private LocalDateTime availableAt;
+        private LocalDateTime heartbeatAt;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private LocalDateTime createdAt;
+        private String lastError;
+        // Queued but held back until availableAt because the queue was full when it was submitted
+        private boolean deferred;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class QueueStats {
+        private long queued;
+        private long queuedNewReleases;
+        private int maxQueuedJobs;
+        private long rejected;
+        private long running;
+        private long failed;
+        private long completed;
+        // How long the oldest due job has been waiting to be claimed
+        private long oldestQueuedWaitSeconds;
+        private String nodeId;
+        private int nodeWorkers;
+        private int nodeActiveJobs;
+        // Whether this node currently has CPU headroom to claim more work, and how often it held back
+        private boolean nodeAdmitting;
+        private double nodeCpuLoad;
+        private long nodeDeferredClaims;
+        private Map<String, StageStats> stages;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class StageStats {
+        private long count;
+        private long totalDurationMs;
+        private long totalBytes;
+        private long averageDurationMs;
+        private long throughputBytesPerSecond;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class EncodingProgress {
+        private Long movieId;
+        private String quality;
+        private String status;
+        // -1 while the source duration is unknown
+        private int percent;
+        private long framesEncoded;
+        private double fps;
+        // Seconds of media encoded per wall-clock second
+        private double speed;
+        private Long etaSeconds;
+        private long encodedSeconds;
+        private long durationSeconds;
+        private long elapsedSeconds;
+        private long secondsSinceLastFrame;
+        private boolean stalled;
+        private LocalDateTime updatedAt;
+    }
+}
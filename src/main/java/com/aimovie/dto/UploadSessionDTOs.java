@@ -0,0 +1,51 @@
+package com.aimovie.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.*;
+
+import java.util.List;
+
+public class UploadSessionDTOs {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CreateUploadSessionRequest {
+        @NotBlank(message = "Filename is required")
+        private String filename;
+
+        @NotNull(message = "Total size is required")
+        @Positive(message = "Total size must be positive")
+        private Long totalSize;
+
+        // Optional; the server default is used when absent
+        private Integer chunkSize;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class UploadSessionResponse {
+        private String uploadId;
+        private Long movieId;
+        private String filename;
+        private String status;
+        private Long totalSize;
+        private Integer chunkSize;
+        private Integer chunkCount;
+        private Integer receivedChunkCount;
+        // Length of the contiguous prefix received so far; clients resume sequential uploads here
+        private Long receivedBytes;
+        private List<Integer> missingChunks;
+        private String videoUrl;
+        // Set on completion: QUEUED, FAILED, or DEFERRED when the transcoding queue was full and the
+        // job only becomes claimable after a delay
+        private String processingStatus;
+    }
+}
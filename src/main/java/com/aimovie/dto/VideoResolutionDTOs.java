@@ -58,6 +58,7 @@ public class VideoResolutionDTOs {
         private Integer width;
         private Integer height;
         private String videoUrl;
+        private String playlistUrl;
         private String videoFormat;
         private Long fileSizeBytes;
         private Integer bitrate;
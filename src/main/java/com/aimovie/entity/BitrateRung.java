@@ -0,0 +1,28 @@
+package com.aimovie.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+/**
+ * One rendition of a movie's per-title encoding ladder.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BitrateRung {
+
+    @Column(name = "quality", length = 20, nullable = false)
+    private String quality;
+
+    @Column(name = "width", nullable = false)
+    private Integer width;
+
+    @Column(name = "height", nullable = false)
+    private Integer height;
+
+    @Column(name = "bitrate_kbps", nullable = false)
+    private Integer bitrateKbps;
+}
@@ -0,0 +1,50 @@
+package com.aimovie.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Content-addressed index of stored uploads. Identical bytes are stored once under the filename
+ * of the first upload; every later upload of the same content and every record pointing at the
+ * file holds a reference, and the file is only deleted when the last reference is released.
+ */
+@Entity
+@Table(name = "media_blobs", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_media_blobs_kind_sha256", columnNames = {"kind", "sha256"})
+}, indexes = {
+    @Index(name = "idx_media_blobs_kind_filename", columnList = "kind, filename")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class MediaBlob extends Auditable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 10)
+    private Kind kind;
+
+    // Lowercase hex SHA-256 of the file content
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "filename", nullable = false, length = 255)
+    private String filename;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    @Builder.Default
+    private Integer refCount = 1;
+
+    public enum Kind {
+        VIDEO,
+        IMAGE
+    }
+}
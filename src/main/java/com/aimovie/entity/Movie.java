@@ -7,6 +7,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -14,7 +15,13 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "movies")
+@Table(name = "movies", indexes = {
+    // Finds a movie whose renditions were encoded from the same source content
+    @Index(name = "idx_movies_source_content_hash", columnList = "source_content_hash")
+})
+@EntityListeners(MovieChangeListener.class)
+// Only dirty columns are written, so entity saves do not overwrite counters updated in SQL
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -82,6 +89,26 @@ public class Movie extends Auditable {
     @Builder.Default
     private List<String> availableQualities = new ArrayList<>();
 
+    // Per-title ladder chosen from a content analysis of the current source; empty until first encoded
+    @ElementCollection
+    @CollectionTable(name = "movie_bitrate_ladder", joinColumns = @JoinColumn(name = "movie_id"))
+    @OrderColumn(name = "rung_index")
+    @Builder.Default
+    private List<BitrateRung> bitrateLadder = new ArrayList<>();
+
+    // About 1.0 for typical live-action content; lower for static, flat scenes
+    @Column(name = "content_complexity")
+    private Double contentComplexity;
+
+    // WebVTT track of seek-preview sprite tiles; null until the trickplay stage has run for the current source
+    @Size(max = 1000)
+    @Column(name = "thumbnail_track_url", length = 1000)
+    private String thumbnailTrackUrl;
+
+    // SHA-256 of the source the current renditions were encoded from; a re-upload of the same bytes skips transcoding
+    @Column(name = "source_content_hash", length = 64)
+    private String sourceContentHash;
+
     @ElementCollection
     @CollectionTable(name = "movie_actors", joinColumns = @JoinColumn(name = "movie_id"))
     @Column(name = "actor", length = 100, nullable = false)
@@ -127,6 +154,10 @@ public class Movie extends Auditable {
     @Builder.Default
     private Long totalRatings = 0L;
 
+    @Column(name = "rating_sum", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    @Builder.Default
+    private Long ratingSum = 0L;
+
     @Column(name = "comment_count")
     @Builder.Default
     private Long commentCount = 0L;
@@ -0,0 +1,25 @@
+package com.aimovie.entity;
+
+import com.aimovie.dto.MovieChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class MovieChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onMovieChanged(Movie movie) {
+        if (movie.getId() != null) {
+            eventPublisher.publishEvent(new MovieChangedEvent(movie.getId()));
+        }
+    }
+}
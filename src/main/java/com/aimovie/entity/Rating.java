@@ -11,6 +11,9 @@ import lombok.*;
 @Table(name = "ratings",
        uniqueConstraints = {
            @UniqueConstraint(name = "uk_rating_user_movie", columnNames = {"user_id", "movie_id"})
+       },
+       indexes = {
+           @Index(name = "idx_ratings_created_at", columnList = "created_at")
        }
 )
 @Getter
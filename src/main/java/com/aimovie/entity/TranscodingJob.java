@@ -0,0 +1,105 @@
+package com.aimovie.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A durable transcoding request. Workers on any node claim queued jobs with a lease they keep
+ * alive through heartbeats; a job whose lease expires (crashed or restarted node) becomes
+ * claimable again and resumes with the renditions that are not yet COMPLETED.
+ */
+@Entity
+@Table(name = "transcoding_jobs", indexes = {
+    @Index(name = "idx_transcoding_jobs_claim", columnList = "status, available_at"),
+    @Index(name = "idx_transcoding_jobs_movie", columnList = "movie_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class TranscodingJob extends Auditable {
+
+    // Claimed highest first; new releases go ahead of back-catalog re-encodes
+    public static final int PRIORITY_BACK_CATALOG = 0;
+    public static final int PRIORITY_NEW_RELEASE = 10;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+
+    @Column(name = "source_path", length = 1000, nullable = false)
+    private String sourcePath;
+
+    @Column(name = "original_filename", length = 255)
+    private String originalFilename;
+
+    // Name of the source in video storage; a node without the local copy downloads it from there
+    @Column(name = "stored_filename", length = 255)
+    private String storedFilename;
+
+    // Set when the source only exists on one machine's disk; only nodes on that host claim the job
+    @Column(name = "source_host", length = 100)
+    private String sourceHost;
+
+    // SHA-256 of the source when it is an indexed upload; recorded on the movie once the renditions are done
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(name = "priority", nullable = false)
+    @Builder.Default
+    private Integer priority = 0;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "max_attempts", nullable = false)
+    @Builder.Default
+    private Integer maxAttempts = 3;
+
+    // Not claimable before this time; pushes retries back with exponential backoff
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    // Set for sources that only exist locally for encoding, e.g. when the original is in cloud storage
+    @Column(name = "delete_source_on_completion", nullable = false)
+    @Builder.Default
+    private Boolean deleteSourceOnCompletion = false;
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+}
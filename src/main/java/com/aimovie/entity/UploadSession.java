@@ -0,0 +1,59 @@
+package com.aimovie.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A resumable video upload. Chunks are written straight into a preallocated part file and
+ * tracked in a bitmap, so an interrupted upload only resends the chunks it is missing.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "idx_upload_sessions_status_updated", columnList = "status, updated_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class UploadSession extends Auditable {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+
+    @Column(name = "original_filename", length = 255, nullable = false)
+    private String originalFilename;
+
+    @Column(name = "stored_filename", length = 255, nullable = false)
+    private String storedFilename;
+
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    // BitSet.toByteArray() of the received chunk indexes
+    @Column(name = "received_chunks", length = 8192)
+    private byte[] receivedChunks;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private UploadStatus status = UploadStatus.ACTIVE;
+
+    public int getChunkCount() {
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    public enum UploadStatus {
+        ACTIVE,
+        COMPLETED,
+        ABORTED,
+        EXPIRED
+    }
+}
@@ -14,6 +14,9 @@ import java.util.Set;
        uniqueConstraints = {
            @UniqueConstraint(name = "uk_users_username", columnNames = {"username"}),
            @UniqueConstraint(name = "uk_users_email", columnNames = {"email"})
+       },
+       indexes = {
+           @Index(name = "idx_users_created_at", columnList = "created_at")
        }
 )
 @Data
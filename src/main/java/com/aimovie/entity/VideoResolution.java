@@ -38,6 +38,10 @@ public class VideoResolution extends Auditable {
     @Column(name = "video_url", length = 1000)
     private String videoUrl;
 
+    @Size(max = 1000)
+    @Column(name = "playlist_url", length = 1000)
+    private String playlistUrl;
+
     @Size(max = 100)
     @Column(name = "video_format", length = 100)
     private String videoFormat;
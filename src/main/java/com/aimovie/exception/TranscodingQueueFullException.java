@@ -0,0 +1,19 @@
+package com.aimovie.exception;
+
+/**
+ * Thrown when a back-catalog transcode is submitted while the queue is at capacity. The
+ * upload itself is kept; the transcode can be queued again once the backlog drains.
+ */
+public class TranscodingQueueFullException extends RuntimeException {
+
+    private final long queuedJobs;
+
+    public TranscodingQueueFullException(long queuedJobs, int maxQueuedJobs) {
+        super("Transcoding queue is full (" + queuedJobs + " of " + maxQueuedJobs + " jobs queued); try again later");
+        this.queuedJobs = queuedJobs;
+    }
+
+    public long getQueuedJobs() {
+        return queuedJobs;
+    }
+}
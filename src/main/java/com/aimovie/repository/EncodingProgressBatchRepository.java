@@ -0,0 +1,34 @@
+package com.aimovie.repository;
+
+import com.aimovie.dto.TranscodingDTOs;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Writes live encoding percentages to the rendition rows in one JDBC batch per publish tick.
+ * Only PROCESSING rows are touched, so a late tick cannot overwrite a finished rendition.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EncodingProgressBatchRepository {
+
+    private static final String UPDATE_SQL = "UPDATE video_resolutions SET encoding_progress = ? " +
+            "WHERE movie_id = ? AND quality = ? AND encoding_status = 'PROCESSING'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void updateProgress(List<TranscodingDTOs.EncodingProgress> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getPercent());
+            ps.setLong(2, row.getMovieId());
+            ps.setString(3, row.getQuality());
+        });
+    }
+}
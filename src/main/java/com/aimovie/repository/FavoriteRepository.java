@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +25,9 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
 
     long countByUserAndIsFavoriteTrue(User user);
 
+    @Query("SELECT f.movie.id FROM Favorite f WHERE f.user.id = :userId AND f.isFavorite = true AND f.movie.id IN :movieIds")
+    List<Long> findFavoriteMovieIdsByUserIdAndMovieIdIn(@Param("userId") Long userId, @Param("movieIds") Collection<Long> movieIds);
+
     @Query("SELECT f.movie, COUNT(f) as favoriteCount FROM Favorite f WHERE f.isFavorite = true GROUP BY f.movie ORDER BY favoriteCount DESC")
     List<Object[]> findMostFavoritedMovies(Pageable pageable);
 
@@ -0,0 +1,57 @@
+package com.aimovie.repository;
+
+import com.aimovie.entity.MediaBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, Long> {
+
+    Optional<MediaBlob> findByKindAndSha256(MediaBlob.Kind kind, String sha256);
+
+    Optional<MediaBlob> findFirstByKindAndFilename(MediaBlob.Kind kind, String filename);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM MediaBlob b WHERE b.kind = :kind AND b.filename = :filename")
+    Optional<MediaBlob> lockByKindAndFilename(@Param("kind") MediaBlob.Kind kind, @Param("filename") String filename);
+
+    @Modifying
+    @Query("UPDATE MediaBlob b SET b.refCount = b.refCount + 1, b.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE b.kind = :kind AND b.sha256 = :sha256")
+    int incrementRefCount(@Param("kind") MediaBlob.Kind kind, @Param("sha256") String sha256);
+
+    /**
+     * Inserts the blob, or takes another reference on the row a concurrent upload of the same
+     * content inserted first; the unique (kind, sha256) key decides which filename wins.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO media_blobs (kind, sha256, filename, size_bytes, ref_count, created_at, updated_at) " +
+            "VALUES (:kind, :sha256, :filename, :sizeBytes, 1, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = NOW()", nativeQuery = true)
+    int insertOrReference(@Param("kind") String kind,
+                          @Param("sha256") String sha256,
+                          @Param("filename") String filename,
+                          @Param("sizeBytes") long sizeBytes);
+
+    @Query("SELECT b.filename FROM MediaBlob b WHERE b.kind = :kind AND b.updatedAt >= :since")
+    List<String> findFilenamesUpdatedSince(@Param("kind") MediaBlob.Kind kind, @Param("since") LocalDateTime since);
+
+    @Query("SELECT b.filename FROM MediaBlob b WHERE b.kind = :kind AND b.filename IN :filenames")
+    List<String> findFilenamesIn(@Param("kind") MediaBlob.Kind kind, @Param("filenames") Collection<String> filenames);
+
+    @Modifying
+    @Query("DELETE FROM MediaBlob b WHERE b.kind = :kind AND b.filename IN :filenames AND b.updatedAt < :cutoff")
+    int deleteUntouchedSince(@Param("kind") MediaBlob.Kind kind,
+                             @Param("filenames") Collection<String> filenames,
+                             @Param("cutoff") LocalDateTime cutoff);
+}
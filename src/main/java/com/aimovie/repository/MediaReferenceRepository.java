@@ -0,0 +1,91 @@
+package com.aimovie.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-only JDBC scans of every column that points at stored media, for the orphaned media
+ * collector. Rows are handed to the caller one at a time instead of being mapped to entities.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MediaReferenceRepository {
+
+    private static final String VIDEO_URLS_SQL =
+            "SELECT video_url FROM movies WHERE video_url IS NOT NULL " +
+            "UNION ALL SELECT trailer_url FROM movies WHERE trailer_url IS NOT NULL " +
+            "UNION ALL SELECT video_url FROM video_resolutions WHERE video_url IS NOT NULL " +
+            "UNION ALL SELECT playlist_url FROM video_resolutions WHERE playlist_url IS NOT NULL";
+
+    private static final String IMAGE_URLS_SQL =
+            "SELECT poster_url FROM movies WHERE poster_url IS NOT NULL " +
+            "UNION ALL SELECT thumbnail_url FROM movies WHERE thumbnail_url IS NOT NULL " +
+            "UNION ALL SELECT image_url FROM actors WHERE image_url IS NOT NULL " +
+            "UNION ALL SELECT portrait_url FROM characters WHERE portrait_url IS NOT NULL " +
+            "UNION ALL SELECT photo_url FROM directors WHERE photo_url IS NOT NULL " +
+            "UNION ALL SELECT flag_url FROM countries WHERE flag_url IS NOT NULL " +
+            "UNION ALL SELECT avatar_url FROM users WHERE avatar_url IS NOT NULL " +
+            "UNION ALL SELECT url FROM image_assets";
+
+    private static final String SUBTITLE_URLS_SQL =
+            "SELECT subtitle_url FROM subtitles WHERE subtitle_url IS NOT NULL";
+
+    // Renditions, HLS and trickplay files live in a folder named after the movie
+    private static final String MOVIE_IDS_SQL =
+            "SELECT id FROM movies UNION SELECT movie_id FROM video_resolutions WHERE movie_id IS NOT NULL";
+
+    private static final String ACTIVE_JOB_MOVIE_IDS_SQL =
+            "SELECT DISTINCT movie_id FROM transcoding_jobs WHERE status IN ('QUEUED', 'RUNNING')";
+
+    private static final String ACTIVE_JOB_SOURCES_SQL =
+            "SELECT source_path FROM transcoding_jobs WHERE status IN ('QUEUED', 'RUNNING')";
+
+    private static final String ACTIVE_UPLOADS_SQL =
+            "SELECT stored_filename FROM upload_sessions WHERE status = 'ACTIVE'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void forEachVideoUrl(Consumer<String> action) {
+        forEachString(VIDEO_URLS_SQL, action);
+    }
+
+    public void forEachImageUrl(Consumer<String> action) {
+        forEachString(IMAGE_URLS_SQL, action);
+    }
+
+    public void forEachSubtitleUrl(Consumer<String> action) {
+        forEachString(SUBTITLE_URLS_SQL, action);
+    }
+
+    public Set<Long> findMovieIds() {
+        return new HashSet<>(jdbcTemplate.queryForList(MOVIE_IDS_SQL, Long.class));
+    }
+
+    public Set<Long> findActiveJobMovieIds() {
+        return new HashSet<>(jdbcTemplate.queryForList(ACTIVE_JOB_MOVIE_IDS_SQL, Long.class));
+    }
+
+    public List<String> findActiveJobSourcePaths() {
+        return jdbcTemplate.queryForList(ACTIVE_JOB_SOURCES_SQL, String.class);
+    }
+
+    public List<String> findActiveUploadFilenames() {
+        return jdbcTemplate.queryForList(ACTIVE_UPLOADS_SQL, String.class);
+    }
+
+    private void forEachString(String sql, Consumer<String> action) {
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            String value = rs.getString(1);
+            if (value != null && !value.isBlank()) {
+                action.accept(value);
+            }
+        });
+    }
+}
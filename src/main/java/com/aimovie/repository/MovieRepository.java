@@ -5,11 +5,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 public interface MovieRepository extends JpaRepository<Movie, Long> {
     @EntityGraph(attributePaths = {"director", "country", "categories"})
@@ -119,6 +122,11 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     @Override
     List<Movie> findAll();
     
+    @EntityGraph(attributePaths = {"director", "country", "categories"})
+    List<Movie> findByIdIn(Collection<Long> ids);
+
+    List<Movie> findBySourceContentHash(String sourceContentHash);
+    
     Page<Movie> findByStatus(String status, Pageable pageable);
     
     @EntityGraph(attributePaths = {"director", "country", "categories"})
@@ -140,7 +148,39 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     @EntityGraph(attributePaths = {"director", "country", "categories"})
     @Query("SELECT m FROM Movie m WHERE m.isTrending = true AND m.isAvailable = true AND (m.releaseDate IS NULL OR m.releaseDate <= :today)")
     Page<Movie> findTrendingNowShowing(@Param("today") LocalDate today, Pageable pageable);
-}
 
+    // Rating aggregates: average is assigned first so it reads the pre-update sum/count on every dialect
+    @Modifying
+    @Query("UPDATE Movie m SET " +
+            "m.averageRating = CASE WHEN COALESCE(m.totalRatings, 0) + :countDelta > 0 " +
+            "THEN ROUND((COALESCE(m.ratingSum, 0) + :starsDelta) * 1.0 / (COALESCE(m.totalRatings, 0) + :countDelta), 1) ELSE 0.0 END, " +
+            "m.ratingSum = COALESCE(m.ratingSum, 0) + :starsDelta, " +
+            "m.totalRatings = COALESCE(m.totalRatings, 0) + :countDelta " +
+            "WHERE m.id = :movieId")
+    int applyRatingDelta(@Param("movieId") Long movieId, @Param("starsDelta") long starsDelta, @Param("countDelta") long countDelta);
 
+    @Modifying
+    @Query("UPDATE Movie m SET " +
+            "m.averageRating = COALESCE((SELECT ROUND(AVG(r.stars), 1) FROM Rating r WHERE r.movie.id = :movieId), 0.0), " +
+            "m.ratingSum = (SELECT COALESCE(SUM(r.stars), 0) FROM Rating r WHERE r.movie.id = :movieId), " +
+            "m.totalRatings = (SELECT COUNT(r) FROM Rating r WHERE r.movie.id = :movieId) " +
+            "WHERE m.id = :movieId")
+    int recalculateRatingAggregate(@Param("movieId") Long movieId);
 
+    @Query("SELECT m.id FROM Movie m WHERE m.ratingSum IS NULL OR m.totalRatings IS NULL " +
+            "OR m.totalRatings <> (SELECT COUNT(r) FROM Rating r WHERE r.movie = m) " +
+            "OR m.ratingSum <> (SELECT COALESCE(SUM(r.stars), 0) FROM Rating r WHERE r.movie = m)")
+    List<Long> findMovieIdsWithRatingDrift();
+
+    // Admin statistics
+    @Query("SELECT COALESCE(SUM(m.viewCount), 0) FROM Movie m")
+    long sumViewCount();
+
+    @Query("SELECT AVG(m.averageRating) FROM Movie m WHERE m.averageRating > 0")
+    Double averageOfRatedMovies();
+
+    // [month, count, views] for movies created in [from, to)
+    @Query("SELECT MONTH(m.createdAt), COUNT(m), COALESCE(SUM(m.viewCount), 0) FROM Movie m " +
+            "WHERE m.createdAt >= :from AND m.createdAt < :to GROUP BY MONTH(m.createdAt)")
+    List<Object[]> countCreatedAndViewsByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
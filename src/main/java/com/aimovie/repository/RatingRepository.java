@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,9 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
     Optional<Rating> findByUserIdAndMovieId(Long userId, Long movieId);
     boolean existsByUserIdAndMovieId(Long userId, Long movieId);
     void deleteByUser(User user);
+
+    @Query("SELECT DISTINCT r.movie.id FROM Rating r WHERE r.user = :user")
+    List<Long> findRatedMovieIdsByUser(@Param("user") User user);
     
     void deleteByMovieId(Long movieId);
     
@@ -26,6 +30,11 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
     @Query("SELECT COUNT(r) FROM Rating r WHERE r.comment IS NOT NULL AND YEAR(r.createdAt) = :year AND MONTH(r.createdAt) = :month")
     long countByCommentIsNotNullAndYearAndMonth(@Param("year") int year, @Param("month") int month);
     
+    // [month, count] for commented ratings created in [from, to)
+    @Query("SELECT MONTH(r.createdAt), COUNT(r) FROM Rating r WHERE r.comment IS NOT NULL " +
+           "AND r.createdAt >= :from AND r.createdAt < :to GROUP BY MONTH(r.createdAt)")
+    List<Object[]> countCommentsCreatedByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
     long countByUserIdAndCommentIsNotNull(Long userId);
     
     List<Rating> findTop5ByCommentIsNotNullOrderByCreatedAtDesc();
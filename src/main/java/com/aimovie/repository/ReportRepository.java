@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -35,6 +36,10 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     @Query("SELECT COUNT(r) FROM Report r WHERE YEAR(r.createdAt) = :year AND MONTH(r.createdAt) = :month")
     long countByYearAndMonth(@Param("year") int year, @Param("month") int month);
 
+    // [month, count] for reports created in [from, to)
+    @Query("SELECT MONTH(r.createdAt), COUNT(r) FROM Report r WHERE r.createdAt >= :from AND r.createdAt < :to GROUP BY MONTH(r.createdAt)")
+    List<Object[]> countCreatedByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
     @Query("SELECT COUNT(r) FROM Report r WHERE r.reportType = :reportType AND YEAR(r.createdAt) = :year AND MONTH(r.createdAt) = :month")
     long countByReportTypeAndYearAndMonth(@Param("reportType") Report.ReportType reportType, 
                                          @Param("year") int year, 
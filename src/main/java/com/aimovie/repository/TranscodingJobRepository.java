@@ -0,0 +1,63 @@
+package com.aimovie.repository;
+
+import com.aimovie.entity.TranscodingJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TranscodingJobRepository extends JpaRepository<TranscodingJob, Long> {
+
+    /**
+     * Locks the next claimable job: queued and due, or running with an expired lease. SKIP LOCKED
+     * lets concurrent workers on other nodes pass over rows being claimed instead of waiting.
+     * Jobs whose source is pinned to another host are left to that host.
+     */
+    @Query(value = "SELECT * FROM transcoding_jobs " +
+            "WHERE ((status = 'QUEUED' AND available_at <= :now) OR (status = 'RUNNING' AND lease_expires_at < :now)) " +
+            "AND (source_host IS NULL OR source_host = :host) " +
+            "ORDER BY priority DESC, id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<TranscodingJob> lockNextClaimable(@Param("now") LocalDateTime now, @Param("host") String host);
+
+    @Modifying
+    @Query("UPDATE TranscodingJob j SET j.heartbeatAt = :now, j.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = :status")
+    int renewLease(@Param("id") Long id,
+                   @Param("owner") String owner,
+                   @Param("status") TranscodingJob.JobStatus status,
+                   @Param("now") LocalDateTime now,
+                   @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    List<TranscodingJob> findByMovieIdAndStatusIn(Long movieId, Collection<TranscodingJob.JobStatus> statuses);
+
+    /**
+     * Row locks held until the caller's transaction ends. Superseding a movie's jobs and writing
+     * a running job's renditions both lock the job row before any rendition row, so the two
+     * serialize: a write either lands before the supersede resets it or sees the job cancelled.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM TranscodingJob j WHERE j.movieId = :movieId AND j.status IN :statuses")
+    List<TranscodingJob> lockByMovieIdAndStatusIn(@Param("movieId") Long movieId,
+                                                  @Param("statuses") Collection<TranscodingJob.JobStatus> statuses);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM TranscodingJob j WHERE j.id = :id")
+    Optional<TranscodingJob> lockById(@Param("id") Long id);
+
+    List<TranscodingJob> findTop50ByMovieIdOrderByIdDesc(Long movieId);
+
+    long countByStatus(TranscodingJob.JobStatus status);
+
+    long countByStatusAndPriorityGreaterThanEqual(TranscodingJob.JobStatus status, Integer priority);
+
+    Optional<TranscodingJob> findFirstByStatusOrderByAvailableAtAsc(TranscodingJob.JobStatus status);
+}
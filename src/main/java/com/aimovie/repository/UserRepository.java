@@ -2,7 +2,11 @@ package com.aimovie.repository;
 
 import com.aimovie.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -13,6 +17,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmailAndIdNot(String email, Long id);
     long countByEnabledTrue();
     long countByEnabledFalse();
+
+    // [month, count] for users created in [from, to)
+    @Query("SELECT MONTH(u.createdAt), COUNT(u) FROM User u WHERE u.createdAt >= :from AND u.createdAt < :to GROUP BY MONTH(u.createdAt)")
+    List<Object[]> countCreatedByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
 
 
@@ -0,0 +1,34 @@
+package com.aimovie.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch increments for buffered view counts. A relative UPDATE never reads the row, so
+ * concurrent flushes and entity saves cannot lose each other's increments.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ViewCountBatchRepository {
+
+    private static final String INCREMENT_SQL = "UPDATE movies SET view_count = COALESCE(view_count, 0) + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void incrementAll(Map<Long, Long> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Long, Long>> rows = new ArrayList<>(increments.entrySet());
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getValue());
+            ps.setLong(2, row.getKey());
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.aimovie.repository;
+
+import com.aimovie.dto.PendingWatchProgress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch writes for buffered playback heartbeats. Going through JPA would cost a
+ * select and a full-row merge per heartbeat, which is exactly what the buffer avoids.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WatchProgressBatchRepository {
+
+    // MySQL applies SET assignments left to right, so the percentage sees the merged total
+    private static final String UPDATE_SQL = """
+            UPDATE watch_history
+            SET total_duration_seconds = COALESCE(?, total_duration_seconds),
+                watch_duration_seconds = ?,
+                watch_percentage = CASE WHEN total_duration_seconds > 0
+                    THEN watch_duration_seconds * 100.0 / total_duration_seconds ELSE watch_percentage END,
+                is_completed = CASE WHEN total_duration_seconds > 0
+                    THEN watch_duration_seconds * 100.0 / total_duration_seconds >= 90 ELSE is_completed END,
+                last_watched_at = ?,
+                updated_at = ?
+            WHERE user_id = ? AND movie_id = ?
+            """;
+
+    // Inserts nothing when the user or movie was deleted since the heartbeat, instead of failing the batch
+    private static final String INSERT_SQL = """
+            INSERT INTO watch_history (user_id, movie_id, watch_duration_seconds, total_duration_seconds,
+                watch_percentage, is_completed, last_watched_at, volume_level, playback_speed, created_at, updated_at)
+            SELECT ?, ?, ?, ?, ?, ?, ?, 1.0, 1.0, ?, ?
+            FROM DUAL
+            WHERE EXISTS (SELECT 1 FROM users WHERE id = ?) AND EXISTS (SELECT 1 FROM movies WHERE id = ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Upserts the given progress rows with one UPDATE batch and one INSERT batch for the
+     * pairs that had no row yet.
+     *
+     * @return the number of rows skipped because their user or movie no longer exists
+     */
+    public int upsertAll(List<PendingWatchProgress> progress) {
+        if (progress.isEmpty()) {
+            return 0;
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, progress, progress.size(), (ps, p) -> {
+            Timestamp watchedAt = Timestamp.valueOf(p.getLastWatchedAt());
+            ps.setObject(1, p.getTotalDurationSeconds(), Types.INTEGER);
+            ps.setObject(2, p.getWatchDurationSeconds(), Types.INTEGER);
+            ps.setTimestamp(3, watchedAt);
+            ps.setTimestamp(4, watchedAt);
+            ps.setLong(5, p.getUserId());
+            ps.setLong(6, p.getMovieId());
+        })[0];
+
+        List<PendingWatchProgress> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(progress.get(i));
+            } else if (updated[i] != Statement.SUCCESS_NO_INFO && updated[i] < 0) {
+                throw new IllegalStateException("Watch progress update failed for movie " + progress.get(i).getMovieId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_SQL, missing, missing.size(), (ps, p) -> {
+            Timestamp watchedAt = Timestamp.valueOf(p.getLastWatchedAt());
+            Double percentage = p.getWatchPercentage();
+            ps.setLong(1, p.getUserId());
+            ps.setLong(2, p.getMovieId());
+            ps.setObject(3, p.getWatchDurationSeconds(), Types.INTEGER);
+            ps.setObject(4, p.getTotalDurationSeconds(), Types.INTEGER);
+            ps.setDouble(5, percentage != null ? percentage : 0.0);
+            ps.setBoolean(6, Boolean.TRUE.equals(p.getIsCompleted()));
+            ps.setTimestamp(7, watchedAt);
+            ps.setTimestamp(8, watchedAt);
+            ps.setTimestamp(9, watchedAt);
+            ps.setLong(10, p.getUserId());
+            ps.setLong(11, p.getMovieId());
+        })[0];
+
+        int skipped = 0;
+        for (int count : inserted) {
+            if (count == 0) {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+}
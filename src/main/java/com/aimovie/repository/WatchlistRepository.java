@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -49,6 +50,9 @@ public interface WatchlistRepository extends JpaRepository<Watchlist, Long> {
 
     void deleteByMovie(Movie movie);
 
+    @Query("SELECT w.movie.id FROM Watchlist w WHERE w.watchlistCollection.user.id = :userId AND w.isInWatchlist = true AND w.movie.id IN :movieIds")
+    List<Long> findWatchlistMovieIdsByUserIdAndMovieIdIn(@Param("userId") Long userId, @Param("movieIds") Collection<Long> movieIds);
+
     // Legacy methods for backward compatibility (deprecated)
     @Deprecated
     @Query("SELECT w FROM Watchlist w WHERE w.watchlistCollection.user.id = :userId AND w.isInWatchlist = true ORDER BY w.priority DESC, w.addedAt DESC")
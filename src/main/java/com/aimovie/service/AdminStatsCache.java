@@ -0,0 +1,64 @@
+package com.aimovie.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived snapshots of admin dashboard aggregates. Counts on the dashboard may lag by up to
+ * the TTL, in exchange for the aggregate queries running at most once per TTL no matter how many
+ * admins are refreshing the page. Creating or deleting users, movies, ratings and reports calls
+ * {@link #invalidateAll()} so those show up on the next refresh; view counts only catch up at
+ * the TTL, since invalidating on every view would leave nothing cached.
+ */
+@Service
+public class AdminStatsCache {
+
+    @Value("${app.admin.stats-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T getOrCompute(String key, Supplier<T> loader) {
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && !snapshot.isExpired()) {
+            return (T) snapshot.value();
+        }
+        // compute() serialises loaders per key, so concurrent misses wait for one refresh instead of each running it
+        return (T) snapshots.compute(key, (k, current) ->
+                current != null && !current.isExpired()
+                        ? current
+                        : new Snapshot(loader.get(), System.currentTimeMillis() + ttlMs)
+        ).value();
+    }
+
+    /**
+     * Drops every snapshot. Called inside a transaction, it waits for the commit so a dashboard
+     * refresh in between cannot cache the counts from before the write again.
+     */
+    public void invalidateAll() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshots.clear();
+                }
+            });
+            return;
+        }
+        snapshots.clear();
+    }
+
+    private record Snapshot(Object value, long expiresAtMillis) {
+
+        boolean isExpired() {
+            return expiresAtMillis <= System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.aimovie.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, TTL-evicting cache of validated JWTs to the principal they resolved to, so the
+ * authentication filter neither re-verifies the signature nor hits the users table on every
+ * request. Entries never outlive the token itself, and any change to a user's status or
+ * roles must call {@link #invalidateUser(Long)}. Called inside a transaction, the invalidation
+ * waits for the commit: done earlier, a request arriving in between would load the old roles
+ * from the database and cache them again under the new generation.
+ */
+@Service
+@Slf4j
+public class AuthPrincipalCache {
+
+    @Value("${app.auth.principal-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.auth.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    // Bumped on invalidation so a lookup that raced with an admin change cannot re-insert stale roles
+    private final Map<Long, Long> userGenerations = new ConcurrentHashMap<>();
+
+    public CachedPrincipal get(String token) {
+        CachedPrincipal principal = principals.get(token);
+        if (principal == null) {
+            return null;
+        }
+        if (principal.expiresAtMillis() <= System.currentTimeMillis()) {
+            principals.remove(token, principal);
+            return null;
+        }
+        return principal;
+    }
+
+    public long currentGeneration(Long userId) {
+        return userId != null ? userGenerations.getOrDefault(userId, 0L) : 0L;
+    }
+
+    public void put(String token, CachedPrincipal principal, Date tokenExpiration, long generation) {
+        if (currentGeneration(principal.userId()) != generation) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration.getTime());
+        }
+        if (principals.size() >= maxSize) {
+            evict();
+        }
+        principals.put(token, principal.withExpiry(expiresAt));
+    }
+
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(userId);
+                }
+            });
+            return;
+        }
+        invalidateNow(userId);
+    }
+
+    private void invalidateNow(Long userId) {
+        userGenerations.merge(userId, 1L, Long::sum);
+        principals.values().removeIf(principal -> userId.equals(principal.userId()));
+        log.debug("Invalidated cached principals for user {}", userId);
+    }
+
+    public void invalidateAll() {
+        principals.clear();
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        principals.values().removeIf(principal -> principal.expiresAtMillis() <= now);
+        if (principals.size() >= maxSize) {
+            // Still full of live entries: drop everything rather than tracking recency on the hot path
+            log.debug("Principal cache full ({} entries), clearing", principals.size());
+            principals.clear();
+        }
+    }
+
+    public record CachedPrincipal(Long userId, String username, List<SimpleGrantedAuthority> authorities,
+                                  boolean enabled, long expiresAtMillis) {
+
+        public CachedPrincipal(Long userId, String username, List<SimpleGrantedAuthority> authorities, boolean enabled) {
+            this(userId, username, authorities, enabled, 0L);
+        }
+
+        CachedPrincipal withExpiry(long expiresAtMillis) {
+            return new CachedPrincipal(userId, username, authorities, enabled, expiresAtMillis);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.aimovie.service;
+
+import com.aimovie.entity.BitrateRung;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses a per-title bitrate ladder. A short analysis pass decodes a few windows spread over
+ * the source at thumbnail size and measures spatial detail (mean luma gradient) and motion
+ * (mean luma difference between consecutive frames). The resulting complexity scales a
+ * reference ladder, so a static talking-head film gets fewer bits than an action movie at the
+ * same resolution. Rungs above the source resolution or above the source bitrate are never
+ * emitted, and a rung that would not be meaningfully smaller than the one above it is dropped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BitrateLadderService {
+
+    // Reference ladder for typical content (complexity 1.0), lowest rung first
+    static final List<BitrateRung> REFERENCE_LADDER = List.of(
+            new BitrateRung("360p", 640, 360, 800),
+            new BitrateRung("480p", 854, 480, 1200),
+            new BitrateRung("720p", 1280, 720, 2500),
+            new BitrateRung("1080p", 1920, 1080, 5000),
+            new BitrateRung("1440p", 2560, 1440, 8000)
+    );
+
+    // Analysis runs on downscaled grayscale frames; detail above this size barely moves the score
+    private static final int ANALYSIS_WIDTH = 160;
+    private static final int ANALYSIS_HEIGHT = 90;
+
+    // Scores of typical live-action content at the analysis size
+    private static final double REFERENCE_SPATIAL = 10.0;
+    private static final double REFERENCE_TEMPORAL = 4.0;
+
+    private static final int AUDIO_KBPS = 128;
+    private static final int BITRATE_STEP_KBPS = 50;
+
+    private final VideoMetadataService videoMetadataService;
+
+    @Value("${app.video.ladder.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.video.ladder.sample-count:8}")
+    private int sampleCount;
+
+    @Value("${app.video.ladder.frames-per-sample:12}")
+    private int framesPerSample;
+
+    @Value("${app.video.ladder.min-factor:0.4}")
+    private double minFactor;
+
+    @Value("${app.video.ladder.max-factor:1.3}")
+    private double maxFactor;
+
+    @Value("${app.video.ladder.min-rung-spacing:1.4}")
+    private double minRungSpacing;
+
+    public record BitrateLadder(List<BitrateRung> rungs, double complexity, double spatial, double temporal) {
+    }
+
+    public BitrateLadder planLadder(Path source) {
+        VideoMetadataService.VideoMetadata metadata;
+        try {
+            metadata = videoMetadataService.extractMetadataFromFile(source.toFile(), source.getFileName().toString());
+        } catch (Exception e) {
+            log.warn("Could not probe {} for ladder planning, using the reference ladder: {}", source, e.getMessage());
+            return new BitrateLadder(deriveLadder(1.0, Integer.MAX_VALUE, 0, minFactor, maxFactor, minRungSpacing), 1.0, 0, 0);
+        }
+        int maxHeight = qualityHeight(metadata.getVideoQuality());
+        int sourceVideoKbps = Math.max(0, metadata.getBitRate() / 1000 - AUDIO_KBPS);
+
+        double spatial = 0;
+        double temporal = 0;
+        double complexity = 1.0;
+        if (enabled) {
+            try {
+                double[] scores = analyze(source);
+                if (scores != null) {
+                    spatial = scores[0];
+                    temporal = scores[1];
+                    complexity = 0.5 * spatial / REFERENCE_SPATIAL + 0.5 * temporal / REFERENCE_TEMPORAL;
+                }
+            } catch (Exception e) {
+                log.warn("Content analysis of {} failed, using the reference ladder: {}", source, e.getMessage());
+            }
+        }
+
+        List<BitrateRung> rungs = deriveLadder(complexity, maxHeight, sourceVideoKbps, minFactor, maxFactor, minRungSpacing);
+        log.info("Planned ladder for {} (source {}, ~{} kbps): complexity {} (spatial {}, motion {}) -> {}",
+                source.getFileName(), metadata.getVideoQuality(), sourceVideoKbps,
+                String.format("%.2f", complexity), String.format("%.1f", spatial), String.format("%.1f", temporal), rungs);
+        return new BitrateLadder(rungs, complexity, spatial, temporal);
+    }
+
+    /**
+     * Scales the reference ladder by the square root of the complexity (bits needed grow more
+     * slowly than the detail they carry) and caps every rung at the source bitrate. The ladder
+     * is then thinned from the top: the highest rung the source allows is always kept, and a
+     * rung below it only if the next kept rung is at least {@code minSpacing} times its bitrate.
+     * A source smaller than the lowest reference rung gets a single rendition at its own height.
+     */
+    static List<BitrateRung> deriveLadder(double complexity, int maxHeight, int sourceVideoKbps,
+                                          double minFactor, double maxFactor, double minSpacing) {
+        double factor = Math.max(minFactor, Math.min(maxFactor, Math.sqrt(Math.max(0, complexity))));
+        List<BitrateRung> eligible = new ArrayList<>();
+        for (BitrateRung reference : REFERENCE_LADDER) {
+            if (reference.getHeight() > maxHeight) {
+                break;
+            }
+            eligible.add(new BitrateRung(reference.getQuality(), reference.getWidth(), reference.getHeight(),
+                    scaledBitrate(reference.getBitrateKbps(), factor, sourceVideoKbps)));
+        }
+        if (eligible.isEmpty()) {
+            // Never upscale: encode the lowest rung's bits per pixel at the source's own size
+            BitrateRung lowest = REFERENCE_LADDER.get(0);
+            int height = Math.max(2, maxHeight - maxHeight % 2);
+            int width = (int) Math.round(height * 16.0 / 9 / 2) * 2;
+            double pixelRatio = (double) width * height / (lowest.getWidth() * lowest.getHeight());
+            return List.of(new BitrateRung(height + "p", width, height,
+                    scaledBitrate(lowest.getBitrateKbps() * pixelRatio, factor, sourceVideoKbps)));
+        }
+
+        List<BitrateRung> ladder = new ArrayList<>();
+        for (int i = eligible.size() - 1; i >= 0; i--) {
+            BitrateRung rung = eligible.get(i);
+            if (ladder.isEmpty() || ladder.get(0).getBitrateKbps() >= rung.getBitrateKbps() * minSpacing) {
+                ladder.add(0, rung);
+            }
+        }
+        return ladder;
+    }
+
+    private static int scaledBitrate(double referenceKbps, double factor, int sourceVideoKbps) {
+        int bitrate = (int) Math.round(referenceKbps * factor / BITRATE_STEP_KBPS) * BITRATE_STEP_KBPS;
+        if (sourceVideoKbps > 0) {
+            bitrate = Math.min(bitrate, sourceVideoKbps);
+        }
+        return Math.max(BITRATE_STEP_KBPS, bitrate);
+    }
+
+    // Mean absolute horizontal and vertical luma gradient
+    static double spatialComplexity(byte[] luma, int width, int height) {
+        long sum = 0;
+        long count = 0;
+        for (int y = 0; y < height - 1; y++) {
+            int row = y * width;
+            for (int x = 0; x < width - 1; x++) {
+                int pixel = luma[row + x] & 0xFF;
+                sum += Math.abs(pixel - (luma[row + x + 1] & 0xFF));
+                sum += Math.abs(pixel - (luma[row + width + x] & 0xFF));
+                count += 2;
+            }
+        }
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // Mean absolute luma difference between two frames of the same size
+    static double temporalComplexity(byte[] previous, byte[] current) {
+        long sum = 0;
+        for (int i = 0; i < current.length; i++) {
+            sum += Math.abs((previous[i] & 0xFF) - (current[i] & 0xFF));
+        }
+        return current.length == 0 ? 0 : (double) sum / current.length;
+    }
+
+    static int qualityHeight(String quality) {
+        if (quality == null) {
+            return Integer.MAX_VALUE;
+        }
+        if ("4K".equalsIgnoreCase(quality)) {
+            return 2160;
+        }
+        try {
+            return Integer.parseInt(quality.replaceAll("[^0-9]", ""));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    // Returns {spatial, temporal}, or null when no frames could be sampled
+    private double[] analyze(Path source) throws Exception {
+        double spatialSum = 0;
+        int spatialCount = 0;
+        double temporalSum = 0;
+        int temporalCount = 0;
+
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(source.toFile())) {
+            grabber.setImageWidth(ANALYSIS_WIDTH);
+            grabber.setImageHeight(ANALYSIS_HEIGHT);
+            grabber.setPixelFormat(avutil.AV_PIX_FMT_GRAY8);
+            grabber.start();
+            long duration = grabber.getLengthInTime();
+
+            for (int window = 0; window < sampleCount; window++) {
+                // Without a known duration the windows are simply read back to back
+                if (duration > 0) {
+                    grabber.setVideoTimestamp(duration * (2L * window + 1) / (2L * sampleCount));
+                }
+                byte[] previous = null;
+                for (int i = 0; i < framesPerSample; i++) {
+                    Frame frame = grabber.grabImage();
+                    if (frame == null) {
+                        break;
+                    }
+                    byte[] luma = copyLuma(frame);
+                    spatialSum += spatialComplexity(luma, frame.imageWidth, frame.imageHeight);
+                    spatialCount++;
+                    if (previous != null) {
+                        temporalSum += temporalComplexity(previous, luma);
+                        temporalCount++;
+                    }
+                    previous = luma;
+                }
+            }
+            grabber.stop();
+        }
+
+        if (spatialCount == 0) {
+            return null;
+        }
+        return new double[]{spatialSum / spatialCount, temporalCount == 0 ? 0 : temporalSum / temporalCount};
+    }
+
+    // The grabber reuses its buffer, so each sampled frame is copied out without row padding
+    private static byte[] copyLuma(Frame frame) {
+        ByteBuffer buffer = (ByteBuffer) frame.image[0];
+        int width = frame.imageWidth;
+        int height = frame.imageHeight;
+        byte[] luma = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            buffer.get(y * frame.imageStride, luma, y * width, width);
+        }
+        return luma;
+    }
+}
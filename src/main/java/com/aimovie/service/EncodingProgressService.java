@@ -0,0 +1,37 @@
+package com.aimovie.service;
+
+import com.aimovie.dto.TranscodingDTOs;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+public interface EncodingProgressService {
+
+    /**
+     * Starts tracking one rendition encode. {@code durationMicros} is the source length from
+     * the grabber (0 when unknown). A null movie id gives a detached tracker that computes
+     * statistics but is not published.
+     */
+    Tracker track(Long movieId, String quality, long durationMicros);
+
+    List<TranscodingDTOs.EncodingProgress> getProgress(Long movieId);
+
+    /**
+     * Opens a Server-Sent Events stream of progress for the movie. The current state is sent
+     * immediately, then a {@code progress} event on every publish tick while encodes run.
+     */
+    SseEmitter subscribe(Long movieId);
+
+    /**
+     * Called from the encoder threads. Updates are plain field writes; publishing to the
+     * database and subscribers happens on a separate throttled tick.
+     */
+    interface Tracker {
+
+        void update(long timestampMicros, long framesEncoded);
+
+        void finish(boolean success);
+
+        TranscodingDTOs.EncodingProgress snapshot();
+    }
+}
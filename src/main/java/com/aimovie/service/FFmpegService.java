@@ -14,6 +14,16 @@ public interface FFmpegService {
             Long movieId, 
             String originalFileName);
 
+    /**
+     * Same as {@link #processVideoToMultipleResolutions(Path, Long, String)}, but every write to
+     * the movie and its renditions is dropped once {@code fence} no longer holds.
+     */
+    CompletableFuture<VideoProcessingResult> processVideoToMultipleResolutions(
+            Path inputVideoPath,
+            Long movieId,
+            String originalFileName,
+            TranscodingFence fence);
+
     CompletableFuture<VideoProcessingResult> encodeVideoToResolution(
             Path inputVideoPath, 
             String outputPath, 
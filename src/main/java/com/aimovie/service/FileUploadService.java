@@ -1,5 +1,6 @@
 package com.aimovie.service;
 
+import com.aimovie.entity.MediaBlob;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -14,8 +15,16 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Object;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -24,9 +33,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -34,6 +50,7 @@ import java.util.UUID;
 public class FileUploadService {
 
     private final VideoMetadataService videoMetadataService;
+    private final MediaBlobService mediaBlobService;
 
     @PostConstruct
     void initialize() {
@@ -44,6 +61,9 @@ public class FileUploadService {
 
     @PreDestroy
     void shutdown() {
+        if (s3Transfer != null) {
+            s3Transfer.close();
+        }
         if (s3Client != null) {
             s3Client.close();
         }
@@ -106,7 +126,33 @@ public class FileUploadService {
     @Value("${app.cdn.base-url:}")
     private String cdnBaseUrl;
 
+    @Value("${app.storage.cloud.transfer.part-size-bytes:16777216}")
+    private long transferPartSize;
+
+    @Value("${app.storage.cloud.transfer.parallelism:8}")
+    private int transferParallelism;
+
+    @Value("${app.storage.cloud.transfer.max-attempts:4}")
+    private int transferMaxAttempts;
+
+    @Value("${app.storage.cloud.transfer.retry-backoff-ms:500}")
+    private long transferRetryBackoffMs;
+
+    // S3 rejects multipart parts smaller than this, except the last one
+    private static final long MIN_TRANSFER_PART_SIZE = 5L * 1024 * 1024;
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    // Per-chunk encodes the transcoder leaves in a movie folder only when it is interrupted
+    private static final String RENDITION_CHUNK_DIR = "chunks";
+
     private S3Client s3Client;
+    private S3ParallelTransfer s3Transfer;
+
+    @FunctionalInterface
+    private interface StoreAction {
+        void apply(String filename) throws IOException;
+    }
 
     public String uploadVideoFile(MultipartFile file) throws IOException {
         validateFile(file);
@@ -115,9 +161,13 @@ public class FileUploadService {
         String fileExtension = getFileExtension(originalFilename);
         String uniqueFilename = UUID.randomUUID().toString() + "." + fileExtension;
 
-        storeVideoBinary(file, uniqueFilename);
-
-        return uniqueFilename;
+        Path spooled = spoolPath(uniqueFilename);
+        try {
+            String sha256 = spool(file, spooled);
+            return storeVideoDeduplicated(spooled, sha256, uniqueFilename);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
     }
 
     public Path getVideoFilePath(String filename) {
@@ -128,10 +178,20 @@ public class FileUploadService {
         return Files.exists(getVideoFilePath(filename));
     }
 
+    /**
+     * Drops one reference to an uploaded video; the file itself is only deleted once no other
+     * upload of the same content still uses it.
+     */
     public void deleteVideoFile(String filename) throws IOException {
         if (filename == null || filename.isBlank()) {
             return;
         }
+        if (mediaBlobService.release(MediaBlob.Kind.VIDEO, filename)) {
+            deleteStoredVideo(filename);
+        }
+    }
+
+    private void deleteStoredVideo(String filename) throws IOException {
         if (cloudStorageEnabled) {
             String key = buildCloudKey(cloudVideoFolder, filename);
             try {
@@ -156,12 +216,17 @@ public class FileUploadService {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
         }
+        validateVideoUpload(file.getOriginalFilename(), file.getSize());
+    }
 
-        if (file.getSize() > maxFileSize) {
+    /**
+     * Validates a video upload by name and declared size, before any bytes are received.
+     */
+    public void validateVideoUpload(String originalFilename, long size) {
+        if (size > maxFileSize) {
             throw new IllegalArgumentException("File size exceeds maximum allowed size of " + (maxFileSize / (1024 * 1024)) + " MB");
         }
 
-        String originalFilename = file.getOriginalFilename();
         if (originalFilename == null || originalFilename.trim().isEmpty()) {
             throw new IllegalArgumentException("File name is invalid");
         }
@@ -196,13 +261,22 @@ public class FileUploadService {
         String fileExtension = getFileExtension(originalFilename);
         String uniqueFilename = UUID.randomUUID().toString() + "." + fileExtension;
 
-        storeVideoBinary(file, uniqueFilename);
-
-        VideoMetadataService.VideoMetadata metadata = videoMetadataService.extractMetadata(file);
+        // Hashed and probed from the spooled copy, so the request body is never copied in memory
+        VideoMetadataService.VideoMetadata metadata;
+        String storedFilename;
+        String sha256;
+        Path spooled = spoolPath(uniqueFilename);
+        try {
+            sha256 = spool(file, spooled);
+            metadata = videoMetadataService.extractMetadataFromFile(spooled.toFile(), originalFilename);
+            storedFilename = storeVideoDeduplicated(spooled, sha256, uniqueFilename);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
 
         log.info("Video uploaded with metadata: {}", metadata);
 
-        return new VideoUploadResult(uniqueFilename, originalFilename, metadata);
+        return new VideoUploadResult(storedFilename, originalFilename, metadata, sha256);
     }
 
     public String uploadImageFile(MultipartFile file) throws IOException {
@@ -212,16 +286,25 @@ public class FileUploadService {
         String fileExtension = getFileExtension(originalFilename);
         String uniqueFilename = UUID.randomUUID().toString() + "." + fileExtension;
 
+        // Images are small enough to hash in memory before deciding whether to store them
+        byte[] content = file.getBytes();
+        String sha256 = HexFormat.of().formatHex(sha256().digest(content));
+        return storeDeduplicated(MediaBlob.Kind.IMAGE, sha256, content.length, uniqueFilename,
+                filename -> storeImage(filename, content, file.getContentType()),
+                this::deleteStoredImage);
+    }
+
+    private void storeImage(String uniqueFilename, byte[] content, String contentType) throws IOException {
         if (cloudStorageEnabled) {
             String key = buildCloudKey(cloudImageFolder, uniqueFilename);
-            try (InputStream inputStream = file.getInputStream()) {
+            try {
                 getS3Client().putObject(
                         PutObjectRequest.builder()
                                 .bucket(cloudBucket)
                                 .key(key)
-                                .contentType(file.getContentType())
+                                .contentType(contentType)
                                 .build(),
-                        RequestBody.fromInputStream(inputStream, file.getSize())
+                        RequestBody.fromBytes(content)
                 );
                 log.info("Image uploaded to cloud storage: {}", key);
             } catch (SdkException e) {
@@ -235,11 +318,9 @@ public class FileUploadService {
             }
 
             Path filePath = uploadPath.resolve(uniqueFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            Files.write(filePath, content);
             log.info("Image file uploaded successfully: {}", uniqueFilename);
         }
-
-        return uniqueFilename;
     }
 
     public Path getImageFilePath(String filename) {
@@ -279,10 +360,20 @@ public class FileUploadService {
         return uniqueFilename;
     }
 
+    /**
+     * Drops one reference to an uploaded image; the file itself is only deleted once no other
+     * upload of the same content still uses it.
+     */
     public void deleteImageFile(String filename) throws IOException {
         if (filename == null || filename.isBlank()) {
             return;
         }
+        if (mediaBlobService.release(MediaBlob.Kind.IMAGE, filename)) {
+            deleteStoredImage(filename);
+        }
+    }
+
+    private void deleteStoredImage(String filename) throws IOException {
         if (cloudStorageEnabled) {
             String key = buildCloudKey(cloudImageFolder, filename);
             try {
@@ -371,36 +462,112 @@ public class FileUploadService {
         }
     }
 
-    private void storeVideoBinary(MultipartFile file, String uniqueFilename) throws IOException {
+    /**
+     * Where an incoming video is written while it is hashed: next to its final location for local
+     * storage, so publishing it is a rename, or a temp file that is uploaded from in cloud mode.
+     */
+    private Path spoolPath(String uniqueFilename) throws IOException {
         if (cloudStorageEnabled) {
-            try (InputStream inputStream = file.getInputStream()) {
-                String contentType = resolveVideoContentType(file.getContentType(), uniqueFilename);
-                uploadToCloudStorage(cloudVideoFolder, uniqueFilename, inputStream, file.getSize(), contentType);
-            }
-        } else {
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            return Files.createTempFile("upload_", "_" + uniqueFilename);
+        }
+        Path uploadPath = Paths.get(uploadDir);
+        Files.createDirectories(uploadPath);
+        return uploadPath.resolve(uniqueFilename + ".part");
+    }
+
+    private String storeVideoDeduplicated(Path spooled, String sha256, String uniqueFilename) throws IOException {
+        return storeDeduplicated(MediaBlob.Kind.VIDEO, sha256, Files.size(spooled), uniqueFilename,
+                filename -> storeVideoFromPath(spooled, filename),
+                this::deleteStoredVideo);
+    }
+
+    /**
+     * Returns the filename holding this content. A known hash only takes another reference on the
+     * existing file, so re-uploads cost no storage and no transfer; otherwise the content is stored
+     * under {@code uniqueFilename} and indexed.
+     */
+    private String storeDeduplicated(MediaBlob.Kind kind, String sha256, long size, String uniqueFilename,
+                                     StoreAction store, StoreAction discard) throws IOException {
+        Optional<String> existing = mediaBlobService.acquire(kind, sha256);
+        if (existing.isPresent()) {
+            log.info("{} upload matches stored {} (sha256 {}); reusing it", kind, existing.get(), sha256);
+            return existing.get();
+        }
+        store.apply(uniqueFilename);
+        String stored;
+        try {
+            stored = mediaBlobService.register(kind, sha256, uniqueFilename, size);
+        } catch (RuntimeException e) {
+            discard.apply(uniqueFilename);
+            throw e;
+        }
+        if (!stored.equals(uniqueFilename)) {
+            // A concurrent upload of the same bytes was indexed first
+            log.info("{} upload {} duplicates concurrently stored {}; discarding it", kind, uniqueFilename, stored);
+            discard.apply(uniqueFilename);
+        }
+        return stored;
+    }
+
+    /**
+     * Moves the upload to {@code spooled} and returns its hex SHA-256. A multipart body the
+     * container already wrote to disk is renamed into place (the absolute File form lets it
+     * rename instead of copying), so the only pass over the bytes is the hash.
+     */
+    private static String spool(MultipartFile file, Path spooled) throws IOException {
+        file.transferTo(spooled.toAbsolutePath().toFile());
+        return hashFile(spooled);
+    }
+
+    // Hex SHA-256 of the file in one sequential read
+    static String hashFile(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
             }
-            Path filePath = uploadPath.resolve(uniqueFilename);
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Publishes a video that was assembled directly in the upload directory under its final
+     * name. In cloud mode it is also uploaded to the video folder; the local copy is kept for
+     * transcoding and is the caller's to remove.
+     */
+    public void storeVideoFromPath(Path localFile, String uniqueFilename) throws IOException {
+        if (!cloudStorageEnabled) {
+            Path target = getVideoFilePath(uniqueFilename);
+            if (!localFile.toAbsolutePath().normalize().equals(target.toAbsolutePath().normalize())) {
+                Files.createDirectories(target.toAbsolutePath().getParent());
+                Files.move(localFile, target, StandardCopyOption.REPLACE_EXISTING);
             }
             log.info("Video file saved locally: {}", uniqueFilename);
+            return;
+        }
+        String key = buildCloudKey(cloudVideoFolder, uniqueFilename);
+        try {
+            getS3Transfer().upload(localFile, cloudBucket, key, resolveVideoContentType(null, uniqueFilename));
+            log.info("Video uploaded to cloud storage: {}", key);
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload video to cloud storage", e);
         }
     }
 
     private void uploadToCloudStorage(String folder, String filename, InputStream inputStream, long fileSize, String contentType) throws IOException {
         try {
             String key = buildCloudKey(folder, filename);
-            getS3Client().putObject(
-                    PutObjectRequest.builder()
-                            .bucket(cloudBucket)
-                            .key(key)
-                            .contentType(contentType)
-                            .build(),
-                    RequestBody.fromInputStream(inputStream, fileSize)
-            );
+            getS3Transfer().upload(inputStream, fileSize, cloudBucket, key, contentType);
             log.info("File uploaded to cloud storage: {}", key);
         } catch (SdkException e) {
             throw new IOException("Failed to upload file to cloud storage", e);
@@ -437,17 +604,21 @@ public class FileUploadService {
         private String filename;
         private String originalFilename;
         private VideoMetadataService.VideoMetadata metadata;
+        private String sha256;
 
-        public VideoUploadResult(String filename, String originalFilename, VideoMetadataService.VideoMetadata metadata) {
+        public VideoUploadResult(String filename, String originalFilename, VideoMetadataService.VideoMetadata metadata,
+                                 String sha256) {
             this.filename = filename;
             this.originalFilename = originalFilename;
             this.metadata = metadata;
+            this.sha256 = sha256;
         }
 
         // Getters
         public String getFilename() { return filename; }
         public String getOriginalFilename() { return originalFilename; }
         public VideoMetadataService.VideoMetadata getMetadata() { return metadata; }
+        public String getSha256() { return sha256; }
     }
 
     public String buildPublicImageUrl(String filename) {
@@ -485,6 +656,26 @@ public class FileUploadService {
         return "/api/videos/stream/" + movieId + "/" + filename;
     }
 
+    public String buildPublicHlsUrl(Long movieId, String filename) {
+        if (filename == null || filename.isBlank()) {
+            return null;
+        }
+        if (cloudStorageEnabled) {
+            return buildCdnUrl(cloudVideoFolder, movieId + "/hls/" + filename);
+        }
+        return "/api/videos/hls/" + movieId + "/" + filename;
+    }
+
+    public String buildPublicTrickplayUrl(Long movieId, String filename) {
+        if (filename == null || filename.isBlank()) {
+            return null;
+        }
+        if (cloudStorageEnabled) {
+            return buildCdnUrl(cloudVideoFolder, movieId + "/trickplay/" + filename);
+        }
+        return "/api/videos/trickplay/" + movieId + "/" + filename;
+    }
+
     public String buildPublicSubtitleUrl(String filename) {
         if (filename == null || filename.isBlank()) {
             return null;
@@ -498,8 +689,7 @@ public class FileUploadService {
     public String uploadVideoFileFromPath(Path filePath, Long movieId, String filename) throws IOException {
         if (cloudStorageEnabled) {
             String key = buildCloudKey(cloudVideoFolder, movieId + "/" + filename);
-            try (InputStream inputStream = Files.newInputStream(filePath)) {
-                long fileSize = Files.size(filePath);
+            try {
                 String contentType = "video/mp4";
                 if (filename.toLowerCase().endsWith(".mkv")) {
                     contentType = "video/x-matroska";
@@ -507,16 +697,17 @@ public class FileUploadService {
                     contentType = "video/x-msvideo";
                 } else if (filename.toLowerCase().endsWith(".mov")) {
                     contentType = "video/quicktime";
+                } else if (filename.toLowerCase().endsWith(".m3u8")) {
+                    contentType = "application/vnd.apple.mpegurl";
+                } else if (filename.toLowerCase().endsWith(".m4s")) {
+                    contentType = "video/iso.segment";
+                } else if (filename.toLowerCase().endsWith(".vtt")) {
+                    contentType = "text/vtt";
+                } else if (filename.toLowerCase().endsWith(".jpg")) {
+                    contentType = "image/jpeg";
                 }
                 
-                getS3Client().putObject(
-                        PutObjectRequest.builder()
-                                .bucket(cloudBucket)
-                                .key(key)
-                                .contentType(contentType)
-                                .build(),
-                        RequestBody.fromInputStream(inputStream, fileSize)
-                );
+                getS3Transfer().upload(filePath, cloudBucket, key, contentType);
                 log.info("Video file uploaded to cloud storage from path: {}", key);
                 return filename;
             } catch (SdkException e) {
@@ -527,10 +718,157 @@ public class FileUploadService {
         return filename;
     }
 
+    /**
+     * Downloads a stored video to a local path using parallel ranged reads. The filename is
+     * relative to the video folder, e.g. "{movieId}/720p.mp4" for transcoded renditions.
+     */
+    public void downloadVideoFile(String filename, Path target) throws IOException {
+        if (!cloudStorageEnabled) {
+            Files.copy(getVideoFilePath(filename), target, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        String key = buildCloudKey(cloudVideoFolder, filename);
+        try {
+            getS3Transfer().download(cloudBucket, key, target);
+            log.info("Video downloaded from cloud storage: {}", key);
+        } catch (SdkException e) {
+            throw new IOException("Failed to download video from cloud storage", e);
+        }
+    }
+
+    /**
+     * Gives {@code toMovieId} its own copy of another movie's rendition folder: the MP4s (renamed
+     * after the target movie), the HLS package and the trickplay sprites. Cloud objects are copied
+     * inside the bucket, so nothing passes through this node. Local files are real copies rather
+     * than links because a later encode of either movie rewrites its files in place. Deleting or
+     * re-encoding one movie leaves the other intact. Leftover chunk encodes are not copied.
+     */
+    public void copyMovieRenditions(Long fromMovieId, Long toMovieId) throws IOException {
+        if (cloudStorageEnabled) {
+            String sourcePrefix = buildCloudKey(cloudVideoFolder, fromMovieId + "/");
+            List<String> keys = new ArrayList<>();
+            forEachCloudObject(sourcePrefix, object -> keys.add(object.key()));
+            try {
+                for (String key : keys) {
+                    String relative = key.substring(sourcePrefix.length());
+                    if (relative.startsWith(RENDITION_CHUNK_DIR + "/")) {
+                        continue;
+                    }
+                    getS3Client().copyObject(CopyObjectRequest.builder()
+                            .sourceBucket(cloudBucket)
+                            .sourceKey(key)
+                            .destinationBucket(cloudBucket)
+                            .destinationKey(buildCloudKey(cloudVideoFolder,
+                                    toMovieId + "/" + renditionPathFor(relative, fromMovieId, toMovieId)))
+                            .build());
+                }
+            } catch (SdkException e) {
+                throw new IOException("Failed to copy renditions of movie " + fromMovieId + " to movie " + toMovieId, e);
+            }
+            log.info("Copied {} rendition objects of movie {} to movie {}", keys.size(), fromMovieId, toMovieId);
+            return;
+        }
+
+        Path source = Paths.get(uploadDir, fromMovieId.toString());
+        Path target = Paths.get(uploadDir, toMovieId.toString());
+        List<Path> files;
+        try (java.util.stream.Stream<Path> walk = Files.walk(source)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            String relative = source.relativize(file).toString().replace(java.io.File.separatorChar, '/');
+            if (relative.startsWith(RENDITION_CHUNK_DIR + "/")) {
+                continue;
+            }
+            Path copy = target.resolve(renditionPathFor(relative, fromMovieId, toMovieId));
+            Files.createDirectories(copy.getParent());
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.info("Copied {} rendition files of movie {} to movie {}", files.size(), fromMovieId, toMovieId);
+    }
+
+    // Top-level MP4s are named "{movieId}_{quality}.mp4"; everything in hls/ and trickplay/ is movie-neutral
+    static String renditionPathFor(String relative, Long fromMovieId, Long toMovieId) {
+        String fromPrefix = fromMovieId + "_";
+        if (relative.indexOf('/') < 0 && relative.startsWith(fromPrefix)) {
+            return toMovieId + "_" + relative.substring(fromPrefix.length());
+        }
+        return relative;
+    }
+
     public boolean isCloudStorageEnabled() {
         return cloudStorageEnabled;
     }
 
+    public String getCloudVideoFolder() {
+        return cloudVideoFolder;
+    }
+
+    public String getCloudImageFolder() {
+        return cloudImageFolder;
+    }
+
+    public String getCloudSubtitleFolder() {
+        return cloudSubtitleFolder;
+    }
+
+    public record StoredObject(String key, long sizeBytes, Instant lastModified) {
+    }
+
+    /**
+     * Visits every object under the prefix one listing page at a time, so a large bucket is never
+     * held in memory.
+     */
+    public void forEachCloudObject(String prefix, Consumer<StoredObject> action) throws IOException {
+        try {
+            for (S3Object object : getS3Client().listObjectsV2Paginator(ListObjectsV2Request.builder()
+                    .bucket(cloudBucket)
+                    .prefix(prefix)
+                    .build()).contents()) {
+                action.accept(new StoredObject(object.key(), object.size() != null ? object.size() : 0, object.lastModified()));
+            }
+        } catch (SdkException e) {
+            throw new IOException("Failed to list cloud storage under " + prefix, e);
+        }
+    }
+
+    /**
+     * Deletes up to 1000 objects in a single request. Returns the keys that could not be deleted.
+     */
+    public List<String> deleteCloudObjects(List<String> keys) throws IOException {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        try {
+            DeleteObjectsResponse response = getS3Client().deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(cloudBucket)
+                    .delete(Delete.builder()
+                            .objects(keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                            .quiet(true)
+                            .build())
+                    .build());
+            if (response.hasErrors()) {
+                response.errors().forEach(error ->
+                        log.warn("Failed to delete {} from cloud storage: {}", error.key(), error.message()));
+                return response.errors().stream().map(S3Error::key).toList();
+            }
+            return List.of();
+        } catch (SdkException e) {
+            throw new IOException("Failed to delete objects from cloud storage", e);
+        }
+    }
+
+    private synchronized S3ParallelTransfer getS3Transfer() {
+        if (s3Transfer == null) {
+            s3Transfer = new S3ParallelTransfer(getS3Client(),
+                    Math.max(MIN_TRANSFER_PART_SIZE, transferPartSize),
+                    transferParallelism,
+                    transferMaxAttempts,
+                    transferRetryBackoffMs);
+        }
+        return s3Transfer;
+    }
+
     private synchronized S3Client getS3Client() {
         if (!cloudStorageEnabled) {
             return null;
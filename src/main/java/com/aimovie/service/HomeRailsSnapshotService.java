@@ -0,0 +1,24 @@
+package com.aimovie.service;
+
+import com.aimovie.dto.CategoryDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HomeRailsSnapshotService {
+
+    /**
+     * The latest anonymous home-page rails. Never blocks on the database once the first
+     * snapshot has been built.
+     */
+    HomeRailsSnapshot getSnapshot();
+
+    void refresh();
+
+    /**
+     * Rails as materialized for anonymous visitors, with the JSON body pre-serialized so serving
+     * it is a byte copy, and a strong ETag over those bytes.
+     */
+    record HomeRailsSnapshot(List<CategoryDTO> rails, byte[] json, String etag, LocalDateTime generatedAt) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.aimovie.service;
+
+import com.aimovie.entity.MediaBlob;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+public interface MediaBlobService {
+
+    /**
+     * Takes a reference on the stored file with this content, if there is one, and returns its
+     * filename. The caller then skips storing its own copy.
+     */
+    Optional<String> acquire(MediaBlob.Kind kind, String sha256);
+
+    /**
+     * Records a file just stored under {@code filename} and returns the filename that now holds
+     * the content. That is a different one when a concurrent upload of the same bytes registered
+     * first, in which case the caller's copy is redundant and should be removed.
+     */
+    String register(MediaBlob.Kind kind, String sha256, String filename, long sizeBytes);
+
+    /**
+     * Drops one reference on a stored file. Returns true when nothing references it any more and
+     * it should be deleted, which includes files stored before the index existed.
+     */
+    boolean release(MediaBlob.Kind kind, String filename);
+
+    Optional<String> findSha256(MediaBlob.Kind kind, String filename);
+
+    /**
+     * Filenames whose index entry was created or referenced since {@code since}; an upload may be
+     * about to point a record at them.
+     */
+    Set<String> findReferencedSince(MediaBlob.Kind kind, LocalDateTime since);
+
+    /**
+     * Removes the index entries of files about to be deleted as orphans, unless an upload
+     * referenced them after {@code cutoff}. Returns the filenames that are still indexed and must
+     * be kept.
+     */
+    Set<String> forget(MediaBlob.Kind kind, Collection<String> filenames, LocalDateTime cutoff);
+}
@@ -0,0 +1,16 @@
+package com.aimovie.service;
+
+import com.aimovie.dto.MediaGarbageCollectionDTOs;
+
+public interface MediaGarbageCollectionService {
+
+    /**
+     * Starts one mark-and-sweep pass on the collector thread. Stored files and bucket objects
+     * that no record references and that are older than the grace period are deleted, or only
+     * reported when {@code dryRun} is set; the report shows up in {@link #getStats()} as the
+     * last run. Returns false when a pass is already running on this node.
+     */
+    boolean startCollection(boolean dryRun);
+
+    MediaGarbageCollectionDTOs.CollectorStats getStats();
+}
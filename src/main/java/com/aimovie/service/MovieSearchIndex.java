@@ -0,0 +1,38 @@
+package com.aimovie.service;
+
+import com.aimovie.dto.SearchFacetsDTO;
+import com.aimovie.dto.SearchRequest;
+
+import java.util.List;
+
+public interface MovieSearchIndex {
+
+    /**
+     * Evaluates every filter in the request together and returns the requested page of
+     * matching movie ids, ordered by BM25 relevance or by the requested sort field, with facet
+     * counts over the whole result set unless the request opts out.
+     */
+    SearchHits search(SearchRequest request);
+
+    /**
+     * Completes a typed prefix against movie titles, actors, directors and categories, most
+     * viewed first. Any word of a phrase can be completed, not only its first.
+     */
+    List<String> suggest(String prefix, int limit);
+
+    /** Values of a facet across the whole catalog, most common first. */
+    List<String> topFacetValues(Facet facet, int limit);
+
+    void rebuild();
+
+    void applyPendingChanges();
+
+    int size();
+
+    record SearchHits(List<Long> movieIds, long totalHits, int page, int size, SearchFacetsDTO facets) {
+    }
+
+    enum Facet {
+        CATEGORY, ACTOR, DIRECTOR, COUNTRY, LANGUAGE
+    }
+}
@@ -51,6 +51,7 @@ public class MovieService {
     private final VideoResolutionRepository videoResolutionRepository;
     private final SubtitleRepository subtitleRepository;
     private final AppearanceRepository appearanceRepository;
+    private final AdminStatsCache adminStatsCache;
 
     public MovieDTOs.MovieResponseDTO createMovie(MovieDTOs.MovieCreateDTO createDTO) {
         validateActorsExist(createDTO.getActors());
@@ -63,6 +64,7 @@ public class MovieService {
             movie.setCategories(new java.util.HashSet<>(cats));
         }
         Movie savedMovie = movieRepository.save(movie);
+        adminStatsCache.invalidateAll();
         MovieDTOs.MovieResponseDTO res = MovieMapper.toResponse(savedMovie);
         enrichActors(res, savedMovie.getActors());
         return res;
@@ -205,6 +207,7 @@ public class MovieService {
         }
         
         movieRepository.deleteById(movieId);
+        adminStatsCache.invalidateAll();
         log.info("Successfully deleted movie with id: {} and all related data", movieId);
     }
 
@@ -382,7 +385,10 @@ public class MovieService {
         Movie movie = movieRepository.findById(movieId)
                 .orElseThrow(() -> new RuntimeException("Movie not found"));
 
-        // Delete old poster if exists
+        // Upload new poster before releasing the old one, so re-uploading the same image keeps it
+        String filename = fileUploadService.uploadImageFile(file);
+        String posterUrl = fileUploadService.buildPublicImageUrl(filename);
+
         if (movie.getPosterUrl() != null && !movie.getPosterUrl().isEmpty()) {
             try {
                 String oldFilename = extractFilenameFromUrl(movie.getPosterUrl());
@@ -391,10 +397,6 @@ public class MovieService {
                 log.warn("Failed to delete old poster file for movie {}: {}", movieId, e.getMessage());
             }
         }
-
-        // Upload new poster
-        String filename = fileUploadService.uploadImageFile(file);
-        String posterUrl = fileUploadService.buildPublicImageUrl(filename);
         
         movie.setPosterUrl(posterUrl);
         Movie savedMovie = movieRepository.save(movie);
@@ -408,6 +410,9 @@ public class MovieService {
         Movie movie = movieRepository.findById(movieId)
                 .orElseThrow(() -> new RuntimeException("Movie not found"));
 
+        String filename = fileUploadService.uploadImageFile(file);
+        String thumbnailUrl = fileUploadService.buildPublicImageUrl(filename);
+
         if (movie.getThumbnailUrl() != null && !movie.getThumbnailUrl().isEmpty()) {
             try {
                 String oldFilename = extractFilenameFromUrl(movie.getThumbnailUrl());
@@ -417,9 +422,6 @@ public class MovieService {
             }
         }
 
-        String filename = fileUploadService.uploadImageFile(file);
-        String thumbnailUrl = fileUploadService.buildPublicImageUrl(filename);
-
         movie.setThumbnailUrl(thumbnailUrl);
         Movie savedMovie = movieRepository.save(movie);
 
@@ -10,9 +10,11 @@ import com.aimovie.repository.MovieRepository;
 import com.aimovie.repository.RatingRepository;
 import com.aimovie.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,12 +23,14 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @Transactional
 public class RatingService {
 
     private final RatingRepository ratingRepository;
     private final UserRepository userRepository;
     private final MovieRepository movieRepository;
+    private final AdminStatsCache adminStatsCache;
 
     public RatingDTOs.RatingResponseDTO createRating(Long userId, RatingDTOs.RatingCreateDTO createDTO) {
         User user = userRepository.findById(userId)
@@ -42,8 +46,9 @@ public class RatingService {
         Rating rating = RatingMapper.toEntity(createDTO, user, movie);
         Rating savedRating = ratingRepository.save(rating);
         
-        // Update movie's average rating
-        updateMovieAverageRating(createDTO.getMovieId());
+        // Fold the new rating into the movie's running aggregate
+        movieRepository.applyRatingDelta(movie.getId(), savedRating.getStars(), 1);
+        adminStatsCache.invalidateAll();
         
         return RatingMapper.toResponse(savedRating);
     }
@@ -56,11 +61,16 @@ public class RatingService {
             throw new RuntimeException("Not authorized to update this rating");
         }
 
+        int previousStars = rating.getStars();
         RatingMapper.updateEntity(rating, updateDTO);
         Rating savedRating = ratingRepository.save(rating);
         
-        // Update movie's average rating
-        updateMovieAverageRating(rating.getMovie().getId());
+        // Only the star difference changes the movie's aggregate; the count stays the same
+        int starsDelta = savedRating.getStars() - previousStars;
+        if (starsDelta != 0) {
+            movieRepository.applyRatingDelta(rating.getMovie().getId(), starsDelta, 0);
+        }
+        adminStatsCache.invalidateAll();
         
         return RatingMapper.toResponse(savedRating);
     }
@@ -116,30 +126,27 @@ public class RatingService {
         }
 
         Long movieId = rating.getMovie().getId();
+        int stars = rating.getStars();
         ratingRepository.delete(rating);
         
-        // Update movie's average rating
-        updateMovieAverageRating(movieId);
+        // Take the rating back out of the movie's running aggregate
+        movieRepository.applyRatingDelta(movieId, -stars, -1);
+        adminStatsCache.invalidateAll();
     }
 
-    private void updateMovieAverageRating(Long movieId) {
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new RuntimeException("Movie not found"));
-        
-        List<Rating> ratings = ratingRepository.findByMovieId(movieId);
-        
-        if (ratings.isEmpty()) {
-            movie.setAverageRating(0.0);
-            movie.setTotalRatings(0L);
-        } else {
-            double average = ratings.stream()
-                    .mapToInt(Rating::getStars)
-                    .average()
-                    .orElse(0.0);
-            movie.setAverageRating(Math.round(average * 10.0) / 10.0); // Round to 1 decimal place
-            movie.setTotalRatings((long) ratings.size());
+    /**
+     * Recomputes the rating aggregate from the ratings table for every movie whose running
+     * sum/count no longer matches it (bulk deletes, manual edits, rows that predate rating_sum).
+     */
+    @Scheduled(initialDelayString = "${app.rating.reconcile.initial-delay-ms:60000}",
+            fixedDelayString = "${app.rating.reconcile.interval-ms:3600000}")
+    public void reconcileMovieRatings() {
+        List<Long> driftedMovieIds = movieRepository.findMovieIdsWithRatingDrift();
+        if (driftedMovieIds.isEmpty()) {
+            return;
         }
-        
-        movieRepository.save(movie);
+
+        driftedMovieIds.forEach(movieRepository::recalculateRatingAggregate);
+        log.info("Reconciled rating aggregates for {} movies", driftedMovieIds.size());
     }
 }
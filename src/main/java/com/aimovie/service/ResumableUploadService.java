@@ -0,0 +1,26 @@
+package com.aimovie.service;
+
+import com.aimovie.dto.UploadSessionDTOs;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ResumableUploadService {
+
+    UploadSessionDTOs.UploadSessionResponse createSession(Long movieId, UploadSessionDTOs.CreateUploadSessionRequest request) throws IOException;
+
+    UploadSessionDTOs.UploadSessionResponse getSession(Long movieId, String uploadId);
+
+    /**
+     * Writes one chunk at its offset. Chunks may arrive in any order and concurrently; a chunk
+     * only counts as received once its SHA-256 matches {@code sha256Hex}.
+     */
+    UploadSessionDTOs.UploadSessionResponse writeChunk(Long movieId, String uploadId, long offset, String sha256Hex, InputStream body) throws IOException;
+
+    /**
+     * Publishes the assembled file, updates the movie from its metadata and starts transcoding.
+     */
+    UploadSessionDTOs.UploadSessionResponse completeSession(Long movieId, String uploadId) throws IOException;
+
+    void abortSession(Long movieId, String uploadId) throws IOException;
+}
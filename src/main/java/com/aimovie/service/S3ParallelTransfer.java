@@ -0,0 +1,312 @@
+package com.aimovie.service;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits large objects into parts and moves them over several S3 connections at once. Uploads
+ * use the multipart API, downloads use ranged GETs written at their offset in the target file.
+ * Every part is retried on its own, so a failure late in a multi-GB transfer only repeats that
+ * part. At most {@code parallelism} parts are buffered per transfer, which bounds memory at
+ * roughly parallelism x part size.
+ */
+@Slf4j
+public class S3ParallelTransfer implements AutoCloseable {
+
+    // S3 rejects multipart uploads with more parts than this
+    private static final int MAX_PARTS = 10_000;
+
+    private final S3Client s3Client;
+    private final long partSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final ExecutorService executor;
+
+    public S3ParallelTransfer(S3Client s3Client, long partSize, int parallelism, int maxAttempts, long retryBackoffMs) {
+        if (partSize <= 0 || partSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Part size must be between 1 and " + Integer.MAX_VALUE + " bytes");
+        }
+        this.s3Client = s3Client;
+        this.partSize = partSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "s3-transfer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void upload(Path source, String bucket, String key, String contentType) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(source)) {
+            upload(inputStream, Files.size(source), bucket, key, contentType);
+        }
+    }
+
+    /**
+     * Uploads exactly {@code size} bytes from the stream. Objects no larger than one part go up
+     * with a single PUT; anything larger goes through a multipart upload that is aborted on
+     * failure so no orphaned parts are left billed in the bucket.
+     */
+    public void upload(InputStream inputStream, long size, String bucket, String key, String contentType) throws IOException {
+        long effectivePartSize = effectivePartSize(size);
+        if (size <= effectivePartSize) {
+            byte[] bytes = readPart(inputStream, (int) size);
+            withRetry("PUT " + key, () -> s3Client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType(contentType)
+                            .build(),
+                    RequestBody.fromBytes(bytes)));
+            return;
+        }
+
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+        int partCount = (int) ((size + effectivePartSize - 1) / effectivePartSize);
+        Semaphore inFlight = new Semaphore(parallelism);
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        List<Future<CompletedPart>> futures = new ArrayList<>(partCount);
+
+        try {
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                acquire(inFlight);
+                if (firstFailure.get() != null) {
+                    // A part already exhausted its retries; stop reading the source
+                    inFlight.release();
+                    break;
+                }
+                int length = (int) Math.min(effectivePartSize, size - (partNumber - 1) * effectivePartSize);
+                byte[] bytes;
+                try {
+                    bytes = readPart(inputStream, length);
+                } catch (IOException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                int number = partNumber;
+                futures.add(executor.submit(() -> {
+                    try {
+                        return uploadPart(bucket, key, uploadId, number, bytes);
+                    } catch (IOException | RuntimeException e) {
+                        firstFailure.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            List<CompletedPart> parts = new ArrayList<>(partCount);
+            for (Future<CompletedPart> future : futures) {
+                parts.add(await(future));
+            }
+            withRetry("complete upload of " + key, () -> s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build()));
+            log.debug("Uploaded {} ({} bytes) in {} parts", key, size, partCount);
+        } catch (IOException | RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            abortQuietly(bucket, key, uploadId);
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads the object into {@code target} with up to {@code parallelism} concurrent ranged
+     * GETs. The target is removed if any range fails.
+     */
+    public void download(String bucket, String key, Path target) throws IOException {
+        long size = withRetry("HEAD " + key, () -> s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build())).contentLength();
+        long effectivePartSize = effectivePartSize(size);
+        int partCount = (int) ((size + effectivePartSize - 1) / effectivePartSize);
+
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        List<Future<Void>> futures = new ArrayList<>(partCount);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int part = 0; part < partCount; part++) {
+                long start = part * effectivePartSize;
+                long end = Math.min(size, start + effectivePartSize) - 1;
+                futures.add(executor.submit(() -> {
+                    downloadRange(bucket, key, start, end, channel);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+            log.debug("Downloaded {} ({} bytes) in {} ranges", key, size, partCount);
+        } catch (IOException | RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private CompletedPart uploadPart(String bucket, String key, String uploadId, int partNumber, byte[] bytes) throws IOException {
+        String eTag = withRetry("upload part " + partNumber + " of " + key, () -> s3Client.uploadPart(
+                UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) bytes.length)
+                        .build(),
+                RequestBody.fromBytes(bytes)).eTag());
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(eTag)
+                .build();
+    }
+
+    private void downloadRange(String bucket, String key, long start, long end, FileChannel channel) throws IOException {
+        byte[] bytes = withRetry("download bytes " + start + "-" + end + " of " + key, () -> s3Client.getObjectAsBytes(
+                GetObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .range("bytes=" + start + "-" + end)
+                        .build()).asByteArrayUnsafe());
+        if (bytes.length != end - start + 1) {
+            throw new IOException("Expected " + (end - start + 1) + " bytes for range " + start + "-" + end
+                    + " of " + key + " but received " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = start;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // Grows the part size for very large objects so the part count stays within the S3 limit
+    private long effectivePartSize(long size) {
+        return Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+    }
+
+    private <T> T withRetry(String operation, SdkCall<T> call) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.execute();
+            } catch (SdkException e) {
+                if (attempt >= maxAttempts) {
+                    throw new IOException(operation + " failed after " + attempt + " attempts", e);
+                }
+                log.warn("{} failed (attempt {}/{}), retrying: {}", operation, attempt, maxAttempts, e.getMessage());
+                sleep(retryBackoffMs << (attempt - 1));
+            }
+        }
+    }
+
+    private void abortQuietly(String bucket, String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (SdkException e) {
+            log.warn("Failed to abort multipart upload {} of {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private static byte[] readPart(InputStream inputStream, int length) throws IOException {
+        byte[] bytes = inputStream.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Source ended after " + bytes.length + " of " + length + " expected bytes");
+        }
+        return bytes;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for transfer");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Transfer failed", cause);
+        }
+    }
+
+    private static void acquire(Semaphore semaphore) throws IOException {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a transfer slot");
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during retry backoff");
+        }
+    }
+
+    @FunctionalInterface
+    private interface SdkCall<T> {
+        T execute();
+    }
+}
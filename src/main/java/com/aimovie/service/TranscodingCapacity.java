@@ -0,0 +1,83 @@
+package com.aimovie.service;
+
+import com.sun.management.OperatingSystemMXBean;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * How much of this machine transcoding may use: the number of concurrent jobs, and the cores
+ * each job gets. Thread priorities are not honoured for encoder threads (x264 spawns native
+ * threads, and Linux ignores Java priorities), so the cores kept for request handling are only
+ * protected by every encoder's {@code threads} option staying within the job's share.
+ */
+@Service
+@Slf4j
+public class TranscodingCapacity {
+
+    // 0 sizes the pool from the machine
+    @Value("${app.transcoding.workers:0}")
+    private int configuredWorkers;
+
+    @Value("${app.transcoding.reserved-cores:1}")
+    private int reservedCores;
+
+    @Value("${app.transcoding.cores-per-job:4}")
+    private int configuredCoresPerJob;
+
+    @Value("${app.transcoding.memory-per-job-mb:1536}")
+    private long memoryPerJobMb;
+
+    @Getter
+    private int workers;
+
+    @Getter
+    private int coresPerJob;
+
+    @PostConstruct
+    void size() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long nativeMemoryMb = nativeMemoryMb();
+        workers = configuredWorkers > 0
+                ? configuredWorkers
+                : autoWorkers(cores, reservedCores, configuredCoresPerJob, nativeMemoryMb, memoryPerJobMb);
+        coresPerJob = coresPerJob(cores, reservedCores, workers);
+        log.info("Transcoding sized to {} concurrent jobs of {} cores each ({} cores, {} reserved, {} MB outside the heap)",
+                workers, coresPerJob, cores, reservedCores, nativeMemoryMb);
+    }
+
+    /**
+     * Encoder threads for each of {@code concurrentEncoders} encoders running side by side
+     * within one job. Always at least one.
+     */
+    public int threadsPerEncoder(int concurrentEncoders) {
+        return Math.max(1, coresPerJob / Math.max(1, concurrentEncoders));
+    }
+
+    /**
+     * Concurrent encodes this machine can take: whole jobs that fit in the cores left after the
+     * reserve for request handling, and in the memory outside the heap (decoded frames and
+     * encoder buffers are native). Always at least one.
+     */
+    static int autoWorkers(int cores, int reservedCores, int coresPerJob, long nativeMemoryMb, long memoryPerJobMb) {
+        long byCpu = Math.max(0, cores - reservedCores) / Math.max(1, coresPerJob);
+        long byMemory = nativeMemoryMb > 0 ? nativeMemoryMb / Math.max(1, memoryPerJobMb) : byCpu;
+        return (int) Math.max(1, Math.min(byCpu, byMemory));
+    }
+
+    // The cores left after the reserve, split evenly between the workers; at least one
+    static int coresPerJob(int cores, int reservedCores, int workers) {
+        return Math.max(1, Math.max(1, cores - reservedCores) / Math.max(1, workers));
+    }
+
+    private static long nativeMemoryMb() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof OperatingSystemMXBean os) {
+            return Math.max(0, (os.getTotalMemorySize() - Runtime.getRuntime().maxMemory()) / (1024 * 1024));
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.aimovie.service;
+
+/**
+ * Tells a transcoding run whether it may still write the movie's renditions. It is checked
+ * inside the transaction of each write and locks whatever decides ownership, so a run that was
+ * superseded by a newer source or reclaimed by another attempt cannot overwrite its successor.
+ */
+@FunctionalInterface
+public interface TranscodingFence {
+
+    // For encodes that are not driven by a queued job
+    TranscodingFence NONE = () -> true;
+
+    boolean isCurrent();
+}
@@ -0,0 +1,39 @@
+package com.aimovie.service;
+
+import com.aimovie.dto.TranscodingDTOs;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TranscodingJobService {
+
+    /**
+     * Queues a transcode of the source for the movie. Any queued or running job for the
+     * same movie is cancelled, the movie's renditions are reset to PENDING and its bitrate ladder
+     * is cleared so the new source is analysed again. When the source is an indexed upload with
+     * the same content the movie's completed renditions were encoded from, nothing is queued and
+     * the job that produced them is returned. The content hash is taken from the source when
+     * the caller computed it while storing the upload, and looked up by stored filename
+     * otherwise. When another movie already has every rendition of the same content, they are
+     * copied to this movie and a completed job is returned instead. New releases are queued
+     * ahead of the back catalog; a back-catalog job is rejected with
+     * {@link com.aimovie.exception.TranscodingQueueFullException} while the queue is full, unless
+     * the source asks to be deferred, in which case it is queued to become claimable later.
+     */
+    TranscodingDTOs.JobSummary enqueue(Long movieId, TranscodingDTOs.SourceFile source);
+
+    /**
+     * Throws {@link com.aimovie.exception.TranscodingQueueFullException} when a new source for the
+     * movie would be rejected, so callers can refuse an upload before storing anything.
+     */
+    void checkCapacity(Long movieId);
+
+    /** Same as {@link #checkCapacity(Long)} for a movie that is about to be created. */
+    void checkCapacity(LocalDate releaseDate, Integer year);
+
+    TranscodingDTOs.JobSummary updatePriority(Long jobId, int priority);
+
+    List<TranscodingDTOs.JobSummary> getJobsForMovie(Long movieId);
+
+    TranscodingDTOs.QueueStats getQueueStats();
+}
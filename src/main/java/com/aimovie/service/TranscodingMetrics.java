@@ -0,0 +1,57 @@
+package com.aimovie.service;
+
+import com.aimovie.dto.TranscodingDTOs;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-stage counters for the transcoding pipeline on this node (queue wait, encode, remux,
+ * chunk stitching, packaging, upload). Stages record how long they took and how many bytes they processed,
+ * from which the stats endpoint derives average duration and throughput.
+ */
+@Service
+public class TranscodingMetrics {
+
+    public static final String STAGE_QUEUE_WAIT = "queue-wait";
+    public static final String STAGE_ENCODE = "encode";
+    public static final String STAGE_REMUX = "remux";
+    public static final String STAGE_STITCH = "stitch";
+    public static final String STAGE_HLS_PACKAGE = "hls-package";
+    public static final String STAGE_UPLOAD = "upload";
+
+    private final Map<String, StageCounters> stages = new ConcurrentHashMap<>();
+
+    public void record(String stage, long durationMs, long bytes) {
+        StageCounters counters = stages.computeIfAbsent(stage, s -> new StageCounters());
+        counters.count.increment();
+        counters.durationMs.add(Math.max(0, durationMs));
+        counters.bytes.add(Math.max(0, bytes));
+    }
+
+    public Map<String, TranscodingDTOs.StageStats> snapshot() {
+        Map<String, TranscodingDTOs.StageStats> snapshot = new TreeMap<>();
+        stages.forEach((stage, counters) -> {
+            long count = counters.count.sum();
+            long durationMs = counters.durationMs.sum();
+            long bytes = counters.bytes.sum();
+            snapshot.put(stage, TranscodingDTOs.StageStats.builder()
+                    .count(count)
+                    .totalDurationMs(durationMs)
+                    .totalBytes(bytes)
+                    .averageDurationMs(count > 0 ? durationMs / count : 0)
+                    .throughputBytesPerSecond(durationMs > 0 ? bytes * 1000 / durationMs : 0)
+                    .build());
+        });
+        return snapshot;
+    }
+
+    private static final class StageCounters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder durationMs = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+    }
+}
@@ -1,5 +1,6 @@
 package com.aimovie.service;
 
+import com.aimovie.entity.BitrateRung;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +18,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TranscodingService {
 
+    private final BitrateLadderService bitrateLadderService;
+
     @Value("${app.ffmpeg.path:ffmpeg}")
     private String ffmpegPath;
 
@@ -29,21 +32,15 @@ public class TranscodingService {
             throw new IOException("Input video not found: " + inputFilename);
         }
 
-        // Define target renditions
-        String[][] renditions = new String[][]{
-                {"360p", "640x360", "800k", "96k"},
-                {"480p", "854x480", "1200k", "128k"},
-                {"720p", "1280x720", "2800k", "128k"},
-                {"1080p", "1920x1080", "5000k", "192k"},
-                {"1440p", "2560x1440", "8000k", "256k"}
-        };
+        // Per-title renditions and bitrates from a content analysis of the source
+        List<BitrateRung> renditions = bitrateLadderService.planLadder(inputPath).rungs();
 
         List<String> outputs = new ArrayList<>();
-        for (String[] r : renditions) {
-            String label = r[0];
-            String scale = r[1];
-            String vBitrate = r[2];
-            String aBitrate = r[3];
+        for (BitrateRung r : renditions) {
+            String label = r.getQuality();
+            String scale = r.getWidth() + "x" + r.getHeight();
+            String vBitrate = r.getBitrateKbps() + "k";
+            String aBitrate = audioBitrate(r.getHeight());
 
             String outName = outputBasename + "_" + label + ".mp4";
             Path outPath = Paths.get(uploadDir).resolve(outName);
@@ -52,12 +49,12 @@ public class TranscodingService {
                     ffmpegPath,
                     "-y",
                     "-i", inputPath.toString(),
-                    "-vf", "scale=w=" + scale.split("x")[0] + ":h=" + scale.split("x")[1] + ":force_original_aspect_ratio=decrease",
+                    "-vf", "scale=w=" + r.getWidth() + ":h=" + r.getHeight() + ":force_original_aspect_ratio=decrease",
                     "-c:v", "libx264",
                     "-preset", "veryfast",
                     "-b:v", vBitrate,
                     "-maxrate", vBitrate,
-                    "-bufsize", String.valueOf((int)(Integer.parseInt(vBitrate.replace("k","")) * 2)) + "k",
+                    "-bufsize", (r.getBitrateKbps() * 2) + "k",
                     "-c:a", "aac",
                     "-b:a", aBitrate,
                     outPath.toString()
@@ -75,6 +72,17 @@ public class TranscodingService {
 
         return outputs;
     }
+
+    private static String audioBitrate(int height) {
+        if (height <= 360) {
+            return "96k";
+        } else if (height <= 720) {
+            return "128k";
+        } else if (height <= 1080) {
+            return "192k";
+        }
+        return "256k";
+    }
 }
 
 
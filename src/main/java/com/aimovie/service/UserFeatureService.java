@@ -53,6 +53,7 @@ public interface UserFeatureService {
     List<MovieSearchDTO> getSimilarMovies(Long userId, Long movieId, int limit);
 
     List<CategoryDTO> getCategories();
+    List<CategoryDTO> withUserMovieFlags(Long userId, List<CategoryDTO> rails);
     CategoryDTO getCategoryByName(String categoryName);
     Page<MovieSearchDTO> getMoviesByCategory(String categoryName, Pageable pageable);
 
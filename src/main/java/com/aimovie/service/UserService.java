@@ -24,6 +24,8 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final FileUploadService fileUploadService;
+    private final AuthPrincipalCache authPrincipalCache;
+    private final AdminStatsCache adminStatsCache;
 
     public UserDTOs.UserResponseDTO register(UserDTOs.UserCreateDTO createDTO) {
         if (userRepository.existsByUsernameOrEmail(createDTO.getUsername(), createDTO.getEmail())) {
@@ -41,6 +43,7 @@ public class UserService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        adminStatsCache.invalidateAll();
         return toResponseDTO(savedUser);
     }
 
@@ -103,6 +106,7 @@ public class UserService {
         }
         
         userRepository.delete(user);
+        authPrincipalCache.invalidateUser(userId);
     }
 
     public UserDTOs.UserResponseDTO changePassword(Long userId, UserDTOs.ChangePasswordDTO changePasswordDTO) {
@@ -130,7 +134,10 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Delete old avatar if exists
+        // Upload new avatar before releasing the old one, so re-uploading the same image keeps it
+        String filename = fileUploadService.uploadImageFile(file);
+        String avatarUrl = fileUploadService.buildPublicImageUrl(filename);
+
         if (user.getAvatarUrl() != null && !user.getAvatarUrl().isEmpty()) {
             try {
                 String oldFilename = extractFilenameFromUrl(user.getAvatarUrl());
@@ -139,10 +146,6 @@ public class UserService {
                 log.warn("Failed to delete old avatar file for user {}: {}", userId, e.getMessage());
             }
         }
-
-        // Upload new avatar
-        String filename = fileUploadService.uploadImageFile(file);
-        String avatarUrl = fileUploadService.buildPublicImageUrl(filename);
         
         user.setAvatarUrl(avatarUrl);
         User savedUser = userRepository.save(user);
@@ -2,6 +2,7 @@ package com.aimovie.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -15,6 +16,16 @@ import java.nio.file.StandardCopyOption;
 @Slf4j
 public class VideoMetadataService {
 
+    @Value("${app.video.probe.probesize-bytes:5000000}")
+    private long probeSizeBytes;
+
+    @Value("${app.video.probe.analyze-duration-us:5000000}")
+    private long analyzeDurationMicros;
+
+    /**
+     * Copies the upload to a temp file first; prefer {@link #extractMetadataFromFile} when the
+     * file is already on disk.
+     */
     public VideoMetadata extractMetadata(MultipartFile file) throws IOException {
         Path tempFile = Files.createTempFile("video_", "_" + file.getOriginalFilename());
         
@@ -43,6 +54,9 @@ public class VideoMetadataService {
         
         // Try to extract real metadata using FFmpeg
         try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(file)) {
+            // Bound stream probing to the container header and the first few seconds, never a full demux
+            grabber.setOption("probesize", String.valueOf(probeSizeBytes));
+            grabber.setOption("analyzeduration", String.valueOf(analyzeDurationMicros));
             grabber.start();
             
             int width = grabber.getImageWidth();
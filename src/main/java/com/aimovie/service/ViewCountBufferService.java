@@ -0,0 +1,10 @@
+package com.aimovie.service;
+
+public interface ViewCountBufferService {
+
+    void recordView(Long movieId);
+
+    long getPendingViews(Long movieId);
+
+    void flush();
+}
@@ -0,0 +1,23 @@
+package com.aimovie.service;
+
+import com.aimovie.dto.PendingWatchProgress;
+
+import java.util.Optional;
+
+public interface WatchProgressBufferService {
+
+    void recordProgress(Long userId, Long movieId, Integer currentTime, Integer totalTime);
+
+    Optional<PendingWatchProgress> getPendingProgress(Long userId, Long movieId);
+
+    void discardPendingProgress(Long userId, Long movieId);
+
+    void discardPendingProgressForUser(Long userId);
+
+    void flush();
+
+    int getPendingCount();
+
+    // Updates dropped because their user or movie is gone, or because they kept failing to flush
+    long getDroppedCount();
+}
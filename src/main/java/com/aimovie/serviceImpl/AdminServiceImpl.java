@@ -4,6 +4,8 @@ import com.aimovie.dto.*;
 import com.aimovie.entity.*;
 import com.aimovie.repository.*;
 import com.aimovie.service.AdminService;
+import com.aimovie.service.AdminStatsCache;
+import com.aimovie.service.AuthPrincipalCache;
 import com.aimovie.service.FileUploadService;
 import com.aimovie.service.MovieService;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +19,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -42,6 +45,8 @@ public class AdminServiceImpl implements AdminService {
     private final MovieService movieService;
     private final SubtitleRepository subtitleRepository;
     private final FileUploadService fileUploadService;
+    private final AuthPrincipalCache authPrincipalCache;
+    private final AdminStatsCache adminStatsCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -64,6 +69,8 @@ public class AdminServiceImpl implements AdminService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         user.setEnabled(enabled);
         user = userRepository.save(user);
+        authPrincipalCache.invalidateUser(userId);
+        adminStatsCache.invalidateAll();
         return convertToAdminUserDTO(user);
     }
 
@@ -77,6 +84,7 @@ public class AdminServiceImpl implements AdminService {
                 .collect(Collectors.toSet());
         user.setRoles(roleSet);
         user = userRepository.save(user);
+        authPrincipalCache.invalidateUser(userId);
         return convertToAdminUserDTO(user);
     }
 
@@ -100,8 +108,10 @@ public class AdminServiceImpl implements AdminService {
         // Delete watchlist collections
         watchlistCollectionRepository.deleteByUser(user);
         
-        // Delete ratings
+        // Delete ratings and take them out of the affected movies' aggregates
+        List<Long> ratedMovieIds = ratingRepository.findRatedMovieIdsByUser(user);
         ratingRepository.deleteByUser(user);
+        ratedMovieIds.forEach(movieRepository::recalculateRatingAggregate);
         
         // Delete comments
         commentRepository.deleteByUser(user);
@@ -111,6 +121,8 @@ public class AdminServiceImpl implements AdminService {
         
         // Finally, delete the user
         userRepository.delete(user);
+        authPrincipalCache.invalidateUser(userId);
+        adminStatsCache.invalidateAll();
         
         log.info("Successfully deleted user with id: {} and all related data", userId);
     }
@@ -200,6 +212,7 @@ public class AdminServiceImpl implements AdminService {
         }
         
         movie = movieRepository.save(movie);
+        adminStatsCache.invalidateAll();
         return convertToAdminMovieDTO(movie);
     }
 
@@ -319,6 +332,7 @@ public class AdminServiceImpl implements AdminService {
         }
         
         comment = commentRepository.save(comment);
+        adminStatsCache.invalidateAll();
         return convertToAdminCommentDTO(comment);
     }
 
@@ -328,6 +342,7 @@ public class AdminServiceImpl implements AdminService {
                 .orElseThrow(() -> new RuntimeException("Comment not found with id: " + commentId));
         comment.setIsDeleted(true);
         commentRepository.save(comment);
+        adminStatsCache.invalidateAll();
     }
 
     @Override
@@ -369,6 +384,7 @@ public class AdminServiceImpl implements AdminService {
         report.setUpdatedAt(LocalDateTime.now());
         
         report = reportRepository.save(report);
+        adminStatsCache.invalidateAll();
         return convertToAdminReportDTO(report);
     }
 
@@ -405,11 +421,16 @@ public class AdminServiceImpl implements AdminService {
         }
         
         reportRepository.save(report);
+        adminStatsCache.invalidateAll();
     }
 
     @Override
     @Transactional(readOnly = true)
     public AdminStatsDTO getAdminStats() {
+        return adminStatsCache.getOrCompute("stats", this::computeAdminStats);
+    }
+
+    private AdminStatsDTO computeAdminStats() {
         long totalUsers = userRepository.count();
         long totalMovies = movieRepository.count();
         long totalComments = ratingRepository.countByCommentIsNotNull();
@@ -419,23 +440,14 @@ public class AdminServiceImpl implements AdminService {
         long activeUsers = userRepository.countByEnabledTrue();
         long disabledUsers = userRepository.countByEnabledFalse();
         
-        // Calculate total views from all movies
-        long totalViews = movieRepository.findAll().stream()
-                .mapToLong(movie -> movie.getViewCount() != null ? movie.getViewCount() : 0L)
-                .sum();
+        long totalViews = movieRepository.sumViewCount();
         
-        // Calculate average rating from all movies
-        List<Movie> allMovies = movieRepository.findAll();
-        double averageRating = allMovies.stream()
-                .filter(movie -> movie.getAverageRating() != null && movie.getAverageRating() > 0)
-                .mapToDouble(Movie::getAverageRating)
-                .average()
-                .orElse(0.0);
+        // Average over movies that have at least one rating
+        Double averageRating = movieRepository.averageOfRatedMovies();
         
         // Get current month stats
-        int currentYear = java.time.LocalDate.now().getYear();
-        int currentMonth = java.time.LocalDate.now().getMonthValue();
-        MonthlyStatsDTO currentMonthStats = getMonthlyStatsForMonth(currentYear, currentMonth);
+        java.time.LocalDate today = java.time.LocalDate.now();
+        MonthlyStatsDTO currentMonthStats = aggregateMonthlyStats(today.getYear(), today.getMonthValue(), today.getMonthValue()).get(0);
         
         return AdminStatsDTO.builder()
                 .totalUsers(totalUsers)
@@ -447,7 +459,7 @@ public class AdminServiceImpl implements AdminService {
                 .activeUsers(activeUsers)
                 .disabledUsers(disabledUsers)
                 .totalViews(totalViews)
-                .averageRating(Math.round(averageRating * 10.0) / 10.0) // Round to 1 decimal
+                .averageRating(averageRating != null ? Math.round(averageRating * 10.0) / 10.0 : 0.0) // Round to 1 decimal
                 .monthlyStats(currentMonthStats)
                 .build();
     }
@@ -493,59 +505,49 @@ public class AdminServiceImpl implements AdminService {
     @Override
     @Transactional(readOnly = true)
     public List<MonthlyStatsDTO> getMonthlyStats(int year) {
-        List<MonthlyStatsDTO> monthlyStats = new java.util.ArrayList<>();
+        return adminStatsCache.getOrCompute("monthly:" + year, () -> aggregateMonthlyStats(year, 1, 12));
+    }
+    
+    /**
+     * Builds stats for months [fromMonth, toMonth] of a year with one grouped query per table,
+     * using a created_at range so the index on it can be used.
+     */
+    private List<MonthlyStatsDTO> aggregateMonthlyStats(int year, int fromMonth, int toMonth) {
+        LocalDateTime from = java.time.LocalDate.of(year, fromMonth, 1).atStartOfDay();
+        LocalDateTime to = java.time.LocalDate.of(year, toMonth, 1).plusMonths(1).atStartOfDay();
+        
+        Map<Integer, Long> newUsers = toMonthCounts(userRepository.countCreatedByMonth(from, to), 1);
+        Map<Integer, Long> newComments = toMonthCounts(ratingRepository.countCommentsCreatedByMonth(from, to), 1);
+        Map<Integer, Long> newReports = toMonthCounts(reportRepository.countCreatedByMonth(from, to), 1);
+        
+        // Movies come back as [month, count, views] in a single pass
+        List<Object[]> movieRows = movieRepository.countCreatedAndViewsByMonth(from, to);
+        Map<Integer, Long> newMovies = toMonthCounts(movieRows, 1);
+        Map<Integer, Long> totalViews = toMonthCounts(movieRows, 2);
         
-        for (int month = 1; month <= 12; month++) {
-            MonthlyStatsDTO stats = getMonthlyStatsForMonth(year, month);
-            monthlyStats.add(stats);
+        List<MonthlyStatsDTO> monthlyStats = new java.util.ArrayList<>();
+        for (int month = fromMonth; month <= toMonth; month++) {
+            monthlyStats.add(MonthlyStatsDTO.builder()
+                    .year(year)
+                    .month(month)
+                    .newUsers(newUsers.getOrDefault(month, 0L))
+                    .newMovies(newMovies.getOrDefault(month, 0L))
+                    .newComments(newComments.getOrDefault(month, 0L))
+                    .newReports(newReports.getOrDefault(month, 0L))
+                    .totalViews(totalViews.getOrDefault(month, 0L))
+                    .revenue(0.0) // Placeholder for revenue calculation
+                    .build());
         }
         
         return monthlyStats;
     }
     
-    private MonthlyStatsDTO getMonthlyStatsForMonth(int year, int month) {
-        // Count new users created in this month
-        long newUsers = userRepository.findAll().stream()
-                .filter(user -> user.getCreatedAt() != null)
-                .filter(user -> user.getCreatedAt().getYear() == year && 
-                               user.getCreatedAt().getMonthValue() == month)
-                .count();
-        
-        // Count new movies created in this month
-        long newMovies = movieRepository.findAll().stream()
-                .filter(movie -> movie.getCreatedAt() != null)
-                .filter(movie -> movie.getCreatedAt().getYear() == year && 
-                                movie.getCreatedAt().getMonthValue() == month)
-                .count();
-        
-        // Count new comments (ratings with comments) created in this month
-        long newComments = ratingRepository.countByCommentIsNotNullAndYearAndMonth(year, month);
-        
-        // Count new reports created in this month
-        long newReports = reportRepository.findAll().stream()
-                .filter(report -> report.getCreatedAt() != null)
-                .filter(report -> report.getCreatedAt().getYear() == year && 
-                                 report.getCreatedAt().getMonthValue() == month)
-                .count();
-        
-        // Calculate total views for movies created in this month
-        long totalViews = movieRepository.findAll().stream()
-                .filter(movie -> movie.getCreatedAt() != null)
-                .filter(movie -> movie.getCreatedAt().getYear() == year && 
-                                movie.getCreatedAt().getMonthValue() == month)
-                .mapToLong(movie -> movie.getViewCount() != null ? movie.getViewCount() : 0L)
-                .sum();
-        
-        return MonthlyStatsDTO.builder()
-                .year(year)
-                .month(month)
-                .newUsers(newUsers)
-                .newMovies(newMovies)
-                .newComments(newComments)
-                .newReports(newReports)
-                .totalViews(totalViews)
-                .revenue(0.0) // Placeholder for revenue calculation
-                .build();
+    private Map<Integer, Long> toMonthCounts(List<Object[]> rows, int valueIndex) {
+        Map<Integer, Long> counts = new java.util.HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(((Number) row[0]).intValue(), ((Number) row[valueIndex]).longValue());
+        }
+        return counts;
     }
 
     @Override
@@ -645,6 +647,7 @@ public class AdminServiceImpl implements AdminService {
                 commentRepository.save(comment);
             }
         });
+        adminStatsCache.invalidateAll();
     }
 
     @Override
@@ -656,6 +659,7 @@ public class AdminServiceImpl implements AdminService {
                 commentRepository.save(comment);
             }
         });
+        adminStatsCache.invalidateAll();
     }
 
     @Override
@@ -668,6 +672,7 @@ public class AdminServiceImpl implements AdminService {
                 reportRepository.save(report);
             }
         });
+        adminStatsCache.invalidateAll();
     }
 
     @Override
@@ -677,8 +682,10 @@ public class AdminServiceImpl implements AdminService {
             if (user != null) {
                 user.setEnabled(false);
                 userRepository.save(user);
+                authPrincipalCache.invalidateUser(userId);
             }
         });
+        adminStatsCache.invalidateAll();
     }
 
     private AdminUserDTO convertToAdminUserDTO(User user) {
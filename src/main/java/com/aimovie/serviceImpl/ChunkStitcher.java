@@ -0,0 +1,150 @@
+package com.aimovie.serviceImpl;
+
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
+import org.bytedeco.ffmpeg.avformat.AVFormatContext;
+import org.bytedeco.ffmpeg.avformat.AVIOContext;
+import org.bytedeco.ffmpeg.avformat.AVStream;
+import org.bytedeco.ffmpeg.avutil.AVDictionary;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.ffmpeg.global.avformat;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Joins independently encoded, video-only chunks of one rendition and the separately encoded
+ * audio track into a single MP4 without re-encoding. The chunks are read back to back through
+ * FFmpeg's concat demuxer, which offsets each chunk's timestamps by the length of the ones
+ * before it; packets from both inputs are interleaved by decode time into the output.
+ */
+final class ChunkStitcher {
+
+    private ChunkStitcher() {
+    }
+
+    static void stitch(List<Path> chunks, Path audio, Path output) throws Exception {
+        Path list = output.resolveSibling(output.getFileName() + ".ffconcat");
+        Files.writeString(list, concatList(chunks));
+        try (FFmpegFrameGrabber video = new FFmpegFrameGrabber(list.toFile());
+             FFmpegFrameGrabber sound = audio != null ? new FFmpegFrameGrabber(audio.toFile()) : null) {
+            video.setFormat("concat");
+            // The list holds absolute paths
+            video.setOption("safe", "0");
+            video.start();
+            if (sound != null) {
+                sound.start();
+            }
+            AVStream videoIn = stream(video.getFormatContext(), avutil.AVMEDIA_TYPE_VIDEO);
+            AVStream audioIn = sound != null ? stream(sound.getFormatContext(), avutil.AVMEDIA_TYPE_AUDIO) : null;
+            if (videoIn == null) {
+                throw new IOException("Encoded chunks contain no video stream");
+            }
+
+            AVFormatContext context = new AVFormatContext(null);
+            check(avformat.avformat_alloc_output_context2(context, null, "mp4", output.toString()), "allocate output");
+            AVIOContext io = new AVIOContext(null);
+            try {
+                AVStream videoOut = copyStream(context, videoIn);
+                AVStream audioOut = audioIn != null ? copyStream(context, audioIn) : null;
+
+                check(avformat.avio_open2(io, output.toString(), avformat.AVIO_FLAG_WRITE, null, null), "open output");
+                context.pb(io);
+                AVDictionary options = new AVDictionary(null);
+                avutil.av_dict_set(options, "movflags", "+faststart", 0);
+                int header = avformat.avformat_write_header(context, options);
+                avutil.av_dict_free(options);
+                check(header, "write header");
+
+                AVPacket videoPacket = next(video, videoIn);
+                AVPacket audioPacket = audioIn != null ? next(sound, audioIn) : null;
+                while (videoPacket != null || audioPacket != null) {
+                    if (audioPacket == null
+                            || (videoPacket != null && seconds(videoPacket, videoIn) <= seconds(audioPacket, audioIn))) {
+                        write(context, videoPacket, videoIn, videoOut);
+                        videoPacket = next(video, videoIn);
+                    } else {
+                        write(context, audioPacket, audioIn, audioOut);
+                        audioPacket = next(sound, audioIn);
+                    }
+                }
+                check(avformat.av_write_trailer(context), "write trailer");
+            } finally {
+                if (!io.isNull()) {
+                    avformat.avio_close(io);
+                }
+                avformat.avformat_free_context(context);
+            }
+            video.stop();
+            if (sound != null) {
+                sound.stop();
+            }
+        } finally {
+            Files.deleteIfExists(list);
+        }
+    }
+
+    static String concatList(List<Path> chunks) {
+        StringBuilder list = new StringBuilder("ffconcat version 1.0\n");
+        for (Path chunk : chunks) {
+            list.append("file '")
+                    .append(chunk.toAbsolutePath().toString().replace("'", "'\\''"))
+                    .append("'\n");
+        }
+        return list.toString();
+    }
+
+    private static AVStream stream(AVFormatContext context, int mediaType) {
+        for (int i = 0; i < context.nb_streams(); i++) {
+            if (context.streams(i).codecpar().codec_type() == mediaType) {
+                return context.streams(i);
+            }
+        }
+        return null;
+    }
+
+    private static AVStream copyStream(AVFormatContext context, AVStream in) throws IOException {
+        AVStream out = avformat.avformat_new_stream(context, null);
+        if (out == null) {
+            throw new IOException("Could not add output stream");
+        }
+        check(avcodec.avcodec_parameters_copy(out.codecpar(), in.codecpar()), "copy codec parameters");
+        // Let the MP4 muxer pick its own tag for the codec
+        out.codecpar().codec_tag(0);
+        out.time_base(in.time_base());
+        return out;
+    }
+
+    // Next packet of the given stream, or null at the end of the input
+    private static AVPacket next(FFmpegFrameGrabber grabber, AVStream stream) throws Exception {
+        AVPacket packet;
+        while ((packet = grabber.grabPacket()) != null) {
+            if (packet.stream_index() == stream.index()) {
+                return packet;
+            }
+        }
+        return null;
+    }
+
+    private static double seconds(AVPacket packet, AVStream stream) {
+        long ts = packet.dts() != avutil.AV_NOPTS_VALUE ? packet.dts() : packet.pts();
+        return ts == avutil.AV_NOPTS_VALUE ? 0 : ts * avutil.av_q2d(stream.time_base());
+    }
+
+    private static void write(AVFormatContext context, AVPacket packet, AVStream in, AVStream out) throws IOException {
+        avcodec.av_packet_rescale_ts(packet, in.time_base(), out.time_base());
+        packet.stream_index(out.index());
+        packet.pos(-1);
+        // Takes over the packet's data; the grabber unreferences the emptied packet on its next read
+        check(avformat.av_interleaved_write_frame(context, packet), "write packet");
+    }
+
+    private static void check(int result, String action) throws IOException {
+        if (result < 0) {
+            throw new IOException("Could not " + action + " (FFmpeg error " + result + ")");
+        }
+    }
+}
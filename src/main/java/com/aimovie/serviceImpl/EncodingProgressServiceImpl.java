@@ -0,0 +1,229 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.TranscodingDTOs;
+import com.aimovie.repository.EncodingProgressBatchRepository;
+import com.aimovie.service.EncodingProgressService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps live progress for the renditions encoding on this node. Encoder threads only write a
+ * few volatile fields per frame; a scheduled tick turns them into percent, fps, speed and ETA,
+ * batches the changed percentages into the video_resolutions rows and pushes the snapshot to
+ * SSE subscribers.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EncodingProgressServiceImpl implements EncodingProgressService {
+
+    private static final String PROGRESS_EVENT = "progress";
+
+    private final EncodingProgressBatchRepository encodingProgressBatchRepository;
+
+    private final Map<Long, Map<String, RenditionTracker>> activeTrackers = new ConcurrentHashMap<>();
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${app.transcoding.progress.stall-threshold-ms:60000}")
+    private long stallThresholdMs;
+
+    @Value("${app.transcoding.progress.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Override
+    public Tracker track(Long movieId, String quality, long durationMicros) {
+        RenditionTracker tracker = new RenditionTracker(movieId, quality, durationMicros);
+        if (movieId != null) {
+            activeTrackers.computeIfAbsent(movieId, id -> new ConcurrentHashMap<>()).put(quality, tracker);
+        }
+        return tracker;
+    }
+
+    @Override
+    public List<TranscodingDTOs.EncodingProgress> getProgress(Long movieId) {
+        Map<String, RenditionTracker> trackers = activeTrackers.get(movieId);
+        if (trackers == null) {
+            return List.of();
+        }
+        return trackers.values().stream()
+                .map(RenditionTracker::snapshot)
+                .toList();
+    }
+
+    @Override
+    public SseEmitter subscribe(Long movieId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        subscribers.computeIfAbsent(movieId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        Runnable unsubscribe = () -> removeSubscriber(movieId, emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        send(movieId, emitter, getProgress(movieId));
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.transcoding.progress.publish-interval-ms:2000}")
+    public void publishProgress() {
+        List<TranscodingDTOs.EncodingProgress> changed = new ArrayList<>();
+        activeTrackers.forEach((movieId, trackers) -> {
+            List<TranscodingDTOs.EncodingProgress> snapshots = new ArrayList<>();
+            for (RenditionTracker tracker : trackers.values()) {
+                TranscodingDTOs.EncodingProgress snapshot = tracker.snapshot();
+                snapshots.add(snapshot);
+                if (snapshot.getPercent() >= 0 && snapshot.getPercent() != tracker.lastPublishedPercent) {
+                    tracker.lastPublishedPercent = snapshot.getPercent();
+                    changed.add(snapshot);
+                }
+                if (snapshot.isStalled() && !tracker.stallReported) {
+                    tracker.stallReported = true;
+                    log.warn("Encoding of {} for movie {} has not produced a frame for {} s",
+                            tracker.quality, movieId, snapshot.getSecondsSinceLastFrame());
+                }
+            }
+            broadcast(movieId, snapshots);
+        });
+
+        try {
+            encodingProgressBatchRepository.updateProgress(changed);
+        } catch (DataAccessException e) {
+            log.warn("Failed to persist encoding progress for {} renditions: {}", changed.size(), e.getMessage());
+        }
+    }
+
+    private void finished(RenditionTracker tracker) {
+        if (tracker.movieId == null) {
+            return;
+        }
+        activeTrackers.computeIfPresent(tracker.movieId, (id, trackers) -> {
+            trackers.remove(tracker.quality, tracker);
+            return trackers.isEmpty() ? null : trackers;
+        });
+        // Subscribers see the final state even though the tracker is no longer active
+        List<TranscodingDTOs.EncodingProgress> snapshots = new ArrayList<>(getProgress(tracker.movieId));
+        snapshots.add(tracker.snapshot());
+        broadcast(tracker.movieId, snapshots);
+    }
+
+    private void broadcast(Long movieId, List<TranscodingDTOs.EncodingProgress> snapshots) {
+        List<SseEmitter> emitters = subscribers.get(movieId);
+        if (emitters != null) {
+            emitters.forEach(emitter -> send(movieId, emitter, snapshots));
+        }
+    }
+
+    private void send(Long movieId, SseEmitter emitter, List<TranscodingDTOs.EncodingProgress> snapshots) {
+        try {
+            emitter.send(SseEmitter.event().name(PROGRESS_EVENT).data(snapshots));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter's callbacks may not fire until the next write
+            removeSubscriber(movieId, emitter);
+        }
+    }
+
+    private void removeSubscriber(Long movieId, SseEmitter emitter) {
+        subscribers.computeIfPresent(movieId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private class RenditionTracker implements Tracker {
+        final Long movieId;
+        final String quality;
+        final long durationMicros;
+        final long startNanos = System.nanoTime();
+
+        private volatile long firstTimestampMicros = -1;
+        private volatile long lastTimestampMicros = -1;
+        private volatile long framesEncoded;
+        private volatile long lastFrameNanos = startNanos;
+        private volatile long finishedNanos;
+        private volatile String status = "PROCESSING";
+
+        // Only touched by the publish tick
+        int lastPublishedPercent = -1;
+        boolean stallReported;
+
+        RenditionTracker(Long movieId, String quality, long durationMicros) {
+            this.movieId = movieId;
+            this.quality = quality;
+            this.durationMicros = Math.max(0, durationMicros);
+        }
+
+        @Override
+        public void update(long timestampMicros, long framesEncoded) {
+            if (firstTimestampMicros < 0) {
+                firstTimestampMicros = timestampMicros;
+            }
+            this.lastTimestampMicros = timestampMicros;
+            this.framesEncoded = framesEncoded;
+            this.lastFrameNanos = System.nanoTime();
+        }
+
+        @Override
+        public void finish(boolean success) {
+            finishedNanos = System.nanoTime();
+            status = success ? "COMPLETED" : "FAILED";
+            finished(this);
+        }
+
+        @Override
+        public TranscodingDTOs.EncodingProgress snapshot() {
+            long now = System.nanoTime();
+            String currentStatus = status;
+            boolean running = "PROCESSING".equals(currentStatus);
+            long endNanos = running ? now : finishedNanos;
+            double elapsedSeconds = (endNanos - startNanos) / 1_000_000_000.0;
+            long encodedMicros = firstTimestampMicros < 0 ? 0 : Math.max(0, lastTimestampMicros - firstTimestampMicros);
+            long frames = framesEncoded;
+
+            int percent;
+            if ("COMPLETED".equals(currentStatus)) {
+                percent = 100;
+            } else if (durationMicros > 0) {
+                // Held below 100 until the recorder has flushed and the file is final
+                percent = (int) Math.min(99, encodedMicros * 100 / durationMicros);
+            } else {
+                percent = -1;
+            }
+            double fps = elapsedSeconds > 0 ? frames / elapsedSeconds : 0;
+            double speed = elapsedSeconds > 0 ? encodedMicros / 1_000_000.0 / elapsedSeconds : 0;
+            Long etaSeconds = null;
+            if (running && durationMicros > 0 && speed > 0) {
+                etaSeconds = Math.round(Math.max(0, durationMicros - encodedMicros) / 1_000_000.0 / speed);
+            }
+            long sinceLastFrameMs = running ? TimeUnit.NANOSECONDS.toMillis(now - lastFrameNanos) : 0;
+
+            return TranscodingDTOs.EncodingProgress.builder()
+                    .movieId(movieId)
+                    .quality(quality)
+                    .status(currentStatus)
+                    .percent(percent)
+                    .framesEncoded(frames)
+                    .fps(Math.round(fps * 10) / 10.0)
+                    .speed(Math.round(speed * 100) / 100.0)
+                    .etaSeconds(etaSeconds)
+                    .encodedSeconds(encodedMicros / 1_000_000)
+                    .durationSeconds(durationMicros / 1_000_000)
+                    .elapsedSeconds((long) elapsedSeconds)
+                    .secondsSinceLastFrame(sinceLastFrameMs / 1000)
+                    .stalled(sinceLastFrameMs > stallThresholdMs)
+                    .updatedAt(LocalDateTime.now())
+                    .build();
+        }
+    }
+}
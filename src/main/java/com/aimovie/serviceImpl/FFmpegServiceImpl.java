@@ -1,30 +1,63 @@
 package com.aimovie.serviceImpl;
 
+import com.aimovie.config.AsyncConfig;
 import com.aimovie.dto.ProcessedVideoInfo;
+import com.aimovie.dto.TranscodingDTOs;
 import com.aimovie.dto.VideoProcessingResult;
+import com.aimovie.entity.BitrateRung;
 import com.aimovie.entity.Movie;
 import com.aimovie.entity.VideoResolution;
 import com.aimovie.repository.MovieRepository;
 import com.aimovie.repository.VideoResolutionRepository;
+import com.aimovie.service.BitrateLadderService;
+import com.aimovie.service.EncodingProgressService;
 import com.aimovie.service.FFmpegService;
 import com.aimovie.service.FileUploadService;
+import com.aimovie.service.TranscodingCapacity;
+import com.aimovie.service.TranscodingFence;
+import com.aimovie.service.TranscodingMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.ffmpeg.avcodec.AVCodecParameters;
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
+import org.bytedeco.ffmpeg.avformat.AVFormatContext;
+import org.bytedeco.ffmpeg.avformat.AVStream;
 import org.bytedeco.ffmpeg.global.avcodec;
 import org.bytedeco.ffmpeg.global.avutil;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.FFmpegFrameRecorder;
 import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 // ff
 @Service
 @RequiredArgsConstructor
@@ -34,6 +67,11 @@ public class FFmpegServiceImpl implements FFmpegService {
     private final VideoResolutionRepository videoResolutionRepository;
     private final MovieRepository movieRepository;
     private final FileUploadService fileUploadService;
+    private final TranscodingMetrics transcodingMetrics;
+    private final EncodingProgressService encodingProgressService;
+    private final BitrateLadderService bitrateLadderService;
+    private final TranscodingCapacity transcodingCapacity;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.video.upload-dir:uploads/videos}")
     private String videoUploadDir;
@@ -41,7 +79,68 @@ public class FFmpegServiceImpl implements FFmpegService {
     @Value("${app.video.temp-dir:uploads/temp}")
     private String tempDir;
 
+    @Value("${app.video.processing.frame-queue-capacity:8}")
+    private int frameQueueCapacity;
+
+    @Value("${app.video.hls.enabled:true}")
+    private boolean hlsEnabled;
+
+    @Value("${app.video.hls.segment-seconds:6}")
+    private int hlsSegmentSeconds;
+
+    @Value("${app.video.remux.enabled:true}")
+    private boolean remuxEnabled;
+
+    @Value("${app.video.remux.max-bitrate-ratio:1.5}")
+    private double remuxMaxBitrateRatio;
+
+    @Value("${app.video.remux.keyframe-probe-seconds:60}")
+    private int remuxKeyframeProbeSeconds;
+
+    @Value("${app.video.chunked.enabled:true}")
+    private boolean chunkedEnabled;
+
+    @Value("${app.video.chunked.chunk-seconds:120}")
+    private int chunkSeconds;
+
+    @Value("${app.video.chunked.min-duration-seconds:600}")
+    private int chunkMinDurationSeconds;
+
+    // 0 runs as many chunks at once as the job's cores allow at threads-per-chunk each
+    @Value("${app.video.chunked.parallelism:0}")
+    private int chunkParallelism;
+
+    @Value("${app.video.chunked.threads-per-chunk:2}")
+    private int threadsPerChunk;
+
+    @Value("${app.video.trickplay.enabled:true}")
+    private boolean trickplayEnabled;
+
+    @Value("${app.video.trickplay.interval-seconds:10}")
+    private int trickplayIntervalSeconds;
+
+    @Value("${app.video.trickplay.thumbnail-width:240}")
+    private int trickplayThumbnailWidth;
+
+    @Value("${app.video.trickplay.columns:10}")
+    private int trickplayColumns;
+
+    @Value("${app.video.trickplay.rows:10}")
+    private int trickplayRows;
+
+    @Value("${app.video.trickplay.jpeg-quality:0.7}")
+    private float trickplayJpegQuality;
+
     // Video quality configurations
+    private static final String HLS_DIR = "hls";
+    private static final String MASTER_PLAYLIST = "master.m3u8";
+    private static final String TRICKPLAY_DIR = "trickplay";
+    private static final String CHUNK_DIR = "chunks";
+    // Seek this far ahead of a chunk boundary; the frames before it are decoded and dropped
+    private static final long CHUNK_SEEK_MARGIN_MICROS = 2_000_000L;
+    private static final int HLS_AUDIO_BITRATE_KBPS = 128;
+
+    // Default rungs for createVideoResolutionsForMovie; encodes use the movie's per-title ladder
     private static final List<VideoQualityConfig> QUALITY_CONFIGS = List.of(
             new VideoQualityConfig("360p", 640, 360, 800),
             new VideoQualityConfig("720p", 1280, 720, 2500),
@@ -89,10 +188,20 @@ public class FFmpegServiceImpl implements FFmpegService {
         }
     }
 
+    /**
+     * Encodes every rendition of the movie that is not already COMPLETED, so a job that is
+     * retried or reclaimed after a crash resumes where it stopped. Runs on the caller's thread;
+     * callers queue a transcoding job rather than invoking this directly.
+     */
     @Override
-    @Async
     public CompletableFuture<VideoProcessingResult> processVideoToMultipleResolutions(
             Path inputVideoPath, Long movieId, String originalFileName) {
+        return processVideoToMultipleResolutions(inputVideoPath, movieId, originalFileName, TranscodingFence.NONE);
+    }
+
+    @Override
+    public CompletableFuture<VideoProcessingResult> processVideoToMultipleResolutions(
+            Path inputVideoPath, Long movieId, String originalFileName, TranscodingFence fence) {
         
         long startTime = System.currentTimeMillis();
         List<ProcessedVideoInfo> processedVideos = new ArrayList<>();
@@ -109,52 +218,158 @@ public class FFmpegServiceImpl implements FFmpegService {
                 outputDir = Paths.get(videoUploadDir, movieId.toString());
             }
             Files.createDirectories(outputDir);
-            
-            // Process each quality
-            for (VideoQualityConfig config : QUALITY_CONFIGS) {
-                try {
-                    String outputFileName = String.format("%s_%s.mp4", movieId, config.quality);
-                    Path outputPath = outputDir.resolve(outputFileName);
-                    
-                    log.info("Processing {} quality for movie {}", config.quality, movieId);
-                    
-                    ProcessedVideoInfo result = encodeVideoToResolutionSync(
-                            inputVideoPath, 
-                            outputPath, 
-                            config.quality, 
-                            config.width, 
-                            config.height, 
-                            config.bitrate
-                    );
-                    
-                    processedVideos.add(result);
-                    
-                    if (result.isSuccess()) {
+
+            List<VideoQualityConfig> ladder = resolveLadder(inputVideoPath, movieId, fence);
+            Map<String, VideoResolution> existing = new HashMap<>();
+            for (VideoResolution resolution : videoResolutionRepository.findByMovieId(movieId)) {
+                if (ladder.stream().anyMatch(config -> config.quality.equals(resolution.getQuality()))) {
+                    existing.put(resolution.getQuality(), resolution);
+                } else {
+                    // Left over from a previous source whose ladder had this rung
+                    writeFenced(fence, movieId, () -> videoResolutionRepository.delete(resolution));
+                }
+            }
+            List<VideoQualityConfig> pending = new ArrayList<>();
+            for (VideoQualityConfig config : ladder) {
+                VideoResolution resolution = existing.get(config.quality);
+                if (resolution == null || !"COMPLETED".equals(resolution.getEncodingStatus())) {
+                    pending.add(config);
+                    saveRendition(movieId, config, "PROCESSING", null, 0L, null, fence);
+                }
+            }
+            if (pending.size() < ladder.size()) {
+                log.info("Resuming movie {}: {} of {} renditions already completed",
+                        movieId, ladder.size() - pending.size(), ladder.size());
+            }
+
+            // A rung the source already matches is stream-copied instead of re-encoded
+            Map<String, ProcessedVideoInfo> remuxed = new HashMap<>();
+            VideoQualityConfig remuxable = findRemuxableRung(inputVideoPath, pending);
+            if (remuxable != null) {
+                long remuxStart = System.currentTimeMillis();
+                Path remuxPath = outputDir.resolve(String.format("%s_%s.mp4", movieId, remuxable.quality));
+                ProcessedVideoInfo remuxResult = remuxToMp4(inputVideoPath, remuxPath, remuxable);
+                if (remuxResult.isSuccess()) {
+                    transcodingMetrics.record(TranscodingMetrics.STAGE_REMUX, System.currentTimeMillis() - remuxStart,
+                            remuxResult.getFileSizeBytes());
+                    // Carries the source bitrate, so the rendition row and master playlist advertise the real rate
+                    pending.replaceAll(config -> config.quality.equals(remuxable.quality) ? remuxable : config);
+                    remuxed.put(remuxable.quality, remuxResult);
+                }
+            }
+
+            // Decode the source once and encode every remaining quality from the same frames
+            List<VideoQualityConfig> toEncode = pending.stream()
+                    .filter(config -> !remuxed.containsKey(config.quality))
+                    .toList();
+            // Seek-preview sprites ride along on the same decode, once per source
+            TrickplayWriter trickplay = trickplayEnabled && needsTrickplay(movieId)
+                    ? new TrickplayWriter(outputDir.resolve(TRICKPLAY_DIR), trickplayIntervalSeconds,
+                            trickplayThumbnailWidth, trickplayColumns, trickplayRows, trickplayJpegQuality)
+                    : null;
+            long encodeStart = System.currentTimeMillis();
+            ChunkPlan chunkPlan = toEncode.isEmpty() ? null : planChunks(inputVideoPath);
+            List<ProcessedVideoInfo> encoded;
+            if (chunkPlan != null) {
+                encoded = encodeRenditionsChunked(inputVideoPath, outputDir, movieId, toEncode, chunkPlan, trickplay);
+            } else if (!toEncode.isEmpty() || trickplay != null) {
+                encoded = encodeRenditionsSinglePass(inputVideoPath, outputDir, movieId, toEncode, trickplay);
+            } else {
+                encoded = List.of();
+            }
+            transcodingMetrics.record(TranscodingMetrics.STAGE_ENCODE, System.currentTimeMillis() - encodeStart,
+                    toEncode.isEmpty() ? 0 : Files.size(inputVideoPath));
+            if (trickplay != null && trickplay.isCompleted()) {
+                publishTrickplay(trickplay, movieId, cloudEnabled, fence);
+            }
+
+            // Results in the order of pending
+            List<ProcessedVideoInfo> results = new ArrayList<>();
+            Iterator<ProcessedVideoInfo> encodedResults = encoded.iterator();
+            for (VideoQualityConfig config : pending) {
+                ProcessedVideoInfo remuxResult = remuxed.get(config.quality);
+                results.add(remuxResult != null ? remuxResult : encodedResults.next());
+            }
+
+            // Package the finished renditions as HLS before the MP4s are moved to cloud storage
+            Map<String, String> playlistUrls = new HashMap<>();
+            String masterPlaylistUrl = null;
+            if (hlsEnabled) {
+                Path hlsDir = outputDir.resolve(HLS_DIR);
+                long packageStart = System.currentTimeMillis();
+                List<VideoQualityConfig> packaged = packageHls(outputDir, hlsDir, movieId, pending, results);
+                transcodingMetrics.record(TranscodingMetrics.STAGE_HLS_PACKAGE, System.currentTimeMillis() - packageStart,
+                        totalSize(results));
+
+                // The master lists renditions packaged by earlier attempts too
+                List<VideoQualityConfig> listed = new ArrayList<>();
+                for (VideoQualityConfig config : ladder) {
+                    VideoQualityConfig packagedNow = packaged.stream()
+                            .filter(candidate -> candidate.quality.equals(config.quality))
+                            .findFirst()
+                            .orElse(null);
+                    VideoResolution previous = existing.get(config.quality);
+                    boolean pendingNow = pending.stream().anyMatch(candidate -> candidate.quality.equals(config.quality));
+                    if (packagedNow != null) {
+                        listed.add(packagedNow);
+                    } else if (!pendingNow && previous != null && previous.getPlaylistUrl() != null) {
+                        listed.add(previous.getBitrate() != null
+                                ? new VideoQualityConfig(config.quality, config.width, config.height, previous.getBitrate())
+                                : config);
+                    }
+                }
+                if (!listed.isEmpty()) {
+                    try {
+                        writeMasterPlaylist(hlsDir, listed);
                         if (cloudEnabled) {
-                            try {
-                                String uploadedFilename = fileUploadService.uploadVideoFileFromPath(outputPath, movieId, outputFileName);
-                                log.info("Uploaded resolution {} to cloud storage: {}", config.quality, uploadedFilename);
-                                
-                                createVideoResolutionEntity(movieId, config, outputFileName, result.getFileSizeBytes());
-                                
-                                Files.deleteIfExists(outputPath);
-                                log.info("Deleted temp file after upload: {}", outputPath);
-                            } catch (Exception e) {
-                                log.error("Failed to upload resolution {} to cloud storage: {}", config.quality, e.getMessage());
-                                createVideoResolutionEntity(movieId, config, outputFileName, result.getFileSizeBytes());
-                            }
-                        } else {
-                            createVideoResolutionEntity(movieId, config, outputPath, result.getFileSizeBytes());
+                            long uploadStart = System.currentTimeMillis();
+                            long uploaded = uploadHlsDirectory(hlsDir, movieId);
+                            transcodingMetrics.record(TranscodingMetrics.STAGE_UPLOAD, System.currentTimeMillis() - uploadStart, uploaded);
                         }
+                        for (VideoQualityConfig config : packaged) {
+                            playlistUrls.put(config.quality, fileUploadService.buildPublicHlsUrl(movieId, config.quality + ".m3u8"));
+                        }
+                        masterPlaylistUrl = fileUploadService.buildPublicHlsUrl(movieId, MASTER_PLAYLIST);
+                    } catch (Exception e) {
+                        log.error("Failed to publish HLS package for movie {}: {}", movieId, e.getMessage());
                     }
-                    
-                } catch (Exception e) {
-                    log.error("Error processing {} quality: {}", config.quality, e.getMessage());
-                    processedVideos.add(ProcessedVideoInfo.builder()
-                            .quality(config.quality)
-                            .success(false)
-                            .errorMessage(e.getMessage())
-                            .build());
+                }
+            }
+
+            for (int i = 0; i < pending.size(); i++) {
+                VideoQualityConfig config = pending.get(i);
+                ProcessedVideoInfo result = results.get(i);
+                processedVideos.add(result);
+
+                String outputFileName = String.format("%s_%s.mp4", movieId, config.quality);
+                if (!result.isSuccess()) {
+                    saveRendition(movieId, config, "FAILED", null, 0L, null, fence);
+                    continue;
+                }
+
+                Path outputPath = outputDir.resolve(outputFileName);
+
+                if (cloudEnabled) {
+                    try {
+                        long uploadStart = System.currentTimeMillis();
+                        String uploadedFilename = fileUploadService.uploadVideoFileFromPath(outputPath, movieId, outputFileName);
+                        transcodingMetrics.record(TranscodingMetrics.STAGE_UPLOAD, System.currentTimeMillis() - uploadStart,
+                                result.getFileSizeBytes());
+                        log.info("Uploaded resolution {} to cloud storage: {}", config.quality, uploadedFilename);
+
+                        saveRendition(movieId, config, "COMPLETED", outputFileName, result.getFileSizeBytes(), playlistUrls.get(config.quality), fence);
+
+                        Files.deleteIfExists(outputPath);
+                        log.info("Deleted temp file after upload: {}", outputPath);
+                    } catch (Exception e) {
+                        // Not published, so the rendition is encoded again on the next attempt
+                        log.error("Failed to upload resolution {} to cloud storage: {}", config.quality, e.getMessage());
+                        saveRendition(movieId, config, "FAILED", null, 0L, null, fence);
+                        processedVideos.set(processedVideos.size() - 1, failureInfo(config.quality, outputPath,
+                                config.width, config.height, config.bitrate, e.getMessage()));
+                    }
+                } else {
+                    saveRendition(movieId, config, "COMPLETED", outputFileName, result.getFileSizeBytes(), playlistUrls.get(config.quality), fence);
                 }
             }
             
@@ -179,7 +394,7 @@ public class FFmpegServiceImpl implements FFmpegService {
             }
             
             // Update movie's available qualities after successful processing
-            updateMovieAvailableQualities(movieId);
+            updateMovieAvailableQualities(movieId, masterPlaylistUrl, fence);
             
             return CompletableFuture.completedFuture(VideoProcessingResult.builder()
                     .success(true)
@@ -208,7 +423,7 @@ public class FFmpegServiceImpl implements FFmpegService {
     }
 
     @Override
-    @Async
+    @Async(AsyncConfig.FFMPEG_EXECUTOR)
     public CompletableFuture<VideoProcessingResult> encodeVideoToResolution(
             Path inputVideoPath, String outputPath, String quality, int width, int height, int bitrate) {
         
@@ -240,108 +455,831 @@ public class FFmpegServiceImpl implements FFmpegService {
     private ProcessedVideoInfo encodeVideoToResolutionSync(
             Path inputVideoPath, Path outputPath, String quality, int width, int height, int bitrate) {
         
-        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(inputVideoPath.toFile());
-             FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(outputPath.toFile(), width, height)) {
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(inputVideoPath.toFile())) {
             
             grabber.start();
             
-            // Configure recorder (video + audio)
-            recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
-            recorder.setFormat("mp4");
-            recorder.setFrameRate(grabber.getFrameRate());
-            recorder.setVideoBitrate(bitrate * 1000); // Convert to bits per second
-            recorder.setVideoQuality(0); // Best quality
-            
-            // Set pixel format
-            recorder.setPixelFormat(avutil.AV_PIX_FMT_YUV420P);
-
-            // Audio settings
-            int audioChannels = Math.max(1, grabber.getAudioChannels());
-            int sampleRate = Math.max(44100, grabber.getSampleRate());
-            recorder.setAudioCodec(avcodec.AV_CODEC_ID_AAC);
-            recorder.setAudioBitrate(128 * 1000);
-            recorder.setSampleRate(sampleRate);
-            recorder.setAudioChannels(audioChannels);
-            
-            recorder.start();
-            
             Frame frame;
             int frameCount = 0;
+            // Not tied to a movie, so the tracker only feeds the log line
+            EncodingProgressService.Tracker progress = encodingProgressService.track(null, quality, grabber.getLengthInTime());
             
-            while ((frame = grabber.grab()) != null) {
-                if (frame.image != null) {
-                    recorder.record(frame);
-                    frameCount++;
-                    if (frameCount % 100 == 0) {
-                        log.debug("Processed {} frames for {} quality", frameCount, quality);
+            try (FFmpegFrameRecorder recorder = createRecorder(outputPath, width, height, bitrate,
+                    transcodingCapacity.getCoresPerJob(), grabber)) {
+                recorder.start();
+                
+                while ((frame = grabber.grab()) != null) {
+                    if (frame.image != null) {
+                        recorder.record(frame);
+                        frameCount++;
+                        progress.update(frame.timestamp, frameCount);
+                        if (frameCount % 500 == 0) {
+                            TranscodingDTOs.EncodingProgress snapshot = progress.snapshot();
+                            log.info("Encoding {} quality: {}% at {} fps ({}x), ETA {} s",
+                                    quality, snapshot.getPercent(), snapshot.getFps(), snapshot.getSpeed(), snapshot.getEtaSeconds());
+                        }
+                    } else if (frame.samples != null) {
+                        recorder.recordSamples(frame.samples);
                     }
-                } else if (frame.samples != null) {
-                    recorder.recordSamples(frame.samples);
                 }
+                
+                recorder.stop();
             }
-            
-            recorder.stop();
             grabber.stop();
+            progress.finish(true);
             
             long fileSize = Files.size(outputPath);
+            TranscodingDTOs.EncodingProgress summary = progress.snapshot();
             
-            log.info("Successfully encoded {} quality: {} frames, {} bytes", quality, frameCount, fileSize);
+            log.info("Successfully encoded {} quality: {} frames, {} bytes at {} fps ({}x realtime)",
+                    quality, frameCount, fileSize, summary.getFps(), summary.getSpeed());
             
-            return ProcessedVideoInfo.builder()
-                    .quality(quality)
-                    .outputPath(outputPath.toString())
-                    .fileSizeBytes(fileSize)
-                    .width(width)
-                    .height(height)
-                    .bitrate(bitrate)
-                    .format("mp4")
-                    .success(true)
-                    .build();
+            return successInfo(quality, outputPath, width, height, bitrate, fileSize);
                     
         } catch (Exception e) {
             log.error("Error encoding video to {} quality: {}", quality, e.getMessage());
-            return ProcessedVideoInfo.builder()
-                    .quality(quality)
-                    .outputPath(outputPath.toString())
-                    .width(width)
-                    .height(height)
-                    .bitrate(bitrate)
-                    .format("mp4")
-                    .success(false)
-                    .errorMessage(e.getMessage())
-                    .build();
+            return failureInfo(quality, outputPath, width, height, bitrate, e.getMessage());
         }
     }
 
-    private void createVideoResolutionEntity(Long movieId, VideoQualityConfig config, Path outputPath, long fileSize) {
-        String filename = outputPath.getFileName().toString();
-        createVideoResolutionEntity(movieId, config, filename, fileSize);
+    /**
+     * Decodes the source once and fans every frame out to one recorder per quality.
+     * Each recorder scales and encodes on its own worker thread, fed through a bounded
+     * queue so a slow encoder applies backpressure to the decoder instead of buffering
+     * the whole movie in memory. Results are returned in the order of {@code configs}.
+     * A non-null {@code trickplay} writer is fed from the same frames and finished only when
+     * the whole source decoded cleanly.
+     */
+    private List<ProcessedVideoInfo> encodeRenditionsSinglePass(
+            Path inputVideoPath, Path outputDir, Long movieId, List<VideoQualityConfig> configs,
+            TrickplayWriter trickplay) {
+
+        List<RenditionWorker> workers = new ArrayList<>();
+        for (VideoQualityConfig config : configs) {
+            Path outputPath = outputDir.resolve(String.format("%s_%s.mp4", movieId, config.quality));
+            workers.add(new RenditionWorker(config, outputPath, frameQueueCapacity));
+        }
+
+        TrickplayWorker trickplayWorker = trickplay != null ? new TrickplayWorker(trickplay, frameQueueCapacity) : null;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("FFmpegRendition-" + movieId + "-");
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size() + (trickplayWorker != null ? 1 : 0),
+                threadFactory);
+        List<Future<ProcessedVideoInfo>> futures = new ArrayList<>();
+        Future<Boolean> trickplayFuture = null;
+        String decodeError = null;
+
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(inputVideoPath.toFile())) {
+            grabber.start();
+
+            Frame frame;
+            int frameCount = 0;
+            try {
+                // The renditions encode side by side, so they split the job's cores between them
+                int encoderThreads = transcodingCapacity.threadsPerEncoder(workers.size());
+                for (RenditionWorker worker : workers) {
+                    worker.prepare(grabber, movieId, encoderThreads);
+                    futures.add(executor.submit(worker));
+                }
+                if (trickplayWorker != null) {
+                    trickplayFuture = executor.submit(trickplayWorker);
+                }
+
+                while ((frame = grabber.grab()) != null) {
+                    if (frame.image == null && (frame.samples == null || workers.isEmpty())) {
+                        continue;
+                    }
+                    // The grabber reuses its buffers, so workers get one shared copy per frame
+                    boolean toTrickplay = trickplayWorker != null && frame.image != null;
+                    SharedFrame shared = new SharedFrame(frame.clone(), workers.size() + (toTrickplay ? 1 : 0));
+                    for (RenditionWorker worker : workers) {
+                        worker.queue.put(shared);
+                    }
+                    if (toTrickplay) {
+                        trickplayWorker.queue.put(shared);
+                    }
+                    if (frame.image != null && ++frameCount % 100 == 0) {
+                        log.debug("Decoded {} frames for movie {}", frameCount, movieId);
+                    }
+                }
+            } finally {
+                for (int i = 0; i < futures.size(); i++) {
+                    workers.get(i).queue.put(SharedFrame.END);
+                }
+                if (trickplayFuture != null) {
+                    trickplayWorker.queue.put(SharedFrame.END);
+                }
+            }
+
+            grabber.stop();
+            log.info("Decoded {} frames once for {} renditions of movie {}", frameCount, workers.size(), movieId);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            decodeError = "Video processing interrupted";
+        } catch (Exception e) {
+            log.error("Error decoding video for movie {}: {}", movieId, e.getMessage());
+            decodeError = e.getMessage();
+        }
+
+        List<ProcessedVideoInfo> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < workers.size(); i++) {
+                RenditionWorker worker = workers.get(i);
+                VideoQualityConfig config = worker.config;
+                if (i >= futures.size()) {
+                    results.add(failureInfo(config.quality, worker.outputPath, config.width, config.height,
+                            config.bitrate, decodeError));
+                    continue;
+                }
+                ProcessedVideoInfo result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    result = failureInfo(config.quality, worker.outputPath, config.width, config.height,
+                            config.bitrate, e.getCause().getMessage());
+                }
+                if (decodeError != null && result.isSuccess()) {
+                    // A truncated decode produces a playable but incomplete file; never publish it
+                    result = failureInfo(config.quality, worker.outputPath, config.width, config.height,
+                            config.bitrate, decodeError);
+                }
+                results.add(result);
+            }
+            if (trickplayFuture != null) {
+                finishTrickplay(trickplay, trickplayFuture, movieId, decodeError);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new IllegalStateException("Video processing interrupted", e);
+        } finally {
+            executor.shutdown();
+        }
+        return results;
     }
 
-    private void createVideoResolutionEntity(Long movieId, VideoQualityConfig config, String filename, long fileSize) {
+    /**
+     * Splits a long source into chunks of about chunk-seconds, each a whole number of HLS
+     * segments long, so each can be decoded from its own seek point and encoded on its own core.
+     * Every chunk encoder opens a GOP on its first frame, so starting the chunks on the segment
+     * grid keeps the stitched keyframes where the single-pass encoder would have put them. The
+     * boundaries are offsets from the first decoded frame's timestamp, the same clock the chunk
+     * encoders compare against. Returns null when the source is short, the machine too small to
+     * run chunks side by side, or the feature is off; the single-pass encoder is used then.
+     */
+    private ChunkPlan planChunks(Path source) {
+        int parallelism = resolveChunkParallelism();
+        if (!chunkedEnabled || parallelism < 2) {
+            return null;
+        }
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(source.toFile())) {
+            grabber.setImageWidth(64);
+            grabber.setImageHeight(36);
+            grabber.start();
+            long durationMicros = grabber.getLengthInTime();
+            if (durationMicros < chunkMinDurationSeconds * 1_000_000L) {
+                return null;
+            }
+            Frame first = grabber.grabImage();
+            boolean hasAudio = grabber.getAudioChannels() > 0;
+            double frameRate = grabber.getFrameRate();
+            long firstTimestamp = first != null ? first.timestamp : 0;
+            grabber.stop();
+            if (first == null) {
+                return null;
+            }
+
+            List<Long> starts = chunkStarts(firstTimestamp, durationMicros,
+                    Math.max(1, chunkSeconds) * 1_000_000L, Math.max(1, hlsSegmentSeconds) * 1_000_000L);
+            if (starts.size() < 2) {
+                return null;
+            }
+
+            List<EncodeChunk> chunks = new ArrayList<>();
+            for (int i = 0; i < starts.size(); i++) {
+                // The first chunk also takes anything ahead of the first keyframe, the last everything after its start
+                long start = i == 0 ? Long.MIN_VALUE : starts.get(i);
+                long end = i + 1 < starts.size() ? starts.get(i + 1) : Long.MAX_VALUE;
+                chunks.add(new EncodeChunk(i, start, end));
+            }
+            log.info("Split {} into {} segment-aligned chunks of ~{}s, encoding {} at a time",
+                    source.getFileName(), chunks.size(), chunkSeconds, parallelism);
+            return new ChunkPlan(firstTimestamp, hasAudio, frameRate, parallelism, chunks);
+        } catch (Exception e) {
+            log.warn("Could not plan chunks for {}, encoding in a single pass: {}", source.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Chunk start timestamps: the first frame, then every chunk length rounded to whole segments
+     * of {@code segmentMicros}, up to the end of the source. A start need not fall on a source
+     * keyframe; the chunk's decoder seeks to the keyframe before it and drops the frames ahead.
+     */
+    static List<Long> chunkStarts(long firstTimestamp, long durationMicros, long chunkMicros, long segmentMicros) {
+        long span = Math.max(1, Math.round((double) chunkMicros / segmentMicros)) * segmentMicros;
+        List<Long> starts = new ArrayList<>();
+        starts.add(firstTimestamp);
+        for (long start = firstTimestamp + span; start < firstTimestamp + durationMicros; start += span) {
+            starts.add(start);
+        }
+        return starts;
+    }
+
+    // Chunks run side by side within the job's cores
+    private int resolveChunkParallelism() {
+        if (chunkParallelism > 0) {
+            return chunkParallelism;
+        }
+        return transcodingCapacity.getCoresPerJob() / Math.max(1, threadsPerChunk);
+    }
+
+    /**
+     * Encodes every quality chunk by chunk, running {@link ChunkPlan#parallelism} chunks at once.
+     * Each chunk task decodes its own slice of the source once and feeds it to a video-only
+     * recorder per quality. The audio is encoded once, in its own task, so there are no AAC priming
+     * gaps at chunk boundaries. Each quality's chunks are then joined with that audio by stream
+     * copy into the same MP4 the single-pass encoder would have produced. Results are returned
+     * in the order of {@code configs}.
+     */
+    private List<ProcessedVideoInfo> encodeRenditionsChunked(Path inputVideoPath, Path outputDir, Long movieId,
+                                                             List<VideoQualityConfig> configs, ChunkPlan plan,
+                                                             TrickplayWriter trickplay) {
+        Path chunkDir = outputDir.resolve(CHUNK_DIR);
+        Path audioPath = plan.hasAudio() ? chunkDir.resolve("audio.m4a") : null;
+        // Every chunk runs a recorder per quality, all of them sharing the job's cores
+        int encoderThreads = transcodingCapacity.threadsPerEncoder(plan.parallelism() * configs.size());
+
+        List<EncodingProgressService.Tracker> trackers = new ArrayList<>();
+        long durationMicros = 0;
+        try (FFmpegFrameGrabber probe = new FFmpegFrameGrabber(inputVideoPath.toFile())) {
+            probe.start();
+            durationMicros = probe.getLengthInTime();
+            probe.stop();
+        } catch (Exception e) {
+            log.debug("Could not read duration of {}: {}", inputVideoPath.getFileName(), e.getMessage());
+        }
+        for (VideoQualityConfig config : configs) {
+            EncodingProgressService.Tracker tracker = encodingProgressService.track(movieId, config.quality, durationMicros);
+            tracker.update(0, 0);
+            trackers.add(tracker);
+        }
+        ChunkProgress progress = new ChunkProgress(trackers, plan.frameRate());
+        Map<Long, BufferedImage> thumbnails = trickplay != null ? new ConcurrentHashMap<>() : null;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("FFmpegChunk-" + movieId + "-");
+        ExecutorService executor = Executors.newFixedThreadPool(plan.parallelism(), threadFactory);
+        String failure = null;
         try {
-            String videoUrl = fileUploadService.buildPublicVideoUrl(movieId, filename);
-            
-            VideoResolution videoResolution = VideoResolution.builder()
-                    .movie(movieRepository.findById(movieId).orElse(null))
-                    .quality(config.quality)
-                    .width(config.width)
-                    .height(config.height)
-                    .videoUrl(videoUrl)
-                    .videoFormat("mp4")
-                    .fileSizeBytes(fileSize)
-                    .bitrate(config.bitrate)
-                    .isAvailable(true)
-                    .encodingStatus("COMPLETED")
-                    .encodingProgress(100)
-                    .build();
-            
-            videoResolutionRepository.save(videoResolution);
-            log.info("Created VideoResolution entity for movie {} quality {} with URL: {}", movieId, config.quality, videoResolution.getVideoUrl());
+            Files.createDirectories(chunkDir);
+            List<Future<?>> futures = new ArrayList<>();
+            if (audioPath != null) {
+                futures.add(executor.submit(() -> {
+                    encodeAudioTrack(inputVideoPath, audioPath);
+                    return null;
+                }));
+            }
+            for (EncodeChunk chunk : plan.chunks()) {
+                futures.add(executor.submit(new ChunkWorker(inputVideoPath, chunkDir, chunk, plan.firstTimestamp(),
+                        configs, encoderThreads, progress, trickplay, thumbnails)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause().getMessage();
+                        log.error("Chunked encode of movie {} failed: {}", movieId, failure);
+                        // The remaining chunks would be thrown away anyway
+                        futures.forEach(other -> other.cancel(true));
+                    }
+                } catch (CancellationException e) {
+                    // Cancelled after an earlier chunk failed
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            trackers.forEach(tracker -> tracker.finish(false));
+            deleteRecursively(chunkDir);
+            throw new IllegalStateException("Video processing interrupted", e);
+        } catch (IOException e) {
+            failure = e.getMessage();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<ProcessedVideoInfo> results = new ArrayList<>();
+        long stitchStart = System.currentTimeMillis();
+        for (int i = 0; i < configs.size(); i++) {
+            VideoQualityConfig config = configs.get(i);
+            Path outputPath = outputDir.resolve(String.format("%s_%s.mp4", movieId, config.quality));
+            String error = failure;
+            if (error == null) {
+                List<Path> chunkPaths = plan.chunks().stream()
+                        .map(chunk -> chunkPath(chunkDir, config, chunk))
+                        .toList();
+                try {
+                    ChunkStitcher.stitch(chunkPaths, audioPath, outputPath);
+                } catch (Exception e) {
+                    error = "Stitching chunks failed: " + e.getMessage();
+                    log.error("Error stitching {} quality of movie {}: {}", config.quality, movieId, e.getMessage());
+                }
+            }
+            trackers.get(i).finish(error == null);
+            if (error != null) {
+                results.add(failureInfo(config.quality, outputPath, config.width, config.height, config.bitrate, error));
+                continue;
+            }
+            try {
+                long fileSize = Files.size(outputPath);
+                TranscodingDTOs.EncodingProgress summary = trackers.get(i).snapshot();
+                log.info("Successfully encoded {} quality from {} chunks: {} bytes at {} fps ({}x realtime)",
+                        config.quality, plan.chunks().size(), fileSize, summary.getFps(), summary.getSpeed());
+                results.add(successInfo(config.quality, outputPath, config.width, config.height, config.bitrate, fileSize));
+            } catch (IOException e) {
+                results.add(failureInfo(config.quality, outputPath, config.width, config.height, config.bitrate, e.getMessage()));
+            }
+        }
+        transcodingMetrics.record(TranscodingMetrics.STAGE_STITCH, System.currentTimeMillis() - stitchStart,
+                totalSize(results));
+
+        if (trickplay != null && failure == null) {
+            try {
+                for (BufferedImage thumbnail : new TreeMap<>(thumbnails).values()) {
+                    trickplay.add(thumbnail);
+                }
+                trickplay.finish();
+            } catch (IOException e) {
+                log.warn("Trickplay thumbnails for movie {} were not written: {}", movieId, e.getMessage());
+            }
+        }
+        deleteRecursively(chunkDir);
+        return results;
+    }
+
+    private static Path chunkPath(Path chunkDir, VideoQualityConfig config, EncodeChunk chunk) {
+        return chunkDir.resolve(String.format("%s_%05d.mp4", config.quality, chunk.index()));
+    }
+
+    // Encodes only the audio of the source, once, for every chunked rendition to share
+    private void encodeAudioTrack(Path source, Path output) throws Exception {
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(source.toFile())) {
+            grabber.start();
+            try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(output.toFile(), grabber.getAudioChannels())) {
+                recorder.setFormat("mp4");
+                recorder.setAudioCodec(avcodec.AV_CODEC_ID_AAC);
+                recorder.setAudioBitrate(HLS_AUDIO_BITRATE_KBPS * 1000);
+                recorder.setSampleRate(Math.max(44100, grabber.getSampleRate()));
+                recorder.start();
+                Frame frame;
+                while ((frame = grabber.grabSamples()) != null) {
+                    recorder.recordSamples(frame.sampleRate, frame.audioChannels, frame.samples);
+                }
+                recorder.stop();
+            }
+            grabber.stop();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Could not delete temp file: {}", path);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Error cleaning up {}: {}", directory, e.getMessage());
+        }
+    }
+
+    // Writes the last sheet and the track only if every frame reached the writer
+    private void finishTrickplay(TrickplayWriter trickplay, Future<Boolean> future, Long movieId, String decodeError)
+            throws InterruptedException {
+        try {
+            if (future.get() && decodeError == null) {
+                trickplay.finish();
+            }
+        } catch (ExecutionException | IOException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.warn("Trickplay thumbnails for movie {} were not written: {}", movieId, cause.getMessage());
+        }
+    }
+
+    private boolean needsTrickplay(Long movieId) {
+        return movieRepository.findById(movieId)
+                .map(movie -> movie.getThumbnailTrackUrl() == null)
+                .orElse(false);
+    }
+
+    /**
+     * Uploads the sprites and track next to the HLS package when cloud storage is on, then
+     * points the movie at the track. A failure only costs the seek previews.
+     */
+    private void publishTrickplay(TrickplayWriter trickplay, Long movieId, boolean cloudEnabled, TranscodingFence fence) {
+        try {
+            if (cloudEnabled) {
+                for (Path file : trickplay.getFiles()) {
+                    fileUploadService.uploadVideoFileFromPath(file, movieId, TRICKPLAY_DIR + "/" + file.getFileName());
+                }
+            }
+            String trackUrl = fileUploadService.buildPublicTrickplayUrl(movieId, TrickplayWriter.TRACK_FILENAME);
+            writeFenced(fence, movieId, () -> movieRepository.findById(movieId)
+                    .ifPresent(movie -> movie.setThumbnailTrackUrl(trackUrl)));
+            log.info("Published {} trickplay thumbnails for movie {}", trickplay.getThumbnailCount(), movieId);
+        } catch (Exception e) {
+            log.error("Failed to publish trickplay thumbnails for movie {}: {}", movieId, e.getMessage());
+        }
+    }
+
+    private FFmpegFrameRecorder createRecorder(Path outputPath, int width, int height, int bitrate, int threads,
+                                               FFmpegFrameGrabber grabber) {
+        FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(outputPath.toFile(), width, height);
+
+        // Configure recorder (video + audio)
+        recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
+        recorder.setFormat("mp4");
+        recorder.setFrameRate(grabber.getFrameRate());
+        recorder.setVideoBitrate(bitrate * 1000); // Convert to bits per second
+        // Cap peaks around the ladder bitrate; a constant-quality setting would ignore it entirely
+        recorder.setVideoOption("maxrate", (bitrate * 3 / 2) + "k");
+        recorder.setVideoOption("bufsize", (bitrate * 2) + "k");
+
+        // Fixed, scene-cut-free GOP so every quality has keyframes at the same HLS segment boundaries
+        int gopSize = Math.max(1, (int) Math.round(grabber.getFrameRate() * hlsSegmentSeconds));
+        recorder.setGopSize(gopSize);
+        recorder.setVideoOption("keyint_min", String.valueOf(gopSize));
+        recorder.setVideoOption("sc_threshold", "0");
+        // x264 otherwise starts a thread per core and takes the cores kept for request handling
+        recorder.setVideoOption("threads", String.valueOf(threads));
+
+        // Set pixel format
+        recorder.setPixelFormat(avutil.AV_PIX_FMT_YUV420P);
+
+        // Audio settings
+        int audioChannels = Math.max(1, grabber.getAudioChannels());
+        int sampleRate = Math.max(44100, grabber.getSampleRate());
+        recorder.setAudioCodec(avcodec.AV_CODEC_ID_AAC);
+        recorder.setAudioBitrate(128 * 1000);
+        recorder.setSampleRate(sampleRate);
+        recorder.setAudioChannels(audioChannels);
+
+        return recorder;
+    }
+
+    private ProcessedVideoInfo successInfo(String quality, Path outputPath, int width, int height, int bitrate, long fileSize) {
+        return ProcessedVideoInfo.builder()
+                .quality(quality)
+                .outputPath(outputPath.toString())
+                .fileSizeBytes(fileSize)
+                .width(width)
+                .height(height)
+                .bitrate(bitrate)
+                .format("mp4")
+                .success(true)
+                .build();
+    }
+
+    private ProcessedVideoInfo failureInfo(String quality, Path outputPath, int width, int height, int bitrate, String errorMessage) {
+        return ProcessedVideoInfo.builder()
+                .quality(quality)
+                .outputPath(outputPath.toString())
+                .width(width)
+                .height(height)
+                .bitrate(bitrate)
+                .format("mp4")
+                .success(false)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    /**
+     * Returns the pending rung the source can be stream-copied into, carrying the source's
+     * dimensions and bitrate, or null when it has to be encoded. The source qualifies when it is H.264 yuv420p
+     * with AAC (or no) audio, has the rung's width and at most its height (letterboxed sources
+     * included), is no more than max-bitrate-ratio above the rung's bitrate and, when HLS is
+     * on, has keyframes on the segment boundaries the encoded rungs use.
+     */
+    private VideoQualityConfig findRemuxableRung(Path source, List<VideoQualityConfig> candidates) {
+        if (!remuxEnabled || candidates.isEmpty()) {
+            return null;
+        }
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(source.toFile())) {
+            grabber.start();
+            AVCodecParameters video = streamParameters(grabber.getFormatContext(), avutil.AVMEDIA_TYPE_VIDEO);
+            if (video == null || video.codec_id() != avcodec.AV_CODEC_ID_H264 || video.format() != avutil.AV_PIX_FMT_YUV420P) {
+                return null;
+            }
+            AVCodecParameters audio = streamParameters(grabber.getFormatContext(), avutil.AVMEDIA_TYPE_AUDIO);
+            if (audio != null && audio.codec_id() != avcodec.AV_CODEC_ID_AAC) {
+                return null;
+            }
+
+            int width = video.width();
+            int height = video.height();
+            VideoQualityConfig match = candidates.stream()
+                    .filter(config -> config.width == width && height <= config.height)
+                    .findFirst()
+                    .orElse(null);
+            if (match == null) {
+                return null;
+            }
+
+            long videoKbps = video.bit_rate() / 1000;
+            if (videoKbps <= 0 && grabber.getLengthInTime() > 0) {
+                // Containers without a per-stream rate: estimate from the file, minus typical audio
+                long totalKbps = Files.size(source) * 8 * 1000 / grabber.getLengthInTime();
+                videoKbps = totalKbps - (audio != null ? HLS_AUDIO_BITRATE_KBPS : 0);
+            }
+            if (videoKbps <= 0 || videoKbps > match.bitrate * remuxMaxBitrateRatio) {
+                return null;
+            }
+            if (hlsEnabled && !keyframesOnSegmentBoundaries(grabber)) {
+                log.info("Source {} matches {} but its keyframes do not line up with {}s segments; re-encoding",
+                        source.getFileName(), match.quality, hlsSegmentSeconds);
+                return null;
+            }
+
+            log.info("Source {} is {}x{} H.264 at ~{} kbps; stream-copying it as the {} rendition",
+                    source.getFileName(), width, height, videoKbps, match.quality);
+            return new VideoQualityConfig(match.quality, width, height, (int) videoKbps);
+        } catch (Exception e) {
+            log.warn("Could not probe {} for the remux fast path: {}", source.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static AVCodecParameters streamParameters(AVFormatContext formatContext, int mediaType) {
+        for (int i = 0; i < formatContext.nb_streams(); i++) {
+            AVCodecParameters parameters = formatContext.streams(i).codecpar();
+            if (parameters.codec_type() == mediaType) {
+                return parameters;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads video packets (no decoding) from the start of the source and checks that every
+     * segment boundary within the probe window has a keyframe on it, so HLS segments of the
+     * copied rung line up with the encoded ones and players can switch between them.
+     */
+    private boolean keyframesOnSegmentBoundaries(FFmpegFrameGrabber grabber) throws Exception {
+        AVFormatContext formatContext = grabber.getFormatContext();
+        double tolerance = grabber.getFrameRate() > 0 ? 0.5 / grabber.getFrameRate() : 0.02;
+        List<Double> keyframes = new ArrayList<>();
+        double first = Double.NaN;
+        double last = 0;
+
+        AVPacket packet;
+        while ((packet = grabber.grabPacket()) != null) {
+            AVStream stream = formatContext.streams(packet.stream_index());
+            if (stream.codecpar().codec_type() != avutil.AVMEDIA_TYPE_VIDEO || packet.pts() == avutil.AV_NOPTS_VALUE) {
+                continue;
+            }
+            double seconds = packet.pts() * avutil.av_q2d(stream.time_base());
+            if (Double.isNaN(first)) {
+                first = seconds;
+            }
+            last = seconds - first;
+            if ((packet.flags() & avcodec.AV_PKT_FLAG_KEY) != 0) {
+                keyframes.add(last);
+            }
+            if (last >= remuxKeyframeProbeSeconds) {
+                break;
+            }
+        }
+
+        for (double boundary = hlsSegmentSeconds; boundary <= last; boundary += hlsSegmentSeconds) {
+            double target = boundary;
+            if (keyframes.stream().noneMatch(keyframe -> Math.abs(keyframe - target) <= tolerance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the source's audio and video packets into an MP4 without re-encoding, with the
+     * moov atom moved to the front (faststart) so playback can begin before the whole file
+     * has been fetched.
+     */
+    private ProcessedVideoInfo remuxToMp4(Path source, Path outputPath, VideoQualityConfig config) {
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(source.toFile())) {
+            grabber.start();
+            try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(outputPath.toFile(),
+                    grabber.getImageWidth(), grabber.getImageHeight(), grabber.getAudioChannels())) {
+                recorder.setFormat("mp4");
+                recorder.setVideoCodec(grabber.getVideoCodec());
+                recorder.setAudioCodec(grabber.getAudioCodec());
+                recorder.setFrameRate(grabber.getFrameRate());
+                recorder.setSampleRate(grabber.getSampleRate());
+                recorder.setOption("movflags", "+faststart");
+
+                recorder.start(grabber.getFormatContext());
+                AVPacket packet;
+                while ((packet = grabber.grabPacket()) != null) {
+                    recorder.recordPacket(packet);
+                }
+                recorder.stop();
+            }
+            grabber.stop();
+
+            long fileSize = Files.size(outputPath);
+            log.info("Remuxed {} quality without re-encoding: {} bytes", config.quality, fileSize);
+            return successInfo(config.quality, outputPath, config.width, config.height, config.bitrate, fileSize);
+        } catch (Exception e) {
+            log.warn("Remux of {} quality failed, falling back to encoding it: {}", config.quality, e.getMessage());
+            try {
+                Files.deleteIfExists(outputPath);
+            } catch (IOException ignored) {
+                // The encoder overwrites it
+            }
+            return failureInfo(config.quality, outputPath, config.width, config.height, config.bitrate, e.getMessage());
+        }
+    }
+
+    /**
+     * Remuxes each successfully encoded MP4 into fMP4 HLS segments plus a media playlist.
+     * The renditions were encoded with a fixed GOP of {@code hls.segment-seconds}, so segment
+     * boundaries line up across qualities and players can switch bitrate at any segment.
+     */
+    private List<VideoQualityConfig> packageHls(Path outputDir, Path hlsDir, Long movieId,
+                                                List<VideoQualityConfig> configs, List<ProcessedVideoInfo> results) {
+        List<VideoQualityConfig> packaged = new ArrayList<>();
+        try {
+            Files.createDirectories(hlsDir);
+        } catch (Exception e) {
+            log.error("Could not create HLS directory {}: {}", hlsDir, e.getMessage());
+            return packaged;
+        }
+
+        for (int i = 0; i < configs.size(); i++) {
+            VideoQualityConfig config = configs.get(i);
+            if (!results.get(i).isSuccess()) {
+                continue;
+            }
+            Path mp4Path = outputDir.resolve(String.format("%s_%s.mp4", movieId, config.quality));
+            try {
+                remuxToHls(mp4Path, hlsDir, config.quality);
+                packaged.add(config);
+                log.info("Packaged {} quality of movie {} as HLS", config.quality, movieId);
+            } catch (Exception e) {
+                log.error("Error packaging {} quality of movie {} as HLS: {}", config.quality, movieId, e.getMessage());
+            }
+        }
+        return packaged;
+    }
+
+    private void remuxToHls(Path mp4Path, Path hlsDir, String quality) throws Exception {
+        Path playlistPath = hlsDir.resolve(quality + ".m3u8");
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(mp4Path.toFile())) {
+            grabber.start();
+            try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(playlistPath.toFile(),
+                    grabber.getImageWidth(), grabber.getImageHeight(), grabber.getAudioChannels())) {
+                recorder.setFormat("hls");
+                recorder.setVideoCodec(grabber.getVideoCodec());
+                recorder.setAudioCodec(grabber.getAudioCodec());
+                recorder.setFrameRate(grabber.getFrameRate());
+                recorder.setSampleRate(grabber.getSampleRate());
+                recorder.setOption("hls_time", String.valueOf(hlsSegmentSeconds));
+                recorder.setOption("hls_playlist_type", "vod");
+                recorder.setOption("hls_segment_type", "fmp4");
+                recorder.setOption("hls_fmp4_init_filename", quality + "_init.mp4");
+                recorder.setOption("hls_segment_filename", hlsDir.resolve(quality + "_%05d.m4s").toString());
+                recorder.setOption("hls_flags", "independent_segments");
+
+                // Stream copy: segments are cut at the existing keyframes, nothing is re-encoded
+                recorder.start(grabber.getFormatContext());
+                AVPacket packet;
+                while ((packet = grabber.grabPacket()) != null) {
+                    recorder.recordPacket(packet);
+                }
+                recorder.stop();
+            }
+            grabber.stop();
+        }
+    }
+
+    private void writeMasterPlaylist(Path hlsDir, List<VideoQualityConfig> packaged) throws IOException {
+        StringBuilder playlist = new StringBuilder();
+        playlist.append("#EXTM3U\n");
+        playlist.append("#EXT-X-VERSION:7\n");
+        playlist.append("#EXT-X-INDEPENDENT-SEGMENTS\n");
+        for (VideoQualityConfig config : packaged) {
+            long bandwidth = (config.bitrate + HLS_AUDIO_BITRATE_KBPS) * 1000L;
+            playlist.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(bandwidth)
+                    .append(",RESOLUTION=").append(config.width).append('x').append(config.height).append('\n');
+            playlist.append(config.quality).append(".m3u8\n");
+        }
+        Files.writeString(hlsDir.resolve(MASTER_PLAYLIST), playlist.toString());
+    }
+
+    // Returns the number of bytes uploaded
+    private long uploadHlsDirectory(Path hlsDir, Long movieId) throws IOException {
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(hlsDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                fileUploadService.uploadVideoFileFromPath(file, movieId, HLS_DIR + "/" + file.getFileName());
+                bytes += Files.size(file);
+            }
+        }
+        log.info("Uploaded HLS package for movie {} to cloud storage", movieId);
+        return bytes;
+    }
+
+    private static long totalSize(List<ProcessedVideoInfo> results) {
+        return results.stream()
+                .filter(ProcessedVideoInfo::isSuccess)
+                .mapToLong(ProcessedVideoInfo::getFileSizeBytes)
+                .sum();
+    }
+
+    /**
+     * Returns the movie's stored ladder, or plans one from the source and stores it. The ladder
+     * is kept until a new source is queued, so a resumed job encodes the same rungs.
+     */
+    private List<VideoQualityConfig> resolveLadder(Path inputVideoPath, Long movieId, TranscodingFence fence) {
+        List<BitrateRung> rungs = transactionTemplate.execute(status -> movieRepository.findById(movieId)
+                .<List<BitrateRung>>map(movie -> new ArrayList<>(movie.getBitrateLadder()))
+                .orElseGet(List::of));
+        if (rungs == null || rungs.isEmpty()) {
+            // The analysis decodes part of the source, so it runs outside the transaction
+            BitrateLadderService.BitrateLadder planned = bitrateLadderService.planLadder(inputVideoPath);
+            rungs = planned.rungs();
+            writeFenced(fence, movieId, () -> movieRepository.findById(movieId).ifPresent(movie -> {
+                movie.getBitrateLadder().clear();
+                movie.getBitrateLadder().addAll(planned.rungs());
+                movie.setContentComplexity(planned.complexity());
+            }));
+        }
+        return rungs.stream()
+                .map(rung -> new VideoQualityConfig(rung.getQuality(), rung.getWidth(), rung.getHeight(), rung.getBitrateKbps()))
+                .toList();
+    }
+
+    /**
+     * Upserts the rendition row for a quality. Only COMPLETED renditions are available for
+     * playback; PROCESSING and FAILED rows tell a resumed job what is left to encode.
+     */
+    private void saveRendition(Long movieId, VideoQualityConfig config, String status, String filename,
+                               long fileSize, String playlistUrl, TranscodingFence fence) {
+        try {
+            boolean saved = writeFenced(fence, movieId, () -> {
+                VideoResolution videoResolution = videoResolutionRepository.findByMovieIdAndQuality(movieId, config.quality)
+                        .orElseGet(() -> VideoResolution.builder()
+                                .movie(movieRepository.getReferenceById(movieId))
+                                .quality(config.quality)
+                                .build());
+                boolean completed = "COMPLETED".equals(status);
+                videoResolution.setWidth(config.width);
+                videoResolution.setHeight(config.height);
+                videoResolution.setBitrate(config.bitrate);
+                videoResolution.setVideoFormat("mp4");
+                videoResolution.setEncodingStatus(status);
+                videoResolution.setEncodingProgress(completed ? 100 : 0);
+                videoResolution.setIsAvailable(completed);
+                if (completed) {
+                    videoResolution.setVideoUrl(fileUploadService.buildPublicVideoUrl(movieId, filename));
+                    videoResolution.setPlaylistUrl(playlistUrl);
+                    videoResolution.setFileSizeBytes(fileSize);
+                }
+                videoResolutionRepository.save(videoResolution);
+            });
+            if (saved) {
+                log.info("Marked {} rendition of movie {} as {}", config.quality, movieId, status);
+            }
             
         } catch (Exception e) {
-            log.error("Error creating VideoResolution entity: {}", e.getMessage());
+            log.error("Error saving VideoResolution for movie {} quality {}: {}", movieId, config.quality, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a write of a transcoding run in one transaction with its fence check, so a run that
+     * was superseded or reclaimed meanwhile leaves its successor's rows alone. Returns whether
+     * the write happened.
+     */
+    private boolean writeFenced(TranscodingFence fence, Long movieId, Runnable write) {
+        Boolean written = transactionTemplate.execute(status -> {
+            if (!fence.isCurrent()) {
+                return false;
+            }
+            write.run();
+            return true;
+        });
+        if (!Boolean.TRUE.equals(written)) {
+            log.warn("Dropped a write to movie {}: its transcoding run was superseded or reclaimed", movieId);
+            return false;
         }
+        return true;
     }
 
     @Override
@@ -405,24 +1343,29 @@ public class FFmpegServiceImpl implements FFmpegService {
         }
     }
 
-    private void updateMovieAvailableQualities(Long movieId) {
+    private void updateMovieAvailableQualities(Long movieId, String masterPlaylistUrl, TranscodingFence fence) {
         try {
-            List<String> availableQualities = videoResolutionRepository.findAvailableQualitiesByMovieId(movieId);
-            if (!availableQualities.isEmpty()) {
-                Movie movie = movieRepository.findById(movieId).orElse(null);
-                if (movie != null) {
-                    movie.setAvailableQualities(availableQualities);
-                    movieRepository.save(movie);
-                    log.info("Updated available qualities for movie {}: {}", movieId, availableQualities);
+            writeFenced(fence, movieId, () -> {
+                List<String> availableQualities = videoResolutionRepository.findAvailableQualitiesByMovieId(movieId);
+                if (!availableQualities.isEmpty()) {
+                    Movie movie = movieRepository.findById(movieId).orElse(null);
+                    if (movie != null) {
+                        movie.setAvailableQualities(availableQualities);
+                        if (masterPlaylistUrl != null) {
+                            movie.setStreamingUrl(masterPlaylistUrl);
+                        }
+                        movieRepository.save(movie);
+                        log.info("Updated available qualities for movie {}: {}", movieId, availableQualities);
+                    }
                 }
-            }
+            });
         } catch (Exception e) {
             log.error("Error updating available qualities for movie {}: {}", movieId, e.getMessage());
         }
     }
 
     @Override
-    @Async
+    @Async(AsyncConfig.FFMPEG_EXECUTOR)
     public CompletableFuture<Void> processVideoAsync(Long movieId, Path inputVideoPath, String originalFileName) {
         return processVideoToMultipleResolutions(inputVideoPath, movieId, originalFileName)
                 .thenAccept(result -> {
@@ -434,6 +1377,260 @@ public class FFmpegServiceImpl implements FFmpegService {
                 });
     }
 
+    // Decoded frame shared by all rendition workers; the last worker to release it frees the native buffers
+    private static class SharedFrame {
+        static final SharedFrame END = new SharedFrame(null, 0);
+
+        final Frame frame;
+        private final AtomicInteger remaining;
+
+        SharedFrame(Frame frame, int consumers) {
+            this.frame = frame;
+            this.remaining = new AtomicInteger(consumers);
+        }
+
+        void release() {
+            if (remaining.decrementAndGet() == 0) {
+                frame.close();
+            }
+        }
+    }
+
+    // Encodes one quality from the shared decode; keeps draining its queue after a failure so the decoder never blocks
+    private class RenditionWorker implements Callable<ProcessedVideoInfo> {
+        final VideoQualityConfig config;
+        final Path outputPath;
+        final BlockingQueue<SharedFrame> queue;
+        private FFmpegFrameRecorder recorder;
+        private EncodingProgressService.Tracker progress;
+
+        RenditionWorker(VideoQualityConfig config, Path outputPath, int queueCapacity) {
+            this.config = config;
+            this.outputPath = outputPath;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void prepare(FFmpegFrameGrabber grabber, Long movieId, int encoderThreads) {
+            this.recorder = createRecorder(outputPath, config.width, config.height, config.bitrate, encoderThreads,
+                    grabber);
+            this.progress = encodingProgressService.track(movieId, config.quality, grabber.getLengthInTime());
+        }
+
+        @Override
+        public ProcessedVideoInfo call() throws Exception {
+            String failure = null;
+            int frameCount = 0;
+            try {
+                recorder.start();
+            } catch (Exception e) {
+                failure = e.getMessage();
+                log.error("Error starting {} encoder: {}", config.quality, failure);
+            }
+
+            while (true) {
+                SharedFrame item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    recorder.release();
+                    progress.finish(false);
+                    throw e;
+                }
+                if (item == SharedFrame.END) {
+                    break;
+                }
+                try {
+                    if (failure == null) {
+                        if (item.frame.image != null) {
+                            recorder.record(item.frame);
+                            progress.update(item.frame.timestamp, ++frameCount);
+                        } else {
+                            recorder.recordSamples(item.frame.samples);
+                        }
+                    }
+                } catch (Exception e) {
+                    failure = e.getMessage();
+                    log.error("Error encoding video to {} quality: {}", config.quality, failure);
+                } finally {
+                    item.release();
+                }
+            }
+
+            try {
+                recorder.stop();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e.getMessage();
+                }
+            } finally {
+                recorder.release();
+            }
+
+            progress.finish(failure == null);
+            if (failure != null) {
+                return failureInfo(config.quality, outputPath, config.width, config.height, config.bitrate, failure);
+            }
+            long fileSize = Files.size(outputPath);
+            TranscodingDTOs.EncodingProgress summary = progress.snapshot();
+            log.info("Successfully encoded {} quality: {} frames, {} bytes at {} fps ({}x realtime)",
+                    config.quality, frameCount, fileSize, summary.getFps(), summary.getSpeed());
+            return successInfo(config.quality, outputPath, config.width, config.height, config.bitrate, fileSize);
+        }
+    }
+
+    // Samples the shared decode every few seconds into sprite tiles; a failure only stops the thumbnails
+    private class TrickplayWorker implements Callable<Boolean> {
+        final TrickplayWriter writer;
+        final BlockingQueue<SharedFrame> queue;
+        private final Java2DFrameConverter converter = new Java2DFrameConverter();
+
+        TrickplayWorker(TrickplayWriter writer, int queueCapacity) {
+            this.writer = writer;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+            String failure = null;
+            long firstTimestamp = -1;
+            while (true) {
+                SharedFrame item = queue.take();
+                if (item == SharedFrame.END) {
+                    break;
+                }
+                try {
+                    if (failure == null) {
+                        if (firstTimestamp < 0) {
+                            firstTimestamp = item.frame.timestamp;
+                        }
+                        if (writer.wants(item.frame.timestamp - firstTimestamp)) {
+                            writer.add(converter.convert(item.frame));
+                        }
+                    }
+                } catch (Exception e) {
+                    failure = e.getMessage();
+                    log.warn("Error generating trickplay thumbnails: {}", failure);
+                } finally {
+                    item.release();
+                }
+            }
+            converter.close();
+            return failure == null;
+        }
+    }
+
+    private record EncodeChunk(int index, long start, long end) {
+    }
+
+    // Chunk boundaries are decoded-frame timestamps; firstTimestamp is the first frame's, the zero point for offsets
+    private record ChunkPlan(long firstTimestamp, boolean hasAudio, double frameRate, int parallelism,
+                             List<EncodeChunk> chunks) {
+    }
+
+    // Chunks finish out of order, so progress is reported as total frames encoded across all of them
+    private static class ChunkProgress {
+        final List<EncodingProgressService.Tracker> trackers;
+        final double frameRate;
+        private final AtomicLong frames = new AtomicLong();
+
+        ChunkProgress(List<EncodingProgressService.Tracker> trackers, double frameRate) {
+            this.trackers = trackers;
+            this.frameRate = frameRate > 0 ? frameRate : 25;
+        }
+
+        void frameEncoded() {
+            long total = frames.incrementAndGet();
+            long encodedMicros = (long) (total * 1_000_000L / frameRate);
+            for (EncodingProgressService.Tracker tracker : trackers) {
+                tracker.update(encodedMicros, total);
+            }
+        }
+    }
+
+    // Decodes one chunk of the source and encodes it, video only, to every quality
+    private class ChunkWorker implements Callable<Void> {
+        final Path source;
+        final Path chunkDir;
+        final EncodeChunk chunk;
+        final long firstTimestamp;
+        final List<VideoQualityConfig> configs;
+        final int encoderThreads;
+        final ChunkProgress progress;
+        final TrickplayWriter trickplay;
+        final Map<Long, BufferedImage> thumbnails;
+
+        ChunkWorker(Path source, Path chunkDir, EncodeChunk chunk, long firstTimestamp, List<VideoQualityConfig> configs,
+                    int encoderThreads, ChunkProgress progress, TrickplayWriter trickplay,
+                    Map<Long, BufferedImage> thumbnails) {
+            this.source = source;
+            this.chunkDir = chunkDir;
+            this.chunk = chunk;
+            this.firstTimestamp = firstTimestamp;
+            this.configs = configs;
+            this.encoderThreads = encoderThreads;
+            this.progress = progress;
+            this.trickplay = trickplay;
+            this.thumbnails = thumbnails;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            List<FFmpegFrameRecorder> recorders = new ArrayList<>();
+            try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(source.toFile());
+                 Java2DFrameConverter converter = new Java2DFrameConverter()) {
+                grabber.start();
+                if (chunk.index() > 0) {
+                    // Lands before the boundary whether or not the grabber offsets seeks by the start time
+                    grabber.setVideoTimestamp(Math.max(0, chunk.start() - firstTimestamp - CHUNK_SEEK_MARGIN_MICROS));
+                }
+                for (VideoQualityConfig config : configs) {
+                    FFmpegFrameRecorder recorder = createRecorder(chunkPath(chunkDir, config, chunk),
+                            config.width, config.height, config.bitrate, encoderThreads, grabber);
+                    recorder.setAudioChannels(0);
+                    recorders.add(recorder);
+                    recorder.start();
+                }
+
+                long intervalMicros = trickplay != null ? trickplay.getIntervalMicros() : 0;
+                long nextThumbnail = chunk.index() == 0 || trickplay == null
+                        ? 0
+                        : (chunk.start() - firstTimestamp + intervalMicros - 1) / intervalMicros;
+                Frame frame;
+                while ((frame = grabber.grabImage()) != null) {
+                    if (frame.timestamp < chunk.start()) {
+                        continue;
+                    }
+                    if (frame.timestamp >= chunk.end() || Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    for (FFmpegFrameRecorder recorder : recorders) {
+                        recorder.record(frame);
+                    }
+                    progress.frameEncoded();
+
+                    long offset = frame.timestamp - firstTimestamp;
+                    if (thumbnails != null && offset >= nextThumbnail * intervalMicros) {
+                        thumbnails.put(nextThumbnail,
+                                TrickplayWriter.downscale(converter.convert(frame), trickplay.getThumbnailWidth()));
+                        nextThumbnail = offset / intervalMicros + 1;
+                    }
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Chunk " + chunk.index() + " cancelled");
+                }
+                for (FFmpegFrameRecorder recorder : recorders) {
+                    recorder.stop();
+                }
+                grabber.stop();
+            } finally {
+                for (FFmpegFrameRecorder recorder : recorders) {
+                    recorder.release();
+                }
+            }
+            return null;
+        }
+    }
+
     // Helper class for video quality configuration
     private static class VideoQualityConfig {
         final String quality;
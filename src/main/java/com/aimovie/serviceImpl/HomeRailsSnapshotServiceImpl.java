@@ -0,0 +1,82 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.CategoryDTO;
+import com.aimovie.dto.MovieChangedEvent;
+import com.aimovie.service.HomeRailsSnapshotService;
+import com.aimovie.service.UserFeatureService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the anonymous home-page rails as one immutable, pre-serialized snapshot. It is rebuilt
+ * on a fixed schedule and shortly after any movie changes, so database load depends on the
+ * refresh rate rather than on traffic.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HomeRailsSnapshotServiceImpl implements HomeRailsSnapshotService {
+
+    private final UserFeatureService userFeatureService;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean catalogChanged = new AtomicBoolean();
+    private volatile HomeRailsSnapshot snapshot;
+
+    @Override
+    public HomeRailsSnapshot getSnapshot() {
+        HomeRailsSnapshot current = snapshot;
+        if (current == null) {
+            // Only reachable before the startup refresh has finished
+            refresh();
+            current = snapshot;
+            if (current == null) {
+                throw new RuntimeException("Home rails are not available yet");
+            }
+        }
+        return current;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        catalogChanged.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.home.rails.change-debounce-ms:2000}")
+    public void refreshIfCatalogChanged() {
+        if (catalogChanged.get()) {
+            refresh();
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.home.rails.refresh-interval-ms:60000}",
+            fixedDelayString = "${app.home.rails.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        // Cleared first so a change landing mid-build triggers another refresh
+        catalogChanged.set(false);
+        try {
+            List<CategoryDTO> rails = List.copyOf(userFeatureService.getCategories());
+            byte[] json = objectMapper.writeValueAsBytes(rails);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            snapshot = new HomeRailsSnapshot(rails, json, etag, LocalDateTime.now());
+            log.debug("Home rails snapshot refreshed ({} bytes, etag {})", json.length, etag);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Keep serving the previous snapshot; the next scheduled run retries
+            log.error("Failed to refresh home rails snapshot", e);
+        }
+    }
+}
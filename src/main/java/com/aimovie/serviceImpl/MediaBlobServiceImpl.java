@@ -0,0 +1,84 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.entity.MediaBlob;
+import com.aimovie.repository.MediaBlobRepository;
+import com.aimovie.service.MediaBlobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MediaBlobServiceImpl implements MediaBlobService {
+
+    private final MediaBlobRepository mediaBlobRepository;
+
+    @Override
+    @Transactional
+    public Optional<String> acquire(MediaBlob.Kind kind, String sha256) {
+        // The row lock taken by the increment holds off a concurrent release until commit
+        if (mediaBlobRepository.incrementRefCount(kind, sha256) == 0) {
+            return Optional.empty();
+        }
+        return mediaBlobRepository.findByKindAndSha256(kind, sha256).map(MediaBlob::getFilename);
+    }
+
+    @Override
+    @Transactional
+    public String register(MediaBlob.Kind kind, String sha256, String filename, long sizeBytes) {
+        mediaBlobRepository.insertOrReference(kind.name(), sha256, filename, sizeBytes);
+        return mediaBlobRepository.findByKindAndSha256(kind, sha256)
+                .map(MediaBlob::getFilename)
+                .orElseThrow(() -> new IllegalStateException("Media blob " + sha256 + " vanished after registration"));
+    }
+
+    @Override
+    @Transactional
+    public boolean release(MediaBlob.Kind kind, String filename) {
+        MediaBlob blob = mediaBlobRepository.lockByKindAndFilename(kind, filename).orElse(null);
+        if (blob == null) {
+            return true;
+        }
+        if (blob.getRefCount() > 1) {
+            blob.setRefCount(blob.getRefCount() - 1);
+            log.info("{} {} still has {} references; keeping it", kind, filename, blob.getRefCount());
+            return false;
+        }
+        mediaBlobRepository.delete(blob);
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> findSha256(MediaBlob.Kind kind, String filename) {
+        if (filename == null || filename.isBlank()) {
+            return Optional.empty();
+        }
+        return mediaBlobRepository.findFirstByKindAndFilename(kind, filename).map(MediaBlob::getSha256);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findReferencedSince(MediaBlob.Kind kind, LocalDateTime since) {
+        return new HashSet<>(mediaBlobRepository.findFilenamesUpdatedSince(kind, since));
+    }
+
+    @Override
+    @Transactional
+    public Set<String> forget(MediaBlob.Kind kind, Collection<String> filenames, LocalDateTime cutoff) {
+        if (filenames.isEmpty()) {
+            return Set.of();
+        }
+        // An acquire in flight holds the row lock, so the delete waits and then sees its fresh timestamp
+        mediaBlobRepository.deleteUntouchedSince(kind, filenames, cutoff);
+        return new HashSet<>(mediaBlobRepository.findFilenamesIn(kind, filenames));
+    }
+}
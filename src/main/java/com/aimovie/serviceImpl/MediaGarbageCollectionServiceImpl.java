@@ -0,0 +1,469 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.MediaGarbageCollectionDTOs;
+import com.aimovie.entity.MediaBlob;
+import com.aimovie.repository.MediaReferenceRepository;
+import com.aimovie.service.FileUploadService;
+import com.aimovie.service.MediaBlobService;
+import com.aimovie.service.MediaGarbageCollectionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Mark-and-sweep collector for stored media. The mark phase reads every URL column that points
+ * at uploads, the movies that own rendition folders and the files in use by queued jobs and
+ * open uploads. The sweep then streams the local upload directories and the bucket folders and
+ * deletes, in batches, whatever is unreferenced and older than the grace period. Anything
+ * created after the mark phase is younger than the grace period, so concurrent uploads are safe.
+ *
+ * Runs in dry-run mode by default: orphans are only counted and sampled in the report until
+ * {@code app.storage.gc.dry-run} is turned off.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MediaGarbageCollectionServiceImpl implements MediaGarbageCollectionService {
+
+    private static final int SAMPLE_LIMIT = 100;
+    // DeleteObjects accepts at most this many keys per request
+    private static final int MAX_CLOUD_BATCH = 1000;
+    private static final String UPLOAD_PART_SUFFIX = ".part";
+
+    private final MediaReferenceRepository mediaReferenceRepository;
+    private final MediaBlobService mediaBlobService;
+    private final FileUploadService fileUploadService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalDeletedObjects = new AtomicLong();
+    private final AtomicLong totalDeletedBytes = new AtomicLong();
+    private final AtomicLong totalFailedDeletes = new AtomicLong();
+    private volatile MediaGarbageCollectionDTOs.RunReport lastRun;
+    private ExecutorService collectorThread;
+
+    @Value("${app.storage.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.storage.gc.dry-run:true}")
+    private boolean dryRun;
+
+    @Value("${app.storage.gc.grace-period-hours:48}")
+    private long gracePeriodHours;
+
+    @Value("${app.storage.gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.upload.dir}")
+    private String uploadDir;
+
+    @Value("${app.upload.image.dir}")
+    private String imageUploadDir;
+
+    @Value("${app.upload.subtitle.dir}")
+    private String subtitleUploadDir;
+
+    @Value("${app.video.temp-dir:uploads/temp}")
+    private String tempDir;
+
+    @PostConstruct
+    void startCollectorThread() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("MediaGc-");
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        threadFactory.setDaemon(true);
+        collectorThread = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        collectorThread.shutdownNow();
+    }
+
+    // A sweep of a large bucket takes a while; run it off the shared scheduler thread so job polling and heartbeats keep going
+    @Scheduled(initialDelayString = "${app.storage.gc.initial-delay-ms:600000}",
+            fixedDelayString = "${app.storage.gc.interval-ms:21600000}")
+    public void scheduledCollect() {
+        if (enabled && !startCollection(dryRun)) {
+            log.info("Media garbage collection already running; skipping");
+        }
+    }
+
+    @Override
+    public boolean startCollection(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            collectorThread.execute(() -> collect(dryRun));
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    // Runs on the collector thread; the caller has already set the running flag
+    private void collect(boolean dryRun) {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(Math.max(0, gracePeriodHours)));
+        Sweep sweep = new Sweep(dryRun, cutoff);
+        try {
+            MediaReferences references = mark(cutoff);
+            sweepLocal(sweep, references);
+            if (fileUploadService.isCloudStorageEnabled()) {
+                sweepCloud(sweep, references);
+            }
+        } catch (Exception e) {
+            log.error("Media garbage collection failed", e);
+            sweep.error = e.getMessage();
+        } finally {
+            running.set(false);
+        }
+
+        MediaGarbageCollectionDTOs.RunReport report = sweep.toReport();
+        runs.incrementAndGet();
+        totalDeletedObjects.addAndGet(report.getDeletedObjects());
+        totalDeletedBytes.addAndGet(report.getDeletedBytes());
+        totalFailedDeletes.addAndGet(report.getFailedDeletes());
+        lastRun = report;
+        log.info("Media garbage collection{} scanned {} objects: {} orphaned ({} bytes), {} within the grace period, "
+                        + "{} deleted ({} bytes), {} failed in {} ms",
+                dryRun ? " (dry run)" : "", report.getScannedObjects(), report.getOrphanedObjects(),
+                report.getOrphanedBytes(), report.getWithinGracePeriod(), report.getDeletedObjects(),
+                report.getDeletedBytes(), report.getFailedDeletes(), report.getDurationMs());
+    }
+
+    @Override
+    public MediaGarbageCollectionDTOs.CollectorStats getStats() {
+        return MediaGarbageCollectionDTOs.CollectorStats.builder()
+                .enabled(enabled)
+                .dryRun(dryRun)
+                .gracePeriodHours(gracePeriodHours)
+                .running(running.get())
+                .runs(runs.get())
+                .totalDeletedObjects(totalDeletedObjects.get())
+                .totalDeletedBytes(totalDeletedBytes.get())
+                .totalFailedDeletes(totalFailedDeletes.get())
+                .lastRun(lastRun)
+                .build();
+    }
+
+    private MediaReferences mark(Instant cutoff) {
+        Set<String> videoFiles = new HashSet<>();
+        Set<String> imageFiles = new HashSet<>();
+        Set<String> subtitleFiles = new HashSet<>();
+        mediaReferenceRepository.forEachVideoUrl(url -> videoFiles.add(MediaReferences.filenameOf(url)));
+        mediaReferenceRepository.forEachImageUrl(url -> imageFiles.add(MediaReferences.filenameOf(url)));
+        mediaReferenceRepository.forEachSubtitleUrl(url -> subtitleFiles.add(MediaReferences.filenameOf(url)));
+
+        Set<String> activeFiles = new HashSet<>();
+        for (String sourcePath : mediaReferenceRepository.findActiveJobSourcePaths()) {
+            Path fileName = Paths.get(sourcePath).getFileName();
+            if (fileName != null) {
+                activeFiles.add(fileName.toString());
+            }
+        }
+        for (String storedFilename : mediaReferenceRepository.findActiveUploadFilenames()) {
+            activeFiles.add(storedFilename);
+            activeFiles.add(storedFilename + UPLOAD_PART_SUFFIX);
+        }
+        // Uploads indexed within the grace period may not be saved on their record yet
+        LocalDateTime since = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        activeFiles.addAll(mediaBlobService.findReferencedSince(MediaBlob.Kind.VIDEO, since));
+        activeFiles.addAll(mediaBlobService.findReferencedSince(MediaBlob.Kind.IMAGE, since));
+
+        return new MediaReferences(videoFiles, imageFiles, subtitleFiles,
+                mediaReferenceRepository.findMovieIds(), mediaReferenceRepository.findActiveJobMovieIds(), activeFiles);
+    }
+
+    private void sweepLocal(Sweep sweep, MediaReferences references) throws IOException {
+        Map<MediaReferences.Area, Path> roots = new LinkedHashMap<>();
+        roots.put(MediaReferences.Area.VIDEO, Paths.get(uploadDir).toAbsolutePath().normalize());
+        roots.put(MediaReferences.Area.IMAGE, Paths.get(imageUploadDir).toAbsolutePath().normalize());
+        roots.put(MediaReferences.Area.SUBTITLE, Paths.get(subtitleUploadDir).toAbsolutePath().normalize());
+        roots.put(MediaReferences.Area.TEMP, Paths.get(tempDir).toAbsolutePath().normalize());
+        if (new HashSet<>(roots.values()).size() < roots.size()) {
+            // Files of one kind would be judged by the rules of another
+            log.warn("Upload directories are not distinct ({}); skipping the local sweep", roots.values());
+            return;
+        }
+
+        for (Map.Entry<MediaReferences.Area, Path> root : roots.entrySet()) {
+            if (Files.isDirectory(root.getValue())) {
+                sweepDirectory(sweep, references, root.getKey(), root.getValue());
+            }
+        }
+    }
+
+    private void sweepDirectory(Sweep sweep, MediaReferences references, MediaReferences.Area area, Path root) throws IOException {
+        String location = "local:" + areaName(area);
+        List<Orphan> batch = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            Iterator<Path> iterator = paths.iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // Removed while we were listing
+                    continue;
+                }
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                String relative = root.relativize(path).toString().replace('\\', '/');
+                Orphan orphan = new Orphan(relative, path, null, attributes.size());
+                if (sweep.visit(location, area, references, orphan, attributes.lastModifiedTime().toInstant())) {
+                    batch.add(orphan);
+                    if (batch.size() >= Math.max(1, batchSize)) {
+                        deleteLocal(sweep, location, area, batch);
+                        batch.clear();
+                    }
+                }
+            }
+        }
+        deleteLocal(sweep, location, area, batch);
+        if (!sweep.dryRun) {
+            pruneEmptyDirectories(root, sweep.cutoff);
+        }
+    }
+
+    private void deleteLocal(Sweep sweep, String location, MediaReferences.Area area, List<Orphan> batch) {
+        if (batch.isEmpty() || sweep.dryRun) {
+            return;
+        }
+        Set<String> kept = forgetIndexed(sweep, area, batch);
+        for (Orphan orphan : batch) {
+            if (kept.contains(orphan.name())) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(orphan.path());
+                sweep.deleted(location, orphan.size());
+            } catch (IOException e) {
+                log.warn("Could not delete orphaned file {}: {}", orphan.path(), e.getMessage());
+                sweep.failedDeletes++;
+            }
+        }
+    }
+
+    // Deepest first, so a folder emptied by removing its subfolders goes too
+    private void pruneEmptyDirectories(Path root, Instant cutoff) throws IOException {
+        List<Path> directories;
+        try (Stream<Path> paths = Files.walk(root)) {
+            directories = paths.filter(Files::isDirectory)
+                    .filter(path -> !path.equals(root))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+        for (Path directory : directories) {
+            try (Stream<Path> entries = Files.list(directory)) {
+                // A fresh folder may be about to receive an encoder's output
+                if (entries.findAny().isEmpty() && Files.getLastModifiedTime(directory).toInstant().isBefore(cutoff)) {
+                    Files.delete(directory);
+                }
+            } catch (IOException e) {
+                log.debug("Could not prune directory {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+
+    private void sweepCloud(Sweep sweep, MediaReferences references) throws IOException {
+        Map<MediaReferences.Area, String> folders = new LinkedHashMap<>();
+        folders.put(MediaReferences.Area.VIDEO, fileUploadService.getCloudVideoFolder());
+        folders.put(MediaReferences.Area.IMAGE, fileUploadService.getCloudImageFolder());
+        folders.put(MediaReferences.Area.SUBTITLE, fileUploadService.getCloudSubtitleFolder());
+        if (folders.values().stream().anyMatch(String::isEmpty) || new HashSet<>(folders.values()).size() < folders.size()) {
+            // Without a folder per kind, listing one would return the others' objects too
+            log.warn("Cloud storage folders are not distinct and non-empty ({}); skipping the cloud sweep", folders.values());
+            return;
+        }
+
+        for (Map.Entry<MediaReferences.Area, String> folder : folders.entrySet()) {
+            MediaReferences.Area area = folder.getKey();
+            String prefix = folder.getValue();
+            String location = "cloud:" + areaName(area);
+            List<Orphan> batch = new ArrayList<>();
+            int cloudBatchSize = Math.max(1, Math.min(batchSize, MAX_CLOUD_BATCH));
+            fileUploadService.forEachCloudObject(prefix, object -> {
+                if (object.key().endsWith("/")) {
+                    return;
+                }
+                Orphan orphan = new Orphan(object.key().substring(prefix.length()), null, object.key(), object.sizeBytes());
+                Instant lastModified = object.lastModified() != null ? object.lastModified() : Instant.now();
+                if (sweep.visit(location, area, references, orphan, lastModified)) {
+                    batch.add(orphan);
+                    if (batch.size() >= cloudBatchSize) {
+                        deleteCloud(sweep, location, area, batch);
+                        batch.clear();
+                    }
+                }
+            });
+            deleteCloud(sweep, location, area, batch);
+        }
+    }
+
+    private void deleteCloud(Sweep sweep, String location, MediaReferences.Area area, List<Orphan> batch) {
+        if (batch.isEmpty() || sweep.dryRun) {
+            return;
+        }
+        Set<String> kept = forgetIndexed(sweep, area, batch);
+        List<Orphan> doomed = batch.stream().filter(orphan -> !kept.contains(orphan.name())).toList();
+        try {
+            Set<String> failed = new HashSet<>(fileUploadService.deleteCloudObjects(
+                    doomed.stream().map(Orphan::key).toList()));
+            for (Orphan orphan : doomed) {
+                if (failed.contains(orphan.key())) {
+                    sweep.failedDeletes++;
+                } else {
+                    sweep.deleted(location, orphan.size());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete a batch of {} orphaned objects from {}: {}", doomed.size(), location, e.getMessage());
+            sweep.failedDeletes += doomed.size();
+        }
+    }
+
+    /**
+     * Drops the dedup index entries of top-level uploads about to be deleted, so a later upload
+     * of the same bytes is stored again instead of pointing at a missing file. Returns the names
+     * an upload took a reference on in the meantime; those are kept.
+     */
+    private Set<String> forgetIndexed(Sweep sweep, MediaReferences.Area area, List<Orphan> batch) {
+        MediaBlob.Kind kind = switch (area) {
+            case VIDEO -> MediaBlob.Kind.VIDEO;
+            case IMAGE -> MediaBlob.Kind.IMAGE;
+            default -> null;
+        };
+        if (kind == null) {
+            return Set.of();
+        }
+        List<String> names = batch.stream().map(Orphan::name).filter(name -> name.indexOf('/') < 0).toList();
+        return mediaBlobService.forget(kind, names, LocalDateTime.ofInstant(sweep.cutoff, ZoneId.systemDefault()));
+    }
+
+    private static String areaName(MediaReferences.Area area) {
+        return switch (area) {
+            case VIDEO -> "videos";
+            case IMAGE -> "images";
+            case SUBTITLE -> "subtitles";
+            case TEMP -> "temp";
+        };
+    }
+
+    // A stored file or bucket object: its path relative to the area, plus where to delete it
+    private record Orphan(String name, Path path, String key, long size) {
+    }
+
+    private static final class Sweep {
+
+        private final boolean dryRun;
+        private final Instant cutoff;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final Map<String, MediaGarbageCollectionDTOs.AreaStats> areas = new LinkedHashMap<>();
+        private final List<String> sampleOrphans = new ArrayList<>();
+        private long scannedObjects;
+        private long scannedBytes;
+        private long orphanedObjects;
+        private long orphanedBytes;
+        private long withinGracePeriod;
+        private long deletedObjects;
+        private long deletedBytes;
+        private long failedDeletes;
+        private String error;
+
+        private Sweep(boolean dryRun, Instant cutoff) {
+            this.dryRun = dryRun;
+            this.cutoff = cutoff;
+        }
+
+        // Counts the object and returns whether it is an orphan old enough to delete
+        private boolean visit(String location, MediaReferences.Area area, MediaReferences references,
+                              Orphan object, Instant lastModified) {
+            MediaGarbageCollectionDTOs.AreaStats stats = area(location);
+            scannedObjects++;
+            scannedBytes += object.size();
+            stats.setScannedObjects(stats.getScannedObjects() + 1);
+            if (references.isReferenced(area, object.name())) {
+                return false;
+            }
+            if (!lastModified.isBefore(cutoff)) {
+                withinGracePeriod++;
+                return false;
+            }
+            orphanedObjects++;
+            orphanedBytes += object.size();
+            stats.setOrphanedObjects(stats.getOrphanedObjects() + 1);
+            stats.setOrphanedBytes(stats.getOrphanedBytes() + object.size());
+            if (sampleOrphans.size() < SAMPLE_LIMIT) {
+                sampleOrphans.add(location + "/" + object.name());
+            }
+            if (dryRun) {
+                log.debug("Orphaned {}/{} ({} bytes) would be deleted", location, object.name(), object.size());
+            }
+            return true;
+        }
+
+        private void deleted(String location, long size) {
+            MediaGarbageCollectionDTOs.AreaStats stats = area(location);
+            deletedObjects++;
+            deletedBytes += size;
+            stats.setDeletedObjects(stats.getDeletedObjects() + 1);
+            stats.setDeletedBytes(stats.getDeletedBytes() + size);
+        }
+
+        private MediaGarbageCollectionDTOs.AreaStats area(String location) {
+            return areas.computeIfAbsent(location, l -> new MediaGarbageCollectionDTOs.AreaStats());
+        }
+
+        private MediaGarbageCollectionDTOs.RunReport toReport() {
+            return MediaGarbageCollectionDTOs.RunReport.builder()
+                    .startedAt(startedAt)
+                    .durationMs((System.nanoTime() - startNanos) / 1_000_000)
+                    .dryRun(dryRun)
+                    .scannedObjects(scannedObjects)
+                    .scannedBytes(scannedBytes)
+                    .orphanedObjects(orphanedObjects)
+                    .orphanedBytes(orphanedBytes)
+                    .withinGracePeriod(withinGracePeriod)
+                    .deletedObjects(deletedObjects)
+                    .deletedBytes(deletedBytes)
+                    .failedDeletes(failedDeletes)
+                    .areas(areas)
+                    .sampleOrphans(sampleOrphans)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.aimovie.serviceImpl;
+
+import java.util.Set;
+
+/**
+ * The mark set of the orphaned media collector: which stored files something still points at.
+ * Paths are relative to a storage area (a local upload directory or a bucket folder) with
+ * {@code /} separators. Anything laid out in a way the collector does not recognise counts as
+ * referenced, so an unexpected file is left alone rather than deleted.
+ */
+final class MediaReferences {
+
+    enum Area {
+        VIDEO,
+        IMAGE,
+        SUBTITLE,
+        // Local scratch space: FFmpeg output for cloud uploads and temp copies queued for transcoding
+        TEMP
+    }
+
+    static final String FFMPEG_TEMP_DIR = "ffmpeg";
+    static final String CHUNK_DIR = "chunks";
+
+    private final Set<String> videoFiles;
+    private final Set<String> imageFiles;
+    private final Set<String> subtitleFiles;
+    private final Set<Long> movieIds;
+    private final Set<Long> activeMovieIds;
+    private final Set<String> activeFiles;
+
+    /**
+     * @param activeFiles    filenames in use outside the URL columns: sources of queued or running
+     *                       jobs, files of active upload sessions, recently indexed uploads
+     * @param activeMovieIds movies with a queued or running transcoding job
+     */
+    MediaReferences(Set<String> videoFiles, Set<String> imageFiles, Set<String> subtitleFiles,
+                    Set<Long> movieIds, Set<Long> activeMovieIds, Set<String> activeFiles) {
+        this.videoFiles = videoFiles;
+        this.imageFiles = imageFiles;
+        this.subtitleFiles = subtitleFiles;
+        this.movieIds = movieIds;
+        this.activeMovieIds = activeMovieIds;
+        this.activeFiles = activeFiles;
+    }
+
+    boolean isReferenced(Area area, String path) {
+        int slash = path.indexOf('/');
+        String first = slash < 0 ? path : path.substring(0, slash);
+        if (slash < 0 && activeFiles.contains(path)) {
+            return true;
+        }
+        return switch (area) {
+            case VIDEO -> slash < 0 ? videoFiles.contains(path) : isMovieFolderReferenced(first, path.substring(slash + 1));
+            case IMAGE -> slash >= 0 || imageFiles.contains(path);
+            case SUBTITLE -> slash >= 0 || subtitleFiles.contains(path);
+            case TEMP -> isTempReferenced(first, slash < 0 ? "" : path.substring(slash + 1));
+        };
+    }
+
+    // {movieId}/... holds the movie's renditions, HLS packages and trickplay sprites
+    private boolean isMovieFolderReferenced(String folder, String rest) {
+        Long movieId = parseId(folder);
+        if (movieId == null || activeMovieIds.contains(movieId)) {
+            return true;
+        }
+        if (!movieIds.contains(movieId)) {
+            return false;
+        }
+        // Chunk encodes are removed when the stitch finishes; leftovers come from an interrupted job
+        return !rest.startsWith(CHUNK_DIR + "/");
+    }
+
+    private boolean isTempReferenced(String first, String rest) {
+        if (rest.isEmpty()) {
+            // A temp copy queued for transcoding is in activeFiles; any other one was abandoned
+            return false;
+        }
+        if (!FFMPEG_TEMP_DIR.equals(first)) {
+            return true;
+        }
+        int slash = rest.indexOf('/');
+        Long movieId = parseId(slash < 0 ? rest : rest.substring(0, slash));
+        return movieId == null || activeMovieIds.contains(movieId);
+    }
+
+    /**
+     * The stored filename a URL points at: its last path segment, without query or fragment.
+     * Works for API paths, CDN URLs and bare filenames alike.
+     */
+    static String filenameOf(String url) {
+        String path = url.trim();
+        int end = path.length();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = path.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        path = path.substring(0, end);
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static Long parseId(String segment) {
+        if (segment.isEmpty() || segment.length() > 18) {
+            return null;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return null;
+            }
+        }
+        return Long.parseLong(segment);
+    }
+}
@@ -0,0 +1,716 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.MovieChangedEvent;
+import com.aimovie.dto.SearchFacetsDTO;
+import com.aimovie.dto.SearchRequest;
+import com.aimovie.entity.Category;
+import com.aimovie.entity.Movie;
+import com.aimovie.repository.MovieRepository;
+import com.aimovie.service.MovieSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over the movie catalog. Every movie gets a dense ordinal; exact-value
+ * filters (actor, director, country, language, age rating, year) are BitSets over those ordinals
+ * and free-text terms carry field-weighted frequencies for BM25 scoring, so a search is a handful
+ * of bitset intersections plus a walk over the postings of the query terms. The same bitsets give
+ * facet counts for a result set by popcount.
+ *
+ * The same catalog snapshot feeds a {@link SuggestionTrie} of titles, actors, directors and
+ * categories weighted by view count, used for autocomplete. Only movies search would show
+ * without a query (released and available) contribute suggestions; a release date passing is
+ * picked up by the next full rebuild.
+ *
+ * The index is built at startup, refreshed per movie shortly after a Movie row commits (see
+ * {@link com.aimovie.entity.MovieChangeListener}) and fully rebuilt periodically to pick up bulk
+ * JPQL updates such as rating and view counters, which bypass entity callbacks.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieSearchIndexImpl implements MovieSearchIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Per-field weights applied to term frequencies
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float PEOPLE_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float TEXT_WEIGHT = 1.0f;
+
+    // The last query token is also matched as a prefix (search-as-you-type), at a discount
+    private static final double PREFIX_MATCH_FACTOR = 0.5;
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Values returned per facet alongside a search; decades and rating buckets are always complete
+    private static final int FACET_VALUE_LIMIT = 20;
+    private static final String UNRATED_BUCKET = "unrated";
+
+    private final MovieRepository movieRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> changedMovieIds = ConcurrentHashMap.newKeySet();
+
+    // Guarded by lock
+    private IndexData index = new IndexData();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        changedMovieIds.add(event.movieId());
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.search.index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.search.index.rebuild-interval-ms:600000}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        IndexData rebuilt = new IndexData();
+        rebuilt.suggestions.deferRanking();
+        for (Movie movie : movieRepository.findAll()) {
+            rebuilt.put(MovieDocument.from(movie));
+        }
+        rebuilt.suggestions.rankAll();
+
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index rebuilt with {} movies in {} ms", rebuilt.ordinals.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.search.index.refresh-interval-ms:1000}")
+    @Transactional(readOnly = true)
+    public synchronized void applyPendingChanges() {
+        if (changedMovieIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> movieIds = new ArrayList<>(changedMovieIds);
+        changedMovieIds.removeAll(movieIds);
+
+        Map<Long, MovieDocument> documents = new HashMap<>();
+        try {
+            for (Movie movie : movieRepository.findByIdIn(movieIds)) {
+                documents.put(movie.getId(), MovieDocument.from(movie));
+            }
+        } catch (RuntimeException e) {
+            changedMovieIds.addAll(movieIds);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Long movieId : movieIds) {
+                MovieDocument document = documents.get(movieId);
+                if (document != null) {
+                    index.put(document);
+                } else {
+                    index.remove(movieId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Refreshed {} movies in the search index", movieIds.size());
+    }
+
+    @Override
+    public SearchHits search(SearchRequest request) {
+        int size = request.getSize() != null && request.getSize() > 0 ? Math.min(request.getSize(), MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+        int page = request.getPage() != null && request.getPage() > 0 ? request.getPage() : 0;
+        List<String> queryTerms = SearchTextNormalizer.tokenize(request.getQuery());
+        boolean browseOnly = queryTerms.isEmpty() && !hasFilters(request);
+        LocalDate today = LocalDate.now();
+
+        lock.readLock().lock();
+        try {
+            IndexData data = index;
+            BitSet candidates = data.matchFilters(request);
+            Map<Integer, Double> scores = queryTerms.isEmpty() ? Map.of() : data.score(queryTerms, candidates);
+
+            List<Integer> matches = new ArrayList<>();
+            for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+                MovieDocument document = data.documents.get(ordinal);
+                if (document.isReleasedBy(today)
+                        && document.isRatedWithin(request.getMinRating(), request.getMaxRating())
+                        && (!browseOnly || document.available())) {
+                    matches.add(ordinal);
+                } else {
+                    candidates.clear(ordinal);
+                }
+            }
+            // candidates is now exactly the result set, which is what the facets count against
+            SearchFacetsDTO facets = Boolean.FALSE.equals(request.getIncludeFacets())
+                    ? null
+                    : data.facets(candidates, FACET_VALUE_LIMIT);
+            matches.sort(comparator(request, data, scores, !queryTerms.isEmpty()));
+
+            int from = (int) Math.min((long) page * size, matches.size());
+            int to = Math.min(from + size, matches.size());
+            List<Long> movieIds = matches.subList(from, to).stream()
+                    .map(ordinal -> data.documents.get(ordinal).movieId())
+                    .toList();
+            return new SearchHits(movieIds, matches.size(), page, size, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        int boundedLimit = Math.min(limit, SuggestionTrie.MAX_SUGGESTIONS);
+        lock.readLock().lock();
+        try {
+            return index.suggestions.complete(prefix, boundedLimit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> topFacetValues(Facet facet, int limit) {
+        lock.readLock().lock();
+        try {
+            IndexData data = index;
+            return data.field(facet).count(data.live, limit, new BitSet()).stream()
+                    .map(SearchFacetsDTO.FacetCount::getValue)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean hasFilters(SearchRequest request) {
+        return (request.getActors() != null && !request.getActors().isEmpty())
+                || (request.getDirectors() != null && !request.getDirectors().isEmpty())
+                || (request.getCategories() != null && !request.getCategories().isEmpty())
+                || request.getYearFrom() != null || request.getYearTo() != null
+                || !SearchTextNormalizer.fold(request.getCountry()).isEmpty()
+                || !SearchTextNormalizer.fold(request.getLanguage()).isEmpty()
+                || !SearchTextNormalizer.fold(request.getAgeRating()).isEmpty()
+                || request.getMinRating() != null || request.getMaxRating() != null;
+    }
+
+    private Comparator<Integer> comparator(SearchRequest request, IndexData data, Map<Integer, Double> scores, boolean hasQuery) {
+        String sortBy = request.getSortBy() != null ? request.getSortBy().toLowerCase(Locale.ROOT) : "";
+        Comparator<MovieDocument> order = switch (sortBy) {
+            case "title" -> Comparator.comparing(MovieDocument::sortTitle);
+            case "year" -> Comparator.comparing(MovieDocument::year, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "rating", "averagerating" -> Comparator.comparingDouble(MovieDocument::averageRating);
+            case "views", "viewcount", "popularity" -> Comparator.comparingLong(MovieDocument::viewCount);
+            case "releasedate" -> Comparator.comparing(MovieDocument::releaseDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "createdat", "newest" -> Comparator.comparing(MovieDocument::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default -> null;
+        };
+
+        if (order == null) {
+            // Relevance when there is a query, most viewed first otherwise
+            Comparator<Integer> byDefault = hasQuery
+                    ? Comparator.comparingDouble((Integer ordinal) -> scores.getOrDefault(ordinal, 0.0)).reversed()
+                    : Comparator.comparingLong((Integer ordinal) -> data.documents.get(ordinal).viewCount()).reversed();
+            return byDefault.thenComparing(ordinal -> data.documents.get(ordinal).movieId());
+        }
+
+        String direction = request.getSortDirection() != null ? request.getSortDirection() : request.getSortOrder();
+        boolean descending = direction != null ? "desc".equalsIgnoreCase(direction) : !"title".equals(sortBy);
+        if (descending) {
+            order = order.reversed();
+        }
+        Comparator<MovieDocument> withTieBreak = order.thenComparing(MovieDocument::movieId);
+        return Comparator.comparing(data.documents::get, withTieBreak);
+    }
+
+    private static final class IndexData {
+
+        private final List<MovieDocument> documents = new ArrayList<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final BitSet live = new BitSet();
+        private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+        // Searched by partial name, so they also index where each word of a name starts
+        private final FacetField actors = new FacetField(true);
+        private final FacetField directors = new FacetField(true);
+        private final FacetField countries = new FacetField(false);
+        private final FacetField languages = new FacetField(false);
+        private final FacetField ageRatings = new FacetField(false);
+        private final FacetField categories = new FacetField(false);
+        private final FacetField ratingBuckets = new FacetField(false);
+        private final NavigableMap<Integer, BitSet> years = new TreeMap<>();
+        private final SuggestionTrie suggestions = new SuggestionTrie();
+        private double totalLength;
+
+        void put(MovieDocument document) {
+            Integer ordinal = ordinals.get(document.movieId());
+            if (ordinal != null) {
+                // Updates keep their ordinal so frequent saves do not grow the bitsets
+                unindex(ordinal, documents.get(ordinal));
+                documents.set(ordinal, document);
+            } else {
+                ordinal = documents.size();
+                documents.add(document);
+                ordinals.put(document.movieId(), ordinal);
+            }
+            index(ordinal, document);
+        }
+
+        void remove(Long movieId) {
+            Integer ordinal = ordinals.remove(movieId);
+            if (ordinal != null) {
+                unindex(ordinal, documents.get(ordinal));
+                // The slot stays empty until the next full rebuild compacts ordinals
+                documents.set(ordinal, null);
+            }
+        }
+
+        private void index(int ordinal, MovieDocument document) {
+            live.set(ordinal);
+            totalLength += document.length();
+            document.termWeights().forEach((term, weight) ->
+                    postings.computeIfAbsent(term, key -> new HashMap<>()).put(ordinal, weight));
+            document.actorNames().forEach(actor -> actors.set(actor, ordinal));
+            directors.set(document.directorName(), ordinal);
+            countries.set(document.countryName(), ordinal);
+            languages.set(document.language(), ordinal);
+            ageRatings.set(document.ageRating(), ordinal);
+            document.categoryNames().forEach(category -> categories.set(category, ordinal));
+            ratingBuckets.set(document.ratingBucket(), ordinal);
+            if (document.year() != null) {
+                years.computeIfAbsent(document.year(), key -> new BitSet()).set(ordinal);
+            }
+            document.suggestionTexts().forEach(text -> suggestions.add(text, document.suggestionWeight()));
+        }
+
+        private void unindex(int ordinal, MovieDocument document) {
+            live.clear(ordinal);
+            totalLength -= document.length();
+            for (String term : document.termWeights().keySet()) {
+                Map<Integer, Float> termPostings = postings.get(term);
+                if (termPostings != null) {
+                    termPostings.remove(ordinal);
+                    if (termPostings.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            document.actorNames().forEach(actor -> actors.clear(actor, ordinal));
+            directors.clear(document.directorName(), ordinal);
+            countries.clear(document.countryName(), ordinal);
+            languages.clear(document.language(), ordinal);
+            ageRatings.clear(document.ageRating(), ordinal);
+            document.categoryNames().forEach(category -> categories.clear(category, ordinal));
+            ratingBuckets.clear(document.ratingBucket(), ordinal);
+            if (document.year() != null) {
+                BitSet bits = years.get(document.year());
+                if (bits != null) {
+                    bits.clear(ordinal);
+                    if (bits.isEmpty()) {
+                        years.remove(document.year());
+                    }
+                }
+            }
+            document.suggestionTexts().forEach(text -> suggestions.remove(text, document.suggestionWeight()));
+        }
+
+        BitSet matchFilters(SearchRequest request) {
+            BitSet candidates = (BitSet) live.clone();
+
+            // Every listed actor must appear in the movie
+            if (request.getActors() != null) {
+                for (String actor : request.getActors()) {
+                    String key = SearchTextNormalizer.fold(actor);
+                    if (!key.isEmpty()) {
+                        candidates.and(actors.unionWordPrefix(List.of(key)));
+                    }
+                }
+            }
+
+            // A movie has one director, so any of the listed directors matches
+            List<String> directorKeys = foldAll(request.getDirectors());
+            if (!directorKeys.isEmpty()) {
+                candidates.and(directors.unionWordPrefix(directorKeys));
+            }
+
+            // Categories behave like a sidebar multi-select: any of them matches
+            List<String> categoryKeys = foldAll(request.getCategories());
+            if (!categoryKeys.isEmpty()) {
+                candidates.and(categories.unionExact(categoryKeys));
+            }
+
+            andExact(candidates, countries, request.getCountry());
+            andExact(candidates, languages, request.getLanguage());
+            andExact(candidates, ageRatings, request.getAgeRating());
+
+            if (request.getYearFrom() != null || request.getYearTo() != null) {
+                int from = request.getYearFrom() != null ? request.getYearFrom() : Integer.MIN_VALUE;
+                int to = request.getYearTo() != null ? request.getYearTo() : Integer.MAX_VALUE;
+                BitSet inRange = new BitSet();
+                if (from <= to) {
+                    years.subMap(from, true, to, true).values().forEach(inRange::or);
+                }
+                candidates.and(inRange);
+            }
+            return candidates;
+        }
+
+        /**
+         * BM25 over the field-weighted term frequencies. Terms are ANDed: candidates is narrowed to
+         * the movies matching every query term, and the returned map holds their summed scores.
+         */
+        Map<Integer, Double> score(List<String> queryTerms, BitSet candidates) {
+            Map<Integer, Double> scores = new HashMap<>();
+            int documentCount = ordinals.size();
+            double averageLength = documentCount > 0 ? totalLength / documentCount : 1.0;
+
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String term = queryTerms.get(i);
+                boolean expandPrefix = i == queryTerms.size() - 1 && term.length() >= MIN_PREFIX_LENGTH;
+                Map<String, Map<Integer, Float>> matchingTerms;
+                if (expandPrefix) {
+                    matchingTerms = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+                } else {
+                    Map<Integer, Float> termPostings = postings.get(term);
+                    matchingTerms = termPostings != null ? Map.of(term, termPostings) : Map.of();
+                }
+
+                BitSet termMatches = new BitSet();
+                for (Map.Entry<String, Map<Integer, Float>> entry : matchingTerms.entrySet()) {
+                    Map<Integer, Float> termPostings = entry.getValue();
+                    double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+                    double factor = entry.getKey().equals(term) ? 1.0 : PREFIX_MATCH_FACTOR;
+
+                    for (Map.Entry<Integer, Float> posting : termPostings.entrySet()) {
+                        int ordinal = posting.getKey();
+                        if (!candidates.get(ordinal)) {
+                            continue;
+                        }
+                        double tf = posting.getValue();
+                        double lengthRatio = documents.get(ordinal).length() / averageLength;
+                        double termScore = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengthRatio));
+                        scores.merge(ordinal, factor * termScore, Double::sum);
+                        termMatches.set(ordinal);
+                    }
+                }
+                candidates.and(termMatches);
+            }
+            return scores;
+        }
+
+        SearchFacetsDTO facets(BitSet result, int limit) {
+            BitSet scratch = new BitSet();
+
+            Map<String, Long> decadeCounts = new TreeMap<>(Comparator.reverseOrder());
+            years.forEach((year, bits) -> {
+                long count = FacetField.intersectionCount(bits, result, scratch);
+                if (count > 0) {
+                    decadeCounts.merge((year / 10) * 10 + "s", count, Long::sum);
+                }
+            });
+            List<SearchFacetsDTO.FacetCount> decades = decadeCounts.entrySet().stream()
+                    .map(entry -> new SearchFacetsDTO.FacetCount(entry.getKey(), entry.getValue()))
+                    .toList();
+
+            // Highest bucket first, unrated last
+            List<SearchFacetsDTO.FacetCount> ratings = new ArrayList<>(ratingBuckets.count(result, Integer.MAX_VALUE, scratch));
+            ratings.sort(Comparator.comparing((SearchFacetsDTO.FacetCount bucket) -> UNRATED_BUCKET.equals(bucket.getValue()))
+                    .thenComparing(SearchFacetsDTO.FacetCount::getValue, Comparator.reverseOrder()));
+
+            return SearchFacetsDTO.builder()
+                    .categories(categories.count(result, limit, scratch))
+                    .countries(countries.count(result, limit, scratch))
+                    .languages(languages.count(result, limit, scratch))
+                    .directors(directors.count(result, limit, scratch))
+                    .decades(decades)
+                    .ratingBuckets(ratings)
+                    .build();
+        }
+
+        FacetField field(Facet facet) {
+            return switch (facet) {
+                case CATEGORY -> categories;
+                case ACTOR -> actors;
+                case DIRECTOR -> directors;
+                case COUNTRY -> countries;
+                case LANGUAGE -> languages;
+            };
+        }
+
+        private static List<String> foldAll(List<String> values) {
+            return values == null ? List.of() : values.stream()
+                    .map(SearchTextNormalizer::fold)
+                    .filter(key -> !key.isEmpty())
+                    .toList();
+        }
+
+        private static void andExact(BitSet candidates, FacetField field, String requested) {
+            String key = SearchTextNormalizer.fold(requested);
+            if (!key.isEmpty()) {
+                candidates.and(field.unionExact(List.of(key)));
+            }
+        }
+    }
+
+    /**
+     * One BitSet of movie ordinals per distinct value of a field, keyed by the folded value and
+     * remembering the first display form seen. Counting a value within a result set is an AND
+     * followed by a popcount. A field searched by partial name also keeps, in sorted order, the
+     * rest of each value from every word start, so a name fragment is a range lookup instead of
+     * a scan over every distinct value.
+     */
+    private static final class FacetField {
+
+        private final Map<String, BitSet> bits = new HashMap<>();
+        private final Map<String, String> labels = new HashMap<>();
+        private final NavigableMap<String, BitSet> wordStarts;
+
+        FacetField(boolean matchWordPrefixes) {
+            this.wordStarts = matchWordPrefixes ? new TreeMap<>() : null;
+        }
+
+        void set(String value, int ordinal) {
+            String key = SearchTextNormalizer.fold(value);
+            if (!key.isEmpty()) {
+                bits.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+                labels.putIfAbsent(key, value.trim());
+                if (wordStarts != null) {
+                    forEachWordStart(key, suffix -> wordStarts.computeIfAbsent(suffix, k -> new BitSet()).set(ordinal));
+                }
+            }
+        }
+
+        void clear(String value, int ordinal) {
+            String key = SearchTextNormalizer.fold(value);
+            BitSet valueBits = bits.get(key);
+            if (valueBits != null) {
+                valueBits.clear(ordinal);
+                if (valueBits.isEmpty()) {
+                    bits.remove(key);
+                    labels.remove(key);
+                }
+            }
+            if (wordStarts != null && !key.isEmpty()) {
+                forEachWordStart(key, suffix -> {
+                    BitSet suffixBits = wordStarts.get(suffix);
+                    if (suffixBits != null) {
+                        suffixBits.clear(ordinal);
+                        if (suffixBits.isEmpty()) {
+                            wordStarts.remove(suffix);
+                        }
+                    }
+                });
+            }
+        }
+
+        // "tran nu yen khe" -> itself, "nu yen khe", "yen khe", "khe"
+        private static void forEachWordStart(String key, Consumer<String> action) {
+            action.accept(key);
+            for (int space = key.indexOf(' '); space >= 0; space = key.indexOf(' ', space + 1)) {
+                if (space + 1 < key.length() && key.charAt(space + 1) != ' ') {
+                    action.accept(key.substring(space + 1));
+                }
+            }
+        }
+
+        BitSet unionExact(List<String> keys) {
+            BitSet union = new BitSet();
+            for (String key : keys) {
+                BitSet valueBits = bits.get(key);
+                if (valueBits != null) {
+                    union.or(valueBits);
+                }
+            }
+            return union;
+        }
+
+        // Values with a word that starts the key, e.g. "yen khe" finds "tran nu yen khe"
+        BitSet unionWordPrefix(List<String> keys) {
+            BitSet union = new BitSet();
+            for (String key : keys) {
+                wordStarts.subMap(key, true, key + Character.MAX_VALUE, false).values().forEach(union::or);
+            }
+            return union;
+        }
+
+        // Most frequent values within result, ties broken by label
+        List<SearchFacetsDTO.FacetCount> count(BitSet result, int limit, BitSet scratch) {
+            List<SearchFacetsDTO.FacetCount> counts = new ArrayList<>();
+            bits.forEach((key, valueBits) -> {
+                long count = intersectionCount(valueBits, result, scratch);
+                if (count > 0) {
+                    counts.add(new SearchFacetsDTO.FacetCount(labels.get(key), count));
+                }
+            });
+            counts.sort(Comparator.comparingLong(SearchFacetsDTO.FacetCount::getCount).reversed()
+                    .thenComparing(SearchFacetsDTO.FacetCount::getValue));
+            return counts.size() > limit ? new ArrayList<>(counts.subList(0, limit)) : counts;
+        }
+
+        // Reuses scratch so counting many values does not allocate a BitSet per value; values with
+        // no movie in the result are skipped by a word scan before anything is copied
+        static long intersectionCount(BitSet valueBits, BitSet result, BitSet scratch) {
+            if (!valueBits.intersects(result)) {
+                return 0;
+            }
+            scratch.clear();
+            scratch.or(valueBits);
+            scratch.and(result);
+            return scratch.cardinality();
+        }
+    }
+
+    private record MovieDocument(Long movieId, String sortTitle, Map<String, Float> termWeights, float length,
+                                 String title, List<String> actorNames, String directorName, String countryName,
+                                 String language, String ageRating, List<String> categoryNames, Integer year,
+                                 double averageRating, long viewCount, LocalDate releaseDate, LocalDateTime createdAt,
+                                 boolean available, boolean suggested) {
+
+        static MovieDocument from(Movie movie) {
+            Map<String, Float> termWeights = new HashMap<>();
+            addTerms(termWeights, movie.getTitle(), TITLE_WEIGHT);
+            addTerms(termWeights, movie.getSynopsis(), TEXT_WEIGHT);
+
+            List<String> actorNames = new ArrayList<>();
+            if (movie.getActors() != null) {
+                for (String actor : movie.getActors()) {
+                    addTerms(termWeights, actor, PEOPLE_WEIGHT);
+                    addIfPresent(actorNames, actor);
+                }
+            }
+
+            String directorName = movie.getDirector() != null ? movie.getDirector().getName() : null;
+            addTerms(termWeights, directorName, PEOPLE_WEIGHT);
+
+            String countryName = movie.getCountry() != null ? movie.getCountry().getName() : null;
+            addTerms(termWeights, countryName, TEXT_WEIGHT);
+
+            List<String> categoryNames = new ArrayList<>();
+            if (movie.getCategories() != null) {
+                for (Category category : movie.getCategories()) {
+                    addTerms(termWeights, category.getName(), CATEGORY_WEIGHT);
+                    if (!SearchTextNormalizer.fold(category.getDisplayName()).equals(SearchTextNormalizer.fold(category.getName()))) {
+                        addTerms(termWeights, category.getDisplayName(), CATEGORY_WEIGHT);
+                    }
+                    addIfPresent(categoryNames, category.getDisplayName() != null ? category.getDisplayName() : category.getName());
+                }
+            }
+
+            float length = 0f;
+            for (float weight : termWeights.values()) {
+                length += weight;
+            }
+            boolean available = !Boolean.FALSE.equals(movie.getIsAvailable());
+            LocalDate releaseDate = movie.getReleaseDate();
+
+            return new MovieDocument(
+                    movie.getId(),
+                    SearchTextNormalizer.fold(movie.getTitle()),
+                    termWeights,
+                    length,
+                    movie.getTitle(),
+                    actorNames,
+                    directorName,
+                    countryName,
+                    movie.getLanguage(),
+                    movie.getAgeRating(),
+                    categoryNames,
+                    movie.getYear(),
+                    movie.getAverageRating() != null ? movie.getAverageRating() : 0.0,
+                    movie.getViewCount() != null ? movie.getViewCount() : 0L,
+                    releaseDate,
+                    movie.getCreatedAt(),
+                    available,
+                    // Fixed when the document is built, so removing it takes back exactly what it added
+                    available && (releaseDate == null || !releaseDate.isAfter(LocalDate.now())));
+        }
+
+        private static void addIfPresent(List<String> texts, String text) {
+            if (text != null && !text.isBlank()) {
+                texts.add(text);
+            }
+        }
+
+        private static void addTerms(Map<String, Float> termWeights, String text, float weight) {
+            for (String token : SearchTextNormalizer.tokenize(text)) {
+                termWeights.merge(token, weight, Float::sum);
+            }
+        }
+
+        // Phrases offered as autocomplete suggestions; none for unreleased or hidden movies
+        List<String> suggestionTexts() {
+            if (!suggested) {
+                return List.of();
+            }
+            List<String> texts = new ArrayList<>();
+            addIfPresent(texts, title);
+            texts.addAll(actorNames);
+            addIfPresent(texts, directorName);
+            texts.addAll(categoryNames);
+            return texts;
+        }
+
+        // Unwatched titles still count once, so a new actor outranks nothing
+        long suggestionWeight() {
+            return viewCount + 1;
+        }
+
+        // Whole-star buckets over the 1-5 average; 5.0 falls into 4-5
+        String ratingBucket() {
+            if (averageRating <= 0) {
+                return UNRATED_BUCKET;
+            }
+            int lower = Math.max(1, Math.min(4, (int) Math.floor(averageRating)));
+            return lower + "-" + (lower + 1);
+        }
+
+        boolean isReleasedBy(LocalDate today) {
+            return releaseDate == null || !releaseDate.isAfter(today);
+        }
+
+        boolean isRatedWithin(Double minRating, Double maxRating) {
+            return (minRating == null || averageRating >= minRating)
+                    && (maxRating == null || averageRating <= maxRating);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.MovieDTOs;
+import com.aimovie.dto.TranscodingDTOs;
+import com.aimovie.dto.UploadSessionDTOs;
+import com.aimovie.entity.UploadSession;
+import com.aimovie.repository.MovieRepository;
+import com.aimovie.repository.UploadSessionRepository;
+import com.aimovie.service.FileUploadService;
+import com.aimovie.service.MovieService;
+import com.aimovie.service.ResumableUploadService;
+import com.aimovie.service.TranscodingJobService;
+import com.aimovie.service.VideoMetadataService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable video ingest. The part file is preallocated at session creation and every chunk is
+ * written at its own offset through one shared FileChannel, so chunks can be accepted in
+ * parallel and the assembled file is renamed into place on completion instead of copied.
+ * Received chunks are tracked in a bitmap persisted with the session, which survives restarts.
+ *
+ * A chunk is hashed as it is written and only counted as received once its length and checksum
+ * match; a corrupt chunk leaves its bit clear, so the client sends it again. A received chunk is
+ * never written again, and while a chunk is being received a second request for the same
+ * offset is refused rather than racing it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumableUploadServiceImpl implements ResumableUploadService {
+
+    private static final String PART_SUFFIX = ".part";
+    private static final int MAX_REPORTED_MISSING_CHUNKS = 1000;
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final MovieRepository movieRepository;
+    private final MovieService movieService;
+    private final FileUploadService fileUploadService;
+    private final VideoMetadataService videoMetadataService;
+    private final TranscodingJobService transcodingJobService;
+
+    private final Map<String, OpenSession> openSessions = new ConcurrentHashMap<>();
+
+    @Value("${app.upload.resumable.default-chunk-size:8388608}")
+    private int defaultChunkSize;
+
+    @Value("${app.upload.resumable.max-chunk-size:67108864}")
+    private int maxChunkSize;
+
+    @Value("${app.upload.resumable.session-ttl-ms:86400000}")
+    private long sessionTtlMs;
+
+    @Override
+    public UploadSessionDTOs.UploadSessionResponse createSession(Long movieId, UploadSessionDTOs.CreateUploadSessionRequest request) throws IOException {
+        if (!movieRepository.existsById(movieId)) {
+            throw new RuntimeException("Movie not found with id: " + movieId);
+        }
+        fileUploadService.validateVideoUpload(request.getFilename(), request.getTotalSize());
+
+        int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize;
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("Chunk size must be between " + MIN_CHUNK_SIZE + " and " + maxChunkSize + " bytes");
+        }
+        // The bitmap column holds 8192 bytes, i.e. 65536 chunks
+        if ((request.getTotalSize() + chunkSize - 1) / chunkSize > 8192L * 8) {
+            throw new IllegalArgumentException("Too many chunks; use a larger chunk size");
+        }
+
+        String filename = request.getFilename();
+        String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+        String uploadId = UUID.randomUUID().toString();
+        UploadSession session = UploadSession.builder()
+                .id(uploadId)
+                .movieId(movieId)
+                .originalFilename(filename)
+                .storedFilename(uploadId + "." + extension)
+                .totalSize(request.getTotalSize())
+                .chunkSize(chunkSize)
+                .receivedChunks(new byte[0])
+                .build();
+
+        Path partPath = partPath(session);
+        Files.createDirectories(partPath.toAbsolutePath().getParent());
+        try (RandomAccessFile file = new RandomAccessFile(partPath.toFile(), "rw")) {
+            // Sparse on most filesystems; reserves the final size so chunks land at their offsets
+            file.setLength(session.getTotalSize());
+        }
+        session = uploadSessionRepository.save(session);
+        log.info("Created upload session {} for movie {} ({} bytes in {} chunks)",
+                uploadId, movieId, session.getTotalSize(), session.getChunkCount());
+        return toResponse(session, new BitSet());
+    }
+
+    @Override
+    public UploadSessionDTOs.UploadSessionResponse getSession(Long movieId, String uploadId) {
+        OpenSession open = openSessions.get(uploadId);
+        if (open != null) {
+            checkMovie(open.session, movieId);
+            synchronized (open) {
+                return toResponse(open.session, open.received);
+            }
+        }
+        UploadSession session = findSession(uploadId);
+        checkMovie(session, movieId);
+        return toResponse(session, BitSet.valueOf(session.getReceivedChunks()));
+    }
+
+    @Override
+    public UploadSessionDTOs.UploadSessionResponse writeChunk(Long movieId, String uploadId, long offset, String sha256Hex,
+                                                              InputStream body) throws IOException {
+        OpenSession open = open(movieId, uploadId);
+        UploadSession session = open.session;
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new IllegalArgumentException("Offset " + offset + " is not a chunk boundary of this upload");
+        }
+        int chunkIndex = (int) (offset / session.getChunkSize());
+        long expectedLength = Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+
+        synchronized (open) {
+            if (open.received.get(chunkIndex)) {
+                // Retried after a lost response; the stored bytes were already verified
+                return toResponse(open.session, open.received);
+            }
+            if (open.inProgress.get(chunkIndex)) {
+                throw new IllegalStateException("Chunk at offset " + offset + " is already being uploaded");
+            }
+            open.inProgress.set(chunkIndex);
+        }
+
+        try {
+            writeVerified(body, open.channel, offset, expectedLength, sha256Hex);
+
+            synchronized (open) {
+                if (open.closed) {
+                    throw new RuntimeException("Upload session " + uploadId + " is no longer active");
+                }
+                open.received.set(chunkIndex);
+                UploadSession current = open.session;
+                current.setReceivedChunks(open.received.toByteArray());
+                open.session = uploadSessionRepository.save(current);
+                return toResponse(open.session, open.received);
+            }
+        } finally {
+            synchronized (open) {
+                open.inProgress.clear(chunkIndex);
+            }
+        }
+    }
+
+    // Writes the chunk at its offset in the part file, then checks its length and checksum
+    private static void writeVerified(InputStream body, FileChannel channel, long offset, long expectedLength,
+                                      String sha256Hex) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long written = 0;
+        int read;
+        while ((read = body.read(buffer.array())) != -1) {
+            if (written + read > expectedLength) {
+                throw new IllegalArgumentException("Chunk at offset " + offset + " exceeds its expected length of " + expectedLength + " bytes");
+            }
+            digest.update(buffer.array(), 0, read);
+            buffer.clear().limit(read);
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, offset + written);
+            }
+        }
+        if (written != expectedLength) {
+            throw new IllegalArgumentException("Chunk at offset " + offset + " has " + written + " bytes, expected " + expectedLength);
+        }
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (sha256Hex == null || !actual.equalsIgnoreCase(sha256Hex.trim())) {
+            throw new IllegalArgumentException("Checksum mismatch for chunk at offset " + offset);
+        }
+    }
+
+    @Override
+    public UploadSessionDTOs.UploadSessionResponse completeSession(Long movieId, String uploadId) throws IOException {
+        OpenSession open = open(movieId, uploadId);
+        UploadSession session;
+        synchronized (open) {
+            session = open.session;
+            if (open.received.cardinality() != session.getChunkCount()) {
+                throw new IllegalStateException("Upload " + uploadId + " is missing "
+                        + (session.getChunkCount() - open.received.cardinality()) + " chunks");
+            }
+            open.closed = true;
+            openSessions.remove(uploadId);
+            open.channel.force(true);
+            open.channel.close();
+
+            Path videoPath = fileUploadService.getVideoFilePath(session.getStoredFilename());
+            Files.move(partPath(session), videoPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            session.setStatus(UploadSession.UploadStatus.COMPLETED);
+            session = uploadSessionRepository.save(session);
+        }
+
+        Path videoPath = fileUploadService.getVideoFilePath(session.getStoredFilename());
+        VideoMetadataService.VideoMetadata metadata = videoMetadataService.extractMetadataFromFile(
+                videoPath.toFile(), session.getOriginalFilename());
+        fileUploadService.storeVideoFromPath(videoPath, session.getStoredFilename());
+
+        String videoUrl = fileUploadService.buildPublicVideoUrl(session.getStoredFilename());
+        MovieDTOs.MovieUpdateDTO updateDTO = new MovieDTOs.MovieUpdateDTO();
+        updateDTO.setVideoUrl(videoUrl);
+        updateDTO.setVideoFormat(metadata.getVideoFormat());
+        updateDTO.setVideoDuration(metadata.getDurationInSeconds());
+        updateDTO.setVideoQuality("1440p");
+        updateDTO.setFileSizeBytes(metadata.getFileSizeBytes());
+        updateDTO.setAvailableQualities(Arrays.asList("360p", "480p", "720p", "1080p", "1440p"));
+        updateDTO.setMaxDownloadQuality("1440p");
+        movieService.updateMovie(movieId, updateDTO);
+
+        String processingStatus = startProcessing(videoPath, movieId, session.getStoredFilename());
+
+        UploadSessionDTOs.UploadSessionResponse response = toResponse(session, BitSet.valueOf(session.getReceivedChunks()));
+        response.setVideoUrl(videoUrl);
+        response.setProcessingStatus(processingStatus);
+        log.info("Completed upload session {} for movie {}: {}", uploadId, movieId, session.getStoredFilename());
+        return response;
+    }
+
+    @Override
+    public void abortSession(Long movieId, String uploadId) throws IOException {
+        UploadSession session = findSession(uploadId);
+        checkMovie(session, movieId);
+        close(uploadId);
+        if (session.getStatus() == UploadSession.UploadStatus.ACTIVE) {
+            Files.deleteIfExists(partPath(session));
+            session.setStatus(UploadSession.UploadStatus.ABORTED);
+            uploadSessionRepository.save(session);
+            log.info("Aborted upload session {} for movie {}", uploadId, movieId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.resumable.cleanup-interval-ms:3600000}")
+    public void expireStaleSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(sessionTtlMs));
+        for (UploadSession session : uploadSessionRepository.findByStatusAndUpdatedAtBefore(UploadSession.UploadStatus.ACTIVE, cutoff)) {
+            try {
+                close(session.getId());
+                Files.deleteIfExists(partPath(session));
+                session.setStatus(UploadSession.UploadStatus.EXPIRED);
+                uploadSessionRepository.save(session);
+                log.info("Expired stale upload session {} for movie {}", session.getId(), session.getMovieId());
+            } catch (IOException e) {
+                log.warn("Failed to expire upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        openSessions.keySet().forEach(this::close);
+    }
+
+    // The upload itself is complete either way, so a full queue defers the job rather than failing the request
+    private String startProcessing(Path videoPath, Long movieId, String storedFilename) {
+        try {
+            // In cloud mode the original already lives in the bucket; the local copy is only kept for encoding
+            TranscodingDTOs.JobSummary job = transcodingJobService.enqueue(movieId, TranscodingDTOs.SourceFile.builder()
+                    .localPath(videoPath)
+                    .originalFilename(storedFilename)
+                    .storedFilename(storedFilename)
+                    .deleteLocalOnCompletion(fileUploadService.isCloudStorageEnabled())
+                    .deferWhenFull(true)
+                    .build());
+            if (job.isDeferred()) {
+                log.warn("Deferred video processing for movie ID {} until {}", movieId, job.getAvailableAt());
+                return "DEFERRED";
+            }
+            log.info("Queued video processing for multiple resolutions for movie ID: {}", movieId);
+            return "QUEUED";
+        } catch (Exception e) {
+            log.error("Failed to start video processing for movie ID: {}", movieId, e);
+            return "FAILED";
+        }
+    }
+
+    private OpenSession open(Long movieId, String uploadId) {
+        OpenSession open;
+        try {
+            open = openSessions.computeIfAbsent(uploadId, id -> {
+                UploadSession session = findSession(id);
+                if (session.getStatus() != UploadSession.UploadStatus.ACTIVE) {
+                    throw new IllegalStateException("Upload session " + id + " is " + session.getStatus());
+                }
+                try {
+                    FileChannel channel = FileChannel.open(partPath(session), StandardOpenOption.WRITE);
+                    return new OpenSession(session, BitSet.valueOf(session.getReceivedChunks()), channel);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Part file for upload " + id + " is missing", e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw new IllegalStateException(e.getMessage(), e.getCause());
+        }
+        checkMovie(open.session, movieId);
+        return open;
+    }
+
+    private void close(String uploadId) {
+        OpenSession open = openSessions.remove(uploadId);
+        if (open == null) {
+            return;
+        }
+        synchronized (open) {
+            open.closed = true;
+            try {
+                open.channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close part file for upload {}: {}", uploadId, e.getMessage());
+            }
+        }
+    }
+
+    private UploadSession findSession(String uploadId) {
+        return uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new RuntimeException("Upload session not found: " + uploadId));
+    }
+
+    private void checkMovie(UploadSession session, Long movieId) {
+        if (!session.getMovieId().equals(movieId)) {
+            throw new RuntimeException("Upload session " + session.getId() + " does not belong to movie " + movieId);
+        }
+    }
+
+    private Path partPath(UploadSession session) {
+        return fileUploadService.getVideoFilePath(session.getStoredFilename() + PART_SUFFIX);
+    }
+
+    private UploadSessionDTOs.UploadSessionResponse toResponse(UploadSession session, BitSet received) {
+        int chunkCount = session.getChunkCount();
+        int firstMissing = received.nextClearBit(0);
+        long receivedBytes = Math.min(session.getTotalSize(), (long) firstMissing * session.getChunkSize());
+
+        List<Integer> missing = new ArrayList<>();
+        for (int i = firstMissing; i < chunkCount && missing.size() < MAX_REPORTED_MISSING_CHUNKS; i = received.nextClearBit(i + 1)) {
+            missing.add(i);
+        }
+        return UploadSessionDTOs.UploadSessionResponse.builder()
+                .uploadId(session.getId())
+                .movieId(session.getMovieId())
+                .filename(session.getOriginalFilename())
+                .status(session.getStatus().name())
+                .totalSize(session.getTotalSize())
+                .chunkSize(session.getChunkSize())
+                .chunkCount(chunkCount)
+                .receivedChunkCount(received.cardinality())
+                .receivedBytes(receivedBytes)
+                .missingChunks(missing)
+                .build();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class OpenSession {
+
+        private UploadSession session;
+        private final BitSet received;
+        // Chunks a request is currently receiving; guards against a concurrent resend of the same offset
+        private final BitSet inProgress = new BitSet();
+        private final FileChannel channel;
+        private boolean closed;
+
+        private OpenSession(UploadSession session, BitSet received, FileChannel channel) {
+            this.session = session;
+            this.received = received;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.aimovie.serviceImpl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Autocomplete trie over folded phrases (titles, people, categories). Every phrase is reachable
+ * from the start of each of its words, and every node caches the best {@link #MAX_SUGGESTIONS}
+ * phrases below it, so completing a prefix is a walk of prefix-length nodes followed by reading
+ * that cache. Weight changes only recompute the caches on the changed phrase's own paths.
+ *
+ * Not thread-safe; callers guard it with the owning index's lock.
+ */
+final class SuggestionTrie {
+
+    static final int MAX_SUGGESTIONS = 20;
+
+    // Bounds the number of paths a long phrase adds
+    private static final int MAX_WORD_STARTS = 6;
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingLong(Suggestion::weight).reversed()
+            .thenComparingInt(suggestion -> suggestion.display.length())
+            .thenComparing(suggestion -> suggestion.display);
+
+    private final Node root = new Node();
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private boolean deferRanking;
+
+    /**
+     * Adds weight to a phrase, creating it on first sight. The first display form seen for a
+     * folded key is the one suggested.
+     */
+    void add(String display, long weight) {
+        String key = keyOf(display);
+        if (key.isEmpty()) {
+            return;
+        }
+        Suggestion suggestion = suggestions.get(key);
+        if (suggestion == null) {
+            suggestion = new Suggestion(display.trim());
+            suggestions.put(key, suggestion);
+            for (String path : pathsOf(key)) {
+                descend(path, true).get(path.length()).terminals.add(suggestion);
+            }
+        }
+        suggestion.weight += weight;
+        suggestion.references++;
+        rerank(key);
+    }
+
+    void remove(String display, long weight) {
+        String key = keyOf(display);
+        Suggestion suggestion = suggestions.get(key);
+        if (suggestion == null) {
+            return;
+        }
+        suggestion.weight -= weight;
+        suggestion.references--;
+        if (suggestion.references <= 0) {
+            suggestions.remove(key);
+            for (String path : pathsOf(key)) {
+                List<Node> nodes = descend(path, false);
+                if (nodes != null) {
+                    nodes.get(path.length()).terminals.remove(suggestion);
+                }
+            }
+        }
+        rerank(key);
+    }
+
+    List<String> complete(String prefix, int limit) {
+        String key = keyOf(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Set<String> displays = new LinkedHashSet<>();
+        for (Suggestion suggestion : node.top) {
+            displays.add(suggestion.display);
+            if (displays.size() == limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(displays);
+    }
+
+    /**
+     * While deferred, add/remove skip cache maintenance; {@link #rankAll()} then computes every
+     * cache in one post-order pass. Used for full rebuilds.
+     */
+    void deferRanking() {
+        deferRanking = true;
+    }
+
+    void rankAll() {
+        deferRanking = false;
+        Deque<Node> stack = new ArrayDeque<>();
+        List<Node> postOrder = new ArrayList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            postOrder.add(node);
+            node.children.values().forEach(stack::push);
+        }
+        Collections.reverse(postOrder);
+        postOrder.forEach(Node::rank);
+    }
+
+    private void rerank(String key) {
+        if (deferRanking) {
+            return;
+        }
+        for (String path : pathsOf(key)) {
+            List<Node> nodes = descend(path, false);
+            if (nodes == null) {
+                continue;
+            }
+            for (int depth = nodes.size() - 1; depth >= 0; depth--) {
+                Node node = nodes.get(depth);
+                if (depth > 0 && node.terminals.isEmpty() && node.children.isEmpty()) {
+                    // Prune branches left empty by a removal
+                    nodes.get(depth - 1).children.remove(path.charAt(depth - 1));
+                } else {
+                    node.rank();
+                }
+            }
+        }
+    }
+
+    // Nodes from the root to the end of path, or null if the path does not exist and create is false
+    private List<Node> descend(String path, boolean create) {
+        List<Node> nodes = new ArrayList<>(path.length() + 1);
+        Node node = root;
+        nodes.add(node);
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node();
+                node.children.put(c, child);
+            }
+            node = child;
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static List<String> pathsOf(String key) {
+        List<String> paths = new ArrayList<>();
+        paths.add(key);
+        for (int i = key.indexOf(' '); i >= 0 && paths.size() < MAX_WORD_STARTS; i = key.indexOf(' ', i + 1)) {
+            paths.add(key.substring(i + 1));
+        }
+        return paths;
+    }
+
+    private static String keyOf(String text) {
+        return String.join(" ", SearchTextNormalizer.tokenize(text));
+    }
+
+    private static final class Node {
+
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Suggestion> terminals = new ArrayList<>(1);
+        private List<Suggestion> top = List.of();
+
+        void rank() {
+            // A phrase can reach the same node through two of its word starts, hence the identity set
+            Set<Suggestion> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+            candidates.addAll(terminals);
+            children.values().forEach(child -> candidates.addAll(child.top));
+            top = candidates.stream()
+                    .sorted(RANKING)
+                    .limit(MAX_SUGGESTIONS)
+                    .toList();
+        }
+    }
+
+    private static final class Suggestion {
+
+        private final String display;
+        private long weight;
+        private int references;
+
+        private Suggestion(String display) {
+            this.display = display;
+        }
+
+        long weight() {
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,679 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.TranscodingDTOs;
+import com.aimovie.dto.VideoProcessingResult;
+import com.aimovie.entity.BitrateRung;
+import com.aimovie.entity.MediaBlob;
+import com.aimovie.entity.Movie;
+import com.aimovie.entity.TranscodingJob;
+import com.aimovie.entity.VideoResolution;
+import com.aimovie.exception.TranscodingQueueFullException;
+import com.aimovie.repository.MovieRepository;
+import com.aimovie.repository.TranscodingJobRepository;
+import com.aimovie.repository.VideoResolutionRepository;
+import com.aimovie.service.FFmpegService;
+import com.aimovie.service.FileUploadService;
+import com.aimovie.service.MediaBlobService;
+import com.aimovie.service.TranscodingCapacity;
+import com.aimovie.service.TranscodingJobService;
+import com.aimovie.service.TranscodingMetrics;
+import com.sun.management.OperatingSystemMXBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Database-backed transcoding queue. Each node polls for due jobs, claims them with
+ * SELECT ... FOR UPDATE SKIP LOCKED so nodes never claim the same row, and keeps a lease on
+ * every running job through heartbeats. A job whose node dies stops heartbeating, its lease
+ * expires and another node (or this one after restart) reclaims it; the encoder then only
+ * redoes renditions that are not COMPLETED. Leases are renewed on a thread of their own so a
+ * slow scheduled task elsewhere can never let them lapse under a healthy encode.
+ *
+ * A node that does not have the source on its disk downloads it from video storage; a source
+ * that only exists on the disk of the node that queued it pins the job to that host.
+ *
+ * Encodes run on a dedicated pool sized by {@link TranscodingCapacity} from the cores and the
+ * memory left outside the heap, never on the shared async executor; each job's encoders stay
+ * within its share of the cores. A node only takes on a second job while the machine has CPU
+ * to spare, so ingest bursts queue up instead of slowing API requests.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TranscodingJobServiceImpl implements TranscodingJobService {
+
+    private final TranscodingJobRepository transcodingJobRepository;
+    private final VideoResolutionRepository videoResolutionRepository;
+    private final MovieRepository movieRepository;
+    private final FFmpegService ffmpegService;
+    private final FileUploadService fileUploadService;
+    private final MediaBlobService mediaBlobService;
+    private final TranscodingMetrics transcodingMetrics;
+    private final TranscodingCapacity transcodingCapacity;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Future<?>> runningJobs = new ConcurrentHashMap<>();
+    private final String hostName = resolveHostName();
+    private final String nodeId = hostName + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    private final AtomicLong deferredClaims = new AtomicLong();
+    private ExecutorService workerPool;
+    private ScheduledExecutorService leaseRenewer;
+    private volatile boolean shuttingDown;
+
+    private int workers;
+
+    @Value("${app.transcoding.max-cpu-load:0.85}")
+    private double maxCpuLoad;
+
+    @Value("${app.transcoding.max-queued-jobs:100}")
+    private int maxQueuedJobs;
+
+    @Value("${app.transcoding.deferred-delay-ms:600000}")
+    private long deferredDelayMs;
+
+    @Value("${app.transcoding.new-release-days:90}")
+    private int newReleaseDays;
+
+    @Value("${app.transcoding.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${app.transcoding.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.transcoding.heartbeat-interval-ms:15000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${app.transcoding.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    @Value("${app.video.temp-dir:uploads/temp}")
+    private String tempDir;
+
+    @PostConstruct
+    void startWorkers() {
+        workers = transcodingCapacity.getWorkers();
+        workerPool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("TranscodingWorker-"));
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("TranscodingLease-"));
+        leaseRenewer.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Transcoding node {} started with {} workers of {} cores",
+                nodeId, workers, transcodingCapacity.getCoresPerJob());
+    }
+
+    @Override
+    @Transactional
+    public TranscodingDTOs.JobSummary enqueue(Long movieId, TranscodingDTOs.SourceFile source) {
+        LocalDateTime now = LocalDateTime.now();
+        Movie movie = movieRepository.findById(movieId).orElse(null);
+        int priority = movie != null && isNewRelease(movie.getReleaseDate(), movie.getYear(), now.toLocalDate())
+                ? TranscodingJob.PRIORITY_NEW_RELEASE
+                : TranscodingJob.PRIORITY_BACK_CATALOG;
+        // Locked first, so a running job's rendition writes wait for this supersede (or it for them)
+        List<TranscodingJob> superseded = transcodingJobRepository.lockByMovieIdAndStatusIn(movieId,
+                List.of(TranscodingJob.JobStatus.QUEUED, TranscodingJob.JobStatus.RUNNING));
+        String contentHash = source.getContentHash();
+        if (contentHash == null && source.getStoredFilename() != null) {
+            contentHash = mediaBlobService.findSha256(MediaBlob.Kind.VIDEO, source.getStoredFilename()).orElse(null);
+        }
+
+        if (movie != null && superseded.isEmpty() && hasRenditionsOf(movie, contentHash)) {
+            TranscodingJob previous = transcodingJobRepository.findTop50ByMovieIdOrderByIdDesc(movieId).stream()
+                    .filter(job -> job.getStatus() == TranscodingJob.JobStatus.COMPLETED)
+                    .findFirst()
+                    .orElse(null);
+            if (previous != null) {
+                log.info("Movie {} already has renditions of this source (sha256 {}); not transcoding it again",
+                        movieId, contentHash);
+                if (source.isDeleteLocalOnCompletion()) {
+                    deleteQuietly(source.getLocalPath());
+                }
+                return toSummary(previous);
+            }
+        }
+        if (movie != null && contentHash != null) {
+            TranscodingJob reused = reuseRenditionsOfSameContent(movie, contentHash, priority, superseded, source, now);
+            if (reused != null) {
+                return toSummary(reused);
+            }
+        }
+
+        LocalDateTime availableAt = now;
+        if (priority < TranscodingJob.PRIORITY_NEW_RELEASE) {
+            long queued = queuedExcluding(superseded);
+            if (queued >= maxQueuedJobs) {
+                if (!source.isDeferWhenFull()) {
+                    rejectedJobs.incrementAndGet();
+                    log.warn("Rejected transcoding of movie {}: {} jobs already queued", movieId, queued);
+                    throw new TranscodingQueueFullException(queued, maxQueuedJobs);
+                }
+                // The source is already stored, so the job is kept and only becomes claimable later
+                availableAt = now.plus(Duration.ofMillis(deferredDelayMs));
+                log.warn("Queue full ({} jobs); deferring transcoding of movie {} until {}", queued, movieId, availableAt);
+            }
+        }
+
+        cancelSuperseded(superseded, now);
+        for (VideoResolution resolution : videoResolutionRepository.findByMovieId(movieId)) {
+            resolution.setEncodingStatus("PENDING");
+            resolution.setEncodingProgress(0);
+            resolution.setIsAvailable(false);
+        }
+        // The ladder is planned from the source, so a new source gets a fresh analysis
+        if (movie != null) {
+            movie.getBitrateLadder().clear();
+            movie.setContentComplexity(null);
+            movie.setThumbnailTrackUrl(null);
+            movie.setSourceContentHash(null);
+        }
+
+        // Local video storage is one machine's disk, so only cloud storage frees the job to move
+        boolean downloadable = source.getStoredFilename() != null && fileUploadService.isCloudStorageEnabled();
+        TranscodingJob job = transcodingJobRepository.save(TranscodingJob.builder()
+                .movieId(movieId)
+                .sourcePath(source.getLocalPath().toAbsolutePath().toString())
+                .originalFilename(source.getOriginalFilename())
+                .storedFilename(source.getStoredFilename())
+                .sourceHost(downloadable ? null : hostName)
+                .contentHash(contentHash)
+                .priority(priority)
+                .maxAttempts(maxAttempts)
+                .availableAt(availableAt)
+                .deleteSourceOnCompletion(source.isDeleteLocalOnCompletion())
+                .build());
+        log.info("Queued transcoding job {} for movie {} with priority {}", job.getId(), movieId, priority);
+        return toSummary(job);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void checkCapacity(Long movieId) {
+        Movie movie = movieRepository.findById(movieId)
+                .orElseThrow(() -> new RuntimeException("Movie not found: " + movieId));
+        if (!isNewRelease(movie.getReleaseDate(), movie.getYear(), LocalDate.now())) {
+            admitBackCatalog(movieId, transcodingJobRepository.findByMovieIdAndStatusIn(movieId,
+                    List.of(TranscodingJob.JobStatus.QUEUED)));
+        }
+    }
+
+    @Override
+    public void checkCapacity(LocalDate releaseDate, Integer year) {
+        if (!isNewRelease(releaseDate, year, LocalDate.now())) {
+            admitBackCatalog(null, List.of());
+        }
+    }
+
+    private void admitBackCatalog(Long movieId, List<TranscodingJob> superseded) {
+        long queued = queuedExcluding(superseded);
+        if (queued >= maxQueuedJobs) {
+            rejectedJobs.incrementAndGet();
+            log.warn("Rejected transcoding of {}: {} jobs already queued",
+                    movieId != null ? "movie " + movieId : "a new movie", queued);
+            throw new TranscodingQueueFullException(queued, maxQueuedJobs);
+        }
+    }
+
+    // A replaced job frees its own slot
+    private long queuedExcluding(List<TranscodingJob> superseded) {
+        return transcodingJobRepository.countByStatus(TranscodingJob.JobStatus.QUEUED)
+                - superseded.stream().filter(job -> job.getStatus() == TranscodingJob.JobStatus.QUEUED).count();
+    }
+
+    @Override
+    @Transactional
+    public TranscodingDTOs.JobSummary updatePriority(Long jobId, int priority) {
+        TranscodingJob job = transcodingJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Transcoding job not found: " + jobId));
+        job.setPriority(priority);
+        log.info("Transcoding job {} for movie {} reprioritized to {}", jobId, job.getMovieId(), priority);
+        return toSummary(job);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TranscodingDTOs.JobSummary> getJobsForMovie(Long movieId) {
+        return transcodingJobRepository.findTop50ByMovieIdOrderByIdDesc(movieId).stream()
+                .map(this::toSummary)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TranscodingDTOs.QueueStats getQueueStats() {
+        LocalDateTime now = LocalDateTime.now();
+        long oldestWait = transcodingJobRepository.findFirstByStatusOrderByAvailableAtAsc(TranscodingJob.JobStatus.QUEUED)
+                .map(job -> Math.max(0, Duration.between(job.getAvailableAt(), now).getSeconds()))
+                .orElse(0L);
+        return TranscodingDTOs.QueueStats.builder()
+                .queued(transcodingJobRepository.countByStatus(TranscodingJob.JobStatus.QUEUED))
+                .queuedNewReleases(transcodingJobRepository.countByStatusAndPriorityGreaterThanEqual(
+                        TranscodingJob.JobStatus.QUEUED, TranscodingJob.PRIORITY_NEW_RELEASE))
+                .maxQueuedJobs(maxQueuedJobs)
+                .rejected(rejectedJobs.get())
+                .running(transcodingJobRepository.countByStatus(TranscodingJob.JobStatus.RUNNING))
+                .failed(transcodingJobRepository.countByStatus(TranscodingJob.JobStatus.FAILED))
+                .completed(transcodingJobRepository.countByStatus(TranscodingJob.JobStatus.COMPLETED))
+                .oldestQueuedWaitSeconds(oldestWait)
+                .nodeId(nodeId)
+                .nodeWorkers(workers)
+                .nodeActiveJobs(runningJobs.size())
+                .nodeAdmitting(hasHeadroom())
+                .nodeCpuLoad(Math.round(systemCpuLoad() * 100) / 100.0)
+                .nodeDeferredClaims(deferredClaims.get())
+                .stages(transcodingMetrics.snapshot())
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.transcoding.poll-interval-ms:2000}")
+    public void pollForJobs() {
+        while (!shuttingDown && runningJobs.size() < workers) {
+            // An idle node always takes a job; further ones only while requests still have CPU to spare
+            if (!runningJobs.isEmpty() && !hasHeadroom()) {
+                deferredClaims.incrementAndGet();
+                return;
+            }
+            TranscodingJob job = transactionTemplate.execute(status -> claimNext());
+            if (job == null) {
+                return;
+            }
+            // Registered before it can run, so the worker's own removal never races the insert
+            FutureTask<Void> task = new FutureTask<>(() -> runJob(job), null);
+            runningJobs.put(job.getId(), task);
+            workerPool.execute(task);
+        }
+    }
+
+    void heartbeat() {
+        runningJobs.forEach((jobId, task) -> {
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                Integer renewed = transactionTemplate.execute(status -> transcodingJobRepository.renewLease(
+                        jobId, nodeId, TranscodingJob.JobStatus.RUNNING, now, now.plus(Duration.ofMillis(leaseMs))));
+                if (renewed == null || renewed == 0) {
+                    log.warn("Lost lease on transcoding job {} (cancelled or reclaimed); stopping it", jobId);
+                    task.cancel(true);
+                }
+            } catch (Exception e) {
+                // Keep the renewer alive; the next beat retries well before the lease runs out
+                log.warn("Could not renew lease on transcoding job {}: {}", jobId, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        shuttingDown = true;
+        leaseRenewer.shutdownNow();
+        workerPool.shutdownNow();
+        // Hand leases back so another node picks the jobs up immediately instead of after expiry
+        for (Long jobId : runningJobs.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> transcodingJobRepository.findById(jobId)
+                        .filter(this::isOwnedRunning)
+                        .ifPresent(job -> {
+                            job.setStatus(TranscodingJob.JobStatus.QUEUED);
+                            job.setAttempts(Math.max(0, job.getAttempts() - 1));
+                            job.setAvailableAt(LocalDateTime.now());
+                            job.setLeaseOwner(null);
+                            job.setLeaseExpiresAt(null);
+                        }));
+                log.info("Released transcoding job {} on shutdown", jobId);
+            } catch (Exception e) {
+                log.warn("Could not release transcoding job {}; it will be reclaimed after its lease expires: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    TranscodingJob claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        TranscodingJob job = transcodingJobRepository.lockNextClaimable(now, hostName).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        if (job.getStatus() == TranscodingJob.JobStatus.RUNNING) {
+            log.warn("Reclaiming transcoding job {} for movie {} from expired lease held by {}",
+                    job.getId(), job.getMovieId(), job.getLeaseOwner());
+            if (job.getAttempts() >= job.getMaxAttempts()) {
+                job.setStatus(TranscodingJob.JobStatus.FAILED);
+                job.setFinishedAt(now);
+                job.setLeaseOwner(null);
+                job.setLastError("Lease expired on the final attempt");
+                transcodingJobRepository.save(job);
+                return null;
+            }
+        } else {
+            transcodingMetrics.record(TranscodingMetrics.STAGE_QUEUE_WAIT,
+                    Duration.between(job.getAvailableAt(), now).toMillis(), 0);
+        }
+
+        job.setStatus(TranscodingJob.JobStatus.RUNNING);
+        job.setAttempts(job.getAttempts() + 1);
+        job.setLeaseOwner(nodeId);
+        job.setLeaseExpiresAt(now.plus(Duration.ofMillis(leaseMs)));
+        job.setHeartbeatAt(now);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(now);
+        }
+        log.info("Claimed transcoding job {} for movie {} (attempt {}/{})",
+                job.getId(), job.getMovieId(), job.getAttempts(), job.getMaxAttempts());
+        return transcodingJobRepository.save(job);
+    }
+
+    private void runJob(TranscodingJob job) {
+        Path downloaded = null;
+        try {
+            Path source = Paths.get(job.getSourcePath());
+            if (!Files.exists(source)) {
+                if (job.getStoredFilename() == null) {
+                    // Retried, since the file may still be on its way (e.g. a copy that has not finished)
+                    finish(job, TranscodingJob.JobStatus.FAILED, "Source file not found on " + hostName + ": " + source, true);
+                    return;
+                }
+                downloaded = downloadSource(job);
+                source = downloaded;
+            }
+
+            VideoProcessingResult result = ffmpegService
+                    .processVideoToMultipleResolutions(source, job.getMovieId(), job.getOriginalFilename(),
+                            () -> isCurrentRun(job))
+                    .join();
+            if (shuttingDown || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            String failure = firstFailure(result);
+            if (failure == null) {
+                finish(job, TranscodingJob.JobStatus.COMPLETED, null, false);
+                if (Boolean.TRUE.equals(job.getDeleteSourceOnCompletion())) {
+                    Files.deleteIfExists(Paths.get(job.getSourcePath()));
+                }
+            } else {
+                finish(job, TranscodingJob.JobStatus.FAILED, failure, true);
+            }
+        } catch (Exception e) {
+            if (!shuttingDown) {
+                log.error("Transcoding job {} for movie {} failed", job.getId(), job.getMovieId(), e);
+                finish(job, TranscodingJob.JobStatus.FAILED, e.getMessage(), true);
+            }
+        } finally {
+            if (downloaded != null) {
+                deleteQuietly(downloaded);
+            }
+            runningJobs.remove(job.getId());
+        }
+    }
+
+    /**
+     * Fetches the source from video storage into the movie's scratch folder, which the orphaned
+     * media collector leaves alone while the movie has a running job.
+     */
+    private Path downloadSource(TranscodingJob job) throws IOException {
+        Path target = Paths.get(tempDir, MediaReferences.FFMPEG_TEMP_DIR, job.getMovieId().toString(),
+                "source-" + job.getId() + "-" + job.getStoredFilename());
+        Files.createDirectories(target.getParent());
+        log.info("Source of transcoding job {} is not on this node; downloading {} from storage",
+                job.getId(), job.getStoredFilename());
+        fileUploadService.downloadVideoFile(job.getStoredFilename(), target);
+        return target;
+    }
+
+    /**
+     * Records the outcome if this run still owns the job: same node and same attempt, so a run
+     * that was superseded or whose lease was reclaimed cannot overwrite the job's state. Retryable
+     * failures go back to the queue with exponential backoff until the attempts run out.
+     */
+    void finish(TranscodingJob claimed, TranscodingJob.JobStatus outcome, String error, boolean retryable) {
+        transactionTemplate.executeWithoutResult(status -> {
+            TranscodingJob job = transcodingJobRepository.lockById(claimed.getId()).orElse(null);
+            if (job == null || !isRunOf(job, claimed)) {
+                log.warn("Discarding result of transcoding job {}: no longer owned by {}", claimed.getId(), nodeId);
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            job.setLeaseOwner(null);
+            job.setLeaseExpiresAt(null);
+            job.setLastError(error != null && error.length() > 2000 ? error.substring(0, 2000) : error);
+
+            if (outcome == TranscodingJob.JobStatus.FAILED && retryable && job.getAttempts() < job.getMaxAttempts()) {
+                long backoff = retryBackoffMs << Math.min(10, job.getAttempts() - 1);
+                job.setStatus(TranscodingJob.JobStatus.QUEUED);
+                job.setAvailableAt(now.plus(Duration.ofMillis(backoff)));
+                log.warn("Transcoding job {} for movie {} failed (attempt {}/{}), retrying in {} ms: {}",
+                        job.getId(), job.getMovieId(), job.getAttempts(), job.getMaxAttempts(), backoff, error);
+                return;
+            }
+            job.setStatus(outcome);
+            job.setFinishedAt(now);
+            if (outcome == TranscodingJob.JobStatus.COMPLETED) {
+                if (job.getContentHash() != null) {
+                    movieRepository.findById(job.getMovieId())
+                            .ifPresent(movie -> movie.setSourceContentHash(job.getContentHash()));
+                }
+                log.info("Transcoding job {} for movie {} completed", job.getId(), job.getMovieId());
+            } else {
+                log.error("Transcoding job {} for movie {} failed permanently: {}", job.getId(), job.getMovieId(), error);
+            }
+        });
+    }
+
+    private static void cancelSuperseded(List<TranscodingJob> superseded, LocalDateTime now) {
+        for (TranscodingJob previous : superseded) {
+            // A running owner notices on its next heartbeat and stops
+            previous.setStatus(TranscodingJob.JobStatus.CANCELLED);
+            previous.setFinishedAt(now);
+            previous.setLastError("Superseded by a newer source");
+        }
+    }
+
+    /**
+     * When another movie already has every rendition of this content, copies its rendition
+     * folder and rows, ladder, HLS and trickplay URLs to the movie instead of encoding the same
+     * bytes again. Returns the completed job recording the reuse, or null when there is nothing
+     * to reuse or the copy failed and the source has to be transcoded after all.
+     */
+    private TranscodingJob reuseRenditionsOfSameContent(Movie movie, String contentHash, int priority,
+                                                        List<TranscodingJob> superseded,
+                                                        TranscodingDTOs.SourceFile source, LocalDateTime now) {
+        Long movieId = movie.getId();
+        Movie donor = movieRepository.findBySourceContentHash(contentHash).stream()
+                .filter(candidate -> !candidate.getId().equals(movieId))
+                .filter(candidate -> hasRenditionsOf(candidate, contentHash))
+                .findFirst()
+                .orElse(null);
+        if (donor == null) {
+            return null;
+        }
+        try {
+            fileUploadService.copyMovieRenditions(donor.getId(), movieId);
+        } catch (IOException e) {
+            log.warn("Could not copy renditions of movie {} to movie {}; transcoding instead: {}",
+                    donor.getId(), movieId, e.getMessage());
+            return null;
+        }
+
+        cancelSuperseded(superseded, now);
+        // Rows are updated in place by quality, so the (movie, quality) key never sees a duplicate
+        Map<String, VideoResolution> previous = videoResolutionRepository.findByMovieId(movieId).stream()
+                .collect(Collectors.toMap(VideoResolution::getQuality, resolution -> resolution));
+        for (VideoResolution rendition : videoResolutionRepository.findByMovieId(donor.getId())) {
+            String quality = rendition.getQuality();
+            VideoResolution copy = previous.remove(quality);
+            if (copy == null) {
+                copy = VideoResolution.builder().movie(movie).quality(quality).build();
+            }
+            copy.setWidth(rendition.getWidth());
+            copy.setHeight(rendition.getHeight());
+            copy.setBitrate(rendition.getBitrate());
+            copy.setVideoFormat(rendition.getVideoFormat());
+            copy.setFileSizeBytes(rendition.getFileSizeBytes());
+            copy.setEncodingStatus(rendition.getEncodingStatus());
+            copy.setEncodingProgress(rendition.getEncodingProgress());
+            copy.setIsAvailable(rendition.getIsAvailable());
+            copy.setVideoUrl(rendition.getVideoUrl() == null ? null
+                    : fileUploadService.buildPublicVideoUrl(movieId, String.format("%s_%s.mp4", movieId, quality)));
+            copy.setPlaylistUrl(rendition.getPlaylistUrl() == null ? null
+                    : fileUploadService.buildPublicHlsUrl(movieId, MediaReferences.filenameOf(rendition.getPlaylistUrl())));
+            videoResolutionRepository.save(copy);
+        }
+        videoResolutionRepository.deleteAll(previous.values());
+
+        movie.getBitrateLadder().clear();
+        donor.getBitrateLadder().forEach(rung -> movie.getBitrateLadder().add(new BitrateRung(
+                rung.getQuality(), rung.getWidth(), rung.getHeight(), rung.getBitrateKbps())));
+        movie.setContentComplexity(donor.getContentComplexity());
+        movie.setAvailableQualities(new ArrayList<>(donor.getAvailableQualities()));
+        movie.setStreamingUrl(donor.getStreamingUrl() == null ? null
+                : fileUploadService.buildPublicHlsUrl(movieId, MediaReferences.filenameOf(donor.getStreamingUrl())));
+        movie.setThumbnailTrackUrl(donor.getThumbnailTrackUrl() == null ? null
+                : fileUploadService.buildPublicTrickplayUrl(movieId, MediaReferences.filenameOf(donor.getThumbnailTrackUrl())));
+        movie.setSourceContentHash(contentHash);
+
+        if (source.isDeleteLocalOnCompletion()) {
+            deleteQuietly(source.getLocalPath());
+        }
+        TranscodingJob job = transcodingJobRepository.save(TranscodingJob.builder()
+                .movieId(movieId)
+                .sourcePath(source.getLocalPath().toAbsolutePath().toString())
+                .originalFilename(source.getOriginalFilename())
+                .storedFilename(source.getStoredFilename())
+                .contentHash(contentHash)
+                .priority(priority)
+                .maxAttempts(maxAttempts)
+                .status(TranscodingJob.JobStatus.COMPLETED)
+                .availableAt(now)
+                .startedAt(now)
+                .finishedAt(now)
+                .deleteSourceOnCompletion(source.isDeleteLocalOnCompletion())
+                .build());
+        log.info("Movie {} reuses the renditions of movie {} (same source, sha256 {}); not transcoding it",
+                movieId, donor.getId(), contentHash);
+        return job;
+    }
+
+    // Every rendition of the movie is encoded and was encoded from content with this hash
+    private boolean hasRenditionsOf(Movie movie, String contentHash) {
+        if (contentHash == null || !contentHash.equals(movie.getSourceContentHash())) {
+            return false;
+        }
+        List<VideoResolution> resolutions = videoResolutionRepository.findByMovieId(movie.getId());
+        return !resolutions.isEmpty() && resolutions.stream()
+                .allMatch(resolution -> "COMPLETED".equals(resolution.getEncodingStatus()));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (Exception e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private boolean isOwnedRunning(TranscodingJob job) {
+        return job.getStatus() == TranscodingJob.JobStatus.RUNNING && nodeId.equals(job.getLeaseOwner());
+    }
+
+    // The fence of a run's rendition writes; locks the job row for the rest of the write's transaction
+    boolean isCurrentRun(TranscodingJob claimed) {
+        return transcodingJobRepository.lockById(claimed.getId())
+                .filter(job -> isRunOf(job, claimed))
+                .isPresent();
+    }
+
+    private boolean isRunOf(TranscodingJob job, TranscodingJob claimed) {
+        return isOwnedRunning(job) && Objects.equals(job.getAttempts(), claimed.getAttempts());
+    }
+
+    // Released within the window or not yet released; without a release date, this year's titles count
+    private boolean isNewRelease(LocalDate releaseDate, Integer year, LocalDate today) {
+        if (releaseDate != null) {
+            return !releaseDate.isBefore(today.minusDays(newReleaseDays));
+        }
+        return year != null && year >= today.getYear();
+    }
+
+    private boolean hasHeadroom() {
+        double load = systemCpuLoad();
+        return load < 0 || load < maxCpuLoad;
+    }
+
+    // Recent CPU usage of the whole machine (or container) between 0 and 1; negative when unavailable
+    private static double systemCpuLoad() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof OperatingSystemMXBean os) {
+            return os.getCpuLoad();
+        }
+        return -1;
+    }
+
+    private static String firstFailure(VideoProcessingResult result) {
+        if (!result.isSuccess()) {
+            return result.getErrorMessage() != null ? result.getErrorMessage() : result.getMessage();
+        }
+        if (result.getProcessedVideos() == null) {
+            return null;
+        }
+        return result.getProcessedVideos().stream()
+                .filter(video -> !video.isSuccess())
+                .map(video -> video.getQuality() + ": " + video.getErrorMessage())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private TranscodingDTOs.JobSummary toSummary(TranscodingJob job) {
+        return TranscodingDTOs.JobSummary.builder()
+                .id(job.getId())
+                .movieId(job.getMovieId())
+                .status(job.getStatus().name())
+                .priority(job.getPriority())
+                .attempts(job.getAttempts())
+                .maxAttempts(job.getMaxAttempts())
+                .leaseOwner(job.getLeaseOwner())
+                .availableAt(job.getAvailableAt())
+                .heartbeatAt(job.getHeartbeatAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .createdAt(job.getCreatedAt())
+                .lastError(job.getLastError())
+                .deferred(job.getStatus() == TranscodingJob.JobStatus.QUEUED
+                        && job.getAvailableAt() != null && job.getAvailableAt().isAfter(LocalDateTime.now()))
+                .build();
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
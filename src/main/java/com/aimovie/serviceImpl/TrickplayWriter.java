@@ -0,0 +1,172 @@
+package com.aimovie.serviceImpl;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds seek-preview ("trickplay") assets: one thumbnail every {@code intervalSeconds}, tiled
+ * into JPEG sprite sheets, plus a WebVTT track whose cues point at a tile with a
+ * {@code #xywh=} media fragment. The player fetches a handful of cacheable sheets instead of
+ * seeking into the video. Cue URLs are relative, so the track works wherever the directory is
+ * served from.
+ *
+ * Not thread-safe; fed from a single consumer of the shared decode.
+ */
+final class TrickplayWriter {
+
+    static final String TRACK_FILENAME = "thumbnails.vtt";
+
+    private final Path directory;
+    private final int intervalSeconds;
+    private final int thumbnailWidth;
+    private final int columns;
+    private final int rows;
+    private final float jpegQuality;
+
+    private final List<Path> files = new ArrayList<>();
+    private final StringBuilder track = new StringBuilder("WEBVTT\n\n");
+    private BufferedImage sheet;
+    private int thumbnailHeight;
+    private int thumbnailCount;
+    private boolean completed;
+
+    TrickplayWriter(Path directory, int intervalSeconds, int thumbnailWidth, int columns, int rows, float jpegQuality) {
+        this.directory = directory;
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.thumbnailWidth = thumbnailWidth;
+        this.columns = Math.max(1, columns);
+        this.rows = Math.max(1, rows);
+        this.jpegQuality = jpegQuality;
+    }
+
+    // Whether the frame at this offset from the start of the video should become the next thumbnail
+    boolean wants(long offsetMicros) {
+        return offsetMicros >= (long) thumbnailCount * intervalSeconds * 1_000_000L;
+    }
+
+    void add(BufferedImage frame) throws IOException {
+        if (thumbnailHeight == 0) {
+            // Source aspect ratio, rounded down to an even height like the video renditions
+            thumbnailHeight = Math.max(2, (int) Math.round((double) frame.getHeight() * thumbnailWidth / frame.getWidth()) & ~1);
+            Files.createDirectories(directory);
+        }
+        int perSheet = columns * rows;
+        int tile = thumbnailCount % perSheet;
+        if (tile == 0) {
+            sheet = new BufferedImage(columns * thumbnailWidth, rows * thumbnailHeight, BufferedImage.TYPE_INT_RGB);
+        }
+        int x = (tile % columns) * thumbnailWidth;
+        int y = (tile / columns) * thumbnailHeight;
+
+        Graphics2D graphics = sheet.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(frame, x, y, thumbnailWidth, thumbnailHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        long start = (long) thumbnailCount * intervalSeconds;
+        track.append(timestamp(start)).append(" --> ").append(timestamp(start + intervalSeconds)).append('\n')
+                .append(sheetFilename(thumbnailCount / perSheet))
+                .append("#xywh=").append(x).append(',').append(y).append(',')
+                .append(thumbnailWidth).append(',').append(thumbnailHeight).append("\n\n");
+        thumbnailCount++;
+
+        if (thumbnailCount % perSheet == 0) {
+            writeSheet();
+        }
+    }
+
+    // Writes the partially filled last sheet and the track; call only once the whole source was decoded
+    void finish() throws IOException {
+        if (thumbnailCount == 0) {
+            return;
+        }
+        if (sheet != null) {
+            writeSheet();
+        }
+        Path trackPath = directory.resolve(TRACK_FILENAME);
+        Files.writeString(trackPath, track.toString());
+        files.add(trackPath);
+        completed = true;
+    }
+
+    boolean isCompleted() {
+        return completed;
+    }
+
+    // Every file written, sheets before the track that references them, so they can be published in order
+    List<Path> getFiles() {
+        return List.copyOf(files);
+    }
+
+    int getThumbnailCount() {
+        return thumbnailCount;
+    }
+
+    long getIntervalMicros() {
+        return intervalSeconds * 1_000_000L;
+    }
+
+    int getThumbnailWidth() {
+        return thumbnailWidth;
+    }
+
+    // Small private copy of a frame, for collecting thumbnails out of order before they are added
+    static BufferedImage downscale(BufferedImage frame, int width) {
+        int height = Math.max(1, (int) Math.round((double) frame.getHeight() * width / frame.getWidth()));
+        BufferedImage copy = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = copy.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(frame, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return copy;
+    }
+
+    private void writeSheet() throws IOException {
+        int perSheet = columns * rows;
+        int index = (thumbnailCount - 1) / perSheet;
+        int used = thumbnailCount - index * perSheet;
+        // Crop unused rows off the last sheet
+        int usedRows = (used + columns - 1) / columns;
+        BufferedImage image = usedRows < rows ? sheet.getSubimage(0, 0, sheet.getWidth(), usedRows * thumbnailHeight) : sheet;
+
+        Path path = directory.resolve(sheetFilename(index));
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(path.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        files.add(path);
+        sheet = null;
+    }
+
+    static String sheetFilename(int index) {
+        return String.format("sprite_%03d.jpg", index);
+    }
+
+    // WebVTT cue timestamp, HH:MM:SS.mmm
+    static String timestamp(long seconds) {
+        return String.format("%02d:%02d:%02d.000", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+    }
+}
@@ -7,8 +7,12 @@ import com.aimovie.dto.VideoResolutionDTOs.AvailableResolutionResponse;
 import com.aimovie.entity.*;
 import com.aimovie.repository.*;
 import com.aimovie.entity.WatchlistCollection;
+import com.aimovie.service.AdminStatsCache;
+import com.aimovie.service.MovieSearchIndex;
 import com.aimovie.service.UserFeatureService;
 import com.aimovie.service.VideoResolutionService;
+import com.aimovie.service.ViewCountBufferService;
+import com.aimovie.service.WatchProgressBufferService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -23,7 +27,11 @@ import org.springframework.scheduling.annotation.Scheduled;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -44,10 +52,14 @@ public class UserFeatureServiceImpl implements UserFeatureService {
     private final FavoriteRepository favoriteRepository;
     private final WatchlistRepository watchlistRepository;
     private final WatchlistCollectionRepository watchlistCollectionRepository;
+    private final ViewCountBufferService viewCountBufferService;
     private final SubtitleRepository subtitleRepository;
     private final VideoResolutionRepository videoResolutionRepository;
     private final PasswordEncoder passwordEncoder;
     private final VideoResolutionService videoResolutionService;
+    private final WatchProgressBufferService watchProgressBufferService;
+    private final MovieSearchIndex movieSearchIndex;
+    private final AdminStatsCache adminStatsCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -149,6 +161,7 @@ public class UserFeatureServiceImpl implements UserFeatureService {
                     .build();
             
             newUser = userRepository.save(newUser);
+            adminStatsCache.invalidateAll();
             return convertToUserProfileDTO(newUser);
         }
     }
@@ -191,6 +204,9 @@ public class UserFeatureServiceImpl implements UserFeatureService {
 
     @Override
     public WatchHistoryDTO updateWatchHistory(Long userId, WatchHistoryUpdateRequest request) {
+        // This full update supersedes any heartbeat still waiting in the write-behind buffer
+        watchProgressBufferService.discardPendingProgress(userId, request.getMovieId());
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         
@@ -236,6 +252,7 @@ public class UserFeatureServiceImpl implements UserFeatureService {
         Movie movie = movieRepository.findById(movieId)
                 .orElseThrow(() -> new RuntimeException("Movie not found with id: " + movieId));
         
+        watchProgressBufferService.discardPendingProgress(userId, movieId);
         watchHistoryRepository.findByUserAndMovie(user, movie)
                 .ifPresent(watchHistoryRepository::delete);
     }
@@ -245,6 +262,7 @@ public class UserFeatureServiceImpl implements UserFeatureService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         
+        watchProgressBufferService.discardPendingProgressForUser(userId);
         watchHistoryRepository.deleteByUser(user);
     }
 
@@ -418,7 +436,9 @@ public class UserFeatureServiceImpl implements UserFeatureService {
         Optional<WatchHistory> watchHistory = (user != null)
                 ? watchHistoryRepository.findByUserAndMovie(user, movie)
                 : Optional.empty();
-        Integer resumeTime = watchHistory.map(WatchHistory::getWatchDurationSeconds).orElse(0);
+        Optional<PendingWatchProgress> pendingProgress = watchProgressBufferService.getPendingProgress(userId, movieId);
+        Integer resumeTime = pendingProgress.map(PendingWatchProgress::getWatchDurationSeconds)
+                .orElseGet(() -> watchHistory.map(WatchHistory::getWatchDurationSeconds).orElse(0));
         
         // Get subtitles
         List<SubtitleDTO> subtitles = getMovieSubtitles(movieId);
@@ -438,10 +458,12 @@ public class UserFeatureServiceImpl implements UserFeatureService {
                 .ageRating(movie.getAgeRating())
                 .imdbRating(movie.getImdbRating())
                 .averageRating(movie.getAverageRating())
-                .viewCount(movie.getViewCount())
+                .viewCount((movie.getViewCount() != null ? movie.getViewCount() : 0L)
+                        + viewCountBufferService.getPendingViews(movie.getId()))
                 .posterUrl(movie.getPosterUrl())
                 .trailerUrl(movie.getTrailerUrl())
                 .availableQualities(movie.getAvailableQualities())
+                .thumbnailTrackUrl(movie.getThumbnailTrackUrl())
                 .subtitles(subtitles)
                 .downloadEnabled(movie.getDownloadEnabled())
                 .maxDownloadQuality(movie.getMaxDownloadQuality())
@@ -469,9 +491,8 @@ public class UserFeatureServiceImpl implements UserFeatureService {
         Movie movie = movieRepository.findById(request.getMovieId())
                 .orElseThrow(() -> new RuntimeException("Movie not found with id: " + request.getMovieId()));
         
-        movie.setViewCount(movie.getViewCount() + 1);
-        movieRepository.save(movie);
-        
+        viewCountBufferService.recordView(movie.getId());
+
         List<String> availableQualities = resolveAvailableQualities(movie);
         String chosenQuality = resolveRequestedQuality(availableQualities, request.getQuality());
 
@@ -511,8 +532,12 @@ public class UserFeatureServiceImpl implements UserFeatureService {
                 ? watchHistoryRepository.findByUserAndMovie(user, movie)
                 : Optional.empty();
 
-        Integer currentPosition = watchHistory.map(WatchHistory::getWatchDurationSeconds).orElse(0);
-        Boolean isCompleted = watchHistory.map(WatchHistory::getIsCompleted).orElse(false);
+        // Heartbeats not yet flushed are newer than the stored row
+        Optional<PendingWatchProgress> pendingProgress = watchProgressBufferService.getPendingProgress(userId, movie.getId());
+        Integer currentPosition = pendingProgress.map(PendingWatchProgress::getWatchDurationSeconds)
+                .orElseGet(() -> watchHistory.map(WatchHistory::getWatchDurationSeconds).orElse(0));
+        Boolean isCompleted = pendingProgress.map(PendingWatchProgress::getIsCompleted)
+                .orElseGet(() -> watchHistory.map(WatchHistory::getIsCompleted).orElse(false));
 
         return StreamingResponse.builder()
                 .movieId(movie.getId())
@@ -540,55 +565,32 @@ public class UserFeatureServiceImpl implements UserFeatureService {
 
     @Override
     public void updateStreamingProgress(Long userId, Long movieId, Integer currentTime, Integer totalTime) {
-        WatchHistoryUpdateRequest request = WatchHistoryUpdateRequest.builder()
-                .movieId(movieId)
-                .watchDurationSeconds(currentTime)
-                .totalDurationSeconds(totalTime)
-                .build();
-        
-        updateWatchHistory(userId, request);
+        if (userId == null) {
+            throw new RuntimeException("User must be logged in to track streaming progress");
+        }
+        // Heartbeats are coalesced in memory and flushed to watch_history in batches
+        watchProgressBufferService.recordProgress(userId, movieId, currentTime, totalTime);
     }
 
     @Override
     @Transactional(readOnly = true)
     public SearchResultDTO searchMovies(Long userId, SearchRequest request) {
         try {
-            Pageable pageable = PageRequest.of(0, request.getSize() != null ? request.getSize() : 20);
-            Page<Movie> moviePage;
-
-            LocalDate today = LocalDate.now();
-            
-            if (request.getQuery() != null && !request.getQuery().trim().isEmpty()) {
-                moviePage = movieRepository.findByTitleOrSynopsisContainingIgnoreCaseAndReleased(
-                    request.getQuery(), request.getQuery(), today, pageable);
-            } else if (request.getActors() != null && !request.getActors().isEmpty()) {
-                moviePage = movieRepository.findByActorsLikeIgnoreCaseAndReleased(
-                    request.getActors().get(0), today, pageable);
-            } else if (request.getDirectors() != null && !request.getDirectors().isEmpty()) {
-                moviePage = movieRepository.findByDirectorNameContainingIgnoreCaseAndReleased(
-                    request.getDirectors().get(0), today, pageable);
-            } else if (request.getYearFrom() != null && request.getYearTo() != null) {
-                moviePage = movieRepository.findByYearBetweenAndReleased(
-                    request.getYearFrom(), request.getYearTo(), today, pageable);
-            } else if (request.getMinRating() != null || request.getMaxRating() != null) {
-                double minRating = request.getMinRating() != null ? request.getMinRating() : 0.0;
-                double maxRating = request.getMaxRating() != null ? request.getMaxRating() : 10.0;
-                moviePage = movieRepository.findByAverageRatingBetweenAndReleased(minRating, maxRating, today, pageable);
-            } else {
-                moviePage = movieRepository.findByIsAvailableTrueAndReleased(today, pageable);
-            }
-
-            List<MovieSearchDTO> movies = moviePage.getContent().stream()
-                    .map(movie -> convertToMovieSearchDTO(movie, userId))
-                    .collect(Collectors.toList());
+            // The index resolves all filters together; the database only loads the page it returns
+            MovieSearchIndex.SearchHits hits = movieSearchIndex.search(request);
+            List<MovieSearchDTO> movies = convertToMovieSearchDTOs(findMoviesInOrder(hits.movieIds()), userId);
+            int totalPages = (int) ((hits.totalHits() + hits.size() - 1) / hits.size());
 
             return SearchResultDTO.builder()
                     .movies(movies)
-                    .totalElements(moviePage.getTotalElements())
-                    .totalPages(moviePage.getTotalPages())
-                    .currentPage(0)
+                    .totalElements(hits.totalHits())
+                    .totalPages(totalPages)
+                    .currentPage(hits.page())
                     .size(movies.size())
+                    .hasNext(hits.page() + 1 < totalPages)
+                    .hasPrevious(hits.page() > 0)
                     .searchQuery(request.getQuery())
+                    .facets(hits.facets())
                     .build();
         } catch (Exception e) {
             log.error("Error searching movies", e);
@@ -603,44 +605,45 @@ public class UserFeatureServiceImpl implements UserFeatureService {
         }
     }
 
+    private List<Movie> findMoviesInOrder(List<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Movie> moviesById = movieRepository.findByIdIn(movieIds).stream()
+                .collect(Collectors.toMap(Movie::getId, movie -> movie));
+        // A movie deleted since it was indexed is simply skipped
+        return movieIds.stream()
+                .map(moviesById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<MovieSearchDTO> getTrendingMovies(Long userId, int limit) {
-        return movieRepository.findTrendingNowShowing(LocalDate.now(), PageRequest.of(0, limit))
-                .getContent()
-                .stream()
-                .map(movie -> convertToMovieSearchDTO(movie, userId))
-                .collect(Collectors.toList());
+        return convertToMovieSearchDTOs(movieRepository.findTrendingNowShowing(LocalDate.now(), PageRequest.of(0, limit))
+                .getContent(), userId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<MovieSearchDTO> getFeaturedMovies(Long userId, int limit) {
-        return movieRepository.findByIsFeaturedTrueAndIsAvailableTrueAndReleased(LocalDate.now(), PageRequest.of(0, limit))
-                .getContent()
-                .stream()
-                .map(movie -> convertToMovieSearchDTO(movie, userId))
-                .collect(Collectors.toList());
+        return convertToMovieSearchDTOs(movieRepository.findByIsFeaturedTrueAndIsAvailableTrueAndReleased(LocalDate.now(), PageRequest.of(0, limit))
+                .getContent(), userId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<MovieSearchDTO> getUpcomingMovies(int limit) {
-        return movieRepository.findUpcomingByReleaseDate(LocalDate.now(), PageRequest.of(0, limit))
-                .getContent()
-                .stream()
-                .map(movie -> convertToMovieSearchDTO(movie, null))
-                .collect(Collectors.toList());
+        return convertToMovieSearchDTOs(movieRepository.findUpcomingByReleaseDate(LocalDate.now(), PageRequest.of(0, limit))
+                .getContent(), null);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<MovieSearchDTO> getNowShowingMovies(int limit) {
-        return movieRepository.findNowShowingByReleaseDate(LocalDate.now(), PageRequest.of(0, limit))
-                .getContent()
-                .stream()
-                .map(movie -> convertToMovieSearchDTO(movie, null))
-                .collect(Collectors.toList());
+        return convertToMovieSearchDTOs(movieRepository.findNowShowingByReleaseDate(LocalDate.now(), PageRequest.of(0, limit))
+                .getContent(), null);
     }
 
     @Override
@@ -689,6 +692,29 @@ public class UserFeatureServiceImpl implements UserFeatureService {
         return categories;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<CategoryDTO> withUserMovieFlags(Long userId, List<CategoryDTO> rails) {
+        List<Long> movieIds = rails.stream()
+                .flatMap(rail -> rail.getMovies().stream())
+                .map(MovieSearchDTO::getId)
+                .distinct()
+                .toList();
+        UserMovieFlags flags = resolveUserMovieFlags(userId, movieIds);
+
+        // Copies, so the shared snapshot the rails came from is never mutated
+        return rails.stream()
+                .map(rail -> rail.toBuilder()
+                        .movies(rail.getMovies().stream()
+                                .map(movie -> movie.toBuilder()
+                                        .isInWatchlist(flags.watchlistMovieIds().contains(movie.getId()))
+                                        .isFavorite(flags.favoriteMovieIds().contains(movie.getId()))
+                                        .build())
+                                .collect(Collectors.toList()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     @Override
     public DownloadResponse requestDownload(Long userId, DownloadRequest request) {
         return DownloadResponse.builder()
@@ -815,16 +841,16 @@ public class UserFeatureServiceImpl implements UserFeatureService {
 
         if (normalized.equals("featured")) {
             Page<Movie> page = movieRepository.findByIsFeaturedTrueAndIsAvailableTrueAndReleased(today, pageable);
-            return page.map(movie -> convertToMovieSearchDTO(movie, null));
+            return page.map(movie -> convertToMovieSearchDTO(movie, UserMovieFlags.NONE));
         }
         if (normalized.equals("trending")) {
             Page<Movie> page = movieRepository.findTrendingNowShowing(today, pageable);
-            return page.map(movie -> convertToMovieSearchDTO(movie, null));
+            return page.map(movie -> convertToMovieSearchDTO(movie, UserMovieFlags.NONE));
         }
         if (normalized.equals("new")) {
             Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("releaseDate").descending().and(Sort.by("createdAt").descending()));
             Page<Movie> page = movieRepository.findByIsAvailableTrueAndReleased(today, sorted);
-            return page.map(movie -> convertToMovieSearchDTO(movie, null));
+            return page.map(movie -> convertToMovieSearchDTO(movie, UserMovieFlags.NONE));
         }
 
         // Genres removed, return empty page
@@ -843,7 +869,7 @@ public class UserFeatureServiceImpl implements UserFeatureService {
 
         if (normalized.equals("featured")) {
             Page<Movie> page = movieRepository.findByIsFeaturedTrueAndIsAvailableTrueAndReleased(today, PageRequest.of(0, 12));
-            List<MovieSearchDTO> movies = page.getContent().stream().map(m -> convertToMovieSearchDTO(m, null)).toList();
+            List<MovieSearchDTO> movies = convertToMovieSearchDTOs(page.getContent(), null);
             return CategoryDTO.builder()
                     .name("featured")
                     .displayName("Featured")
@@ -854,7 +880,7 @@ public class UserFeatureServiceImpl implements UserFeatureService {
         }
         if (normalized.equals("trending")) {
             Page<Movie> page = movieRepository.findTrendingNowShowing(today, PageRequest.of(0, 12));
-            List<MovieSearchDTO> movies = page.getContent().stream().map(m -> convertToMovieSearchDTO(m, null)).toList();
+            List<MovieSearchDTO> movies = convertToMovieSearchDTOs(page.getContent(), null);
             return CategoryDTO.builder()
                     .name("trending")
                     .displayName("Trending")
@@ -865,7 +891,7 @@ public class UserFeatureServiceImpl implements UserFeatureService {
         }
         if (normalized.equals("new")) {
             Page<Movie> page = movieRepository.findByIsAvailableTrueAndReleased(today, PageRequest.of(0, 12, Sort.by("releaseDate").descending().and(Sort.by("createdAt").descending())));
-            List<MovieSearchDTO> movies = page.getContent().stream().map(m -> convertToMovieSearchDTO(m, null)).toList();
+            List<MovieSearchDTO> movies = convertToMovieSearchDTOs(page.getContent(), null);
             return CategoryDTO.builder()
                     .name("new")
                     .displayName("New Releases")
@@ -893,6 +919,12 @@ public class UserFeatureServiceImpl implements UserFeatureService {
     private String getStreamingUrl(Movie movie, String quality) {
         log.info("Getting streaming URL for movie {} with quality {}", movie.getId(), quality);
         
+        // An HLS master playlist lets the player switch quality per segment, so it wins over single files
+        if (movie.getStreamingUrl() != null && movie.getStreamingUrl().endsWith(".m3u8")) {
+            log.info("Using HLS master playlist for movie {}: {}", movie.getId(), movie.getStreamingUrl());
+            return movie.getStreamingUrl();
+        }
+        
         String directUrl = normalizeStoredVideoPath(movie.getVideoUrl(), movie.getId());
         if (directUrl != null) {
             log.info("Using original video URL for movie {}: {}", movie.getId(), directUrl);
@@ -1114,7 +1146,31 @@ public class UserFeatureServiceImpl implements UserFeatureService {
                 .build();
     }
 
-    private MovieSearchDTO convertToMovieSearchDTO(Movie movie, Long userId) {
+    /**
+     * Converts a page of movies, resolving the user's watchlist and favorite flags for the
+     * whole page with two set queries instead of two lookups per movie.
+     */
+    private List<MovieSearchDTO> convertToMovieSearchDTOs(List<Movie> movies, Long userId) {
+        UserMovieFlags flags = resolveUserMovieFlags(userId, movies);
+        return movies.stream()
+                .map(movie -> convertToMovieSearchDTO(movie, flags))
+                .collect(Collectors.toList());
+    }
+
+    private UserMovieFlags resolveUserMovieFlags(Long userId, List<Movie> movies) {
+        return resolveUserMovieFlags(userId, movies.stream().map(Movie::getId).toList());
+    }
+
+    private UserMovieFlags resolveUserMovieFlags(Long userId, Collection<Long> movieIds) {
+        if (userId == null || movieIds.isEmpty()) {
+            return UserMovieFlags.NONE;
+        }
+        return new UserMovieFlags(
+                new HashSet<>(watchlistRepository.findWatchlistMovieIdsByUserIdAndMovieIdIn(userId, movieIds)),
+                new HashSet<>(favoriteRepository.findFavoriteMovieIdsByUserIdAndMovieIdIn(userId, movieIds)));
+    }
+
+    private MovieSearchDTO convertToMovieSearchDTO(Movie movie, UserMovieFlags flags) {
         return MovieSearchDTO.builder()
                 .id(movie.getId())
                 .title(movie.getTitle())
@@ -1134,11 +1190,15 @@ public class UserFeatureServiceImpl implements UserFeatureService {
                 .isFeatured(movie.getIsFeatured())
                 .isTrending(movie.getIsTrending())
                 .releaseDate(movie.getReleaseDate())
-                .isInWatchlist(isInWatchlist(userId, movie.getId()))
-                .isFavorite(isFavorite(userId, movie.getId()))
+                .isInWatchlist(flags.watchlistMovieIds().contains(movie.getId()))
+                .isFavorite(flags.favoriteMovieIds().contains(movie.getId()))
                 .build();
     }
 
+    private record UserMovieFlags(Set<Long> watchlistMovieIds, Set<Long> favoriteMovieIds) {
+        static final UserMovieFlags NONE = new UserMovieFlags(Set.of(), Set.of());
+    }
+
     // Video Resolution Management
     @Override
     @Transactional(readOnly = true)
@@ -1211,10 +1271,7 @@ public class UserFeatureServiceImpl implements UserFeatureService {
     @Transactional(readOnly = true)
     public List<MovieSearchDTO> getNewMovies(Long userId, int limit) {
         Pageable pageable = PageRequest.of(0, limit, Sort.by("releaseDate").descending().and(Sort.by("createdAt").descending()));
-        return movieRepository.findByIsAvailableTrueAndReleased(LocalDate.now(), pageable)
-                .getContent()
-                .stream()
-                .map(movie -> convertToMovieSearchDTO(movie, userId))
-                .collect(Collectors.toList());
+        return convertToMovieSearchDTOs(movieRepository.findByIsAvailableTrueAndReleased(LocalDate.now(), pageable)
+                .getContent(), userId);
     }
 }
@@ -239,6 +239,7 @@ public class VideoResolutionServiceImpl implements VideoResolutionService {
                 .width(videoResolution.getWidth())
                 .height(videoResolution.getHeight())
                 .videoUrl(videoResolution.getVideoUrl())
+                .playlistUrl(videoResolution.getPlaylistUrl())
                 .videoFormat(videoResolution.getVideoFormat())
                 .fileSizeBytes(videoResolution.getFileSizeBytes())
                 .bitrate(videoResolution.getBitrate())
@@ -255,6 +256,7 @@ public class VideoResolutionServiceImpl implements VideoResolutionService {
                 .width(videoResolution.getWidth())
                 .height(videoResolution.getHeight())
                 .videoUrl(videoResolution.getVideoUrl())
+                .playlistUrl(videoResolution.getPlaylistUrl())
                 .videoFormat(videoResolution.getVideoFormat())
                 .fileSizeBytes(videoResolution.getFileSizeBytes())
                 .bitrate(videoResolution.getBitrate())
@@ -0,0 +1,86 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.repository.ViewCountBatchRepository;
+import com.aimovie.service.ViewCountBufferService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind view counter. Each movie gets a LongAdder, whose striped cells keep a premiere
+ * spike on one title from contending on a single counter or row lock. The adders are drained
+ * into relative JDBC batch updates on a fixed interval and once more on shutdown.
+ *
+ * Adders are never removed from the map: a thread may still hold one it looked up, and an
+ * increment on a removed adder would be lost. The map is bounded by the number of titles played.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ViewCountBufferServiceImpl implements ViewCountBufferService {
+
+    private final ViewCountBatchRepository viewCountBatchRepository;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Value("${app.streaming.view-count.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void recordView(Long movieId) {
+        pending.computeIfAbsent(movieId, id -> new LongAdder()).increment();
+    }
+
+    @Override
+    public long getPendingViews(Long movieId) {
+        LongAdder adder = pending.get(movieId);
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.streaming.view-count.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        // sumThenReset swaps each cell to zero, so an increment racing the drain lands in this flush or the next
+        Map<Long, Long> drained = new HashMap<>();
+        pending.forEach((movieId, adder) -> {
+            long views = adder.sumThenReset();
+            if (views != 0) {
+                drained.put(movieId, views);
+            }
+        });
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Long> movieIds = new ArrayList<>(drained.keySet());
+        for (int from = 0; from < movieIds.size(); from += batchSize) {
+            Map<Long, Long> batch = new HashMap<>();
+            for (Long movieId : movieIds.subList(from, Math.min(from + batchSize, movieIds.size()))) {
+                batch.put(movieId, drained.get(movieId));
+            }
+            try {
+                viewCountBatchRepository.incrementAll(batch);
+            } catch (Exception e) {
+                log.error("Failed to flush view counts for {} movies, re-queueing: {}", batch.size(), e.getMessage());
+                batch.forEach((movieId, views) -> pending.computeIfAbsent(movieId, id -> new LongAdder()).add(views));
+            }
+        }
+        log.debug("Flushed view counts for {} movies", drained.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        log.info("Flushing pending view counts before shutdown");
+        flush();
+    }
+}
@@ -0,0 +1,150 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.PendingWatchProgress;
+import com.aimovie.repository.WatchProgressBatchRepository;
+import com.aimovie.service.WatchProgressBufferService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind store for player heartbeats. Heartbeats for the same (user, movie) pair are
+ * coalesced in a ConcurrentHashMap (per-bin locking, so writers on different keys never
+ * contend) and written to watch_history in periodic JDBC batches, making database load a
+ * function of the flush interval rather than the number of active viewers.
+ *
+ * One bad row must not hold a whole batch hostage: when a batch is rejected by a constraint the
+ * rows are retried one by one and the ones the database refuses are dropped, and a row that
+ * keeps failing for any other reason is dropped after a bounded number of flushes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WatchProgressBufferServiceImpl implements WatchProgressBufferService {
+
+    private final WatchProgressBatchRepository watchProgressBatchRepository;
+
+    private final Map<ProgressKey, PendingWatchProgress> pending = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Value("${app.streaming.progress.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.streaming.progress.max-flush-attempts:5}")
+    private int maxFlushAttempts;
+
+    @Override
+    public void recordProgress(Long userId, Long movieId, Integer currentTime, Integer totalTime) {
+        PendingWatchProgress progress = new PendingWatchProgress(userId, movieId, currentTime, totalTime, LocalDateTime.now(), 0);
+        pending.merge(new ProgressKey(userId, movieId), progress, PendingWatchProgress::mergeNewer);
+    }
+
+    @Override
+    public Optional<PendingWatchProgress> getPendingProgress(Long userId, Long movieId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(pending.get(new ProgressKey(userId, movieId)));
+    }
+
+    @Override
+    public void discardPendingProgress(Long userId, Long movieId) {
+        pending.remove(new ProgressKey(userId, movieId));
+    }
+
+    @Override
+    public void discardPendingProgressForUser(Long userId) {
+        pending.keySet().removeIf(key -> key.userId().equals(userId));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.streaming.progress.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<PendingWatchProgress> drained = new ArrayList<>();
+        for (Map.Entry<ProgressKey, PendingWatchProgress> entry : pending.entrySet()) {
+            // Only drain the exact value we saw; a heartbeat that lands meanwhile stays for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                drained.add(entry.getValue());
+            }
+        }
+
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            List<PendingWatchProgress> batch = drained.subList(from, Math.min(from + batchSize, drained.size()));
+            try {
+                countDropped(watchProgressBatchRepository.upsertAll(batch));
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Watch progress batch of {} rejected, retrying row by row: {}", batch.size(), e.getMessage());
+                batch.forEach(this::flushOne);
+            } catch (Exception e) {
+                log.error("Failed to flush {} watch progress updates, re-queueing: {}", batch.size(), e.getMessage());
+                batch.forEach(this::requeue);
+            }
+        }
+        log.debug("Flushed {} watch progress updates", drained.size());
+    }
+
+    private void flushOne(PendingWatchProgress progress) {
+        try {
+            countDropped(watchProgressBatchRepository.upsertAll(List.of(progress)));
+        } catch (DataIntegrityViolationException e) {
+            countDropped(1);
+            log.warn("Dropping watch progress of user {} for movie {}: {}",
+                    progress.getUserId(), progress.getMovieId(), e.getMessage());
+        } catch (Exception e) {
+            requeue(progress);
+        }
+    }
+
+    private void requeue(PendingWatchProgress progress) {
+        PendingWatchProgress failed = progress.withFailedFlush();
+        if (failed.getFailedFlushes() >= maxFlushAttempts) {
+            countDropped(1);
+            log.error("Dropping watch progress of user {} for movie {} after {} failed flushes",
+                    progress.getUserId(), progress.getMovieId(), failed.getFailedFlushes());
+            return;
+        }
+        pending.merge(new ProgressKey(progress.getUserId(), progress.getMovieId()), failed,
+                (newer, older) -> older.mergeNewer(newer));
+    }
+
+    private void countDropped(int count) {
+        if (count > 0) {
+            dropped.addAndGet(count);
+        }
+    }
+
+    @Override
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        log.info("Flushing {} pending watch progress updates before shutdown", pending.size());
+        flush();
+    }
+
+    private record ProgressKey(Long userId, Long movieId) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.aimovie.service;
+
+import com.aimovie.entity.BitrateRung;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitrateLadderServiceTest {
+
+    private static final double MIN_FACTOR = 0.4;
+    private static final double MAX_FACTOR = 1.3;
+    private static final double MIN_SPACING = 1.4;
+
+    @Test
+    void typicalContentGetsReferenceLadderUpToSourceResolution() {
+        List<BitrateRung> ladder = BitrateLadderService.deriveLadder(1.0, 1080, 0, MIN_FACTOR, MAX_FACTOR, MIN_SPACING);
+
+        assertEquals(List.of("360p", "480p", "720p", "1080p"), qualities(ladder));
+        assertEquals(List.of(800, 1200, 2500, 5000), bitrates(ladder));
+    }
+
+    @Test
+    void simpleContentGetsLowerBitrates() {
+        List<BitrateRung> ladder = BitrateLadderService.deriveLadder(0.25, 1080, 0, MIN_FACTOR, MAX_FACTOR, MIN_SPACING);
+
+        // Half the reference: sqrt(0.25)
+        assertEquals(List.of(400, 600, 1250, 2500), bitrates(ladder));
+    }
+
+    @Test
+    void lowBitrateSourceCollapsesRungsThatWouldNotAddQuality() {
+        List<BitrateRung> ladder = BitrateLadderService.deriveLadder(1.0, 1440, 1500, MIN_FACTOR, MAX_FACTOR, MIN_SPACING);
+
+        // 720p and above are capped at 1500 kbps: the top one keeps the source's full resolution,
+        // and 480p at 1200 kbps would sit too close below it to be worth encoding
+        assertEquals(List.of("360p", "1440p"), qualities(ladder));
+        assertEquals(List.of(800, 1500), bitrates(ladder));
+    }
+
+    @Test
+    void sourceBelowLowestRungGetsOneRenditionAtItsOwnSize() {
+        List<BitrateRung> ladder = BitrateLadderService.deriveLadder(1.0, 240, 0, MIN_FACTOR, MAX_FACTOR, MIN_SPACING);
+
+        assertEquals(List.of("240p"), qualities(ladder));
+        assertEquals(426, ladder.get(0).getWidth());
+        assertEquals(240, ladder.get(0).getHeight());
+        assertTrue(ladder.get(0).getBitrateKbps() < 800);
+    }
+
+    @Test
+    void sourceBetweenRungsIsNeverUpscaled() {
+        List<BitrateRung> ladder = BitrateLadderService.deriveLadder(1.0, 600, 0, MIN_FACTOR, MAX_FACTOR, MIN_SPACING);
+
+        assertEquals(List.of("360p", "480p"), qualities(ladder));
+    }
+
+    @Test
+    void measuresGradientsAndMotion() {
+        byte[] flat = new byte[16];
+        byte[] stripes = new byte[16];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = (byte) (i % 2 == 0 ? 0 : 200);
+        }
+
+        assertEquals(0.0, BitrateLadderService.spatialComplexity(flat, 4, 4));
+        assertEquals(100.0, BitrateLadderService.spatialComplexity(stripes, 4, 4));
+        assertEquals(100.0, BitrateLadderService.temporalComplexity(flat, stripes));
+    }
+
+    @Test
+    void parsesQualityLabels() {
+        assertEquals(2160, BitrateLadderService.qualityHeight("4K"));
+        assertEquals(720, BitrateLadderService.qualityHeight("720p"));
+    }
+
+    private static List<String> qualities(List<BitrateRung> ladder) {
+        return ladder.stream().map(BitrateRung::getQuality).toList();
+    }
+
+    private static List<Integer> bitrates(List<BitrateRung> ladder) {
+        return ladder.stream().map(BitrateRung::getBitrateKbps).toList();
+    }
+}
@@ -0,0 +1,45 @@
+package com.aimovie.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class FileUploadServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void hashesSpooledContent() throws Exception {
+        Path spooled = Files.write(directory.resolve("upload.part"), "abc".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                FileUploadService.hashFile(spooled));
+    }
+
+    @Test
+    void hashesContentLargerThanTheReadBuffer() throws Exception {
+        byte[] content = new byte[200_000];
+        Path first = Files.write(directory.resolve("first.part"), content);
+        content[content.length - 1] = 1;
+        Path second = Files.write(directory.resolve("second.part"), content);
+
+        String sha256 = FileUploadService.hashFile(first);
+
+        assertEquals(64, sha256.length());
+        assertNotEquals(sha256, FileUploadService.hashFile(second));
+    }
+
+    @Test
+    void copiedRenditionsAreRenamedAfterTheTargetMovie() {
+        assertEquals("8_720p.mp4", FileUploadService.renditionPathFor("7_720p.mp4", 7L, 8L));
+        assertEquals("hls/720p_00001.m4s", FileUploadService.renditionPathFor("hls/720p_00001.m4s", 7L, 8L));
+        assertEquals("trickplay/thumbnails.vtt", FileUploadService.renditionPathFor("trickplay/thumbnails.vtt", 7L, 8L));
+    }
+}
@@ -0,0 +1,189 @@
+package com.aimovie.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class S3ParallelTransferTest {
+
+    private static final String BUCKET = "media";
+    private static final int PART_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryS3 store = new InMemoryS3();
+    private S3ParallelTransfer transfer;
+
+    @BeforeEach
+    void setUp() {
+        transfer = new S3ParallelTransfer(store.client, PART_SIZE, 4, 3, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transfer.close();
+    }
+
+    @Test
+    void uploadsLargeObjectInPartsAndRetriesFailedPart() throws IOException {
+        byte[] content = randomBytes(PART_SIZE * 5 + 123);
+        store.failuresBeforeSuccess.set(1);
+
+        transfer.upload(new ByteArrayInputStream(content), content.length, BUCKET, "videos/1/720p.mp4", "video/mp4");
+
+        assertArrayEquals(content, store.objects.get("videos/1/720p.mp4"));
+        assertEquals(6, store.completedPartCount.get());
+        assertTrue(store.pendingUploads.isEmpty());
+    }
+
+    @Test
+    void uploadsSmallObjectWithSinglePut() throws IOException {
+        byte[] content = randomBytes(PART_SIZE / 2);
+
+        transfer.upload(new ByteArrayInputStream(content), content.length, BUCKET, "subtitles/a.vtt", "text/vtt");
+
+        assertArrayEquals(content, store.objects.get("subtitles/a.vtt"));
+        assertEquals(0, store.completedPartCount.get());
+    }
+
+    @Test
+    void abortsUploadWhenPartExhaustsRetries() {
+        byte[] content = randomBytes(PART_SIZE * 3);
+        store.failuresBeforeSuccess.set(100);
+
+        assertThrows(IOException.class, () -> transfer.upload(
+                new ByteArrayInputStream(content), content.length, BUCKET, "videos/broken.mp4", "video/mp4"));
+        assertTrue(store.pendingUploads.isEmpty());
+        assertTrue(store.objects.isEmpty());
+    }
+
+    @Test
+    void downloadsWithParallelRanges() throws IOException {
+        byte[] content = randomBytes(PART_SIZE * 7 + 1);
+        store.objects.put("videos/2/1080p.mp4", content);
+        Path target = tempDir.resolve("out/1080p.mp4");
+
+        transfer.download(BUCKET, "videos/2/1080p.mp4", target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(8, store.rangedGets.get());
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Local S3 stand-in backed by maps, implementing just the calls the transfer engine makes.
+     */
+    private static final class InMemoryS3 {
+
+        private final S3Client client = mock(S3Client.class);
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        private final Map<String, Map<Integer, byte[]>> pendingUploads = new ConcurrentHashMap<>();
+        private final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+        private final AtomicInteger completedPartCount = new AtomicInteger();
+        private final AtomicInteger rangedGets = new AtomicInteger();
+        private final AtomicInteger uploadIds = new AtomicInteger();
+
+        private InMemoryS3() {
+            when(client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+                PutObjectRequest request = invocation.getArgument(0);
+                objects.put(request.key(), read(invocation.getArgument(1)));
+                return PutObjectResponse.builder().build();
+            });
+            when(client.createMultipartUpload(any(CreateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+                String uploadId = "upload-" + uploadIds.incrementAndGet();
+                pendingUploads.put(uploadId, new ConcurrentHashMap<>());
+                return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+            });
+            when(client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+                if (failuresBeforeSuccess.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                    throw SdkClientException.create("connection reset");
+                }
+                UploadPartRequest request = invocation.getArgument(0);
+                pendingUploads.get(request.uploadId()).put(request.partNumber(), read(invocation.getArgument(1)));
+                return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+            });
+            when(client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenAnswer(invocation -> {
+                CompleteMultipartUploadRequest request = invocation.getArgument(0);
+                Map<Integer, byte[]> parts = pendingUploads.remove(request.uploadId());
+                ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+                for (CompletedPart part : request.multipartUpload().parts()) {
+                    assembled.writeBytes(parts.get(part.partNumber()));
+                    completedPartCount.incrementAndGet();
+                }
+                objects.put(request.key(), assembled.toByteArray());
+                return CompleteMultipartUploadResponse.builder().build();
+            });
+            when(client.abortMultipartUpload(any(AbortMultipartUploadRequest.class))).thenAnswer(invocation -> {
+                AbortMultipartUploadRequest request = invocation.getArgument(0);
+                pendingUploads.remove(request.uploadId());
+                return AbortMultipartUploadResponse.builder().build();
+            });
+            when(client.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+                HeadObjectRequest request = invocation.getArgument(0);
+                return HeadObjectResponse.builder().contentLength((long) objects.get(request.key()).length).build();
+            });
+            when(client.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+                GetObjectRequest request = invocation.getArgument(0);
+                String[] range = request.range().substring("bytes=".length()).split("-");
+                byte[] object = objects.get(request.key());
+                rangedGets.incrementAndGet();
+                byte[] slice = Arrays.copyOfRange(object, Integer.parseInt(range[0]), Integer.parseInt(range[1]) + 1);
+                return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), slice);
+            });
+        }
+
+        private static byte[] read(RequestBody body) {
+            try {
+                return body.contentStreamProvider().newStream().readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
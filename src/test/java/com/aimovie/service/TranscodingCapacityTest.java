@@ -0,0 +1,32 @@
+package com.aimovie.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TranscodingCapacityTest {
+
+    @Test
+    void sizesWorkersFromSpareCores() {
+        // One core kept for requests, four per encode
+        assertEquals(3, TranscodingCapacity.autoWorkers(16, 1, 4, 32_000, 1536));
+    }
+
+    @Test
+    void sizesWorkersFromNativeMemory() {
+        assertEquals(2, TranscodingCapacity.autoWorkers(32, 1, 4, 3_500, 1536));
+    }
+
+    @Test
+    void smallMachineStillRunsOneEncode() {
+        assertEquals(1, TranscodingCapacity.autoWorkers(2, 1, 4, 512, 1536));
+        assertEquals(1, TranscodingCapacity.autoWorkers(4, 1, 4, 0, 1536));
+    }
+
+    @Test
+    void splitsSpareCoresBetweenWorkers() {
+        assertEquals(5, TranscodingCapacity.coresPerJob(16, 1, 3));
+        assertEquals(1, TranscodingCapacity.coresPerJob(2, 1, 4));
+        assertEquals(1, TranscodingCapacity.coresPerJob(1, 1, 1));
+    }
+}
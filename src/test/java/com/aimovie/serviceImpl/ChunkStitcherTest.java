@@ -0,0 +1,120 @@
+package com.aimovie.serviceImpl;
+
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.Frame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkStitcherTest {
+
+    private static final int FRAME_RATE = 25;
+    private static final int FRAMES_PER_CHUNK = 50;
+    private static final long FRAME_MICROS = 1_000_000L / FRAME_RATE;
+    private static final int SAMPLE_RATE = 44100;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void listsChunksInOrderWithQuotedPaths() {
+        String list = ChunkStitcher.concatList(List.of(Path.of("/tmp/chunks/720p_00000.mp4"),
+                Path.of("/tmp/movie's chunks/720p_00001.mp4")));
+
+        assertEquals("ffconcat version 1.0\n"
+                + "file '/tmp/chunks/720p_00000.mp4'\n"
+                + "file '/tmp/movie'\\''s chunks/720p_00001.mp4'\n", list);
+    }
+
+    @Test
+    void stitchedVideoRunsContinuouslyAcrossChunksWithTheAudio() throws Exception {
+        List<Path> chunks = List.of(dir.resolve("360p_00000.mp4"), dir.resolve("360p_00001.mp4"),
+                dir.resolve("360p_00002.mp4"));
+        for (Path chunk : chunks) {
+            writeVideoChunk(chunk);
+        }
+        double seconds = (double) chunks.size() * FRAMES_PER_CHUNK / FRAME_RATE;
+        Path audio = dir.resolve("audio.m4a");
+        writeAudio(audio, seconds);
+        Path output = dir.resolve("movie_360p.mp4");
+
+        ChunkStitcher.stitch(chunks, audio, output);
+
+        List<Long> videoTimestamps = new ArrayList<>();
+        long lastAudioTimestamp = -1;
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(output.toFile())) {
+            grabber.start();
+            assertTrue(grabber.getAudioChannels() > 0, "the audio track was muxed in");
+            Frame frame;
+            while ((frame = grabber.grab()) != null) {
+                if (frame.image != null) {
+                    videoTimestamps.add(frame.timestamp);
+                } else if (frame.samples != null) {
+                    lastAudioTimestamp = frame.timestamp;
+                }
+            }
+            grabber.stop();
+        }
+
+        assertEquals(chunks.size() * FRAMES_PER_CHUNK, videoTimestamps.size());
+        for (int i = 1; i < videoTimestamps.size(); i++) {
+            long gap = videoTimestamps.get(i) - videoTimestamps.get(i - 1);
+            // No reset or jump at a chunk boundary, just one frame after the other
+            assertTrue(gap > 0 && gap <= FRAME_MICROS * 3 / 2,
+                    "gap of " + gap + "us before frame " + i);
+        }
+        long videoSpan = videoTimestamps.get(videoTimestamps.size() - 1) - videoTimestamps.get(0);
+        assertEquals((videoTimestamps.size() - 1) * FRAME_MICROS, videoSpan, FRAME_MICROS);
+        // The audio plays to the end of the picture
+        assertTrue(lastAudioTimestamp >= (long) ((seconds - 0.1) * 1_000_000), "audio ends at " + lastAudioTimestamp);
+    }
+
+    private static void writeVideoChunk(Path path) throws Exception {
+        try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(path.toFile(), 160, 90, 0)) {
+            recorder.setFormat("mp4");
+            recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
+            recorder.setFrameRate(FRAME_RATE);
+            recorder.start();
+            Frame frame = new Frame(160, 90, Frame.DEPTH_UBYTE, 3);
+            ByteBuffer pixels = (ByteBuffer) frame.image[0];
+            for (int i = 0; i < FRAMES_PER_CHUNK; i++) {
+                byte[] fill = new byte[pixels.capacity()];
+                Arrays.fill(fill, (byte) (i * 5));
+                pixels.clear();
+                pixels.put(fill);
+                pixels.flip();
+                recorder.record(frame);
+            }
+            recorder.stop();
+        }
+    }
+
+    private static void writeAudio(Path path, double seconds) throws Exception {
+        try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(path.toFile(), 1)) {
+            recorder.setFormat("mp4");
+            recorder.setAudioCodec(avcodec.AV_CODEC_ID_AAC);
+            recorder.setSampleRate(SAMPLE_RATE);
+            recorder.start();
+            int total = (int) (seconds * SAMPLE_RATE);
+            for (int written = 0; written < total; written += 1024) {
+                short[] block = new short[Math.min(1024, total - written)];
+                for (int i = 0; i < block.length; i++) {
+                    block[i] = (short) (Math.sin(2 * Math.PI * 440 * (written + i) / SAMPLE_RATE) * 8000);
+                }
+                recorder.recordSamples(SAMPLE_RATE, 1, ShortBuffer.wrap(block));
+            }
+            recorder.stop();
+        }
+    }
+}
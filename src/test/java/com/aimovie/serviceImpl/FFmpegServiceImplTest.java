@@ -0,0 +1,43 @@
+package com.aimovie.serviceImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FFmpegServiceImplTest {
+
+    private static final long SECOND = 1_000_000L;
+
+    @Test
+    void chunksStartOnSegmentBoundariesFromTheFirstFrame() {
+        // 6s segments; the source's first frame is not at zero
+        List<Long> starts = FFmpegServiceImpl.chunkStarts(40_000, 400 * SECOND, 120 * SECOND, 6 * SECOND);
+
+        assertEquals(List.of(40_000L, 40_000 + 120 * SECOND, 40_000 + 240 * SECOND, 40_000 + 360 * SECOND), starts);
+    }
+
+    @Test
+    void chunkLengthIsRoundedToWholeSegments() {
+        // 100s is 16.7 segments of 6s: chunks of 17 segments
+        List<Long> starts = FFmpegServiceImpl.chunkStarts(0, 300 * SECOND, 100 * SECOND, 6 * SECOND);
+
+        assertEquals(List.of(0L, 102 * SECOND, 204 * SECOND), starts);
+        starts.forEach(start -> assertEquals(0, start % (6 * SECOND)));
+    }
+
+    @Test
+    void chunkShorterThanASegmentStillSpansOne() {
+        List<Long> starts = FFmpegServiceImpl.chunkStarts(0, 20 * SECOND, 2 * SECOND, 6 * SECOND);
+
+        assertEquals(List.of(0L, 6 * SECOND, 12 * SECOND, 18 * SECOND), starts);
+    }
+
+    @Test
+    void noStartAtOrPastTheEnd() {
+        List<Long> starts = FFmpegServiceImpl.chunkStarts(0, 240 * SECOND, 120 * SECOND, 6 * SECOND);
+
+        assertEquals(List.of(0L, 120 * SECOND), starts);
+    }
+}
@@ -0,0 +1,66 @@
+package com.aimovie.serviceImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MediaReferencesTest {
+
+    private final MediaReferences references = new MediaReferences(
+            Set.of("movie.mp4"),
+            Set.of("poster.jpg"),
+            Set.of("english.vtt"),
+            Set.of(1L, 2L),
+            Set.of(2L, 3L),
+            Set.of("queued.mp4"));
+
+    @Test
+    void keepsReferencedUploadsAndDropsTheRest() {
+        assertTrue(references.isReferenced(MediaReferences.Area.VIDEO, "movie.mp4"));
+        assertTrue(references.isReferenced(MediaReferences.Area.VIDEO, "queued.mp4"));
+        assertFalse(references.isReferenced(MediaReferences.Area.VIDEO, "abandoned.mp4"));
+        assertTrue(references.isReferenced(MediaReferences.Area.IMAGE, "poster.jpg"));
+        assertFalse(references.isReferenced(MediaReferences.Area.IMAGE, "movie.mp4"));
+        assertTrue(references.isReferenced(MediaReferences.Area.SUBTITLE, "english.vtt"));
+        assertFalse(references.isReferenced(MediaReferences.Area.SUBTITLE, "french.vtt"));
+    }
+
+    @Test
+    void judgesRenditionFoldersByTheirMovie() {
+        assertTrue(references.isReferenced(MediaReferences.Area.VIDEO, "1/720p.mp4"));
+        assertTrue(references.isReferenced(MediaReferences.Area.VIDEO, "1/hls/720p/segment_00001.m4s"));
+        // Deleted movie
+        assertFalse(references.isReferenced(MediaReferences.Area.VIDEO, "9/hls/master.m3u8"));
+        // Leftover chunk encodes, unless a job for the movie may still be using them
+        assertFalse(references.isReferenced(MediaReferences.Area.VIDEO, "1/chunks/720p_0003.mp4"));
+        assertTrue(references.isReferenced(MediaReferences.Area.VIDEO, "2/chunks/720p_0003.mp4"));
+        // A job can run before its movie folder is referenced anywhere else
+        assertTrue(references.isReferenced(MediaReferences.Area.VIDEO, "3/720p.mp4"));
+    }
+
+    @Test
+    void clearsTempFilesOfMoviesWithoutActiveJobs() {
+        assertTrue(references.isReferenced(MediaReferences.Area.TEMP, "ffmpeg/3/1_720p.mp4"));
+        assertFalse(references.isReferenced(MediaReferences.Area.TEMP, "ffmpeg/1/1_720p.mp4"));
+        assertTrue(references.isReferenced(MediaReferences.Area.TEMP, "queued.mp4"));
+        assertFalse(references.isReferenced(MediaReferences.Area.TEMP, "failed.mp4"));
+    }
+
+    @Test
+    void leavesUnknownLayoutsAlone() {
+        assertTrue(references.isReferenced(MediaReferences.Area.VIDEO, "legacy/clip.mp4"));
+        assertTrue(references.isReferenced(MediaReferences.Area.IMAGE, "avatars/user.png"));
+        assertTrue(references.isReferenced(MediaReferences.Area.TEMP, "other/file.bin"));
+    }
+
+    @Test
+    void extractsStoredFilenamesFromUrls() {
+        assertEquals("a.jpg", MediaReferences.filenameOf("/api/images/a.jpg"));
+        assertEquals("b.mp4", MediaReferences.filenameOf("https://cdn.example.com/videos/b.mp4?v=2#t=10"));
+        assertEquals("c.vtt", MediaReferences.filenameOf("c.vtt"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.SearchFacetsDTO;
+import com.aimovie.dto.SearchRequest;
+import com.aimovie.entity.Country;
+import com.aimovie.entity.Director;
+import com.aimovie.entity.Movie;
+import com.aimovie.repository.MovieRepository;
+import com.aimovie.service.MovieSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MovieSearchIndexImplTest {
+
+    @Mock private MovieRepository movieRepository;
+
+    @InjectMocks
+    private MovieSearchIndexImpl movieSearchIndex;
+
+    @BeforeEach
+    void buildIndex() {
+        Director tran = Director.builder().name("Trần Anh Hùng").build();
+        Director nolan = Director.builder().name("Christopher Nolan").build();
+        Country vietnam = Country.builder().name("Việt Nam").build();
+        Country usa = Country.builder().name("USA").build();
+
+        when(movieRepository.findAll()).thenReturn(List.of(
+                movie(1L, "Mùi đu đủ xanh", tran, vietnam, 1993, 4.5, List.of("Trần Nữ Yên Khê")),
+                movie(2L, "Xích lô", tran, vietnam, 1995, 4.0, List.of("Lê Văn Lộc", "Trần Nữ Yên Khê")),
+                movie(3L, "Inception", nolan, usa, 2010, 4.8, List.of("Leonardo DiCaprio")),
+                movie(4L, "Interstellar", nolan, usa, 2014, 4.6, List.of("Matthew McConaughey"))));
+        movieSearchIndex.rebuild();
+    }
+
+    @Test
+    void foldsVietnameseDiacriticsInQueries() {
+        assertEquals(List.of(1L), search(SearchRequest.builder().query("mui du du xanh").build()));
+        assertEquals(List.of(2L), search(SearchRequest.builder().query("XÍCH LÔ").build()));
+    }
+
+    @Test
+    void expandsLastQueryTokenAsPrefix() {
+        assertEquals(List.of(3L, 4L), search(SearchRequest.builder().query("in").sortBy("year").sortDirection("asc").build()));
+    }
+
+    @Test
+    void intersectsAllFilters() {
+        SearchRequest request = SearchRequest.builder()
+                .directors(List.of("tran anh"))
+                .actors(List.of("yen khe"))
+                .country("viet nam")
+                .yearFrom(1994)
+                .minRating(3.5)
+                .build();
+
+        assertEquals(List.of(2L), search(request));
+    }
+
+    @Test
+    void matchesPeopleFromTheStartOfAnyWordOfTheirName() {
+        assertEquals(List.of(3L, 4L), search(SearchRequest.builder().directors(List.of("nol")).build()));
+        assertEquals(List.of(4L), search(SearchRequest.builder().actors(List.of("mcconaughey")).build()));
+        assertEquals(List.of(), search(SearchRequest.builder().actors(List.of("aprio")).build()));
+    }
+
+    @Test
+    void ranksByBm25WhenQueryPresent() {
+        // "nolan" only matches through the director field, so both films tie and fall back to id order
+        assertEquals(List.of(3L, 4L), search(SearchRequest.builder().query("nolan").build()));
+        assertEquals(List.of(4L), search(SearchRequest.builder().query("nolan").yearFrom(2011).build()));
+    }
+
+    @Test
+    void countsFacetsOverResultSet() {
+        SearchFacetsDTO facets = movieSearchIndex.search(SearchRequest.builder().directors(List.of("tran")).build()).facets();
+
+        assertEquals(List.of("Việt Nam=2"), format(facets.getCountries()));
+        assertEquals(List.of("Trần Anh Hùng=2"), format(facets.getDirectors()));
+        assertEquals(List.of("1990s=2"), format(facets.getDecades()));
+        assertEquals(List.of("4-5=2"), format(facets.getRatingBuckets()));
+    }
+
+    private static List<String> format(List<SearchFacetsDTO.FacetCount> counts) {
+        return counts.stream().map(count -> count.getValue() + "=" + count.getCount()).toList();
+    }
+
+    private List<Long> search(SearchRequest request) {
+        MovieSearchIndex.SearchHits hits = movieSearchIndex.search(request);
+        return hits.movieIds();
+    }
+
+    @Test
+    void suggestsOnlyReleasedAvailableTitles() {
+        Director nolan = Director.builder().name("Christopher Nolan").build();
+        Country usa = Country.builder().name("USA").build();
+        Movie upcoming = movie(5L, "Inside Man 2", nolan, usa, 2030, 0.0, List.of("Indira Varma"));
+        upcoming.setReleaseDate(LocalDate.now().plusDays(30));
+        Movie hidden = movie(6L, "Insomnia", nolan, usa, 2002, 4.1, List.of("Al Pacino"));
+        hidden.setIsAvailable(false);
+        when(movieRepository.findAll()).thenReturn(List.of(
+                movie(3L, "Inception", nolan, usa, 2010, 4.8, List.of("Leonardo DiCaprio")),
+                movie(4L, "Interstellar", nolan, usa, 2014, 4.6, List.of("Matthew McConaughey")),
+                upcoming, hidden));
+        movieSearchIndex.rebuild();
+
+        assertEquals(List.of("Inception", "Interstellar"), movieSearchIndex.suggest("in", 10));
+        assertEquals(List.of(), movieSearchIndex.suggest("pacino", 10));
+    }
+
+    private static Movie movie(Long id, String title, Director director, Country country, int year,
+                               double rating, List<String> actors) {
+        return Movie.builder()
+                .id(id)
+                .title(title)
+                .director(director)
+                .country(country)
+                .year(year)
+                .averageRating(rating)
+                .actors(actors)
+                .build();
+    }
+}
@@ -0,0 +1,206 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.TranscodingDTOs;
+import com.aimovie.dto.UploadSessionDTOs;
+import com.aimovie.entity.UploadSession;
+import com.aimovie.repository.MovieRepository;
+import com.aimovie.repository.UploadSessionRepository;
+import com.aimovie.service.FileUploadService;
+import com.aimovie.service.MovieService;
+import com.aimovie.service.TranscodingJobService;
+import com.aimovie.service.VideoMetadataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadServiceImplTest {
+
+    private static final Long MOVIE_ID = 5L;
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    @Mock private UploadSessionRepository uploadSessionRepository;
+    @Mock private MovieRepository movieRepository;
+    @Mock private MovieService movieService;
+    @Mock private FileUploadService fileUploadService;
+    @Mock private VideoMetadataService videoMetadataService;
+    @Mock private TranscodingJobService transcodingJobService;
+
+    @InjectMocks
+    private ResumableUploadServiceImpl resumableUploadService;
+
+    @TempDir
+    Path uploadDir;
+
+    private final Map<String, UploadSession> sessions = new HashMap<>();
+    // Two full chunks and a short last one
+    private final byte[] content = new byte[2 * CHUNK_SIZE + 1000];
+
+    @BeforeEach
+    void setUp() throws IOException {
+        new Random(42).nextBytes(content);
+        ReflectionTestUtils.setField(resumableUploadService, "maxChunkSize", 64 * 1024 * 1024);
+
+        lenient().when(movieRepository.existsById(MOVIE_ID)).thenReturn(true);
+        lenient().when(fileUploadService.getVideoFilePath(anyString()))
+                .thenAnswer(invocation -> uploadDir.resolve(invocation.<String>getArgument(0)));
+        lenient().when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> {
+            UploadSession session = invocation.getArgument(0);
+            sessions.put(session.getId(), session);
+            return session;
+        });
+        lenient().when(uploadSessionRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(sessions.get(invocation.<String>getArgument(0))));
+        lenient().when(videoMetadataService.extractMetadataFromFile(any(), any()))
+                .thenReturn(new VideoMetadataService.VideoMetadata());
+        lenient().when(transcodingJobService.enqueue(any(), any()))
+                .thenReturn(TranscodingDTOs.JobSummary.builder().status("QUEUED").build());
+    }
+
+    @Test
+    void chunksArriveOutOfOrderAndCompleteTheFile() throws IOException {
+        String uploadId = createSession();
+
+        writeChunk(uploadId, 2);
+        writeChunk(uploadId, 0);
+        UploadSessionDTOs.UploadSessionResponse progress = writeChunk(uploadId, 1);
+        assertEquals(3, progress.getReceivedChunkCount());
+        assertEquals(List.of(), progress.getMissingChunks());
+
+        UploadSessionDTOs.UploadSessionResponse completed = resumableUploadService.completeSession(MOVIE_ID, uploadId);
+
+        assertEquals("COMPLETED", completed.getStatus());
+        assertEquals("QUEUED", completed.getProcessingStatus());
+        assertArrayEquals(content, Files.readAllBytes(uploadDir.resolve(sessions.get(uploadId).getStoredFilename())));
+        verify(transcodingJobService).enqueue(eq(MOVIE_ID), any());
+    }
+
+    @Test
+    void duplicateChunkKeepsTheVerifiedBytes() throws IOException {
+        String uploadId = createSession();
+        writeChunk(uploadId, 0);
+
+        // A resend with different bytes and a matching checksum must not replace the stored chunk
+        byte[] other = new byte[CHUNK_SIZE];
+        resumableUploadService.writeChunk(MOVIE_ID, uploadId, 0, sha256(other), new ByteArrayInputStream(other));
+        writeChunk(uploadId, 1);
+        writeChunk(uploadId, 2);
+        resumableUploadService.completeSession(MOVIE_ID, uploadId);
+
+        assertArrayEquals(content, Files.readAllBytes(uploadDir.resolve(sessions.get(uploadId).getStoredFilename())));
+    }
+
+    @Test
+    void corruptChunkStaysMissingUntilResent() throws IOException {
+        String uploadId = createSession();
+        writeChunk(uploadId, 0);
+
+        byte[] corrupt = chunk(1);
+        String expected = sha256(corrupt);
+        corrupt[17] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> resumableUploadService.writeChunk(
+                MOVIE_ID, uploadId, CHUNK_SIZE, expected, new ByteArrayInputStream(corrupt)));
+
+        assertEquals(List.of(1, 2), resumableUploadService.getSession(MOVIE_ID, uploadId).getMissingChunks());
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(1, files.count(), "chunks go straight into the part file");
+        }
+
+        // The resend overwrites the corrupt bytes in place
+        writeChunk(uploadId, 1);
+        writeChunk(uploadId, 2);
+        resumableUploadService.completeSession(MOVIE_ID, uploadId);
+        assertArrayEquals(content, Files.readAllBytes(uploadDir.resolve(sessions.get(uploadId).getStoredFilename())));
+    }
+
+    @Test
+    void concurrentResendOfAChunkInProgressIsRefused() throws IOException {
+        String uploadId = createSession();
+        byte[] bytes = chunk(0);
+        String checksum = sha256(bytes);
+
+        // The first request is still receiving when the duplicate arrives
+        InputStream slowBody = new ByteArrayInputStream(bytes) {
+            private boolean resent;
+
+            @Override
+            public int read(byte[] buffer) throws IOException {
+                if (!resent) {
+                    resent = true;
+                    assertThrows(IllegalStateException.class, () -> resumableUploadService.writeChunk(
+                            MOVIE_ID, uploadId, 0, checksum, new ByteArrayInputStream(bytes)));
+                }
+                return super.read(buffer);
+            }
+        };
+        UploadSessionDTOs.UploadSessionResponse response = resumableUploadService.writeChunk(
+                MOVIE_ID, uploadId, 0, checksum, slowBody);
+
+        assertEquals(1, response.getReceivedChunkCount());
+    }
+
+    @Test
+    void completionFailsWhileChunksAreMissing() throws IOException {
+        String uploadId = createSession();
+        writeChunk(uploadId, 0);
+        writeChunk(uploadId, 2);
+
+        assertThrows(IllegalStateException.class, () -> resumableUploadService.completeSession(MOVIE_ID, uploadId));
+        assertEquals(List.of(1), resumableUploadService.getSession(MOVIE_ID, uploadId).getMissingChunks());
+    }
+
+    private String createSession() throws IOException {
+        return resumableUploadService.createSession(MOVIE_ID, UploadSessionDTOs.CreateUploadSessionRequest.builder()
+                .filename("feature.mp4")
+                .totalSize((long) content.length)
+                .chunkSize(CHUNK_SIZE)
+                .build()).getUploadId();
+    }
+
+    private UploadSessionDTOs.UploadSessionResponse writeChunk(String uploadId, int index) throws IOException {
+        byte[] bytes = chunk(index);
+        return resumableUploadService.writeChunk(MOVIE_ID, uploadId, (long) index * CHUNK_SIZE, sha256(bytes),
+                new ByteArrayInputStream(bytes));
+    }
+
+    private byte[] chunk(int index) {
+        int from = index * CHUNK_SIZE;
+        return Arrays.copyOfRange(content, from, Math.min(from + CHUNK_SIZE, content.length));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.aimovie.serviceImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SuggestionTrieTest {
+
+    @Test
+    void completesAnyWordAndRanksByWeight() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.add("Christopher Nolan", 50);
+        trie.add("Nobody", 10);
+        trie.add("Người Nhện", 80);
+
+        assertEquals(List.of("Người Nhện", "Christopher Nolan", "Nobody"), trie.complete("n", 10));
+        assertEquals(List.of("Christopher Nolan", "Nobody"), trie.complete("no", 10));
+        assertEquals(List.of("Người Nhện"), trie.complete("nguoi nh", 10));
+        assertEquals(List.of("Người Nhện"), trie.complete("n", 1));
+    }
+
+    @Test
+    void reranksAndPrunesIncrementally() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.add("Inception", 5);
+        trie.add("Interstellar", 3);
+        assertEquals(List.of("Inception", "Interstellar"), trie.complete("in", 10));
+
+        trie.add("Interstellar", 10);
+        assertEquals(List.of("Interstellar", "Inception"), trie.complete("in", 10));
+
+        trie.remove("Interstellar", 3);
+        trie.remove("Interstellar", 10);
+        assertEquals(List.of("Inception"), trie.complete("in", 10));
+        assertEquals(List.of(), trie.complete("inte", 10));
+    }
+
+    @Test
+    void deferredRankingMatchesIncrementalRanking() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.deferRanking();
+        trie.add("Mai", 7);
+        trie.add("Mắt Biếc", 9);
+        trie.rankAll();
+
+        assertEquals(List.of("Mắt Biếc", "Mai"), trie.complete("ma", 10));
+    }
+}
@@ -0,0 +1,265 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.TranscodingDTOs;
+import com.aimovie.entity.Movie;
+import com.aimovie.entity.TranscodingJob;
+import com.aimovie.entity.VideoResolution;
+import com.aimovie.exception.TranscodingQueueFullException;
+import com.aimovie.repository.MovieRepository;
+import com.aimovie.repository.TranscodingJobRepository;
+import com.aimovie.repository.VideoResolutionRepository;
+import com.aimovie.service.FFmpegService;
+import com.aimovie.service.FileUploadService;
+import com.aimovie.service.MediaBlobService;
+import com.aimovie.service.TranscodingCapacity;
+import com.aimovie.service.TranscodingMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TranscodingJobServiceImplTest {
+
+    private static final long LEASE_MS = 60_000;
+    private static final long RETRY_BACKOFF_MS = 30_000;
+    private static final long DEFERRED_DELAY_MS = 600_000;
+
+    @Mock private TranscodingJobRepository transcodingJobRepository;
+    @Mock private VideoResolutionRepository videoResolutionRepository;
+    @Mock private MovieRepository movieRepository;
+    @Mock private FFmpegService ffmpegService;
+    @Mock private FileUploadService fileUploadService;
+    @Mock private MediaBlobService mediaBlobService;
+    @Mock private TranscodingMetrics transcodingMetrics;
+    @Mock private TranscodingCapacity transcodingCapacity;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private TranscodingJobServiceImpl service;
+    private String nodeId;
+    private String hostName;
+
+    @BeforeEach
+    void setUp() {
+        service = new TranscodingJobServiceImpl(transcodingJobRepository, videoResolutionRepository, movieRepository,
+                ffmpegService, fileUploadService, mediaBlobService, transcodingMetrics, transcodingCapacity,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "leaseMs", LEASE_MS);
+        ReflectionTestUtils.setField(service, "retryBackoffMs", RETRY_BACKOFF_MS);
+        ReflectionTestUtils.setField(service, "deferredDelayMs", DEFERRED_DELAY_MS);
+        ReflectionTestUtils.setField(service, "maxQueuedJobs", 2);
+        ReflectionTestUtils.setField(service, "newReleaseDays", 90);
+        nodeId = (String) ReflectionTestUtils.getField(service, "nodeId");
+        hostName = (String) ReflectionTestUtils.getField(service, "hostName");
+    }
+
+    @Test
+    void claimTakesQueuedJobUnderLease() {
+        TranscodingJob queued = job(TranscodingJob.JobStatus.QUEUED, null, 0);
+        queued.setAvailableAt(LocalDateTime.now().minusSeconds(5));
+        when(transcodingJobRepository.lockNextClaimable(any(), eq(hostName))).thenReturn(Optional.of(queued));
+        when(transcodingJobRepository.save(any(TranscodingJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LocalDateTime before = LocalDateTime.now();
+        TranscodingJob claimed = service.claimNext();
+
+        assertEquals(TranscodingJob.JobStatus.RUNNING, claimed.getStatus());
+        assertEquals(1, claimed.getAttempts());
+        assertEquals(nodeId, claimed.getLeaseOwner());
+        assertNotNull(claimed.getStartedAt());
+        assertTrue(!claimed.getLeaseExpiresAt().isBefore(before.plusNanos(LEASE_MS * 1_000_000)));
+        verify(transcodingJobRepository).lockNextClaimable(any(), eq(hostName));
+    }
+
+    @Test
+    void claimReturnsNothingWhenNoJobIsDue() {
+        when(transcodingJobRepository.lockNextClaimable(any(), eq(hostName))).thenReturn(Optional.empty());
+
+        assertNull(service.claimNext());
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedByThisNode() {
+        TranscodingJob abandoned = job(TranscodingJob.JobStatus.RUNNING, "crashed-node", 1);
+        abandoned.setLeaseExpiresAt(LocalDateTime.now().minusSeconds(1));
+        when(transcodingJobRepository.lockNextClaimable(any(), eq(hostName))).thenReturn(Optional.of(abandoned));
+        when(transcodingJobRepository.save(any(TranscodingJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TranscodingJob claimed = service.claimNext();
+
+        assertEquals(TranscodingJob.JobStatus.RUNNING, claimed.getStatus());
+        assertEquals(2, claimed.getAttempts());
+        assertEquals(nodeId, claimed.getLeaseOwner());
+        assertTrue(claimed.getLeaseExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void expiredLeaseOnFinalAttemptFailsTheJob() {
+        TranscodingJob abandoned = job(TranscodingJob.JobStatus.RUNNING, "crashed-node", 3);
+        abandoned.setLeaseExpiresAt(LocalDateTime.now().minusSeconds(1));
+        when(transcodingJobRepository.lockNextClaimable(any(), eq(hostName))).thenReturn(Optional.of(abandoned));
+        when(transcodingJobRepository.save(any(TranscodingJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertNull(service.claimNext());
+        assertEquals(TranscodingJob.JobStatus.FAILED, abandoned.getStatus());
+        assertNull(abandoned.getLeaseOwner());
+        assertNotNull(abandoned.getFinishedAt());
+    }
+
+    @Test
+    void retryableFailureIsRequeuedWithBackoff() {
+        TranscodingJob running = job(TranscodingJob.JobStatus.RUNNING, nodeId, 2);
+        when(transcodingJobRepository.lockById(running.getId())).thenReturn(Optional.of(running));
+
+        LocalDateTime before = LocalDateTime.now();
+        service.finish(running, TranscodingJob.JobStatus.FAILED, "Source file not found", true);
+
+        assertEquals(TranscodingJob.JobStatus.QUEUED, running.getStatus());
+        assertNull(running.getLeaseOwner());
+        assertNull(running.getFinishedAt());
+        assertEquals("Source file not found", running.getLastError());
+        // Second attempt failed: twice the base backoff
+        assertTrue(!running.getAvailableAt().isBefore(before.plusNanos(2 * RETRY_BACKOFF_MS * 1_000_000)));
+    }
+
+    @Test
+    void failureOnFinalAttemptIsPermanent() {
+        TranscodingJob running = job(TranscodingJob.JobStatus.RUNNING, nodeId, 3);
+        when(transcodingJobRepository.lockById(running.getId())).thenReturn(Optional.of(running));
+
+        service.finish(running, TranscodingJob.JobStatus.FAILED, "encoder crashed", true);
+
+        assertEquals(TranscodingJob.JobStatus.FAILED, running.getStatus());
+        assertNotNull(running.getFinishedAt());
+    }
+
+    @Test
+    void resultIsDiscardedOnceAnotherNodeReclaimedTheJob() {
+        TranscodingJob claimed = job(TranscodingJob.JobStatus.RUNNING, nodeId, 1);
+        TranscodingJob reclaimed = job(TranscodingJob.JobStatus.RUNNING, "other-node", 2);
+        when(transcodingJobRepository.lockById(claimed.getId())).thenReturn(Optional.of(reclaimed));
+
+        service.finish(claimed, TranscodingJob.JobStatus.COMPLETED, null, false);
+
+        assertEquals(TranscodingJob.JobStatus.RUNNING, reclaimed.getStatus());
+        assertEquals("other-node", reclaimed.getLeaseOwner());
+    }
+
+    @Test
+    void resultOfAnEarlierAttemptIsDiscarded() {
+        TranscodingJob claimed = job(TranscodingJob.JobStatus.RUNNING, nodeId, 1);
+        // The lease lapsed and this node reclaimed the job for a second attempt
+        TranscodingJob reclaimed = job(TranscodingJob.JobStatus.RUNNING, nodeId, 2);
+        when(transcodingJobRepository.lockById(claimed.getId())).thenReturn(Optional.of(reclaimed));
+
+        service.finish(claimed, TranscodingJob.JobStatus.COMPLETED, null, false);
+
+        assertEquals(TranscodingJob.JobStatus.RUNNING, reclaimed.getStatus());
+        assertNull(reclaimed.getFinishedAt());
+    }
+
+    @Test
+    void supersededRunMayNoLongerWriteRenditions() {
+        TranscodingJob claimed = job(TranscodingJob.JobStatus.RUNNING, nodeId, 1);
+        TranscodingJob cancelled = job(TranscodingJob.JobStatus.CANCELLED, nodeId, 1);
+        when(transcodingJobRepository.lockById(claimed.getId()))
+                .thenReturn(Optional.of(job(TranscodingJob.JobStatus.RUNNING, nodeId, 1)))
+                .thenReturn(Optional.of(cancelled));
+
+        assertTrue(service.isCurrentRun(claimed));
+        assertFalse(service.isCurrentRun(claimed));
+    }
+
+    @Test
+    void fullQueueRejectsBackCatalogBeforeAnythingIsStored() {
+        when(transcodingJobRepository.countByStatus(TranscodingJob.JobStatus.QUEUED)).thenReturn(2L);
+
+        assertThrows(TranscodingQueueFullException.class, () -> service.checkCapacity(null, 1999));
+        // New releases are always admitted
+        service.checkCapacity(LocalDate.now().minusDays(10), null);
+    }
+
+    @Test
+    void fullQueueDefersAStoredSourceInsteadOfRejectingIt() {
+        when(movieRepository.findById(7L)).thenReturn(Optional.of(Movie.builder().id(7L).year(1999).build()));
+        when(transcodingJobRepository.countByStatus(TranscodingJob.JobStatus.QUEUED)).thenReturn(2L);
+        when(transcodingJobRepository.save(any(TranscodingJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LocalDateTime before = LocalDateTime.now();
+        TranscodingDTOs.JobSummary summary = service.enqueue(7L, TranscodingDTOs.SourceFile.builder()
+                .localPath(Paths.get("/uploads/videos/source.mp4"))
+                .originalFilename("source.mp4")
+                .storedFilename("source.mp4")
+                .deferWhenFull(true)
+                .build());
+
+        assertEquals("QUEUED", summary.getStatus());
+        assertTrue(summary.isDeferred());
+        assertFalse(summary.getAvailableAt().isBefore(before.plusNanos(DEFERRED_DELAY_MS * 1_000_000)));
+    }
+
+    @Test
+    void sameContentUploadedToAnotherMovieReusesItsRenditions() throws Exception {
+        Movie owner = Movie.builder().id(7L).year(1999).sourceContentHash("abc").build();
+        Movie copy = Movie.builder().id(8L).year(1999).build();
+        VideoResolution rendition = VideoResolution.builder()
+                .movie(owner).quality("720p").width(1280).height(720).bitrate(2800)
+                .videoUrl("/api/videos/stream/7/7_720p.mp4").encodingStatus("COMPLETED").encodingProgress(100)
+                .build();
+        when(movieRepository.findById(8L)).thenReturn(Optional.of(copy));
+        when(movieRepository.findBySourceContentHash("abc")).thenReturn(List.of(owner));
+        when(videoResolutionRepository.findByMovieId(7L)).thenReturn(List.of(rendition));
+        when(fileUploadService.buildPublicVideoUrl(8L, "8_720p.mp4")).thenReturn("/api/videos/stream/8/8_720p.mp4");
+        when(transcodingJobRepository.save(any(TranscodingJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TranscodingDTOs.JobSummary summary = service.enqueue(8L, TranscodingDTOs.SourceFile.builder()
+                .localPath(Paths.get("/uploads/videos/source.mp4"))
+                .originalFilename("source.mp4")
+                .storedFilename("source.mp4")
+                .contentHash("abc")
+                .build());
+
+        assertEquals("COMPLETED", summary.getStatus());
+        assertEquals("abc", copy.getSourceContentHash());
+        verify(fileUploadService).copyMovieRenditions(7L, 8L);
+        verify(videoResolutionRepository).save(argThat(saved -> saved.getMovie() == copy
+                && "720p".equals(saved.getQuality())
+                && "/api/videos/stream/8/8_720p.mp4".equals(saved.getVideoUrl())
+                && "COMPLETED".equals(saved.getEncodingStatus())));
+    }
+
+    private static TranscodingJob job(TranscodingJob.JobStatus status, String leaseOwner, int attempts) {
+        return TranscodingJob.builder()
+                .id(42L)
+                .movieId(7L)
+                .sourcePath("/uploads/videos/source.mp4")
+                .status(status)
+                .attempts(attempts)
+                .maxAttempts(3)
+                .availableAt(LocalDateTime.now())
+                .leaseOwner(leaseOwner)
+                .build();
+    }
+}
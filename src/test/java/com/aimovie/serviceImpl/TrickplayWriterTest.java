@@ -0,0 +1,62 @@
+package com.aimovie.serviceImpl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrickplayWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tilesThumbnailsIntoSheetsAndWritesTrack() throws Exception {
+        TrickplayWriter writer = new TrickplayWriter(directory, 10, 160, 2, 2, 0.7f);
+        long frameMicros = 1_000_000;
+        for (long offset = 0; offset < 50 * frameMicros; offset += frameMicros) {
+            if (writer.wants(offset)) {
+                writer.add(new BufferedImage(1280, 720, BufferedImage.TYPE_3BYTE_BGR));
+            }
+        }
+        assertFalse(writer.isCompleted());
+        writer.finish();
+
+        assertTrue(writer.isCompleted());
+        assertEquals(5, writer.getThumbnailCount());
+        assertEquals(List.of(directory.resolve("sprite_000.jpg"), directory.resolve("sprite_001.jpg"),
+                directory.resolve(TrickplayWriter.TRACK_FILENAME)), writer.getFiles());
+
+        // 160x90 tiles; the last sheet holds one thumbnail and is cropped to one row
+        BufferedImage last = ImageIO.read(directory.resolve("sprite_001.jpg").toFile());
+        assertEquals(320, last.getWidth());
+        assertEquals(90, last.getHeight());
+
+        String track = Files.readString(directory.resolve(TrickplayWriter.TRACK_FILENAME));
+        assertTrue(track.startsWith("WEBVTT\n\n00:00:00.000 --> 00:00:10.000\nsprite_000.jpg#xywh=0,0,160,90\n"));
+        assertTrue(track.contains("00:00:30.000 --> 00:00:40.000\nsprite_000.jpg#xywh=160,90,160,90\n"));
+        assertTrue(track.contains("00:00:40.000 --> 00:00:50.000\nsprite_001.jpg#xywh=0,0,160,90\n"));
+    }
+
+    @Test
+    void writesNothingWithoutFrames() throws Exception {
+        TrickplayWriter writer = new TrickplayWriter(directory, 10, 160, 2, 2, 0.7f);
+        writer.finish();
+
+        assertFalse(writer.isCompleted());
+        assertTrue(writer.getFiles().isEmpty());
+    }
+
+    @Test
+    void formatsCueTimestamps() {
+        assertEquals("01:02:03.000", TrickplayWriter.timestamp(3723));
+    }
+}
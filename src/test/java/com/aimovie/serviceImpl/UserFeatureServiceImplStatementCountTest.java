@@ -0,0 +1,107 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.SearchRequest;
+import com.aimovie.dto.SearchResultDTO;
+import com.aimovie.entity.Category;
+import com.aimovie.entity.Country;
+import com.aimovie.entity.Director;
+import com.aimovie.entity.Movie;
+import com.aimovie.service.AdminStatsCache;
+import com.aimovie.service.MovieSearchIndex;
+import com.aimovie.service.VideoResolutionService;
+import com.aimovie.service.ViewCountBufferService;
+import com.aimovie.service.WatchProgressBufferService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the JDBC statements a search page costs against a real schema, so a lazy association
+ * touched per movie shows up as a count that grows with the page size.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-count;MODE=MySQL;NON_KEYWORDS=YEAR,VALUE,USER",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserFeatureServiceImpl.class)
+class UserFeatureServiceImplStatementCountTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Autowired private UserFeatureServiceImpl userFeatureService;
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @MockBean private AdminStatsCache adminStatsCache;
+    @MockBean private MovieSearchIndex movieSearchIndex;
+    @MockBean private ViewCountBufferService viewCountBufferService;
+    @MockBean private WatchProgressBufferService watchProgressBufferService;
+    @MockBean private VideoResolutionService videoResolutionService;
+    @MockBean private PasswordEncoder passwordEncoder;
+
+    private final List<Long> movieIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Director director = entityManager.persist(Director.builder().name("Christopher Nolan").build());
+        Country country = entityManager.persist(Country.builder().name("USA").build());
+        Category drama = entityManager.persist(Category.builder().name("drama").build());
+        Category scifi = entityManager.persist(Category.builder().name("sci-fi").build());
+        for (int i = 1; i <= 100; i++) {
+            Movie movie = entityManager.persist(Movie.builder()
+                    .title("Movie " + i)
+                    .year(2000 + i % 20)
+                    .director(director)
+                    .country(country)
+                    .categories(new HashSet<>(Set.of(drama, scifi)))
+                    .build());
+            movieIds.add(movie.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void searchPageCostsTheSameStatementsWhateverItsSize() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<Integer, Long> statementsByPageSize = new LinkedHashMap<>();
+
+        for (int pageSize : new int[] {1, 20, 100}) {
+            List<Long> page = movieIds.subList(0, pageSize);
+            when(movieSearchIndex.search(any(SearchRequest.class)))
+                    .thenReturn(new MovieSearchIndex.SearchHits(page, 100, 0, pageSize, null));
+            entityManager.clear();
+            statistics.clear();
+
+            SearchResultDTO result = userFeatureService.searchMovies(USER_ID,
+                    SearchRequest.builder().query("movie").size(pageSize).build());
+
+            assertEquals(pageSize, result.getMovies().size());
+            statementsByPageSize.put(pageSize, statistics.getPrepareStatementCount());
+        }
+
+        // The page itself, then the user's watchlist and favorite flags for it
+        assertEquals(Map.of(1, 3L, 20, 3L, 100, 3L), statementsByPageSize);
+    }
+}
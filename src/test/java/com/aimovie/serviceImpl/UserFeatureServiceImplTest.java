@@ -0,0 +1,115 @@
+package com.aimovie.serviceImpl;
+
+import com.aimovie.dto.MovieSearchDTO;
+import com.aimovie.dto.SearchRequest;
+import com.aimovie.dto.SearchResultDTO;
+import com.aimovie.entity.Country;
+import com.aimovie.entity.Director;
+import com.aimovie.entity.Movie;
+import com.aimovie.repository.FavoriteRepository;
+import com.aimovie.repository.MovieRepository;
+import com.aimovie.repository.SubtitleRepository;
+import com.aimovie.repository.UserRepository;
+import com.aimovie.repository.VideoResolutionRepository;
+import com.aimovie.repository.WatchHistoryRepository;
+import com.aimovie.repository.WatchlistCollectionRepository;
+import com.aimovie.repository.WatchlistRepository;
+import com.aimovie.service.MovieSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserFeatureServiceImplTest {
+
+    private static final Long USER_ID = 7L;
+
+    @Mock private UserRepository userRepository;
+    @Mock private MovieRepository movieRepository;
+    @Mock private WatchHistoryRepository watchHistoryRepository;
+    @Mock private FavoriteRepository favoriteRepository;
+    @Mock private WatchlistRepository watchlistRepository;
+    @Mock private WatchlistCollectionRepository watchlistCollectionRepository;
+    @Mock private SubtitleRepository subtitleRepository;
+    @Mock private VideoResolutionRepository videoResolutionRepository;
+    @Mock private MovieSearchIndex movieSearchIndex;
+
+    @InjectMocks
+    private UserFeatureServiceImpl userFeatureService;
+
+    @Test
+    void searchMoviesReturnsThePageInIndexOrderWithTheUsersFlags() {
+        Director nolan = Director.builder().name("Christopher Nolan").build();
+        Country usa = Country.builder().name("USA").build();
+        Movie inception = movie(1L, "Inception", nolan, usa);
+        Movie interstellar = movie(2L, "Interstellar", nolan, usa);
+        Movie tenet = movie(3L, "Tenet", nolan, usa);
+        // Second page of 3 out of 45 hits, ranked differently from the database's id order
+        when(movieSearchIndex.search(any(SearchRequest.class)))
+                .thenReturn(new MovieSearchIndex.SearchHits(List.of(3L, 1L, 2L), 45, 1, 3, null));
+        when(movieRepository.findByIdIn(List.of(3L, 1L, 2L))).thenReturn(List.of(inception, interstellar, tenet));
+        when(watchlistRepository.findWatchlistMovieIdsByUserIdAndMovieIdIn(eq(USER_ID), anyCollection()))
+                .thenReturn(List.of(3L));
+        when(favoriteRepository.findFavoriteMovieIdsByUserIdAndMovieIdIn(eq(USER_ID), anyCollection()))
+                .thenReturn(List.of(2L));
+
+        SearchResultDTO result = userFeatureService.searchMovies(USER_ID,
+                SearchRequest.builder().query("nolan").page(1).size(3).build());
+
+        assertEquals(List.of("Tenet", "Inception", "Interstellar"),
+                result.getMovies().stream().map(MovieSearchDTO::getTitle).toList());
+        MovieSearchDTO first = result.getMovies().get(0);
+        assertEquals(3L, first.getId());
+        assertEquals("Christopher Nolan", first.getDirectorName());
+        assertEquals("USA", first.getCountry());
+        assertEquals(List.of(true, false, false),
+                result.getMovies().stream().map(MovieSearchDTO::getIsInWatchlist).toList());
+        assertEquals(List.of(false, false, true),
+                result.getMovies().stream().map(MovieSearchDTO::getIsFavorite).toList());
+
+        assertEquals(45, result.getTotalElements());
+        assertEquals(15, result.getTotalPages());
+        assertEquals(1, result.getCurrentPage());
+        assertEquals(3, result.getSize());
+        assertTrue(result.isHasNext());
+        assertTrue(result.isHasPrevious());
+        assertEquals("nolan", result.getSearchQuery());
+    }
+
+    @Test
+    void movieDeletedSinceIndexingIsLeftOut() {
+        when(movieSearchIndex.search(any(SearchRequest.class)))
+                .thenReturn(new MovieSearchIndex.SearchHits(List.of(1L, 2L), 2, 0, 20, null));
+        when(movieRepository.findByIdIn(List.of(1L, 2L))).thenReturn(List.of(movie(2L, "Interstellar", null, null)));
+
+        SearchResultDTO result = userFeatureService.searchMovies(null, SearchRequest.builder().query("in").build());
+
+        assertEquals(List.of(2L), result.getMovies().stream().map(MovieSearchDTO::getId).toList());
+        assertFalse(result.getMovies().get(0).getIsInWatchlist());
+        assertFalse(result.getMovies().get(0).getIsFavorite());
+        // Anonymous searches have nothing to look up per user
+        verifyNoInteractions(watchlistRepository, favoriteRepository);
+    }
+
+    private static Movie movie(Long id, String title, Director director, Country country) {
+        return Movie.builder()
+                .id(id)
+                .title(title)
+                .director(director)
+                .country(country)
+                .build();
+    }
+}